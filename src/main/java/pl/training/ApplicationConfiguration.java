@@ -1,8 +1,44 @@
 package pl.training;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.servlet.LocaleResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
+import pl.training.common.web.ratelimit.RateLimitInterceptor;
+import pl.training.common.web.ratelimit.RateLimitProperties;
 
+import java.util.List;
+import java.util.Locale;
+
+@EnableScheduling
+@EnableConfigurationProperties(RateLimitProperties.class)
 @Configuration
 public class ApplicationConfiguration implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    public ApplicationConfiguration(final RateLimitInterceptor rateLimitInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/api/**");
+    }
+
+    // Accept-Language is narrowed to the locales with message bundles, anything else gets the default one
+    @Bean
+    public LocaleResolver localeResolver(@Value("${spring.web.locale:en}") Locale defaultLocale,
+                                         @Value("${web.supported-locales:en,pl-PL}") List<Locale> supportedLocales) {
+        var localeResolver = new AcceptHeaderLocaleResolver();
+        localeResolver.setDefaultLocale(defaultLocale);
+        localeResolver.setSupportedLocales(supportedLocales);
+        return localeResolver;
+    }
+
 }
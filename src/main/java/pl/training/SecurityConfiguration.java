@@ -1,22 +1,40 @@
 package pl.training;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.oauth2.client.OAuth2LoginConfigurer;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.RestClient;
 import org.springframework.web.cors.CorsConfiguration;
-import pl.training.security.KeycloakAuthoritiesConverter;
-import pl.training.security.KeycloakAuthoritiesMapper;
-import pl.training.security.KeycloakLogoutHandler;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import pl.training.security.*;
 
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.List;
 
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.security.config.Customizer.withDefaults;
+import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
 
 
 @Configuration
@@ -33,10 +51,35 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public CorsConfigurationSource corsConfigurationSource() {
+        var corsConfigurationSource = new UrlBasedCorsConfigurationSource();
+        corsConfigurationSource.registerCorsConfiguration("/**", corsConfiguration());
+        return corsConfigurationSource;
+    }
+
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http, ApiKeyStore apiKeyStore) throws Exception {
         return http
-                .csrf(config -> config.ignoringRequestMatchers("/api/**"))
-                .cors(config -> config.configurationSource(request -> corsConfiguration()))
+                .securityMatcher("/api/**")
+                .addFilterBefore(new ApiKeyAuthenticationFilter(apiKeyStore), BearerTokenAuthenticationFilter.class)
+                .csrf(AbstractHttpConfigurer::disable)
+                .cors(config -> config.configurationSource(corsConfigurationSource()))
+                .sessionManagement(config -> config.sessionCreationPolicy(STATELESS))
+                .requestCache(AbstractHttpConfigurer::disable)
+                .logout(AbstractHttpConfigurer::disable)
+                .oauth2ResourceServer(config -> config.jwt(withDefaults()))
+                .authorizeHttpRequests(config -> config
+                        .anyRequest().hasRole("ADMIN")
+                )
+                .build();
+    }
+
+    @Bean
+    @Order(2)
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, KeycloakLogoutHandler keycloakLogoutHandler) throws Exception {
+        return http
+                .cors(config -> config.configurationSource(corsConfigurationSource()))
                 .oauth2ResourceServer(config -> config.jwt(withDefaults()))
                 .oauth2Login(config -> config.userInfoEndpoint(this::userInfoCustomizer))
                 .authorizeHttpRequests(config -> config
@@ -48,7 +91,7 @@ public class SecurityConfiguration {
                         .logoutRequestMatcher(requestMatcherBuilder().matcher("/logout.html"))
                         .logoutSuccessUrl("/login.html")
                         .invalidateHttpSession(true)
-                        .addLogoutHandler(new KeycloakLogoutHandler(new RestTemplate()))
+                        .addLogoutHandler(keycloakLogoutHandler)
                 )
                 .build();
     }
@@ -61,10 +104,58 @@ public class SecurityConfiguration {
     @Bean
     public JwtAuthenticationConverter jwtConfigurer() {
         var jwtConverter = new JwtAuthenticationConverter();
-        jwtConverter.setJwtGrantedAuthoritiesConverter(new KeycloakAuthoritiesConverter());
+        jwtConverter.setJwtGrantedAuthoritiesConverter(new CachingAuthoritiesConverter(new KeycloakAuthoritiesConverter()));
         return jwtConverter;
     }
 
+    @Bean
+    public JwtDecoder jwtDecoder(@Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri,
+                                 RefreshingJwkSource jwkSource, VerifiedTokenCache verifiedTokenCache) {
+        var jwtProcessor = new DefaultJWTProcessor<SecurityContext>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.Family.RSA, jwkSource));
+        // claims are validated by NimbusJwtDecoder
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {});
+        var jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return new CachingJwtDecoder(jwtDecoder, new KeycloakAuthoritiesConverter(), verifiedTokenCache);
+    }
+
+    @Bean
+    public VerifiedTokenCache verifiedTokenCache(@Value("${security.token-cache.capacity:10000}") int capacity,
+                                                 @Value("${security.token-cache.max-time-to-live:PT5M}") Duration maxTimeToLive,
+                                                 MeterRegistry meterRegistry) {
+        return new VerifiedTokenCache(capacity, maxTimeToLive, Clock.systemUTC(), meterRegistry);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public RefreshingJwkSource jwkSource(@Value("${security.jwks.uri}") String jwkSetUri,
+                                         @Value("${security.jwks.cache-file}") Path cacheFile,
+                                         @Value("${security.jwks.refresh-interval:PT5M}") Duration refreshInterval,
+                                         @Value("${security.jwks.min-refresh-interval:PT30S}") Duration minRefreshInterval,
+                                         @Value("${security.jwks.timeout:PT5S}") Duration timeout,
+                                         VerifiedTokenCache verifiedTokenCache) {
+        var requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        var restClient = RestClient.builder().requestFactory(requestFactory).build();
+        return new RefreshingJwkSource(restClient, jwkSetUri, cacheFile, refreshInterval, minRefreshInterval, verifiedTokenCache);
+    }
+
+
+    @Bean
+    public KeycloakLogoutHandler keycloakLogoutHandler(@Value("${security.logout.timeout:PT5S}") Duration timeout,
+                                                       @Value("${security.logout.max-attempts:3}") int maxAttempts,
+                                                       @Value("${security.logout.retry-delay:PT1S}") Duration retryDelay) {
+        var httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+        return new KeycloakLogoutHandler(httpClient, timeout, maxAttempts, retryDelay);
+    }
+
+    @Bean
+    public ApiKeyStore apiKeyStore(ApiKeyRepository apiKeyRepository) {
+        return new ApiKeyStore(apiKeyRepository);
+    }
 
     // Client scopes -> Client scope details (roles) -> Mapper details -> Add to userinfo enabled (Keycloak Admin console)
     private void userInfoCustomizer(OAuth2LoginConfigurer<HttpSecurity>.UserInfoEndpointConfig userInfoEndpointConfig) {
@@ -0,0 +1,21 @@
+package pl.training;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.training.payments.adapters.persistence.sharding.ShardingProperties;
+import pl.training.payments.adapters.persistence.sharding.Shards;
+
+// Each shard gets its own pool, the default datasource keeps everything that is not a card
+@Configuration
+@ConditionalOnProperty(name = "payments.card-repository", havingValue = "sharded")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public Shards shards(ShardingProperties shardingProperties) {
+        return new Shards(shardingProperties);
+    }
+
+}
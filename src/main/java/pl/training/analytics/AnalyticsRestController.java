@@ -0,0 +1,108 @@
+package pl.training.analytics;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import pl.training.payments.application.DateTimeProvider;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.List;
+
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE;
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME;
+
+@RestController
+@RequestMapping("api/analytics")
+final class AnalyticsRestController {
+
+    private static final int MAX_DAYS = 3660;
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_BUCKETS = 1000;
+
+    private final TransactionAnalytics transactionAnalytics;
+    private final DateTimeProvider dateTimeProvider;
+
+    AnalyticsRestController(final TransactionAnalytics transactionAnalytics, final DateTimeProvider dateTimeProvider) {
+        this.transactionAnalytics = transactionAnalytics;
+        this.dateTimeProvider = dateTimeProvider;
+    }
+
+    @GetMapping("daily-totals")
+    ResponseEntity<List<CurrencyDayTotalsResponse>> getDailyTotals(
+            @RequestParam @DateTimeFormat(iso = DATE) final LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DATE) final LocalDate to) {
+        var lastDay = to.isAfter(from.plusDays(MAX_DAYS - 1)) ? from.plusDays(MAX_DAYS - 1) : to;
+        var totals = transactionAnalytics.dailyTotals(from, lastDay);
+        return ResponseEntity.ok(totals.stream().map(CurrencyDayTotalsResponse::from).toList());
+    }
+
+    @GetMapping("top-cards")
+    ResponseEntity<List<CardOutflowResponse>> getTopCards(
+            @RequestParam final Currency currency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DATE_TIME) final ZonedDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DATE_TIME) final ZonedDateTime to,
+            @RequestParam(required = false, defaultValue = "10") final int limit) {
+        var cards = transactionAnalytics.topCardsByOutflow(currency,
+                from != null ? from : Instant.EPOCH.atZone(ZoneOffset.UTC),
+                to != null ? to : dateTimeProvider.getZonedDateTime(), Math.clamp(limit, 1, MAX_LIMIT));
+        return ResponseEntity.ok(cards.stream().map(CardOutflowResponse::from).toList());
+    }
+
+    @GetMapping("balance-histogram")
+    ResponseEntity<BalanceHistogramResponse> getBalanceHistogram(
+            @RequestParam final Currency currency,
+            @RequestParam(required = false, defaultValue = "20") final int buckets) {
+        var histogram = transactionAnalytics.balanceHistogram(currency, Math.clamp(buckets, 1, MAX_BUCKETS));
+        return ResponseEntity.ok(BalanceHistogramResponse.from(histogram));
+    }
+
+}
+
+record CurrencyDayTotalsResponse(LocalDate day, String currencyCode, Double inflow, long inflowCount, Double outflow, long outflowCount) {
+
+    static CurrencyDayTotalsResponse from(final CurrencyDayTotals totals) {
+        return new CurrencyDayTotalsResponse(
+                totals.day(),
+                totals.currency().getCurrencyCode(),
+                totals.inflow().doubleValue(),
+                totals.inflowCount(),
+                totals.outflow().doubleValue(),
+                totals.outflowCount()
+        );
+    }
+
+}
+
+record CardOutflowResponse(String cardNumber, Double outflow) {
+
+    static CardOutflowResponse from(final CardOutflow cardOutflow) {
+        return new CardOutflowResponse(cardOutflow.cardNumber().value(), cardOutflow.outflow().doubleValue());
+    }
+
+}
+
+record BalanceHistogramResponse(String currencyCode, List<BucketResponse> buckets) {
+
+    static BalanceHistogramResponse from(final BalanceHistogram histogram) {
+        return new BalanceHistogramResponse(
+                histogram.currency().getCurrencyCode(),
+                histogram.buckets().stream().map(BucketResponse::from).toList()
+        );
+    }
+
+}
+
+record BucketResponse(Double from, Double to, long cards) {
+
+    static BucketResponse from(final BalanceHistogram.Bucket bucket) {
+        return new BucketResponse(bucket.from().doubleValue(), bucket.to().doubleValue(), bucket.cards());
+    }
+
+}
@@ -0,0 +1,13 @@
+package pl.training.analytics;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+
+public record BalanceHistogram(Currency currency, List<Bucket> buckets) {
+
+    // lower bound inclusive, upper bound exclusive
+    public record Bucket(BigDecimal from, BigDecimal to, long cards) {
+    }
+
+}
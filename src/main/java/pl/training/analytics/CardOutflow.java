@@ -0,0 +1,8 @@
+package pl.training.analytics;
+
+import pl.training.payments.domain.CardNumber;
+
+import java.math.BigDecimal;
+
+public record CardOutflow(CardNumber cardNumber, BigDecimal outflow) {
+}
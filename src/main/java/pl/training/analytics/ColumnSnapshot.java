@@ -0,0 +1,17 @@
+package pl.training.analytics;
+
+import pl.training.payments.domain.CardNumber;
+
+import java.util.Currency;
+
+// Consistent view for readers: rows below size and cards below cardCount are complete and never change again
+record ColumnSnapshot(TransactionChunk[] chunks, int size, CardNumber[] cards, short[] cardCurrencies, int cardCount,
+                      Currency[] currencies) {
+
+    static final ColumnSnapshot EMPTY = new ColumnSnapshot(new TransactionChunk[0], 0, new CardNumber[0], new short[0], 0, new Currency[0]);
+
+    TransactionChunk chunk(final int row) {
+        return chunks[row >>> TransactionChunk.SHIFT];
+    }
+
+}
@@ -0,0 +1,142 @@
+package pl.training.analytics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.training.payments.application.IndexedTransaction;
+import pl.training.payments.application.SearchTransactionsUseCase;
+import pl.training.payments.application.TransactionQuery;
+import pl.training.payments.domain.CardNumber;
+
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+// Copy of all indexed transactions in columnar form, pulled incrementally from the transaction index by sequence.
+// A single refresh thread appends, readers work on the last published snapshot without locks.
+// Sequences are allocated in blocks per instance, so rows commit out of sequence order. Every refresh re-reads
+// a trailing window below the highest sequence seen and skips the rows it already has, a row committing later
+// than a window's worth of newer sequences is missed.
+@Component
+public class ColumnarTransactionStore {
+
+    private static final Logger LOGGER = Logger.getLogger(ColumnarTransactionStore.class.getName());
+
+    private final SearchTransactionsUseCase searchTransactionsUseCase;
+    private final int batchSize;
+    private final long window;
+    private final NavigableSet<Long> windowSequences = new TreeSet<>();
+    private final Map<CardNumber, Integer> cardOrdinals = new HashMap<>();
+    private final Map<Currency, Short> currencyIds = new HashMap<>();
+    private volatile ColumnSnapshot snapshot = ColumnSnapshot.EMPTY;
+    private long lastSequence;
+
+    public ColumnarTransactionStore(final SearchTransactionsUseCase searchTransactionsUseCase,
+                                    @Value("${analytics.refresh-batch-size:10000}") final int batchSize,
+                                    @Value("${analytics.refresh-window:1000}") final long window) {
+        this.searchTransactionsUseCase = searchTransactionsUseCase;
+        this.batchSize = batchSize;
+        this.window = window;
+    }
+
+    ColumnSnapshot snapshot() {
+        return snapshot;
+    }
+
+    @Scheduled(initialDelayString = "${analytics.initial-delay:PT0S}", fixedDelayString = "${analytics.refresh-interval:PT5S}")
+    public synchronized void refresh() {
+        try {
+            pull();
+        } catch (DataAccessException exception) {
+            // e.g. the index is not reachable yet, the rows read so far stay published and the next refresh goes on from there
+            LOGGER.warning("Analytics refresh failed: " + exception.getMessage());
+        }
+    }
+
+    private void pull() {
+        var startTime = System.nanoTime();
+        var current = snapshot;
+        var added = 0;
+        var cursor = Math.max(0, lastSequence - window);
+        while (true) {
+            var query = new TransactionQuery(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                    Optional.empty(), Optional.empty(), cursor, batchSize);
+            var result = searchTransactionsUseCase.handle(query);
+            for (var indexedTransaction : result.content()) {
+                var sequence = indexedTransaction.sequence();
+                if (windowSequences.add(sequence)) {
+                    current = append(current, indexedTransaction);
+                    added++;
+                }
+                lastSequence = Math.max(lastSequence, sequence);
+            }
+            // published per batch, so a long catch-up is visible while it runs
+            snapshot = current;
+            if (result.nextCursor().isEmpty()) {
+                break;
+            }
+            cursor = result.nextCursor().get();
+        }
+        // the next refresh reads above this bound only
+        windowSequences.headSet(lastSequence - window, true).clear();
+        if (added > 0) {
+            LOGGER.info("Analytics refreshed with %d transactions in %d ms"
+                    .formatted(added, Duration.ofNanos(System.nanoTime() - startTime).toMillis()));
+        }
+    }
+
+    // writes go past the published size only, readers of older snapshots never look there
+    private ColumnSnapshot append(final ColumnSnapshot current, final IndexedTransaction indexedTransaction) {
+        var chunks = current.chunks();
+        var cards = current.cards();
+        var cardCurrencies = current.cardCurrencies();
+        var cardCount = current.cardCount();
+        var currencies = current.currencies();
+        var row = current.size();
+        if (row >>> TransactionChunk.SHIFT == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = new TransactionChunk();
+        }
+        var transaction = indexedTransaction.transaction();
+        var currency = transaction.value().currency();
+        var currencyId = currencyIds.get(currency);
+        if (currencyId == null) {
+            currencyId = (short) currencies.length;
+            currencyIds.put(currency, currencyId);
+            currencies = Arrays.copyOf(currencies, currencies.length + 1);
+            currencies[currencyId] = currency;
+        }
+        var cardOrdinal = cardOrdinals.get(indexedTransaction.cardNumber());
+        if (cardOrdinal == null) {
+            cardOrdinal = cardCount++;
+            cardOrdinals.put(indexedTransaction.cardNumber(), cardOrdinal);
+            if (cardOrdinal == cards.length) {
+                var capacity = Math.max(1024, cards.length * 2);
+                cards = Arrays.copyOf(cards, capacity);
+                cardCurrencies = Arrays.copyOf(cardCurrencies, capacity);
+            }
+            cards[cardOrdinal] = indexedTransaction.cardNumber();
+            cardCurrencies[cardOrdinal] = currencyId;
+        }
+        var chunk = chunks[row >>> TransactionChunk.SHIFT];
+        var offset = row & TransactionChunk.MASK;
+        chunk.timestamps[offset] = transaction.timestamp().toInstant().toEpochMilli();
+        chunk.amounts[offset] = transaction.value().amount()
+                .movePointRight(currency.getDefaultFractionDigits())
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+        chunk.types[offset] = (byte) transaction.type().ordinal();
+        chunk.cards[offset] = cardOrdinal;
+        chunk.currencies[offset] = currencyId;
+        return new ColumnSnapshot(chunks, row + 1, cards, cardCurrencies, cardCount, currencies);
+    }
+
+}
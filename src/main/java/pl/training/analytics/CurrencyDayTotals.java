@@ -0,0 +1,9 @@
+package pl.training.analytics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+public record CurrencyDayTotals(LocalDate day, Currency currency, BigDecimal inflow, long inflowCount,
+                                BigDecimal outflow, long outflowCount) {
+}
@@ -0,0 +1,50 @@
+package pl.training.analytics;
+
+import java.util.concurrent.RecursiveTask;
+
+// Splits a row range in halves until it fits in one leaf, then folds the partial results pairwise
+abstract class RangeTask<R> extends RecursiveTask<R> {
+
+    final ColumnSnapshot snapshot;
+    final int from;
+    final int to;
+    final int leafSize;
+
+    RangeTask(final ColumnSnapshot snapshot, final int from, final int to, final int leafSize) {
+        this.snapshot = snapshot;
+        this.from = from;
+        this.to = to;
+        this.leafSize = leafSize;
+    }
+
+    @Override
+    protected R compute() {
+        if (to - from <= leafSize) {
+            var result = newResult();
+            // stays within one chunk per pass, so the inner loops run over plain arrays
+            for (var row = from; row < to; ) {
+                var chunk = snapshot.chunk(row);
+                var offset = row & TransactionChunk.MASK;
+                var end = Math.min(to - row, TransactionChunk.CAPACITY - offset) + offset;
+                scan(chunk, offset, end, result);
+                row += end - offset;
+            }
+            return result;
+        }
+        var middle = (from + to) >>> 1;
+        var left = fork(from, middle);
+        var right = fork(middle, to);
+        left.fork();
+        var rightResult = right.compute();
+        return combine(left.join(), rightResult);
+    }
+
+    abstract RangeTask<R> fork(int from, int to);
+
+    abstract R newResult();
+
+    abstract void scan(TransactionChunk chunk, int from, int to, R result);
+
+    abstract R combine(R left, R right);
+
+}
@@ -0,0 +1,263 @@
+package pl.training.analytics;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import static pl.training.payments.domain.TransactionType.INFLOW;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+// Aggregates are full scans over the columns, split across the fork/join pool. Days are UTC days.
+@Component
+public class TransactionAnalytics {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final byte INFLOW_TYPE = (byte) INFLOW.ordinal();
+    private static final byte PAYMENT_TYPE = (byte) PAYMENT.ordinal();
+    private static final int DAY_TOTALS_WIDTH = 4;
+
+    private final ColumnarTransactionStore store;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    public TransactionAnalytics(final ColumnarTransactionStore store) {
+        this.store = store;
+    }
+
+    public List<CurrencyDayTotals> dailyTotals(final LocalDate from, final LocalDate to) {
+        var snapshot = store.snapshot();
+        var firstDay = from.toEpochDay();
+        var days = (int) (to.toEpochDay() - firstDay + 1);
+        if (days <= 0 || snapshot.size() == 0) {
+            return List.of();
+        }
+        var currencies = snapshot.currencies();
+        var totals = pool.invoke(new DayTotalsTask(snapshot, 0, snapshot.size(), TransactionChunk.CAPACITY,
+                firstDay * MILLIS_PER_DAY, (firstDay + days) * MILLIS_PER_DAY, currencies.length * days));
+        var result = new ArrayList<CurrencyDayTotals>();
+        for (var day = 0; day < days; day++) {
+            for (var currencyId = 0; currencyId < currencies.length; currencyId++) {
+                var slot = (day * currencies.length + currencyId) * DAY_TOTALS_WIDTH;
+                if (totals[slot + 1] + totals[slot + 3] > 0) {
+                    var currency = currencies[currencyId];
+                    result.add(new CurrencyDayTotals(LocalDate.ofEpochDay(firstDay + day), currency,
+                            toAmount(totals[slot], currency), totals[slot + 1], toAmount(totals[slot + 2], currency), totals[slot + 3]));
+                }
+            }
+        }
+        return result;
+    }
+
+    public List<CardOutflow> topCardsByOutflow(final Currency currency, final ZonedDateTime from, final ZonedDateTime to, final int limit) {
+        var snapshot = store.snapshot();
+        var currencyId = indexOf(snapshot, currency);
+        if (currencyId < 0) {
+            return List.of();
+        }
+        var outflows = pool.invoke(new CardOutflowTask(snapshot, 0, snapshot.size(), perCardLeafSize(snapshot),
+                from.toInstant().toEpochMilli(), to.toInstant().toEpochMilli(), (short) currencyId));
+        // min-heap on the outflow, so the smallest of the current top is the one evicted
+        var top = new PriorityQueue<Integer>(limit + 1, Comparator.comparingLong(card -> outflows[card]));
+        for (var card = 0; card < snapshot.cardCount(); card++) {
+            if (outflows[card] == 0) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(card);
+            } else if (outflows[card] > outflows[top.peek()]) {
+                top.poll();
+                top.add(card);
+            }
+        }
+        var result = new ArrayList<CardOutflow>(top.size());
+        while (!top.isEmpty()) {
+            var card = top.poll();
+            result.add(new CardOutflow(snapshot.cards()[card], toAmount(outflows[card], currency)));
+        }
+        return result.reversed();
+    }
+
+    public BalanceHistogram balanceHistogram(final Currency currency, final int buckets) {
+        var snapshot = store.snapshot();
+        var currencyId = indexOf(snapshot, currency);
+        if (currencyId < 0) {
+            return new BalanceHistogram(currency, List.of());
+        }
+        var balances = pool.invoke(new CardBalanceTask(snapshot, 0, snapshot.size(), perCardLeafSize(snapshot)));
+        var min = Long.MAX_VALUE;
+        var max = Long.MIN_VALUE;
+        for (var card = 0; card < snapshot.cardCount(); card++) {
+            if (snapshot.cardCurrencies()[card] == currencyId) {
+                min = Math.min(min, balances[card]);
+                max = Math.max(max, balances[card]);
+            }
+        }
+        if (min > max) {
+            return new BalanceHistogram(currency, List.of());
+        }
+        var width = Math.max(1, Math.ceilDiv(max - min + 1, buckets));
+        var counts = new long[(int) Math.ceilDiv(max - min + 1, width)];
+        for (var card = 0; card < snapshot.cardCount(); card++) {
+            if (snapshot.cardCurrencies()[card] == currencyId) {
+                counts[(int) ((balances[card] - min) / width)]++;
+            }
+        }
+        var result = new ArrayList<BalanceHistogram.Bucket>(counts.length);
+        for (var bucket = 0; bucket < counts.length; bucket++) {
+            var lower = min + bucket * width;
+            result.add(new BalanceHistogram.Bucket(toAmount(lower, currency), toAmount(lower + width, currency), counts[bucket]));
+        }
+        return new BalanceHistogram(currency, result);
+    }
+
+    // per-card results are arrays as long as the card dictionary, so there is one leaf per worker instead of per chunk
+    private int perCardLeafSize(final ColumnSnapshot snapshot) {
+        return Math.max(TransactionChunk.CAPACITY / 16, Math.ceilDiv(snapshot.size(), pool.getParallelism()));
+    }
+
+    private static int indexOf(final ColumnSnapshot snapshot, final Currency currency) {
+        return Arrays.asList(snapshot.currencies()).indexOf(currency);
+    }
+
+    private static BigDecimal toAmount(final long minorUnits, final Currency currency) {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    // per day and currency: inflow sum and count, then outflow sum and count
+    private static final class DayTotalsTask extends RangeTask<long[]> {
+
+        private final long fromMillis;
+        private final long toMillis;
+        private final int slots;
+
+        DayTotalsTask(final ColumnSnapshot snapshot, final int from, final int to, final int leafSize,
+                      final long fromMillis, final long toMillis, final int slots) {
+            super(snapshot, from, to, leafSize);
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.slots = slots;
+        }
+
+        @Override
+        RangeTask<long[]> fork(final int from, final int to) {
+            return new DayTotalsTask(snapshot, from, to, leafSize, fromMillis, toMillis, slots);
+        }
+
+        @Override
+        long[] newResult() {
+            return new long[slots * DAY_TOTALS_WIDTH];
+        }
+
+        @Override
+        void scan(final TransactionChunk chunk, final int from, final int to, final long[] totals) {
+            var currencyCount = snapshot.currencies().length;
+            for (var offset = from; offset < to; offset++) {
+                var timestamp = chunk.timestamps[offset];
+                if (timestamp < fromMillis || timestamp >= toMillis) {
+                    continue;
+                }
+                var day = (int) ((timestamp - fromMillis) / MILLIS_PER_DAY);
+                var slot = (day * currencyCount + chunk.currencies[offset]) * DAY_TOTALS_WIDTH;
+                slot += chunk.types[offset] == INFLOW_TYPE ? 0 : 2;
+                totals[slot] += chunk.amounts[offset];
+                totals[slot + 1]++;
+            }
+        }
+
+        @Override
+        long[] combine(final long[] left, final long[] right) {
+            return add(left, right);
+        }
+
+    }
+
+    private static final class CardOutflowTask extends RangeTask<long[]> {
+
+        private final long fromMillis;
+        private final long toMillis;
+        private final short currencyId;
+
+        CardOutflowTask(final ColumnSnapshot snapshot, final int from, final int to, final int leafSize,
+                        final long fromMillis, final long toMillis, final short currencyId) {
+            super(snapshot, from, to, leafSize);
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.currencyId = currencyId;
+        }
+
+        @Override
+        RangeTask<long[]> fork(final int from, final int to) {
+            return new CardOutflowTask(snapshot, from, to, leafSize, fromMillis, toMillis, currencyId);
+        }
+
+        @Override
+        long[] newResult() {
+            return new long[snapshot.cardCount()];
+        }
+
+        @Override
+        void scan(final TransactionChunk chunk, final int from, final int to, final long[] outflows) {
+            for (var offset = from; offset < to; offset++) {
+                var timestamp = chunk.timestamps[offset];
+                if (chunk.types[offset] == PAYMENT_TYPE && chunk.currencies[offset] == currencyId
+                        && timestamp >= fromMillis && timestamp < toMillis) {
+                    outflows[chunk.cards[offset]] += chunk.amounts[offset];
+                }
+            }
+        }
+
+        @Override
+        long[] combine(final long[] left, final long[] right) {
+            return add(left, right);
+        }
+
+    }
+
+    // a card has one currency, so its balance is the plain sum of signed amounts
+    private static final class CardBalanceTask extends RangeTask<long[]> {
+
+        CardBalanceTask(final ColumnSnapshot snapshot, final int from, final int to, final int leafSize) {
+            super(snapshot, from, to, leafSize);
+        }
+
+        @Override
+        RangeTask<long[]> fork(final int from, final int to) {
+            return new CardBalanceTask(snapshot, from, to, leafSize);
+        }
+
+        @Override
+        long[] newResult() {
+            return new long[snapshot.cardCount()];
+        }
+
+        @Override
+        void scan(final TransactionChunk chunk, final int from, final int to, final long[] balances) {
+            for (var offset = from; offset < to; offset++) {
+                var amount = chunk.amounts[offset];
+                balances[chunk.cards[offset]] += chunk.types[offset] == INFLOW_TYPE ? amount : -amount;
+            }
+        }
+
+        @Override
+        long[] combine(final long[] left, final long[] right) {
+            return add(left, right);
+        }
+
+    }
+
+    private static long[] add(final long[] target, final long[] source) {
+        for (var index = 0; index < target.length; index++) {
+            target[index] += source[index];
+        }
+        return target;
+    }
+
+}
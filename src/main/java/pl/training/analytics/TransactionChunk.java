@@ -0,0 +1,16 @@
+package pl.training.analytics;
+
+// One column per attribute, amounts in minor units of the transaction's currency
+final class TransactionChunk {
+
+    static final int SHIFT = 20;
+    static final int CAPACITY = 1 << SHIFT;
+    static final int MASK = CAPACITY - 1;
+
+    final long[] timestamps = new long[CAPACITY];
+    final long[] amounts = new long[CAPACITY];
+    final byte[] types = new byte[CAPACITY];
+    final int[] cards = new int[CAPACITY];
+    final short[] currencies = new short[CAPACITY];
+
+}
@@ -1,4 +1,10 @@
 package pl.training.common;
 
-public record PageSpec(int index, int size) {
+// after optionally holds the key of the last item on the previous page, stores ordered by that key can seek to it
+public record PageSpec(int index, int size, String after) {
+
+    public PageSpec(final int index, final int size) {
+        this(index, size, null);
+    }
+
 }
@@ -0,0 +1,74 @@
+package pl.training.common.aop;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// AIMD: the limit grows by one per limit's worth of fast completions and is cut by the backoff ratio when latency exceeds
+// the threshold (once for all the requests in flight at the cut), so in-flight work follows what the database can
+// currently absorb instead of queueing behind the pool
+final class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThreshold;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completions = new AtomicLong();
+    private volatile double limit;
+    private long backoffEndCompletion;
+
+    AdaptiveConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit, final long latencyThreshold,
+                             final double backoffRatio) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThreshold = latencyThreshold;
+        this.backoffRatio = backoffRatio;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            var current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // business failures are fast and say nothing about overload, only latency is taken into account
+    void release(final long latency) {
+        var saturated = inFlight.getAndDecrement() >= (int) limit / 2;
+        var completion = completions.incrementAndGet();
+        if (latency > latencyThreshold) {
+            decrease(completion);
+        } else if (saturated) {
+            increase();
+        }
+    }
+
+    // below half of the limit a fast completion says nothing about whether a higher limit would be safe
+    private synchronized void increase() {
+        limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+
+    // the requests that were in flight together when latency rose all complete slowly, they are one overload signal
+    private synchronized void decrease(final long completion) {
+        if (completion <= backoffEndCompletion) {
+            return;
+        }
+        backoffEndCompletion = completion + inFlight.get();
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+}
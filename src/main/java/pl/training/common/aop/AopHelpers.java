@@ -7,10 +7,40 @@ import org.aspectj.lang.reflect.MethodSignature;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AopHelpers {
 
+    private static final ClassValue<Map<Method, MethodMetadata>> METHOD_METADATA = new ClassValue<>() {
+
+        @Override
+        protected Map<Method, MethodMetadata> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+
+    };
+
+    public static MethodMetadata getMethodMetadata(JoinPoint joinPoint) {
+        var method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        var targetClass = joinPoint.getTarget().getClass();
+        var methodsMetadata = METHOD_METADATA.get(targetClass);
+        var methodMetadata = methodsMetadata.get(method);
+        if (methodMetadata == null) {
+            methodMetadata = methodsMetadata.computeIfAbsent(method, key -> new MethodMetadata(targetClass, findTargetMethod(targetClass, key)));
+        }
+        return methodMetadata;
+    }
+
+    private static Method findTargetMethod(Class<?> targetClass, Method method) {
+        try {
+            return targetClass.getMethod(method.getName(), method.getParameterTypes());
+        } catch (NoSuchMethodException exception) {
+            return method;
+        }
+    }
+
     public static <T extends Annotation> T getClassAnnotation(ProceedingJoinPoint joinPoint, Class<T> type) {
         return joinPoint.getTarget().getClass().getAnnotation(type);
     }
@@ -26,9 +56,8 @@ public class AopHelpers {
         return joinPoint.getTarget().getClass().getMethod(methodName, parameterTypes);
     }
 
-    public static <T extends Annotation> T findAnnotation(ProceedingJoinPoint joinPoint, Class<T> type) throws NoSuchMethodException {
-        var annotation = getMethodAnnotation(joinPoint, type);
-        return annotation != null ? annotation : getClassAnnotation(joinPoint, type);
+    public static <T extends Annotation> T findAnnotation(ProceedingJoinPoint joinPoint, Class<T> type) {
+        return getMethodMetadata(joinPoint).findAnnotation(type);
     }
 
     public static <T extends Annotation> Optional<T> findAnnotation(Annotation[] annotations, Class<T> type) {
@@ -39,13 +68,14 @@ public class AopHelpers {
     }
 
     @SuppressWarnings("unchecked")
-    public static  <P, A extends Annotation> void applyArgumentOperator(JoinPoint joinPoint, Class<A> annotationType, ArgumentOperator<P, A> argumentOperator) throws NoSuchMethodException {
+    public static  <P, A extends Annotation> void applyArgumentOperator(JoinPoint joinPoint, Class<A> annotationType, ArgumentOperator<P, A> argumentOperator) {
         var arguments = joinPoint.getArgs();
-        var argumentsAnnotations = getTargetMethod(joinPoint).getParameterAnnotations();
+        var argumentsAnnotations = getMethodMetadata(joinPoint).findParameterAnnotations(annotationType);
         for (int index = 0; index < arguments.length; index++) {
-            var argument = (P) arguments[index];
-            findAnnotation(argumentsAnnotations[index], annotationType)
-                    .ifPresent(annotation -> argumentOperator.apply(argument, annotation));
+            var annotation = argumentsAnnotations[index];
+            if (annotation != null) {
+                argumentOperator.apply((P) arguments[index], annotation);
+            }
         }
     }
 
@@ -11,4 +11,23 @@ public @interface Atomic {
 
     int timeoutInMilliseconds() default -1;
 
+    // read-only units skip flushing and dirty checking and may be routed to a read replica
+    boolean readOnly() default false;
+
+    Propagation propagation() default Propagation.REQUIRED;
+
+    Isolation isolation() default Isolation.DEFAULT;
+
+    enum Propagation {
+
+        REQUIRED, REQUIRES_NEW, SUPPORTS, MANDATORY, NOT_SUPPORTED, NEVER, NESTED
+
+    }
+
+    enum Isolation {
+
+        DEFAULT, READ_UNCOMMITTED, READ_COMMITTED, REPEATABLE_READ, SERIALIZABLE
+
+    }
+
 }
@@ -8,12 +8,15 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 
-import static pl.training.common.aop.AopHelpers.findAnnotation;
+import static pl.training.common.aop.AopHelpers.getMethodMetadata;
 
 @Aspect
 @Component
 public final class AtomicAspect {
 
+    private static final String PROPAGATION_PREFIX = "PROPAGATION_";
+    private static final String ISOLATION_PREFIX = "ISOLATION_";
+
     private final PlatformTransactionManager platformTransactionManager;
 
     public AtomicAspect(final PlatformTransactionManager platformTransactionManager) {
@@ -22,22 +25,28 @@ public final class AtomicAspect {
 
     @Around("@annotation(pl.training.common.aop.Atomic) || within(@pl.training.common.aop.Atomic *)")
     public Object runWithTransaction(final ProceedingJoinPoint joinPoint) throws Throwable {
-        var annotation = findAnnotation(joinPoint, Atomic.class);
-        var transactionDefinition = transactionDefinition(annotation);
+        var transactionDefinition = getMethodMetadata(joinPoint)
+                .getAttribute(TransactionDefinition.class, AtomicAspect::transactionDefinition);
         var transactionStatus = platformTransactionManager.getTransaction(transactionDefinition);
+        Object result;
         try {
-            var result = joinPoint.proceed();
-            platformTransactionManager.commit(transactionStatus);
-            return result;
+            result = joinPoint.proceed();
         } catch (Throwable throwable) {
-            transactionStatus.setRollbackOnly();
+            platformTransactionManager.rollback(transactionStatus);
             throw throwable;
         }
+        // a failing commit (e.g. an optimistic lock conflict) completes the transaction itself and is propagated as is
+        platformTransactionManager.commit(transactionStatus);
+        return result;
     }
 
-    private TransactionDefinition transactionDefinition(final Atomic atomic) {
+    private static TransactionDefinition transactionDefinition(final MethodMetadata methodMetadata) {
+        var atomic = methodMetadata.findAnnotation(Atomic.class);
         var transactionDefinition = new DefaultTransactionDefinition();
         transactionDefinition.setTimeout(atomic.timeoutInMilliseconds());
+        transactionDefinition.setReadOnly(atomic.readOnly());
+        transactionDefinition.setPropagationBehaviorName(PROPAGATION_PREFIX + atomic.propagation().name());
+        transactionDefinition.setIsolationLevelName(ISOLATION_PREFIX + atomic.isolation().name());
         return transactionDefinition;
     }
 
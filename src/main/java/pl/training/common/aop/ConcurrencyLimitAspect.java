@@ -0,0 +1,86 @@
+package pl.training.common.aop;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+
+import static pl.training.common.aop.AopHelpers.getMethodMetadata;
+
+// Sheds load before a transaction is started, a rejected request never waits for a pooled connection.
+// Only the outermost use case of a request is limited, scheduled jobs are never rejected.
+@Aspect
+@Component
+public class ConcurrencyLimitAspect implements Ordered {
+
+    private static final String LIMIT_METRIC = "payments.concurrency.limit";
+    private static final String IN_FLIGHT_METRIC = "payments.concurrency.in-flight";
+    private static final String REJECTED_METRIC = "payments.concurrency.rejected";
+    private static final String PATH_TAG = "path";
+
+    private final ThreadLocal<Boolean> limited = new ThreadLocal<>();
+    private final AdaptiveConcurrencyLimit readLimit;
+    private final AdaptiveConcurrencyLimit writeLimit;
+    private final Counter readRejections;
+    private final Counter writeRejections;
+    private final Duration retryAfter;
+
+    public ConcurrencyLimitAspect(@Value("${payments.concurrency-limit.read.initial-limit:20}") final int readInitialLimit,
+                                  @Value("${payments.concurrency-limit.read.max-limit:200}") final int readMaxLimit,
+                                  @Value("${payments.concurrency-limit.read.latency-threshold:PT0.1S}") final Duration readLatencyThreshold,
+                                  @Value("${payments.concurrency-limit.write.initial-limit:10}") final int writeInitialLimit,
+                                  @Value("${payments.concurrency-limit.write.max-limit:100}") final int writeMaxLimit,
+                                  @Value("${payments.concurrency-limit.write.latency-threshold:PT0.2S}") final Duration writeLatencyThreshold,
+                                  @Value("${payments.concurrency-limit.min-limit:1}") final int minLimit,
+                                  @Value("${payments.concurrency-limit.backoff-ratio:0.9}") final double backoffRatio,
+                                  @Value("${payments.concurrency-limit.retry-after:PT1S}") final Duration retryAfter,
+                                  final MeterRegistry meterRegistry) {
+        readLimit = new AdaptiveConcurrencyLimit(readInitialLimit, minLimit, readMaxLimit, readLatencyThreshold.toNanos(), backoffRatio);
+        writeLimit = new AdaptiveConcurrencyLimit(writeInitialLimit, minLimit, writeMaxLimit, writeLatencyThreshold.toNanos(), backoffRatio);
+        readRejections = register(meterRegistry, "read", readLimit);
+        writeRejections = register(meterRegistry, "write", writeLimit);
+        this.retryAfter = retryAfter;
+    }
+
+    private static Counter register(final MeterRegistry meterRegistry, final String path, final AdaptiveConcurrencyLimit limit) {
+        Gauge.builder(LIMIT_METRIC, limit, AdaptiveConcurrencyLimit::getLimit).tag(PATH_TAG, path).register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_METRIC, limit, AdaptiveConcurrencyLimit::getInFlight).tag(PATH_TAG, path).register(meterRegistry);
+        return meterRegistry.counter(REJECTED_METRIC, PATH_TAG, path);
+    }
+
+    @Around("@annotation(pl.training.common.aop.Atomic) || within(@pl.training.common.aop.Atomic *)")
+    public Object limit(final ProceedingJoinPoint joinPoint) throws Throwable {
+        if (limited.get() != null || RequestContextHolder.getRequestAttributes() == null) {
+            return joinPoint.proceed();
+        }
+        var readOnly = getMethodMetadata(joinPoint).findAnnotation(Atomic.class).readOnly();
+        var limit = readOnly ? readLimit : writeLimit;
+        if (!limit.tryAcquire()) {
+            (readOnly ? readRejections : writeRejections).increment();
+            throw new ConcurrencyLimitExceededException(retryAfter);
+        }
+        limited.set(Boolean.TRUE);
+        var startTime = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            limited.remove();
+            limit.release(System.nanoTime() - startTime);
+        }
+    }
+
+    // ahead of AtomicAspect, which has the default, lowest precedence
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+}
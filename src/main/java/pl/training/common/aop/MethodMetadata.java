@@ -0,0 +1,78 @@
+package pl.training.common.aop;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Resolved once per target class and method, the advice path only reads from the maps below
+public final class MethodMetadata {
+
+    private static final Object NONE = new Object();
+
+    private final Class<?> targetClass;
+    private final Method targetMethod;
+    private final Annotation[][] parameterAnnotations;
+    private final Map<Class<?>, Object> annotations = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Object> parameterAnnotationsByType = new ConcurrentHashMap<>();
+    private final Map<Object, Object> attributes = new ConcurrentHashMap<>();
+
+    MethodMetadata(final Class<?> targetClass, final Method targetMethod) {
+        this.targetClass = targetClass;
+        this.targetMethod = targetMethod;
+        this.parameterAnnotations = targetMethod.getParameterAnnotations();
+    }
+
+    public Method getTargetMethod() {
+        return targetMethod;
+    }
+
+    // method annotation first, then the class one
+    @SuppressWarnings("unchecked")
+    public <T extends Annotation> T findAnnotation(final Class<T> type) {
+        var annotation = annotations.get(type);
+        if (annotation == null) {
+            annotation = annotations.computeIfAbsent(type, this::resolveAnnotation);
+        }
+        return annotation == NONE ? null : (T) annotation;
+    }
+
+    private Object resolveAnnotation(final Class<?> type) {
+        var annotationType = type.asSubclass(Annotation.class);
+        var annotation = targetMethod.getAnnotation(annotationType);
+        if (annotation == null) {
+            annotation = targetClass.getAnnotation(annotationType);
+        }
+        return annotation != null ? annotation : NONE;
+    }
+
+    // one entry per parameter, null when the parameter is not annotated with the given type
+    @SuppressWarnings("unchecked")
+    public <T extends Annotation> T[] findParameterAnnotations(final Class<T> type) {
+        var result = parameterAnnotationsByType.get(type);
+        if (result == null) {
+            result = parameterAnnotationsByType.computeIfAbsent(type, this::resolveParameterAnnotations);
+        }
+        return (T[]) result;
+    }
+
+    private Object resolveParameterAnnotations(final Class<?> type) {
+        var result = (Annotation[]) Array.newInstance(type, parameterAnnotations.length);
+        for (int index = 0; index < parameterAnnotations.length; index++) {
+            result[index] = AopHelpers.findAnnotation(parameterAnnotations[index], type.asSubclass(Annotation.class)).orElse(null);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V getAttribute(final Object key, final Function<MethodMetadata, V> factory) {
+        var attribute = attributes.get(key);
+        if (attribute == null) {
+            attribute = attributes.computeIfAbsent(key, ignored -> factory.apply(this));
+        }
+        return (V) attribute;
+    }
+
+}
@@ -12,7 +12,7 @@ import static pl.training.common.aop.AopHelpers.applyArgumentOperator;
 public class MinLengthAspect {
 
     @Before("execution(* *(@pl.training.common.aop.MinLength (*)))")
-    public void validate(JoinPoint joinPoint) throws NoSuchMethodException {
+    public void validate(JoinPoint joinPoint) {
         applyArgumentOperator(joinPoint, MinLength.class, (String argument, MinLength minLength) -> {
             if (argument.length() < minLength.value()) {
                 throw new IllegalArgumentException("Value is too short, minimum length is: " + minLength.value());
@@ -0,0 +1,116 @@
+package pl.training.common.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Open addressing with linear probing, keys are stored unboxed and null values are not allowed
+public final class LongObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private Object[] values;
+    private int shift;
+    private int size;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongObjectHashMap(final int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        var mask = keys.length - 1;
+        for (int index = index(key); ; index = (index + 1) & mask) {
+            var value = values[index];
+            if (value == null || keys[index] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(final long key, final V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value can not be null");
+        }
+        var mask = keys.length - 1;
+        for (int index = index(key); ; index = (index + 1) & mask) {
+            var currentValue = values[index];
+            if (currentValue == null) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size > keys.length * LOAD_FACTOR) {
+                    resize();
+                }
+                return null;
+            }
+            if (keys[index] == key) {
+                values[index] = value;
+                return (V) currentValue;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(final Consumer<? super V> consumer) {
+        for (var value : values) {
+            if (value != null) {
+                consumer.accept((V) value);
+            }
+        }
+    }
+
+    public List<V> values() {
+        var result = new ArrayList<V>(size);
+        forEachValue(result::add);
+        return result;
+    }
+
+    private int index(final long key) {
+        return (int) ((key * HASH_MULTIPLIER) >>> shift);
+    }
+
+    private void resize() {
+        var oldKeys = keys;
+        var oldValues = values;
+        allocate(keys.length * 2);
+        var mask = keys.length - 1;
+        for (int oldIndex = 0; oldIndex < oldKeys.length; oldIndex++) {
+            if (oldValues[oldIndex] != null) {
+                var index = index(oldKeys[oldIndex]);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[oldIndex];
+                values[index] = oldValues[oldIndex];
+            }
+        }
+    }
+
+    private void allocate(final int tableSize) {
+        keys = new long[tableSize];
+        values = new Object[tableSize];
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(tableSize);
+    }
+
+    private static int tableSize(final int expectedSize) {
+        var minimumSize = Math.max(DEFAULT_CAPACITY, (int) Math.ceil(expectedSize / LOAD_FACTOR));
+        return Integer.highestOneBit(minimumSize - 1) << 1;
+    }
+
+}
@@ -1,11 +1,14 @@
 package pl.training.common.web;
 
+import java.time.Clock;
 import java.time.ZonedDateTime;
 
 public record ExceptionResponse(String message, ZonedDateTime timestamp) {
 
+    private static final Clock CLOCK = Clock.systemDefaultZone();
+
     public ExceptionResponse(String message) {
-        this(message, ZonedDateTime.now());
+        this(message, ZonedDateTime.now(CLOCK));
     }
 
 }
@@ -1,17 +1,26 @@
 package pl.training.common.web;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestController;
+import pl.training.common.aop.ConcurrencyLimitExceededException;
+import pl.training.common.web.ratelimit.RateLimitExceededException;
 
+import java.time.Duration;
 import java.util.Locale;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static java.util.stream.Collectors.joining;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 
 @ControllerAdvice(annotations = RestController.class)
 public final class GlobalRestExceptionHandler {
@@ -26,12 +35,40 @@ public final class GlobalRestExceptionHandler {
         this.responseBuilder = responseBuilder;
     }
 
+    // an unexpected failure is a server error and is always logged in full, expected rejections are answered by the module handlers
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ExceptionResponse> onException(final Exception exception, final Locale locale) {
-        LOGGER.info("Exception occurred: " + exception);
+        LOGGER.log(Level.SEVERE, "Request failed with an unexpected exception", exception);
         return responseBuilder.build(exception, INTERNAL_SERVER_ERROR, locale);
     }
 
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<ExceptionResponse> onConcurrencyLimitExceeded(final ConcurrencyLimitExceededException exception, final Locale locale) {
+        var description = responseBuilder.getLocalizedMessage(exception, locale);
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, toRetryAfter(exception.getRetryAfter()))
+                .body(new ExceptionResponse(description));
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ExceptionResponse> onRateLimitExceeded(final RateLimitExceededException exception, final Locale locale) {
+        var description = responseBuilder.getLocalizedMessage(exception, locale);
+        return ResponseEntity.status(TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, toRetryAfter(exception.getRetryAfter()))
+                .body(new ExceptionResponse(description));
+    }
+
+    // whole seconds rounded up, a sub-second delay must not become "0" (retry immediately)
+    private static String toRetryAfter(final Duration retryAfter) {
+        return String.valueOf(Math.ceilDiv(retryAfter.toMillis(), 1000));
+    }
+
+    // a concurrent update of the same card won, the request can be repeated
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ExceptionResponse> onOptimisticLockingFailure(final OptimisticLockingFailureException exception, final Locale locale) {
+        return responseBuilder.build(exception, CONFLICT, locale);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ExceptionResponse> onMethodArgumentNotValid(final MethodArgumentNotValidException exception, final Locale locale) {
         var description = responseBuilder.getLocalizedMessage(exception, locale, getValidationErrors(exception));
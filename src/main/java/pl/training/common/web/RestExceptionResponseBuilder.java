@@ -1,21 +1,37 @@
 package pl.training.common.web;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public final class RestExceptionResponseBuilder {
 
     private final MessageSource messageSource;
+    private final Locale defaultLocale;
+    // messages without parameters, resolved once per supported locale and exception type
+    private final Map<Locale, Map<Class<?>, String>> messages;
 
     private static final String DEFAULT_DESCRIPTION = "Unknown error";
 
-    public RestExceptionResponseBuilder(final MessageSource messageSource) {
+    public RestExceptionResponseBuilder(final MessageSource messageSource,
+                                        @Value("${spring.web.locale:en}") final Locale defaultLocale,
+                                        @Value("${web.supported-locales:en,pl-PL}") final List<Locale> supportedLocales) {
         this.messageSource = messageSource;
+        this.defaultLocale = defaultLocale;
+        this.messages = Stream.concat(Stream.of(defaultLocale), supportedLocales.stream())
+                .distinct()
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), locale -> new ConcurrentHashMap<>()));
     }
 
     public ResponseEntity<ExceptionResponse> build(final String description, final HttpStatus status) {
@@ -26,8 +42,22 @@ public final class RestExceptionResponseBuilder {
         return build(getLocalizedMessage(exception, locale), status);
     }
 
+    // any other locale is answered in the default one, so neither this cache nor the message source grows per client header
     public String getLocalizedMessage(final Exception exception, final Locale locale, final String... params) {
-        return messageSource.getMessage(exception.getClass().getSimpleName(), params, DEFAULT_DESCRIPTION, locale);
+        var supportedLocale = messages.containsKey(locale) ? locale : defaultLocale;
+        if (params.length > 0) {
+            return resolveMessage(exception.getClass(), supportedLocale, params);
+        }
+        var localeMessages = messages.get(supportedLocale);
+        var message = localeMessages.get(exception.getClass());
+        if (message == null) {
+            message = localeMessages.computeIfAbsent(exception.getClass(), type -> resolveMessage(type, supportedLocale, params));
+        }
+        return message;
+    }
+
+    private String resolveMessage(final Class<?> exceptionType, final Locale locale, final String... params) {
+        return messageSource.getMessage(exceptionType.getSimpleName(), params, DEFAULT_DESCRIPTION, locale);
     }
 
 }
@@ -0,0 +1,125 @@
+package pl.training.common.web.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.server.RequestPath;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static pl.training.common.web.ratelimit.RateLimitProperties.KeyType.PRINCIPAL;
+
+// Token buckets per configured endpoint and key, checked before the handler so throttled requests never reach a use case.
+// A request takes a token from every matching rule or from none, a rejection by one rule costs the others nothing.
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final String ANONYMOUS = "anonymous";
+
+    private final long origin = System.nanoTime();
+    private final List<LimitedEndpoint> endpoints;
+
+    public RateLimitInterceptor(final RateLimitProperties properties) {
+        var now = now();
+        endpoints = properties.rules().stream()
+                .map(rule -> new LimitedEndpoint(rule, PathPatternParser.defaultInstance.parse(rule.path()),
+                        new TokenBuckets(rule.capacity(), rule.refillPerSecond(), properties.maxBuckets(), now)))
+                .toList();
+    }
+
+    @Override
+    public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+        if (endpoints.isEmpty()) {
+            return true;
+        }
+        var path = requestPath(request).pathWithinApplication();
+        var now = now();
+        var limits = new ArrayList<Limit>(endpoints.size());
+        for (var endpoint : endpoints) {
+            if (!endpoint.rule().method().equalsIgnoreCase(request.getMethod())) {
+                continue;
+            }
+            var pathMatch = endpoint.pattern().matchAndExtract(path);
+            if (pathMatch == null) {
+                continue;
+            }
+            var key = endpoint.rule().key() == PRINCIPAL
+                    ? principalName(request.getUserPrincipal())
+                    : pathMatch.getUriVariables().get(endpoint.rule().variable());
+            var buckets = endpoint.buckets();
+            var bucket = buckets.get(key, now);
+            var waitTime = buckets.waitTime(bucket, now);
+            if (waitTime > 0) {
+                throw rejection(response, buckets, waitTime);
+            }
+            limits.add(new Limit(buckets, bucket));
+        }
+        TokenBuckets tightestBuckets = null;
+        var tightestRemaining = Long.MAX_VALUE;
+        for (int index = 0; index < limits.size(); index++) {
+            var limit = limits.get(index);
+            var remaining = limit.buckets().tryConsume(limit.bucket(), now);
+            if (remaining < 0) {
+                // a concurrent request took the last token after the check
+                limits.subList(0, index).forEach(taken -> taken.buckets().refund(taken.bucket()));
+                throw rejection(response, limit.buckets(), -remaining);
+            }
+            if (remaining < tightestRemaining) {
+                tightestBuckets = limit.buckets();
+                tightestRemaining = remaining;
+            }
+        }
+        // the headers describe the rule closest to its limit
+        if (tightestBuckets != null) {
+            setHeaders(response, tightestBuckets, tightestRemaining);
+        }
+        return true;
+    }
+
+    private static RequestPath requestPath(final HttpServletRequest request) {
+        return ServletRequestPathUtils.hasParsedRequestPath(request)
+                ? ServletRequestPathUtils.getParsedRequestPath(request)
+                : RequestPath.parse(request.getRequestURI(), request.getContextPath());
+    }
+
+    private static RateLimitExceededException rejection(final HttpServletResponse response, final TokenBuckets buckets, final long waitTime) {
+        setHeaders(response, buckets, 0);
+        return new RateLimitExceededException(Duration.ofMillis(waitTime));
+    }
+
+    private static void setHeaders(final HttpServletResponse response, final TokenBuckets buckets, final long remaining) {
+        response.setHeader(LIMIT_HEADER, String.valueOf(buckets.getCapacity()));
+        response.setHeader(REMAINING_HEADER, String.valueOf(remaining));
+    }
+
+    private static String principalName(final Principal principal) {
+        return principal != null ? principal.getName() : ANONYMOUS;
+    }
+
+    @Scheduled(fixedDelayString = "${payments.rate-limit.cleanup-interval:PT1M}")
+    public void removeIdleBuckets() {
+        var now = now();
+        endpoints.forEach(endpoint -> endpoint.buckets().removeIdle(now));
+    }
+
+    private long now() {
+        return (System.nanoTime() - origin) / 1_000_000;
+    }
+
+    private record LimitedEndpoint(RateLimitProperties.Rule rule, PathPattern pattern, TokenBuckets buckets) {
+    }
+
+    private record Limit(TokenBuckets buckets, TokenBucket bucket) {
+    }
+
+}
@@ -0,0 +1,22 @@
+package pl.training.common.web.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties("payments.rate-limit")
+public record RateLimitProperties(@DefaultValue List<Rule> rules,
+                                  @DefaultValue("100000") int maxBuckets,
+                                  @DefaultValue("PT1M") Duration cleanupInterval) {
+
+    public record Rule(String method, String path, KeyType key, String variable, long capacity, long refillPerSecond) {
+    }
+
+    // PATH_VARIABLE takes the value of the variable named by the rule, e.g. the card number
+    public enum KeyType {
+        PRINCIPAL, PATH_VARIABLE
+    }
+
+}
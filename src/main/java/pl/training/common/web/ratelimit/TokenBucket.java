@@ -0,0 +1,73 @@
+package pl.training.common.web.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Whole state in one long: milli-tokens in the upper 22 bits, time of the last refill in milliseconds in the lower 42 bits,
+// a request costs a single CAS and no lock
+final class TokenBucket {
+
+    private static final int TIME_BITS = 42;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final long MILLI_TOKENS_PER_TOKEN = 1000;
+    static final long MAX_CAPACITY = ((1L << (Long.SIZE - TIME_BITS)) - 1) / MILLI_TOKENS_PER_TOKEN;
+
+    private final AtomicLong state;
+
+    TokenBucket(final long capacity, final long now) {
+        state = new AtomicLong(pack(capacity * MILLI_TOKENS_PER_TOKEN, now));
+    }
+
+    // tokens left after taking one, or minus the milliseconds until a token is available
+    long tryConsume(final long capacity, final long refillPerSecond, final long now) {
+        while (true) {
+            var current = state.get();
+            var lastRefill = current & TIME_MASK;
+            var milliTokens = milliTokens(current, capacity, refillPerSecond, now);
+            if (milliTokens < MILLI_TOKENS_PER_TOKEN) {
+                return -waitTime(milliTokens, refillPerSecond);
+            }
+            var remaining = milliTokens - MILLI_TOKENS_PER_TOKEN;
+            if (state.compareAndSet(current, pack(remaining, Math.max(now, lastRefill)))) {
+                return remaining / MILLI_TOKENS_PER_TOKEN;
+            }
+        }
+    }
+
+    // milliseconds until a token is available, 0 when there is one, nothing is taken
+    long waitTime(final long capacity, final long refillPerSecond, final long now) {
+        var milliTokens = milliTokens(state.get(), capacity, refillPerSecond, now);
+        return milliTokens < MILLI_TOKENS_PER_TOKEN ? waitTime(milliTokens, refillPerSecond) : 0;
+    }
+
+    // returns a token taken by tryConsume
+    void refund(final long capacity) {
+        var maxMilliTokens = capacity * MILLI_TOKENS_PER_TOKEN;
+        while (true) {
+            var current = state.get();
+            var milliTokens = Math.min(maxMilliTokens, (current >>> TIME_BITS) + MILLI_TOKENS_PER_TOKEN);
+            if (state.compareAndSet(current, pack(milliTokens, current & TIME_MASK))) {
+                return;
+            }
+        }
+    }
+
+    private static long milliTokens(final long state, final long capacity, final long refillPerSecond, final long now) {
+        var elapsed = Math.max(0, now - (state & TIME_MASK));
+        // refillPerSecond tokens per second is exactly refillPerSecond milli-tokens per millisecond
+        return Math.min(capacity * MILLI_TOKENS_PER_TOKEN, (state >>> TIME_BITS) + elapsed * refillPerSecond);
+    }
+
+    private static long waitTime(final long milliTokens, final long refillPerSecond) {
+        var missing = MILLI_TOKENS_PER_TOKEN - milliTokens;
+        return Math.max(1, (missing + refillPerSecond - 1) / refillPerSecond);
+    }
+
+    long lastRefill() {
+        return state.get() & TIME_MASK;
+    }
+
+    private static long pack(final long milliTokens, final long time) {
+        return milliTokens << TIME_BITS | time & TIME_MASK;
+    }
+
+}
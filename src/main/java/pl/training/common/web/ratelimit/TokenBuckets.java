@@ -0,0 +1,59 @@
+package pl.training.common.web.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Buckets of one rule. Idle buckets are dropped once they would have refilled completely, since a new bucket is equivalent.
+// When the map is full, unknown keys share one overflow bucket, so a flood of keys cannot grow memory or bypass the limit.
+final class TokenBuckets {
+
+    private final long capacity;
+    private final long refillPerSecond;
+    private final int maxBuckets;
+    private final long idleTime;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflowBucket;
+
+    TokenBuckets(final long capacity, final long refillPerSecond, final int maxBuckets, final long now) {
+        if (capacity < 1 || capacity > TokenBucket.MAX_CAPACITY || refillPerSecond < 1) {
+            throw new IllegalArgumentException("Capacity must be between 1 and %d, refill must be positive".formatted(TokenBucket.MAX_CAPACITY));
+        }
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.maxBuckets = maxBuckets;
+        this.idleTime = Math.ceilDiv(capacity * 1000, refillPerSecond);
+        this.overflowBucket = new TokenBucket(capacity, now);
+    }
+
+    TokenBucket get(final String key, final long now) {
+        var bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.size() < maxBuckets
+                    ? buckets.computeIfAbsent(key, newKey -> new TokenBucket(capacity, now))
+                    : overflowBucket;
+        }
+        return bucket;
+    }
+
+    long waitTime(final TokenBucket bucket, final long now) {
+        return bucket.waitTime(capacity, refillPerSecond, now);
+    }
+
+    long tryConsume(final TokenBucket bucket, final long now) {
+        return bucket.tryConsume(capacity, refillPerSecond, now);
+    }
+
+    void refund(final TokenBucket bucket) {
+        bucket.refund(capacity);
+    }
+
+    // a request racing with the removal may take a token from the dropped, full bucket, at most one burst is lost
+    void removeIdle(final long now) {
+        buckets.entrySet().removeIf(entry -> now - entry.getValue().lastRefill() >= idleTime);
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+
+}
@@ -1,12 +1,19 @@
 package pl.training.payments;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import pl.training.payments.adapters.persistence.HashMapCardRepository;
+import pl.training.payments.adapters.velocity.VelocityProperties;
 import pl.training.payments.application.*;
 
+import java.time.Duration;
+
 // @Profile("default")
 @Configuration
+@EnableConfigurationProperties(VelocityProperties.class)
 public class PaymentsConfiguration {
 
     // @Profile("default")
@@ -17,10 +24,28 @@ public class PaymentsConfiguration {
         return new AddCardUseCase(cardNumberGenerator, cardRepository, dateTimeProvider);
     }
 
+    @Bean
+    public AddCardsUseCase addCardsUseCase(CardRepository cardRepository, DateTimeProvider dateTimeProvider) {
+        return new AddCardsUseCase(cardRepository, dateTimeProvider);
+    }
+
+    @Bean
+    public BulkAddCardsUseCase bulkAddCardsUseCase(CardNumberGenerator cardNumberGenerator, AddCardsUseCase addCardsUseCase,
+                                                   @Value("${payments.bulk-issuance.chunk-size:1000}") int chunkSize) {
+        return new BulkAddCardsUseCase(cardNumberGenerator, addCardsUseCase, chunkSize);
+    }
+
     @Bean
     public AddTransactionUseCase  addTransactionUseCase(DateTimeProvider dateTimeProvider, TransactionEventPublisher transactionEventPublisher,
-                                                        CardRepository cardRepository) {
-        return new AddTransactionUseCase(dateTimeProvider, transactionEventPublisher, cardRepository);
+                                                        CardRepository cardRepository, DailyTotalsRepository dailyTotalsRepository,
+                                                        TransactionIndex transactionIndex, ObjectProvider<TransactionCheck> transactionChecks) {
+        return new AddTransactionUseCase(dateTimeProvider, transactionEventPublisher, cardRepository, dailyTotalsRepository, transactionIndex,
+                transactionChecks.orderedStream().toList());
+    }
+
+    @Bean
+    public SearchTransactionsUseCase searchTransactionsUseCase(TransactionIndex transactionIndex) {
+        return new SearchTransactionsUseCase(transactionIndex);
     }
 
     @Bean
@@ -33,4 +58,40 @@ public class PaymentsConfiguration {
         return new GetCardUseCase(cardRepository);
     }
 
+    @Bean
+    public GetCardTransactionsUseCase getCardTransactionsUseCase(CardRepository cardRepository, TransactionArchive transactionArchive) {
+        return new GetCardTransactionsUseCase(cardRepository, transactionArchive);
+    }
+
+    // the other card stores are not tied to the database transaction that archives the moved history
+    @ConditionalOnProperty(name = "payments.card-repository", havingValue = "jpa", matchIfMissing = true)
+    @Bean
+    public CompactCardHistoryUseCase compactCardHistoryUseCase(CardRepository cardRepository, TransactionArchive transactionArchive,
+                                                               DateTimeProvider dateTimeProvider,
+                                                               @Value("${payments.history.hot-window:P30D}") Duration hotWindow) {
+        return new CompactCardHistoryUseCase(cardRepository, transactionArchive, dateTimeProvider, hotWindow);
+    }
+
+    @Bean
+    public GetDailyTotalsUseCase getDailyTotalsUseCase(DailyTotalsRepository dailyTotalsRepository) {
+        return new GetDailyTotalsUseCase(dailyTotalsRepository);
+    }
+
+    @Bean
+    public RecordedAddTransactionUseCase recordedAddTransactionUseCase(AddTransactionUseCase addTransactionUseCase,
+                                                                       IdempotencyStore idempotencyStore) {
+        return new RecordedAddTransactionUseCase(addTransactionUseCase, idempotencyStore);
+    }
+
+    @Bean
+    public IdempotentAddTransactionUseCase idempotentAddTransactionUseCase(RecordedAddTransactionUseCase recordedAddTransactionUseCase,
+                                                                           IdempotencyStore idempotencyStore,
+                                                                           DateTimeProvider dateTimeProvider,
+                                                                           @Value("${payments.idempotency.time-to-live:PT24H}") Duration timeToLive,
+                                                                           @Value("${payments.idempotency.lease-time:PT30S}") Duration leaseTime,
+                                                                           @Value("${payments.idempotency.capacity:100000}") int capacity) {
+        return new IdempotentAddTransactionUseCase(recordedAddTransactionUseCase, idempotencyStore, dateTimeProvider, timeToLive,
+                leaseTime, capacity);
+    }
+
 }
@@ -0,0 +1,21 @@
+package pl.training.payments.adapters;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.training.payments.application.IdempotentAddTransactionUseCase;
+
+@Component
+public final class IdempotencyExpirationJob {
+
+    private final IdempotentAddTransactionUseCase idempotentAddTransactionUseCase;
+
+    public IdempotencyExpirationJob(final IdempotentAddTransactionUseCase idempotentAddTransactionUseCase) {
+        this.idempotentAddTransactionUseCase = idempotentAddTransactionUseCase;
+    }
+
+    @Scheduled(fixedDelayString = "${payments.idempotency.expiration-interval:PT5M}")
+    public void removeExpired() {
+        idempotentAddTransactionUseCase.removeExpired();
+    }
+
+}
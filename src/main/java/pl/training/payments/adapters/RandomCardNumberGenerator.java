@@ -20,12 +20,12 @@ public final class RandomCardNumberGenerator implements CardNumberGenerator {
 
     @Override
     public synchronized CardNumber getNext() {
-        var number = new StringBuilder();
+        long digits = 0;
         for (int index = 0; index < length; index++) {
             int digit = random.nextInt(10);
-            number.append(digit);
+            digits = digits * 10 + digit;
         }
-        return new CardNumber(number.toString());
+        return new CardNumber(digits, length);
     }
 
 }
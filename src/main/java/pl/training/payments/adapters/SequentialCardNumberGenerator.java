@@ -6,14 +6,19 @@ import pl.training.common.component.Generator;
 import pl.training.payments.application.CardNumberGenerator;
 import pl.training.payments.domain.CardNumber;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Primary
 //@Component
 @Generator("seq")
 public class SequentialCardNumberGenerator implements CardNumberGenerator {
 
-    private final int length;
+    // generators are prototypes, every use case gets its own instance but the numbers must not repeat between them
+    private static final AtomicLong COUNTER = new AtomicLong();
 
-    private long counter;
+    private final int length;
 
     public SequentialCardNumberGenerator(@Value("${card-number-length}") final int length) {
         if (length < 0) {
@@ -23,9 +28,19 @@ public class SequentialCardNumberGenerator implements CardNumberGenerator {
     }
 
     @Override
-    public synchronized CardNumber getNext() {
-        var number = String.format("%0" + length + "d", ++counter);
-        return new CardNumber(number);
+    public CardNumber getNext() {
+        return new CardNumber(COUNTER.incrementAndGet(), length);
+    }
+
+    // a contiguous block is taken with a single atomic add
+    @Override
+    public List<CardNumber> reserve(final int count) {
+        var first = COUNTER.getAndAdd(count) + 1;
+        var cardNumbers = new ArrayList<CardNumber>(count);
+        for (int index = 0; index < count; index++) {
+            cardNumbers.add(new CardNumber(first + index, length));
+        }
+        return cardNumbers;
     }
 
 }
@@ -0,0 +1,62 @@
+package pl.training.payments.adapters;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.training.common.PageSpec;
+import pl.training.common.ResultPage;
+import pl.training.payments.application.CompactCardHistoryUseCase;
+import pl.training.payments.domain.CardNumber;
+
+import java.util.Optional;
+import java.util.logging.Logger;
+
+@Component
+@ConditionalOnProperty(name = "payments.card-repository", havingValue = "jpa", matchIfMissing = true)
+public final class TransactionHistoryCompactionJob {
+
+    private static final Logger LOGGER = Logger.getLogger(TransactionHistoryCompactionJob.class.getName());
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final CompactCardHistoryUseCase compactCardHistoryUseCase;
+
+    public TransactionHistoryCompactionJob(final CompactCardHistoryUseCase compactCardHistoryUseCase) {
+        this.compactCardHistoryUseCase = compactCardHistoryUseCase;
+    }
+
+    @Scheduled(initialDelayString = "${payments.history.compaction-interval:PT1H}",
+            fixedDelayString = "${payments.history.compaction-interval:PT1H}")
+    public void compact() {
+        var pageIndex = 0;
+        var totalPages = 1;
+        var skippedPages = 0;
+        String lastNumber = null;
+        do {
+            var page = compactPage(new PageSpec(pageIndex++, PAGE_SIZE, lastNumber));
+            if (page.isPresent()) {
+                totalPages = page.get().totalPages();
+                lastNumber = page.get().content().isEmpty() ? null : page.get().content().getLast().value();
+            } else {
+                skippedPages++;
+                lastNumber = null;
+            }
+        } while (pageIndex < totalPages);
+        LOGGER.info("Transaction history compaction finished (pages: %d, skipped: %d)".formatted(totalPages, skippedPages));
+    }
+
+    // each page is compacted in its own transaction, which rolls back as a whole when a card changed concurrently
+    private Optional<ResultPage<CardNumber>> compactPage(final PageSpec pageSpec) {
+        for (var attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                return Optional.of(compactCardHistoryUseCase.handle(pageSpec));
+            } catch (OptimisticLockingFailureException exception) {
+                LOGGER.fine("Concurrent card update during compaction of page %d (attempt %d)".formatted(pageSpec.index(), attempt));
+            }
+        }
+        LOGGER.warning("Compaction of page %d skipped until the next run".formatted(pageSpec.index()));
+        return Optional.empty();
+    }
+
+}
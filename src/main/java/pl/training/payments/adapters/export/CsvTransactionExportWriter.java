@@ -0,0 +1,49 @@
+package pl.training.payments.adapters.export;
+
+import pl.training.payments.domain.Transaction;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+final class CsvTransactionExportWriter implements TransactionExportWriter {
+
+    private static final String HEADER = "card_number,transaction_id,timestamp,amount,currency,type\n";
+    private static final char SEPARATOR = ',';
+    private static final char NEW_LINE = '\n';
+
+    private final Writer writer;
+
+    CsvTransactionExportWriter(final Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        writer.write(HEADER);
+    }
+
+    // none of the exported values can contain a separator or a quote, so no escaping is needed
+    @Override
+    public void write(final String cardNumber, final Transaction transaction) throws IOException {
+        writer.write(cardNumber);
+        writer.write(SEPARATOR);
+        writer.write(transaction.id().value().toString());
+        writer.write(SEPARATOR);
+        ISO_OFFSET_DATE_TIME.formatTo(transaction.timestamp(), writer);
+        writer.write(SEPARATOR);
+        writer.write(transaction.value().amount().toPlainString());
+        writer.write(SEPARATOR);
+        writer.write(transaction.value().currency().getCurrencyCode());
+        writer.write(SEPARATOR);
+        writer.write(transaction.type().name());
+        writer.write(NEW_LINE);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+}
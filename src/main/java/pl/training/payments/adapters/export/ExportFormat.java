@@ -0,0 +1,38 @@
+package pl.training.payments.adapters.export;
+
+import java.io.Writer;
+
+public enum ExportFormat {
+
+    CSV("text/csv", "csv") {
+        @Override
+        TransactionExportWriter createWriter(final Writer writer) {
+            return new CsvTransactionExportWriter(writer);
+        }
+    },
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        TransactionExportWriter createWriter(final Writer writer) {
+            return new NdjsonTransactionExportWriter(writer);
+        }
+    };
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(final String contentType, final String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    abstract TransactionExportWriter createWriter(Writer writer);
+
+}
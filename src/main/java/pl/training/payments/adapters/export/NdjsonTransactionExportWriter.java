@@ -0,0 +1,50 @@
+package pl.training.payments.adapters.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import pl.training.payments.domain.Transaction;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+final class NdjsonTransactionExportWriter implements TransactionExportWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().setRootValueSeparator(null);
+    private static final char NEW_LINE = '\n';
+
+    private final JsonGenerator generator;
+
+    NdjsonTransactionExportWriter(final Writer writer) {
+        try {
+            this.generator = JSON_FACTORY.createGenerator(writer);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Override
+    public void writeHeader() {
+    }
+
+    @Override
+    public void write(final String cardNumber, final Transaction transaction) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("cardNumber", cardNumber);
+        generator.writeStringField("transactionId", transaction.id().value().toString());
+        generator.writeStringField("timestamp", ISO_OFFSET_DATE_TIME.format(transaction.timestamp()));
+        generator.writeFieldName("amount");
+        generator.writeNumber(transaction.value().amount());
+        generator.writeStringField("currency", transaction.value().currency().getCurrencyCode());
+        generator.writeStringField("type", transaction.type().name());
+        generator.writeEndObject();
+        generator.writeRaw(NEW_LINE);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+}
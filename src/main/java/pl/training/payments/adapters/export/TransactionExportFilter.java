@@ -0,0 +1,18 @@
+package pl.training.payments.adapters.export;
+
+import pl.training.payments.domain.Transaction;
+
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.Optional;
+
+public record TransactionExportFilter(Optional<ZonedDateTime> from, Optional<ZonedDateTime> to, Optional<Currency> currency) {
+
+    public boolean matches(final Transaction transaction) {
+        var timestamp = transaction.timestamp();
+        return from.map(value -> !timestamp.isBefore(value)).orElse(true)
+                && to.map(timestamp::isBefore).orElse(true)
+                && currency.map(transaction::hasCurrency).orElse(true);
+    }
+
+}
@@ -0,0 +1,56 @@
+package pl.training.payments.adapters.export;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+// java -jar payments.jar --payments.export.file=transactions.csv.gz --payments.export.compressed=true --payments.export.currency=PLN
+@ConditionalOnProperty("payments.export.file")
+@Component
+public class TransactionExportRunner implements ApplicationRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(TransactionExportRunner.class.getName());
+    private static final String PREFIX = "payments.export.";
+
+    private final TransactionExporter transactionExporter;
+    private final Environment environment;
+    private final ConfigurableApplicationContext applicationContext;
+
+    public TransactionExportRunner(final TransactionExporter transactionExporter, final Environment environment,
+                                   final ConfigurableApplicationContext applicationContext) {
+        this.transactionExporter = transactionExporter;
+        this.environment = environment;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) throws IOException {
+        transactionExporter.checkSupported();
+        var file = Path.of(environment.getRequiredProperty(PREFIX + "file"));
+        var format = environment.getProperty(PREFIX + "format", ExportFormat.class, ExportFormat.CSV);
+        var compressed = environment.getProperty(PREFIX + "compressed", Boolean.class, false);
+        var filter = new TransactionExportFilter(
+                Optional.ofNullable(environment.getProperty(PREFIX + "from")).map(ZonedDateTime::parse),
+                Optional.ofNullable(environment.getProperty(PREFIX + "to")).map(ZonedDateTime::parse),
+                Optional.ofNullable(environment.getProperty(PREFIX + "currency")).map(Currency::getInstance)
+        );
+        try (var output = Files.newOutputStream(file)) {
+            transactionExporter.export(filter, format, compressed, output);
+        }
+        LOGGER.info("Transactions exported to %s".formatted(file.toAbsolutePath()));
+        System.exit(SpringApplication.exit(applicationContext));
+    }
+
+}
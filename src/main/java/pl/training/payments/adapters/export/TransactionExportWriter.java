@@ -0,0 +1,15 @@
+package pl.training.payments.adapters.export;
+
+import pl.training.payments.domain.Transaction;
+
+import java.io.IOException;
+
+interface TransactionExportWriter {
+
+    void writeHeader() throws IOException;
+
+    void write(String cardNumber, Transaction transaction) throws IOException;
+
+    void flush() throws IOException;
+
+}
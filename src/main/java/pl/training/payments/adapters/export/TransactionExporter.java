@@ -0,0 +1,144 @@
+package pl.training.payments.adapters.export;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.training.payments.adapters.persistence.TransactionHistoryCodec;
+import pl.training.payments.adapters.persistence.TransactionJsonMapper;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+import pl.training.payments.domain.TransactionType;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Rows are read through a forward-only cursor and written out one by one, so memory use does not depend on the export size.
+// Hot histories are read from the card table, so only the JPA card repository can be exported.
+@Component
+public class TransactionExporter {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CARDS_QUERY = "select number, transactions from card";
+    private static final String SUPPORTED_CARD_REPOSITORY = "jpa";
+    private static final String ARCHIVED_TRANSACTIONS_QUERY = "select card_number, id, timestamp, zone_id, amount, currency_code, type from archived_transaction";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionHistoryCodec historyCodec;
+    private final TransactionJsonMapper jsonMapper;
+    private final String cardRepository;
+
+    public TransactionExporter(final DataSource dataSource, final PlatformTransactionManager transactionManager,
+                               final TransactionHistoryCodec historyCodec, final TransactionJsonMapper jsonMapper,
+                               @Value("${payments.card-repository:jpa}") final String cardRepository) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // both queries read one snapshot, so history moved to the archive meanwhile is exported exactly once
+        // (postgres gives a snapshot from REPEATABLE READ up, H2 only at SERIALIZABLE)
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.historyCodec = historyCodec;
+        this.jsonMapper = jsonMapper;
+        this.cardRepository = cardRepository;
+    }
+
+    // any other card repository leaves the card table empty, an export would silently contain only the archive
+    public void checkSupported() {
+        if (!SUPPORTED_CARD_REPOSITORY.equals(cardRepository)) {
+            throw new IllegalStateException("Transaction export is not supported with payments.card-repository=" + cardRepository);
+        }
+    }
+
+    public void export(final TransactionExportFilter filter, final ExportFormat format, final boolean compressed, final OutputStream output) throws IOException {
+        checkSupported();
+        var targetOutput = compressed ? new GZIPOutputStream(output, BUFFER_SIZE) : output;
+        var writer = format.createWriter(new BufferedWriter(new OutputStreamWriter(targetOutput, UTF_8), BUFFER_SIZE));
+        writer.writeHeader();
+        // the cursor is only kept open by postgres inside a transaction (autocommit disabled)
+        transactionTemplate.executeWithoutResult(status -> {
+            exportArchivedTransactions(filter, writer);
+            exportCardTransactions(filter, writer);
+        });
+        writer.flush();
+        if (targetOutput instanceof GZIPOutputStream gzipOutput) {
+            gzipOutput.finish();
+        }
+        output.flush();
+    }
+
+    private void exportArchivedTransactions(final TransactionExportFilter filter, final TransactionExportWriter writer) {
+        var query = new StringBuilder(ARCHIVED_TRANSACTIONS_QUERY).append(" where 1 = 1");
+        var parameters = new ArrayList<>();
+        filter.from().ifPresent(from -> {
+            query.append(" and timestamp >= ?");
+            parameters.add(Timestamp.from(from.toInstant()));
+        });
+        filter.to().ifPresent(to -> {
+            query.append(" and timestamp < ?");
+            parameters.add(Timestamp.from(to.toInstant()));
+        });
+        filter.currency().ifPresent(currency -> {
+            query.append(" and currency_code = ?");
+            parameters.add(currency.getCurrencyCode());
+        });
+        jdbcTemplate.query(query.toString(), resultSet -> {
+            write(writer, resultSet.getString("card_number"), toTransaction(resultSet));
+        }, parameters.toArray());
+    }
+
+    private Transaction toTransaction(final ResultSet resultSet) throws SQLException {
+        var id = new TransactionId(UUID.fromString(resultSet.getString("id")));
+        var timestamp = resultSet.getTimestamp("timestamp").toInstant().atZone(ZoneId.of(resultSet.getString("zone_id")));
+        var value = new Money(resultSet.getBigDecimal("amount"), Currency.getInstance(resultSet.getString("currency_code")));
+        var type = TransactionType.valueOf(resultSet.getString("type"));
+        return new Transaction(id, timestamp, value, type);
+    }
+
+    private void exportCardTransactions(final TransactionExportFilter filter, final TransactionExportWriter writer) {
+        var query = new StringBuilder(CARDS_QUERY);
+        var parameters = new ArrayList<>();
+        filter.currency().ifPresent(currency -> {
+            query.append(" where currency_code = ?");
+            parameters.add(currency.getCurrencyCode());
+        });
+        jdbcTemplate.query(query.toString(), resultSet -> {
+            var cardNumber = resultSet.getString("number");
+            var history = resultSet.getBytes("transactions");
+            if (history != null) {
+                jsonMapper.forEachTransaction(historyCodec.decode(history), transaction -> {
+                    if (filter.matches(transaction)) {
+                        write(writer, cardNumber, transaction);
+                    }
+                });
+            }
+        }, parameters.toArray());
+    }
+
+    private void write(final TransactionExportWriter writer, final String cardNumber, final Transaction transaction) {
+        try {
+            writer.write(cardNumber, transaction);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package pl.training.payments.adapters.persistence;
+
+import pl.training.payments.domain.CardId;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.HistoryCheckpoint;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+import pl.training.payments.domain.TransactionType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.UUID;
+
+// Compact binary form of card snapshots and transactions, shared by the adapters that do not go through JPA
+public final class CardRecordCodec {
+
+    private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+    private CardRecordCodec() {
+    }
+
+    public static byte[] encode(final CardSnapshot cardSnapshot) {
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            write(output, cardSnapshot);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static CardSnapshot decodeCardSnapshot(final byte[] data) {
+        try (var input = new DataInputStream(new ByteArrayInputStream(data))) {
+            return readCardSnapshot(input);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    public static void write(final DataOutput output, final CardSnapshot cardSnapshot) throws IOException {
+        write(output, cardSnapshot.id().value());
+        output.writeLong(cardSnapshot.number().digits());
+        output.writeByte(cardSnapshot.number().length());
+        output.writeLong(cardSnapshot.expiration().toEpochDay());
+        output.writeUTF(cardSnapshot.currency().getCurrencyCode());
+        var checkpoint = cardSnapshot.checkpoint();
+        output.writeBoolean(checkpoint != null);
+        if (checkpoint != null) {
+            write(output, checkpoint.timestamp());
+            write(output, checkpoint.balance().amount());
+        }
+        output.writeInt(cardSnapshot.transactions().size());
+        for (var transaction : cardSnapshot.transactions()) {
+            write(output, transaction);
+        }
+    }
+
+    public static CardSnapshot readCardSnapshot(final DataInput input) throws IOException {
+        var id = new CardId(readUuid(input));
+        var number = new CardNumber(input.readLong(), input.readByte());
+        var expiration = LocalDate.ofEpochDay(input.readLong());
+        var currency = Currency.getInstance(input.readUTF());
+        HistoryCheckpoint checkpoint = null;
+        if (input.readBoolean()) {
+            checkpoint = new HistoryCheckpoint(readZonedDateTime(input), new Money(readBigDecimal(input), currency));
+        }
+        var count = input.readInt();
+        var transactions = new ArrayList<Transaction>(count);
+        for (int index = 0; index < count; index++) {
+            transactions.add(readTransaction(input));
+        }
+        return new CardSnapshot(id, number, expiration, currency, checkpoint, transactions);
+    }
+
+    public static void write(final DataOutput output, final Transaction transaction) throws IOException {
+        write(output, transaction.id().value());
+        write(output, transaction.timestamp());
+        write(output, transaction.value().amount());
+        output.writeUTF(transaction.value().currency().getCurrencyCode());
+        output.writeByte(transaction.type().ordinal());
+    }
+
+    public static Transaction readTransaction(final DataInput input) throws IOException {
+        var id = new TransactionId(readUuid(input));
+        var timestamp = readZonedDateTime(input);
+        var amount = readBigDecimal(input);
+        var currency = Currency.getInstance(input.readUTF());
+        var type = TRANSACTION_TYPES[input.readByte()];
+        return new Transaction(id, timestamp, new Money(amount, currency), type);
+    }
+
+    private static void write(final DataOutput output, final UUID uuid) throws IOException {
+        output.writeLong(uuid.getMostSignificantBits());
+        output.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(final DataInput input) throws IOException {
+        return new UUID(input.readLong(), input.readLong());
+    }
+
+    private static void write(final DataOutput output, final ZonedDateTime timestamp) throws IOException {
+        output.writeLong(timestamp.toEpochSecond());
+        output.writeInt(timestamp.getNano());
+        output.writeUTF(timestamp.getZone().getId());
+    }
+
+    private static ZonedDateTime readZonedDateTime(final DataInput input) throws IOException {
+        var instant = Instant.ofEpochSecond(input.readLong(), input.readInt());
+        return ZonedDateTime.ofInstant(instant, ZoneId.of(input.readUTF()));
+    }
+
+    private static void write(final DataOutput output, final BigDecimal value) throws IOException {
+        var unscaledValue = value.unscaledValue().toByteArray();
+        output.writeInt(value.scale());
+        output.writeShort(unscaledValue.length);
+        output.write(unscaledValue);
+    }
+
+    private static BigDecimal readBigDecimal(final DataInput input) throws IOException {
+        var scale = input.readInt();
+        var unscaledValue = new byte[input.readUnsignedShort()];
+        input.readFully(unscaledValue);
+        return new BigDecimal(new BigInteger(unscaledValue), scale);
+    }
+
+}
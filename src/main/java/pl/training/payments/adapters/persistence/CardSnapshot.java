@@ -0,0 +1,62 @@
+package pl.training.payments.adapters.persistence;
+
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardId;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.HistoryCheckpoint;
+import pl.training.payments.domain.Transaction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Objects;
+
+// Immutable copy of a card's persistent state, stored adapters hand out fresh Card instances built from it
+public record CardSnapshot(CardId id, CardNumber number, LocalDate expiration, Currency currency,
+                           HistoryCheckpoint checkpoint, List<Transaction> transactions) {
+
+    public CardSnapshot {
+        transactions = List.copyOf(transactions);
+    }
+
+    public static CardSnapshot of(final Card card) {
+        return new CardSnapshot(card.getId(), card.getNumber(), card.getExpiration(), card.getCurrency(),
+                card.getCheckpoint().orElse(null), card.getTransactions());
+    }
+
+    public Card toCard() {
+        var card = checkpoint != null
+                ? new Card(id, number, expiration, currency, checkpoint)
+                : new Card(id, number, expiration, currency);
+        transactions.forEach(card::registerTransaction);
+        return card;
+    }
+
+    public CardSnapshot withTransaction(final Transaction transaction) {
+        var newTransactions = new ArrayList<>(transactions);
+        newTransactions.add(transaction);
+        return new CardSnapshot(id, number, expiration, currency, checkpoint, newTransactions);
+    }
+
+    // transactions registered on the card since this snapshot, empty when the card changed in any other way
+    public List<Transaction> newTransactions(final Card card) {
+        return newTransactions(card.getCheckpoint().orElse(null), card.getTransactions());
+    }
+
+    public List<Transaction> newTransactions(final CardSnapshot cardSnapshot) {
+        return newTransactions(cardSnapshot.checkpoint(), cardSnapshot.transactions());
+    }
+
+    private List<Transaction> newTransactions(final HistoryCheckpoint otherCheckpoint, final List<Transaction> otherTransactions) {
+        if (!Objects.equals(checkpoint, otherCheckpoint)) {
+            return List.of();
+        }
+        var count = transactions.size();
+        if (otherTransactions.size() <= count || (count > 0 && !otherTransactions.get(count - 1).equals(transactions.get(count - 1)))) {
+            return List.of();
+        }
+        return otherTransactions.subList(count, otherTransactions.size());
+    }
+
+}
@@ -0,0 +1,119 @@
+package pl.training.payments.adapters.persistence;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardNumber;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Saves of the in-process card stores. A save is checked against the version the card was read in and held back until
+// the transaction commits, the card stays reserved until then so no other save can slip in between the check and the write.
+public final class CardUnitOfWork {
+
+    private final Map<Long, Object> reservations = new ConcurrentHashMap<>();
+    private final LoadedCardVersions loadedVersions;
+    private final Consumer<List<Card>> committer;
+
+    // the committer writes the cards of a committed transaction in save order, the last save of a card wins
+    public CardUnitOfWork(final LoadedCardVersions loadedVersions, final Consumer<List<Card>> committer) {
+        this.loadedVersions = loadedVersions;
+        this.committer = committer;
+    }
+
+    public void save(final Card card, final LongSupplier storedVersion) {
+        var key = card.getNumber().key();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            var owner = new Object();
+            reserve(key, owner);
+            try {
+                checkVersion(card, storedVersion);
+                committer.accept(List.of(card));
+            } finally {
+                reservations.remove(key, owner);
+            }
+            return;
+        }
+        var pendingWrites = pendingWrites();
+        var reserved = reserve(key, pendingWrites);
+        try {
+            checkVersion(card, storedVersion);
+        } catch (OptimisticLockingFailureException exception) {
+            if (reserved) {
+                reservations.remove(key, pendingWrites);
+            }
+            throw exception;
+        }
+        pendingWrites.cards.put(key, card);
+    }
+
+    // the card saved, but not yet committed, in the current transaction
+    public Optional<Card> findPending(final CardNumber cardNumber) {
+        var pendingWrites = (PendingWrites) TransactionSynchronizationManager.getResource(this);
+        return pendingWrites != null ? Optional.ofNullable(pendingWrites.cards.get(cardNumber.key())) : Optional.empty();
+    }
+
+    private boolean reserve(final long key, final Object owner) {
+        var currentOwner = reservations.putIfAbsent(key, owner);
+        if (currentOwner != null && currentOwner != owner) {
+            throw new OptimisticLockingFailureException("Card is being saved by another transaction");
+        }
+        return currentOwner == null;
+    }
+
+    // cards not read in the current transaction (e.g. new ones) are written as they are
+    private void checkVersion(final Card card, final LongSupplier storedVersion) {
+        var loadedVersion = loadedVersions.find(card);
+        if (loadedVersion.isPresent() && loadedVersion.getAsLong() != storedVersion.getAsLong()) {
+            throw new OptimisticLockingFailureException("Card was changed by another transaction since it was read");
+        }
+    }
+
+    private PendingWrites pendingWrites() {
+        var pendingWrites = (PendingWrites) TransactionSynchronizationManager.getResource(this);
+        if (pendingWrites == null) {
+            pendingWrites = new PendingWrites();
+            TransactionSynchronizationManager.bindResource(this, pendingWrites);
+            TransactionSynchronizationManager.registerSynchronization(pendingWrites);
+        }
+        return pendingWrites;
+    }
+
+    private final class PendingWrites implements TransactionSynchronization {
+
+        private final Map<Long, Card> cards = new LinkedHashMap<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(CardUnitOfWork.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(CardUnitOfWork.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            if (!cards.isEmpty()) {
+                committer.accept(new ArrayList<>(cards.values()));
+            }
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CardUnitOfWork.this);
+            cards.keySet().forEach(key -> reservations.remove(key, this));
+        }
+
+    }
+
+}
@@ -2,39 +2,123 @@ package pl.training.payments.adapters.persistence;
 
 import pl.training.common.PageSpec;
 import pl.training.common.ResultPage;
+import pl.training.common.collection.LongObjectHashMap;
 import pl.training.payments.application.CardRepository;
 import pl.training.payments.domain.Card;
 import pl.training.payments.domain.CardNumber;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
+// Cards are stored as immutable snapshots indexed by the packed card number, a save is checked against the version
+// the card was read in and applied when its transaction commits
 public class HashMapCardRepository implements CardRepository {
 
-    private final Map<CardNumber, Card> data = new HashMap<>();
+    private final LongObjectHashMap<VersionedCard> data = new LongObjectHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LoadedCardVersions loadedVersions = new LoadedCardVersions();
+    private final CardUnitOfWork unitOfWork = new CardUnitOfWork(loadedVersions, this::write);
 
     @Override
-    public synchronized Card save(final Card card) {
-        data.put(card.getNumber(), card);
+    public Card save(final Card card) {
+        unitOfWork.save(card, () -> {
+            var stored = find(card.getNumber());
+            return stored != null ? stored.version() : 0;
+        });
         return card;
     }
 
+    // called with the cards of a committed transaction
+    protected void write(final List<Card> cards) {
+        cards.forEach(this::update);
+    }
+
+    // stores the next version of the card, the change carries the replaced version (null for a new card)
+    protected Change update(final Card card) {
+        var cardSnapshot = CardSnapshot.of(card);
+        lock.writeLock().lock();
+        try {
+            var key = card.getNumber().key();
+            var previous = data.get(key);
+            var current = new VersionedCard(previous != null ? previous.version() + 1 : 1, cardSnapshot);
+            data.put(key, current);
+            return new Change(previous, current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     @Override
-    public synchronized ResultPage<Card> findAll(final PageSpec pageSpec) {
-        var cards = new ArrayList<>(data.values());
-        int startIndex = pageSpec.index() * pageSpec.size();
-        int endIndex = Math.min(startIndex + pageSpec.size(), cards.size());
-        var content = cards.subList(startIndex, endIndex);
-        int totalPages = (int) Math.ceil((double) cards.size() / pageSpec.size());
+    public ResultPage<Card> findAll(final PageSpec pageSpec) {
+        var startIndex = (long) pageSpec.index() * pageSpec.size();
+        var page = new ArrayList<VersionedCard>(pageSpec.size());
+        int size;
+        lock.readLock().lock();
+        try {
+            size = data.size();
+            var index = new long[1];
+            data.forEachValue(versionedCard -> {
+                if (index[0]++ >= startIndex && page.size() < pageSpec.size()) {
+                    page.add(versionedCard);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        var content = page.stream()
+                .map(versionedCard -> loadedVersions.track(versionedCard.cardSnapshot().toCard(), versionedCard.version()))
+                .toList();
+        int totalPages = (int) Math.ceil((double) size / pageSpec.size());
         return new ResultPage<>(content, pageSpec, totalPages);
     }
 
     @Override
-    public synchronized Optional<Card> findByNumber(final CardNumber cardNumber) {
-        var card = data.get(cardNumber);
-        return Optional.ofNullable(card);
+    public Optional<Card> findByNumber(final CardNumber cardNumber) {
+        return unitOfWork.findPending(cardNumber)
+                .or(() -> Optional.ofNullable(find(cardNumber))
+                        .map(versionedCard -> loadedVersions.track(versionedCard.cardSnapshot().toCard(), versionedCard.version())));
+    }
+
+    protected VersionedCard find(final CardNumber cardNumber) {
+        lock.readLock().lock();
+        try {
+            return data.get(cardNumber.key());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // visits the cards stored when it is called, the lock is only held to copy the references
+    protected void forEachCard(final Consumer<VersionedCard> consumer) {
+        List<VersionedCard> versionedCards;
+        lock.readLock().lock();
+        try {
+            versionedCards = data.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+        versionedCards.forEach(consumer);
+    }
+
+    // keeps the newer of the stored and the given version
+    protected void restore(final VersionedCard versionedCard) {
+        var key = versionedCard.cardSnapshot().number().key();
+        lock.writeLock().lock();
+        try {
+            var stored = data.get(key);
+            if (stored == null || versionedCard.version() > stored.version()) {
+                data.put(key, versionedCard);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    protected record Change(VersionedCard previous, VersionedCard current) {
     }
 
 }
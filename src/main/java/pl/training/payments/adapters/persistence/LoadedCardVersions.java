@@ -0,0 +1,57 @@
+package pl.training.payments.adapters.persistence;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.training.payments.domain.Card;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+// Versions the cards handed out in the current transaction were read in, cards read outside a transaction are not tracked
+public final class LoadedCardVersions {
+
+    public Card track(final Card card, final long version) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions().put(card, version);
+        }
+        return card;
+    }
+
+    @SuppressWarnings("unchecked")
+    public OptionalLong find(final Card card) {
+        var versions = (Map<Card, Long>) TransactionSynchronizationManager.getResource(this);
+        var version = versions != null ? versions.get(card) : null;
+        return version != null ? OptionalLong.of(version) : OptionalLong.empty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Card, Long> versions() {
+        var versions = (Map<Card, Long>) TransactionSynchronizationManager.getResource(this);
+        if (versions == null) {
+            var newVersions = new IdentityHashMap<Card, Long>();
+            TransactionSynchronizationManager.bindResource(this, newVersions);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(LoadedCardVersions.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(LoadedCardVersions.this, newVersions);
+                }
+
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(LoadedCardVersions.this);
+                }
+
+            });
+            versions = newVersions;
+        }
+        return versions;
+    }
+
+}
@@ -0,0 +1,100 @@
+package pl.training.payments.adapters.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// [magic][first journal segment]([true][record])*[false][crc32c], replaced atomically when complete
+public final class SnapshotFile<T> {
+
+    private static final int MAGIC = 0xC7534E31;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final RecordWriter<T> writer;
+    private final RecordReader<T> reader;
+
+    public SnapshotFile(final Path path, final RecordWriter<T> writer, final RecordReader<T> reader) {
+        this.path = path;
+        this.writer = writer;
+        this.reader = reader;
+    }
+
+    public void write(final long firstSegment, final Consumer<Consumer<T>> records) throws IOException {
+        var temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        var crc = new CRC32C();
+        try (var fileOutput = Files.newOutputStream(temporaryPath);
+             var output = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOutput, BUFFER_SIZE), crc))) {
+            output.writeInt(MAGIC);
+            output.writeLong(firstSegment);
+            records.accept(record -> {
+                try {
+                    output.writeBoolean(true);
+                    writer.write(output, record);
+                } catch (IOException exception) {
+                    throw new RuntimeException(exception);
+                }
+            });
+            output.writeBoolean(false);
+            output.flush();
+            // the checksum itself is not covered
+            new DataOutputStream(fileOutput).writeInt((int) crc.getValue());
+            fileOutput.flush();
+        }
+        try (var channel = FileChannel.open(temporaryPath, WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporaryPath, path, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    // returns the first journal segment to replay, or -1 when there is no snapshot
+    public long read(final Consumer<T> consumer) throws IOException {
+        if (!Files.exists(path)) {
+            return -1;
+        }
+        var crc = new CRC32C();
+        try (var fileInput = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+             var input = new DataInputStream(new CheckedInputStream(fileInput, crc))) {
+            if (input.readInt() != MAGIC) {
+                throw new IllegalStateException("Invalid snapshot file " + path);
+            }
+            var firstSegment = input.readLong();
+            while (input.readBoolean()) {
+                consumer.accept(reader.read(input));
+            }
+            var expectedCrc = (int) crc.getValue();
+            if (new DataInputStream(fileInput).readInt() != expectedCrc) {
+                throw new IllegalStateException("Snapshot file %s is corrupted".formatted(path));
+            }
+            return firstSegment;
+        }
+    }
+
+    @FunctionalInterface
+    public interface RecordWriter<T> {
+
+        void write(DataOutputStream output, T record) throws IOException;
+
+    }
+
+    @FunctionalInterface
+    public interface RecordReader<T> {
+
+        T read(DataInputStream input) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,73 @@
+package pl.training.payments.adapters.persistence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Compressed histories start with a magic header, anything else is read as plain JSON (e.g. rows written before compression was enabled)
+@Component
+public class TransactionHistoryCodec {
+
+    private static final byte[] DEFLATE_HEADER = {(byte) 0xC7, 'T', 'H', 0x01};
+
+    private final Compression compression;
+    private final int compressionLevel;
+
+    public TransactionHistoryCodec(@Value("${payments.history.compression:NONE}") final Compression compression,
+                                   @Value("${payments.history.compression-level:1}") final int compressionLevel) {
+        if (compressionLevel < Deflater.BEST_SPEED || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 1 and 9");
+        }
+        this.compression = compression;
+        this.compressionLevel = compressionLevel;
+    }
+
+    public byte[] encode(final byte[] history) {
+        return switch (compression) {
+            case NONE -> history;
+            case DEFLATE -> deflate(history);
+        };
+    }
+
+    public InputStream decode(final byte[] data) {
+        if (isDeflated(data)) {
+            var compressedData = new ByteArrayInputStream(data, DEFLATE_HEADER.length, data.length - DEFLATE_HEADER.length);
+            return new InflaterInputStream(compressedData);
+        }
+        return new ByteArrayInputStream(data);
+    }
+
+    private byte[] deflate(final byte[] history) {
+        var deflater = new Deflater(compressionLevel);
+        var output = new ByteArrayOutputStream(DEFLATE_HEADER.length + history.length / 4);
+        try (var deflaterOutput = new DeflaterOutputStream(output, deflater)) {
+            output.write(DEFLATE_HEADER);
+            deflaterOutput.write(history);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        } finally {
+            deflater.end();
+        }
+        return output.toByteArray();
+    }
+
+    private boolean isDeflated(final byte[] data) {
+        return data.length >= DEFLATE_HEADER.length
+                && Arrays.equals(data, 0, DEFLATE_HEADER.length, DEFLATE_HEADER, 0, DEFLATE_HEADER.length);
+    }
+
+    public enum Compression {
+
+        NONE, DEFLATE
+
+    }
+
+}
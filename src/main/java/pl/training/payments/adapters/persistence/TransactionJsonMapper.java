@@ -1,13 +1,17 @@
 package pl.training.payments.adapters.persistence;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.stereotype.Component;
 import pl.training.payments.domain.Transaction;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
 
@@ -26,6 +30,14 @@ public class TransactionJsonMapper {
         }
     }
 
+    public byte[] writeAsBytes(final List<Transaction> transactions) {
+        try {
+            return JSON_MAPPER.writeValueAsBytes(transactions);
+        } catch (JsonProcessingException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
     public <T> T read(final String json, TypeReference<T> type) {
         try {
             return JSON_MAPPER.readValue(json, type);
@@ -34,4 +46,25 @@ public class TransactionJsonMapper {
         }
     }
 
-}
\ No newline at end of file
+    public <T> T read(final InputStream json, TypeReference<T> type) {
+        try (json) {
+            return JSON_MAPPER.readValue(json, type);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    public void forEachTransaction(final InputStream json, final Consumer<Transaction> consumer) {
+        try (var parser = JSON_MAPPER.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalStateException("Transaction history must be a JSON array");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(parser.readValueAs(Transaction.class));
+            }
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+}
@@ -0,0 +1,5 @@
+package pl.training.payments.adapters.persistence;
+
+// Every save of a card produces the next version, which makes replaying changes idempotent
+public record VersionedCard(long version, CardSnapshot cardSnapshot) {
+}
@@ -0,0 +1,359 @@
+package pl.training.payments.adapters.persistence.index;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.training.common.PageSpec;
+import pl.training.common.component.Adapter;
+import pl.training.payments.adapters.persistence.index.TransactionChunk.Column;
+import pl.training.payments.application.CardRepository;
+import pl.training.payments.application.IndexedTransaction;
+import pl.training.payments.application.TransactionIndex;
+import pl.training.payments.application.TransactionQuery;
+import pl.training.payments.application.TransactionSearchResult;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.logging.Logger;
+
+// Columnar transaction index: bitmaps for type and currency, sorted chunk indexes for time and amount.
+// A query is driven by the access path with the fewest estimated rows, the other predicates are checked on the columns.
+// Sequences are positions in the index, they are assigned anew when the index is rebuilt on startup.
+@Adapter
+@ConditionalOnProperty(name = "payments.transaction-index", havingValue = "in-memory")
+public class InMemoryTransactionIndex implements TransactionIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(InMemoryTransactionIndex.class.getName());
+    private static final int AMOUNT_SCALE = 4;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final long NANOS_PER_SECOND = 1_000_000_000;
+    private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<TransactionChunk> chunks = new ArrayList<>();
+    private final BitSet[] typeBitmaps = new BitSet[TRANSACTION_TYPES.length];
+    private final int[] typeCounts = new int[TRANSACTION_TYPES.length];
+    private final List<BitSet> currencyBitmaps = new ArrayList<>();
+    private final List<Integer> currencyCounts = new ArrayList<>();
+    private final Dictionary<Currency> currencies = new Dictionary<>();
+    private final Dictionary<ZoneId> zones = new Dictionary<>();
+    private int size;
+
+    public InMemoryTransactionIndex(final CardRepository cardRepository, final PlatformTransactionManager transactionManager) {
+        for (int index = 0; index < typeBitmaps.length; index++) {
+            typeBitmaps[index] = new BitSet();
+        }
+        rebuild(cardRepository, new TransactionTemplate(transactionManager));
+    }
+
+    // archived transactions are no longer part of card histories, after a restart only the hot history is searchable
+    private void rebuild(final CardRepository cardRepository, final TransactionTemplate transactionTemplate) {
+        var startTime = System.nanoTime();
+        transactionTemplate.setReadOnly(true);
+        var totalPages = 1;
+        String lastNumber = null;
+        for (int pageIndex = 0; pageIndex < totalPages; pageIndex++) {
+            var pageSpec = new PageSpec(pageIndex, REBUILD_PAGE_SIZE, lastNumber);
+            var page = transactionTemplate.execute(status -> cardRepository.findAll(pageSpec));
+            page.content().forEach(card -> card.getTransactions().forEach(transaction -> insert(card.getNumber(), transaction)));
+            lastNumber = page.content().isEmpty() ? null : page.content().getLast().getNumber().value();
+            totalPages = page.totalPages();
+        }
+        LOGGER.info("Transaction index rebuilt with %d transactions in %d ms".formatted(size, Duration.ofNanos(System.nanoTime() - startTime).toMillis()));
+    }
+
+    // inside a transaction the entry becomes visible only once it commits, a rolled back transaction leaves no trace
+    @Override
+    public void add(final CardNumber cardNumber, final Transaction transaction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(cardNumber, transaction);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                insert(cardNumber, transaction);
+            }
+
+        });
+    }
+
+    private void insert(final CardNumber cardNumber, final Transaction transaction) {
+        lock.writeLock().lock();
+        try {
+            if (chunks.isEmpty() || chunks.getLast().isFull()) {
+                chunks.add(new TransactionChunk());
+            }
+            var chunk = chunks.getLast();
+            var offset = chunk.size;
+            var currency = currencies.id(transaction.value().currency());
+            chunk.idMostSignificantBits[offset] = transaction.id().value().getMostSignificantBits();
+            chunk.idLeastSignificantBits[offset] = transaction.id().value().getLeastSignificantBits();
+            chunk.cardDigits[offset] = cardNumber.digits();
+            chunk.cardLengths[offset] = (byte) cardNumber.length();
+            chunk.timestamps[offset] = toNanos(transaction.timestamp().toInstant());
+            chunk.zones[offset] = zones.id(transaction.timestamp().getZone());
+            chunk.amounts[offset] = toScaledAmount(transaction.value().amount(), RoundingMode.HALF_UP);
+            chunk.currencies[offset] = currency;
+            chunk.types[offset] = (byte) transaction.type().ordinal();
+            chunk.size++;
+            if (chunk.isFull()) {
+                chunk.seal();
+            }
+            typeBitmaps[transaction.type().ordinal()].set(size);
+            typeCounts[transaction.type().ordinal()]++;
+            if (currency == currencyBitmaps.size()) {
+                currencyBitmaps.add(new BitSet());
+                currencyCounts.add(0);
+            }
+            currencyBitmaps.get(currency).set(size);
+            currencyCounts.set(currency, currencyCounts.get(currency) + 1);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public TransactionSearchResult search(final TransactionQuery query) {
+        lock.readLock().lock();
+        try {
+            var criteria = Criteria.of(query, currencies);
+            var start = (int) Math.min(query.cursor(), size);
+            var collector = new Collector(query.pageSize());
+            if (criteria.isEmpty()) {
+                return collector.result();
+            }
+            var predicate = criteria.predicate(this);
+            switch (plan(criteria)) {
+                case TYPE -> scan(typeBitmaps[criteria.type()], start, predicate, collector);
+                case CURRENCY -> scan(currencyBitmaps.get(criteria.currency()), start, predicate, collector);
+                case TIMESTAMP -> scan(Column.TIMESTAMP, criteria.minTimestamp(), criteria.maxTimestamp(), start, predicate, collector);
+                case AMOUNT -> scan(Column.AMOUNT, criteria.minAmount(), criteria.maxAmount(), start, predicate, collector);
+                case FULL_SCAN -> {
+                    for (int position = start; position < size && collector.accepts(); position++) {
+                        if (predicate.test(position)) {
+                            collector.add(position);
+                        }
+                    }
+                }
+            }
+            return collector.result();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private AccessPath plan(final Criteria criteria) {
+        var best = AccessPath.FULL_SCAN;
+        long bestEstimate = size;
+        if (criteria.type() >= 0 && typeCounts[criteria.type()] < bestEstimate) {
+            best = AccessPath.TYPE;
+            bestEstimate = typeCounts[criteria.type()];
+        }
+        if (criteria.currency() >= 0 && currencyCounts.get(criteria.currency()) < bestEstimate) {
+            best = AccessPath.CURRENCY;
+            bestEstimate = currencyCounts.get(criteria.currency());
+        }
+        if (criteria.hasTimestampRange()) {
+            var estimate = estimate(Column.TIMESTAMP, criteria.minTimestamp(), criteria.maxTimestamp());
+            if (estimate < bestEstimate) {
+                best = AccessPath.TIMESTAMP;
+                bestEstimate = estimate;
+            }
+        }
+        if (criteria.hasAmountRange() && estimate(Column.AMOUNT, criteria.minAmount(), criteria.maxAmount()) < bestEstimate) {
+            best = AccessPath.AMOUNT;
+        }
+        return best;
+    }
+
+    // exact for sealed chunks up to key granularity, the open chunk is counted as a whole
+    private long estimate(final Column column, final long min, final long max) {
+        long estimate = 0;
+        for (var chunk : chunks) {
+            estimate += chunk.isSealed() ? chunk.index(column).count(min, max) : chunk.size;
+        }
+        return estimate;
+    }
+
+    private void scan(final BitSet bitmap, final int start, final IntPredicate predicate, final Collector collector) {
+        for (var position = bitmap.nextSetBit(start); position >= 0 && collector.accepts(); position = bitmap.nextSetBit(position + 1)) {
+            if (predicate.test(position)) {
+                collector.add(position);
+            }
+        }
+    }
+
+    // chunk by chunk, so a page is found without materializing the whole range
+    private void scan(final Column column, final long min, final long max, final int start, final IntPredicate predicate,
+                      final Collector collector) {
+        for (int chunkIndex = start / TransactionChunk.CAPACITY; chunkIndex < chunks.size() && collector.accepts(); chunkIndex++) {
+            var chunk = chunks.get(chunkIndex);
+            var base = chunkIndex * TransactionChunk.CAPACITY;
+            if (chunk.isSealed()) {
+                for (var offset : chunk.index(column).offsets(min, max)) {
+                    var position = base + offset;
+                    if (position >= start && predicate.test(position)) {
+                        collector.add(position);
+                        if (!collector.accepts()) {
+                            return;
+                        }
+                    }
+                }
+            } else {
+                var values = chunk.values(column);
+                for (int offset = Math.max(0, start - base); offset < chunk.size && collector.accepts(); offset++) {
+                    if (values[offset] >= min && values[offset] < max && predicate.test(base + offset)) {
+                        collector.add(base + offset);
+                    }
+                }
+            }
+        }
+    }
+
+    private IndexedTransaction read(final int position) {
+        var chunk = chunks.get(position / TransactionChunk.CAPACITY);
+        var offset = position % TransactionChunk.CAPACITY;
+        var id = new TransactionId(new UUID(chunk.idMostSignificantBits[offset], chunk.idLeastSignificantBits[offset]));
+        var instant = Instant.ofEpochSecond(Math.floorDiv(chunk.timestamps[offset], NANOS_PER_SECOND), Math.floorMod(chunk.timestamps[offset], NANOS_PER_SECOND));
+        var timestamp = ZonedDateTime.ofInstant(instant, zones.value(chunk.zones[offset]));
+        var amount = BigDecimal.valueOf(chunk.amounts[offset], AMOUNT_SCALE);
+        var money = new Money(amount, currencies.value(chunk.currencies[offset]));
+        var transaction = new Transaction(id, timestamp, money, TRANSACTION_TYPES[chunk.types[offset]]);
+        var cardNumber = new CardNumber(chunk.cardDigits[offset], chunk.cardLengths[offset]);
+        return new IndexedTransaction(position + 1L, cardNumber, transaction);
+    }
+
+    private static long toNanos(final Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+    }
+
+    private static long toScaledAmount(final BigDecimal amount, final RoundingMode roundingMode) {
+        var scaled = amount.setScale(AMOUNT_SCALE, roundingMode).unscaledValue();
+        return scaled.bitLength() < Long.SIZE ? scaled.longValue() : (scaled.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE);
+    }
+
+    private enum AccessPath {
+        TYPE, CURRENCY, TIMESTAMP, AMOUNT, FULL_SCAN
+    }
+
+    // query translated to column values: -1 for an unconstrained type or currency, open ranges span the whole long domain
+    private record Criteria(int type, int currency, long minTimestamp, long maxTimestamp, long minAmount, long maxAmount,
+                            boolean unknownCurrency) {
+
+        static Criteria of(final TransactionQuery query, final Dictionary<Currency> currencies) {
+            var currency = query.currency().map(currencies::find).orElse(-1);
+            return new Criteria(
+                    query.type().map(Enum::ordinal).orElse(-1),
+                    currency,
+                    query.from().map(from -> toNanos(from.toInstant())).orElse(Long.MIN_VALUE),
+                    query.to().map(to -> toNanos(to.toInstant())).orElse(Long.MAX_VALUE),
+                    query.minAmount().map(amount -> toScaledAmount(amount, RoundingMode.CEILING)).orElse(Long.MIN_VALUE),
+                    query.maxAmount().map(amount -> toScaledAmount(amount, RoundingMode.CEILING)).orElse(Long.MAX_VALUE),
+                    query.currency().isPresent() && currency < 0
+            );
+        }
+
+        // nothing can match a currency that was never indexed or an empty range
+        boolean isEmpty() {
+            return unknownCurrency || minTimestamp >= maxTimestamp || minAmount >= maxAmount;
+        }
+
+        boolean hasTimestampRange() {
+            return minTimestamp != Long.MIN_VALUE || maxTimestamp != Long.MAX_VALUE;
+        }
+
+        boolean hasAmountRange() {
+            return minAmount != Long.MIN_VALUE || maxAmount != Long.MAX_VALUE;
+        }
+
+        IntPredicate predicate(final InMemoryTransactionIndex index) {
+            return position -> {
+                var chunk = index.chunks.get(position / TransactionChunk.CAPACITY);
+                var offset = position % TransactionChunk.CAPACITY;
+                return (type < 0 || chunk.types[offset] == type)
+                        && (currency < 0 || chunk.currencies[offset] == currency)
+                        && chunk.timestamps[offset] >= minTimestamp && chunk.timestamps[offset] < maxTimestamp
+                        && chunk.amounts[offset] >= minAmount && chunk.amounts[offset] < maxAmount;
+            };
+        }
+
+    }
+
+    // one match more than the page size tells whether there is a next page
+    private final class Collector {
+
+        private final int pageSize;
+        private final List<Integer> positions = new ArrayList<>();
+
+        Collector(final int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        boolean accepts() {
+            return positions.size() <= pageSize;
+        }
+
+        void add(final int position) {
+            positions.add(position);
+        }
+
+        TransactionSearchResult result() {
+            var content = positions.stream()
+                    .limit(pageSize)
+                    .map(InMemoryTransactionIndex.this::read)
+                    .toList();
+            var nextCursor = positions.size() > pageSize ? Optional.of(content.getLast().sequence()) : Optional.<Long>empty();
+            return new TransactionSearchResult(content, nextCursor);
+        }
+
+    }
+
+    private static final class Dictionary<T> {
+
+        private final Map<T, Short> ids = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        short id(final T value) {
+            return ids.computeIfAbsent(value, key -> {
+                values.add(key);
+                return (short) (values.size() - 1);
+            });
+        }
+
+        int find(final T value) {
+            var id = ids.get(value);
+            return id != null ? id : -1;
+        }
+
+        T value(final short id) {
+            return values.get(id);
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package pl.training.payments.adapters.persistence.index;
+
+import java.util.Arrays;
+
+// Fixed size block of indexed transactions stored column by column. Once full it is sealed: row offsets are sorted by
+// timestamp and by amount, so range predicates become two binary searches per chunk.
+final class TransactionChunk {
+
+    static final int CAPACITY = 1 << 16;
+
+    final long[] idMostSignificantBits = new long[CAPACITY];
+    final long[] idLeastSignificantBits = new long[CAPACITY];
+    final long[] cardDigits = new long[CAPACITY];
+    final byte[] cardLengths = new byte[CAPACITY];
+    final long[] timestamps = new long[CAPACITY];
+    final short[] zones = new short[CAPACITY];
+    final long[] amounts = new long[CAPACITY];
+    final short[] currencies = new short[CAPACITY];
+    final byte[] types = new byte[CAPACITY];
+    int size;
+
+    private SortedColumn timestampIndex;
+    private SortedColumn amountIndex;
+
+    boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    boolean isSealed() {
+        return timestampIndex != null;
+    }
+
+    void seal() {
+        timestampIndex = new SortedColumn(Column.TIMESTAMP, timestamps);
+        amountIndex = new SortedColumn(Column.AMOUNT, amounts);
+    }
+
+    SortedColumn index(final Column column) {
+        return column == Column.TIMESTAMP ? timestampIndex : amountIndex;
+    }
+
+    long[] values(final Column column) {
+        return column == Column.TIMESTAMP ? timestamps : amounts;
+    }
+
+    enum Column {
+        TIMESTAMP, AMOUNT
+    }
+
+    // Sorted (key << 16 | offset) pairs, a single primitive sort and 8 bytes per row. Keys are coarse (milliseconds, clamped
+    // amounts), so lookups return a superset of the matching rows and every candidate is checked against the exact value.
+    static final class SortedColumn {
+
+        private static final int OFFSET_BITS = 16;
+        private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+        private static final long MAX_KEY = (1L << (Long.SIZE - OFFSET_BITS - 1)) - 1;
+        private static final long NANOS_PER_MILLI = 1_000_000;
+
+        private final Column column;
+        private final long[] entries;
+
+        private SortedColumn(final Column column, final long[] values) {
+            this.column = column;
+            entries = new long[CAPACITY];
+            for (int offset = 0; offset < CAPACITY; offset++) {
+                entries[offset] = key(values[offset]) << OFFSET_BITS | offset;
+            }
+            Arrays.sort(entries);
+        }
+
+        private long key(final long value) {
+            var key = column == Column.TIMESTAMP ? Math.floorDiv(value, NANOS_PER_MILLI) : value;
+            return Math.clamp(key, -MAX_KEY - 1, MAX_KEY);
+        }
+
+        // upper bound of the number of rows with min <= value < max
+        int count(final long min, final long max) {
+            return Math.max(0, upperIndex(max) - lowerIndex(min));
+        }
+
+        // offsets of candidate rows for min <= value < max, in ascending offset order
+        int[] offsets(final long min, final long max) {
+            var from = lowerIndex(min);
+            var to = upperIndex(max);
+            if (from >= to) {
+                return new int[0];
+            }
+            var result = new int[to - from];
+            for (int index = from; index < to; index++) {
+                result[index - from] = (int) (entries[index] & OFFSET_MASK);
+            }
+            Arrays.sort(result);
+            return result;
+        }
+
+        private int lowerIndex(final long min) {
+            return search(key(min) << OFFSET_BITS);
+        }
+
+        private int upperIndex(final long max) {
+            if (max == Long.MIN_VALUE) {
+                return 0;
+            }
+            var key = key(max - 1);
+            return key == MAX_KEY ? entries.length : search((key + 1) << OFFSET_BITS);
+        }
+
+        // first entry not smaller than the given one
+        private int search(final long entry) {
+            int low = 0;
+            int high = entries.length;
+            while (low < high) {
+                var middle = (low + high) >>> 1;
+                if (entries[middle] < entry) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+    }
+
+}
@@ -0,0 +1,291 @@
+package pl.training.payments.adapters.persistence.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Append-only log of [length][crc32c][type][payload] records in fixed-size memory-mapped segment files
+public final class Journal implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(Journal.class.getName());
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Byte.BYTES;
+    private static final int END_OF_SEGMENT = 0;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final JournalDurability durability;
+    private final List<Long> segments = new ArrayList<>();
+    private final ScheduledExecutorService flusher;
+
+    private MappedByteBuffer buffer;
+    private long segment;
+    private int forcedOffset;
+    private long durablePosition;
+
+    public Journal(final Path directory, final int segmentSize, final JournalDurability durability, final Duration groupCommitInterval) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.durability = durability;
+        if (durability == JournalDurability.GROUP) {
+            flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("journal-flusher").daemon().factory());
+            flusher.scheduleWithFixedDelay(this::flush, groupCommitInterval.toNanos(), groupCommitInterval.toNanos(), TimeUnit.NANOSECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    public void recover(final RecordConsumer consumer) {
+        recover(0, consumer);
+    }
+
+    // replays records in order starting with firstSegment, then positions the journal after the last valid one,
+    // older segments are covered by a snapshot and get deleted
+    public synchronized void recover(final long firstSegment, final RecordConsumer consumer) {
+        try {
+            Files.createDirectories(directory);
+            try (var files = Files.list(directory)) {
+                files.map(path -> path.getFileName().toString())
+                        .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                        .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                        .sorted()
+                        .forEach(segments::add);
+            }
+            deleteSegmentsBefore(firstSegment);
+            if (segments.isEmpty()) {
+                open(Math.max(firstSegment, 0));
+                return;
+            }
+            for (int index = 0; index < segments.size(); index++) {
+                var isLast = index == segments.size() - 1;
+                var segmentBuffer = map(segments.get(index));
+                var replayResult = replay(segmentBuffer, consumer);
+                if (!replayResult.complete() && !isLast) {
+                    throw new IllegalStateException("Journal segment %d is corrupted".formatted(segments.get(index)));
+                }
+                if (isLast) {
+                    buffer = segmentBuffer;
+                    segment = segments.get(index);
+                    forcedOffset = replayResult.end();
+                    // a torn record may be left after the last valid one
+                    clear(segmentBuffer, forcedOffset);
+                    buffer.position(forcedOffset);
+                    durablePosition = position();
+                }
+            }
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private ReplayResult replay(final MappedByteBuffer segmentBuffer, final RecordConsumer consumer) {
+        var offset = 0;
+        var crc = new CRC32C();
+        while (offset + HEADER_SIZE <= segmentSize) {
+            var length = segmentBuffer.getInt(offset);
+            if (length == END_OF_SEGMENT) {
+                return new ReplayResult(offset, true);
+            }
+            if (length < 0 || offset + HEADER_SIZE + length > segmentSize) {
+                return new ReplayResult(offset, false);
+            }
+            var payload = new byte[length];
+            segmentBuffer.get(offset + HEADER_SIZE, payload);
+            var type = segmentBuffer.get(offset + Integer.BYTES * 2);
+            crc.reset();
+            crc.update(type);
+            crc.update(payload);
+            if ((int) crc.getValue() != segmentBuffer.getInt(offset + Integer.BYTES)) {
+                return new ReplayResult(offset, false);
+            }
+            consumer.accept(type, payload);
+            offset += HEADER_SIZE + length;
+        }
+        return new ReplayResult(offset, true);
+    }
+
+    // returns the journal position after the record, to be passed to awaitDurable
+    public synchronized long append(final byte type, final byte[] payload) {
+        var recordSize = HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Record of %d bytes exceeds the segment size".formatted(recordSize));
+        }
+        if (buffer.position() + recordSize > segmentSize) {
+            roll();
+        }
+        var crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload);
+        var offset = buffer.position();
+        buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        buffer.put(offset + Integer.BYTES * 2, type);
+        buffer.put(offset + HEADER_SIZE, payload);
+        // the length goes last, so a partially written record is never taken for a complete one
+        buffer.putInt(offset, payload.length);
+        buffer.position(offset + recordSize);
+        if (durability == JournalDurability.ALWAYS) {
+            force();
+        }
+        return position();
+    }
+
+    public void awaitDurable(final long position) {
+        if (durability != JournalDurability.GROUP) {
+            return;
+        }
+        synchronized (this) {
+            while (durablePosition < position) {
+                try {
+                    wait();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(exception);
+                }
+            }
+        }
+    }
+
+    // starts a new segment and returns its number, records appended from now on survive deleteSegmentsBefore
+    public synchronized long roll() {
+        force();
+        open(segment + 1);
+        return segment;
+    }
+
+    public synchronized void deleteSegmentsBefore(final long firstSegment) {
+        var iterator = segments.iterator();
+        while (iterator.hasNext()) {
+            var candidate = iterator.next();
+            if (candidate < firstSegment) {
+                try {
+                    Files.deleteIfExists(segmentPath(candidate));
+                } catch (IOException exception) {
+                    LOGGER.warning("Deleting journal segment %d failed: %s".formatted(candidate, exception));
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void force() {
+        var offset = buffer.position();
+        if (offset > forcedOffset) {
+            buffer.force(forcedOffset, offset - forcedOffset);
+            forcedOffset = offset;
+        }
+        markDurable(position());
+    }
+
+    private void flush() {
+        MappedByteBuffer flushedBuffer;
+        int from;
+        int to;
+        long flushedPosition;
+        synchronized (this) {
+            // the flusher starts before recovery has mapped a segment, an exception would cancel it for good
+            if (buffer == null) {
+                return;
+            }
+            flushedPosition = position();
+            if (flushedPosition == durablePosition) {
+                return;
+            }
+            flushedBuffer = buffer;
+            from = forcedOffset;
+            to = buffer.position();
+        }
+        // forcing outside the lock lets writers keep appending to the next batch
+        flushedBuffer.force(from, to - from);
+        synchronized (this) {
+            if (flushedBuffer == buffer && to > forcedOffset) {
+                forcedOffset = to;
+            }
+            markDurable(flushedPosition);
+        }
+    }
+
+    private void markDurable(final long position) {
+        if (position > durablePosition) {
+            durablePosition = position;
+            notifyAll();
+        }
+    }
+
+    private long position() {
+        return segment * segmentSize + buffer.position();
+    }
+
+    private void open(final long newSegment) {
+        try {
+            buffer = map(newSegment);
+            segment = newSegment;
+            segments.add(newSegment);
+            forcedOffset = 0;
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private MappedByteBuffer map(final long segmentNumber) throws IOException {
+        try (var channel = FileChannel.open(segmentPath(segmentNumber), CREATE, READ, WRITE)) {
+            return channel.map(READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private void clear(final ByteBuffer segmentBuffer, final int from) {
+        var offset = from;
+        while (offset < segmentSize && offset % Long.BYTES != 0) {
+            segmentBuffer.put(offset++, (byte) 0);
+        }
+        // pages are only dirtied where something has to be cleared
+        for (; offset + Long.BYTES <= segmentSize; offset += Long.BYTES) {
+            if (segmentBuffer.getLong(offset) != 0) {
+                segmentBuffer.putLong(offset, 0);
+            }
+        }
+        while (offset < segmentSize) {
+            segmentBuffer.put(offset++, (byte) 0);
+        }
+    }
+
+    private Path segmentPath(final long segmentNumber) {
+        return directory.resolve("%016d%s".formatted(segmentNumber, SEGMENT_SUFFIX));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        if (buffer != null) {
+            force();
+        }
+    }
+
+    private record ReplayResult(int end, boolean complete) {
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+
+        void accept(byte type, byte[] payload);
+
+    }
+
+}
@@ -0,0 +1,229 @@
+package pl.training.payments.adapters.persistence.journal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.unit.DataSize;
+import pl.training.common.PageSpec;
+import pl.training.common.ResultPage;
+import pl.training.common.collection.LongObjectHashMap;
+import pl.training.common.component.Adapter;
+import pl.training.payments.adapters.persistence.CardRecordCodec;
+import pl.training.payments.adapters.persistence.CardSnapshot;
+import pl.training.payments.adapters.persistence.CardUnitOfWork;
+import pl.training.payments.adapters.persistence.LoadedCardVersions;
+import pl.training.payments.adapters.persistence.SnapshotFile;
+import pl.training.payments.adapters.persistence.VersionedCard;
+import pl.training.payments.application.CardRepository;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+// Cards are kept in memory and every committed change is appended to the journal, a checkpoint lets older segments go.
+// Versions are not journaled, they only have to tell apart the changes made while the process runs.
+@Adapter
+@ConditionalOnProperty(name = "payments.card-repository", havingValue = "journal")
+public class JournalCardRepository implements CardRepository, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(JournalCardRepository.class.getName());
+    private static final byte CARD_SNAPSHOT = 1;
+    private static final byte TRANSACTION = 2;
+    // marked the end of checkpoints written into the journal itself, older segments may still contain it
+    private static final byte CHECKPOINT_END = 3;
+    private static final String CHECKPOINT_FILE = "checkpoint.snapshot";
+
+    private final LongObjectHashMap<VersionedCard> cards = new LongObjectHashMap<>();
+    private final List<VersionedCard> cardsInOrder = new ArrayList<>();
+    private final LongObjectHashMap<Integer> positions = new LongObjectHashMap<>();
+    private final LoadedCardVersions loadedVersions = new LoadedCardVersions();
+    private final CardUnitOfWork unitOfWork = new CardUnitOfWork(loadedVersions, this::write);
+    // a checkpoint must not roll between appending a change and publishing it, the change would be in neither
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private final Journal journal;
+    private final SnapshotFile<CardSnapshot> checkpointFile;
+
+    public JournalCardRepository(@Value("${payments.journal.directory:./data/journal}") final Path directory,
+                                 @Value("${payments.journal.segment-size:64MB}") final DataSize segmentSize,
+                                 @Value("${payments.journal.durability:GROUP}") final JournalDurability durability,
+                                 @Value("${payments.journal.group-commit-interval:PT0.002S}") final Duration groupCommitInterval) {
+        journal = new Journal(directory, (int) segmentSize.toBytes(), durability, groupCommitInterval);
+        checkpointFile = new SnapshotFile<>(directory.resolve(CHECKPOINT_FILE), CardRecordCodec::write, CardRecordCodec::readCardSnapshot);
+        var startTime = System.nanoTime();
+        try {
+            journal.recover(checkpointFile.read(this::put), this::apply);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        LOGGER.info("Journal recovered %d cards in %d ms".formatted(cards.size(), Duration.ofNanos(System.nanoTime() - startTime).toMillis()));
+    }
+
+    private void apply(final byte type, final byte[] payload) {
+        try (var input = new DataInputStream(new ByteArrayInputStream(payload))) {
+            switch (type) {
+                case CARD_SNAPSHOT -> put(CardRecordCodec.readCardSnapshot(input));
+                case TRANSACTION -> {
+                    var key = input.readLong();
+                    var transaction = CardRecordCodec.readTransaction(input);
+                    var versionedCard = cards.get(key);
+                    if (versionedCard == null) {
+                        LOGGER.warning("Skipping journaled transaction %s of an unknown card".formatted(transaction.id().value()));
+                    } else {
+                        put(versionedCard.cardSnapshot().withTransaction(transaction));
+                    }
+                }
+                case CHECKPOINT_END -> {
+                }
+                default -> throw new IllegalStateException("Unknown journal record type: " + type);
+            }
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Override
+    public Card save(final Card card) {
+        unitOfWork.save(card, () -> storedVersion(card.getNumber()));
+        return card;
+    }
+
+    private synchronized long storedVersion(final CardNumber cardNumber) {
+        var versionedCard = cards.get(cardNumber.key());
+        return versionedCard != null ? versionedCard.version() : 0;
+    }
+
+    // the cards of a committed transaction become visible once their records are durable
+    private void write(final List<Card> savedCards) {
+        checkpointLock.readLock().lock();
+        try {
+            var cardSnapshots = new ArrayList<CardSnapshot>(savedCards.size());
+            long position = 0;
+            synchronized (this) {
+                for (var card : savedCards) {
+                    var key = card.getNumber().key();
+                    var stored = cards.get(key);
+                    var newTransactions = stored != null ? stored.cardSnapshot().newTransactions(card) : List.<Transaction>of();
+                    CardSnapshot cardSnapshot;
+                    if (newTransactions.isEmpty()) {
+                        cardSnapshot = CardSnapshot.of(card);
+                        position = journal.append(CARD_SNAPSHOT, CardRecordCodec.encode(cardSnapshot));
+                    } else {
+                        cardSnapshot = stored.cardSnapshot();
+                        for (var transaction : newTransactions) {
+                            position = journal.append(TRANSACTION, encode(key, transaction));
+                            cardSnapshot = cardSnapshot.withTransaction(transaction);
+                        }
+                    }
+                    cardSnapshots.add(cardSnapshot);
+                }
+            }
+            // outside the lock, so concurrent commits share one force
+            journal.awaitDurable(position);
+            synchronized (this) {
+                cardSnapshots.forEach(this::put);
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    private void put(final CardSnapshot cardSnapshot) {
+        var key = cardSnapshot.number().key();
+        var previous = cards.get(key);
+        var versionedCard = new VersionedCard(previous != null ? previous.version() + 1 : 1, cardSnapshot);
+        cards.put(key, versionedCard);
+        if (previous == null) {
+            positions.put(key, cardsInOrder.size());
+            cardsInOrder.add(versionedCard);
+        } else {
+            cardsInOrder.set(positions.get(key), versionedCard);
+        }
+    }
+
+    private byte[] encode(final long key, final Transaction transaction) {
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            output.writeLong(key);
+            CardRecordCodec.write(output, transaction);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public ResultPage<Card> findAll(final PageSpec pageSpec) {
+        List<VersionedCard> page;
+        int totalPages;
+        synchronized (this) {
+            var size = cardsInOrder.size();
+            var startIndex = Math.min(pageSpec.index() * pageSpec.size(), size);
+            var endIndex = Math.min(startIndex + pageSpec.size(), size);
+            page = new ArrayList<>(cardsInOrder.subList(startIndex, endIndex));
+            totalPages = (int) Math.ceil((double) size / pageSpec.size());
+        }
+        var content = page.stream()
+                .map(versionedCard -> loadedVersions.track(versionedCard.cardSnapshot().toCard(), versionedCard.version()))
+                .toList();
+        return new ResultPage<>(content, pageSpec, totalPages);
+    }
+
+    @Override
+    public Optional<Card> findByNumber(final CardNumber cardNumber) {
+        return unitOfWork.findPending(cardNumber).or(() -> find(cardNumber));
+    }
+
+    private Optional<Card> find(final CardNumber cardNumber) {
+        VersionedCard versionedCard;
+        synchronized (this) {
+            versionedCard = cards.get(cardNumber.key());
+        }
+        return Optional.ofNullable(versionedCard)
+                .map(storedCard -> loadedVersions.track(storedCard.cardSnapshot().toCard(), storedCard.version()));
+    }
+
+    // writes every card into the checkpoint file and drops the segments it covers, which bounds recovery time,
+    // only the roll and the copy of the (immutable) snapshots hold the locks, commits go on while the file is written
+    @Scheduled(fixedDelayString = "${payments.journal.checkpoint-interval:PT10M}",
+            initialDelayString = "${payments.journal.checkpoint-interval:PT10M}")
+    public void checkpoint() {
+        var startTime = System.nanoTime();
+        long firstSegment;
+        List<VersionedCard> versionedCards;
+        checkpointLock.writeLock().lock();
+        try {
+            synchronized (this) {
+                firstSegment = journal.roll();
+                versionedCards = new ArrayList<>(cardsInOrder);
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        try {
+            checkpointFile.write(firstSegment, consumer -> versionedCards.forEach(versionedCard -> consumer.accept(versionedCard.cardSnapshot())));
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        journal.deleteSegmentsBefore(firstSegment);
+        LOGGER.info("Journal checkpoint of %d cards took %d ms".formatted(versionedCards.size(), Duration.ofNanos(System.nanoTime() - startTime).toMillis()));
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+
+}
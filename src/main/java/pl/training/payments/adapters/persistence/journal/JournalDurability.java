@@ -0,0 +1,12 @@
+package pl.training.payments.adapters.persistence.journal;
+
+public enum JournalDurability {
+
+    // every append is forced before save returns
+    ALWAYS,
+    // appends are forced in batches by a background thread, save waits for its batch
+    GROUP,
+    // the operating system decides when to write pages back
+    NONE
+
+}
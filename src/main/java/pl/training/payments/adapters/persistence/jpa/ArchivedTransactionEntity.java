@@ -0,0 +1,107 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+@Entity(name = "ArchivedTransaction")
+@Table(indexes = @Index(name = "archived_transaction_card_number_timestamp", columnList = "cardNumber, timestamp"))
+class ArchivedTransactionEntity implements Persistable<String> {
+
+    @Id
+    private String id;
+    @Column(length = 20)
+    private String cardNumber;
+    private Instant timestamp;
+    private String zoneId;
+    @Column(precision = 19, scale = 4)
+    private BigDecimal amount;
+    private String currencyCode;
+    @Enumerated(EnumType.STRING)
+    private TransactionType type;
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCardNumber() {
+        return cardNumber;
+    }
+
+    public void setCardNumber(String cardNumber) {
+        this.cardNumber = cardNumber;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getZoneId() {
+        return zoneId;
+    }
+
+    public void setZoneId(String zoneId) {
+        this.zoneId = zoneId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    public void setCurrencyCode(String currencyCode) {
+        this.currencyCode = currencyCode;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public void setType(TransactionType type) {
+        this.type = type;
+    }
+
+    // archive is append-only, so saving never has to check for an existing row
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        var otherEntity = (ArchivedTransactionEntity) other;
+        return Objects.equals(id, otherEntity.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+}
@@ -1,13 +1,18 @@
 package pl.training.payments.adapters.persistence.jpa;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.springframework.data.domain.Persistable;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
 import java.util.Objects;
 
 @Entity(name = "Card")
 @Table(indexes = @Index(name = "card_number", columnList = "number"))
-class CardEntity {
+@DynamicUpdate
+class CardEntity implements Persistable<String> {
 
     @Id
     private String id;
@@ -17,8 +22,17 @@ class CardEntity {
     private String currencyCode;
     @Lob
     @Basic(fetch = FetchType.EAGER)
-    private String transactions;
+    private byte[] transactions;
+    private ZonedDateTime checkpointTimestamp;
+    @Column(precision = 19, scale = 4)
+    private BigDecimal checkpointBalance;
+    // the history is written back as a whole, a concurrent writer must fail instead of losing transactions
+    @Version
+    private long version;
+    @Transient
+    private boolean isNew = true;
 
+    @Override
     public String getId() {
         return id;
     }
@@ -51,14 +65,41 @@ class CardEntity {
         this.currencyCode = currencyCode;
     }
 
-    public String getTransactions() {
+    public byte[] getTransactions() {
         return transactions;
     }
 
-    public void setTransactions(String transactions) {
+    public void setTransactions(byte[] transactions) {
         this.transactions = transactions;
     }
 
+    public ZonedDateTime getCheckpointTimestamp() {
+        return checkpointTimestamp;
+    }
+
+    public void setCheckpointTimestamp(ZonedDateTime checkpointTimestamp) {
+        this.checkpointTimestamp = checkpointTimestamp;
+    }
+
+    public BigDecimal getCheckpointBalance() {
+        return checkpointBalance;
+    }
+
+    public void setCheckpointBalance(BigDecimal checkpointBalance) {
+        this.checkpointBalance = checkpointBalance;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
     @Override
     public boolean equals(final Object other) {
         if (this == other) {
@@ -0,0 +1,92 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+@Entity(name = "DailyTotals")
+class DailyTotalsEntity implements Persistable<DailyTotalsId> {
+
+    @EmbeddedId
+    private DailyTotalsId id;
+    @Column(precision = 19, scale = 4)
+    private BigDecimal inflow;
+    private long inflowCount;
+    @Column(precision = 19, scale = 4)
+    private BigDecimal outflow;
+    private long outflowCount;
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public DailyTotalsId getId() {
+        return id;
+    }
+
+    public void setId(DailyTotalsId id) {
+        this.id = id;
+    }
+
+    public BigDecimal getInflow() {
+        return inflow;
+    }
+
+    public void setInflow(BigDecimal inflow) {
+        this.inflow = inflow;
+    }
+
+    public long getInflowCount() {
+        return inflowCount;
+    }
+
+    public void setInflowCount(long inflowCount) {
+        this.inflowCount = inflowCount;
+    }
+
+    public BigDecimal getOutflow() {
+        return outflow;
+    }
+
+    public void setOutflow(BigDecimal outflow) {
+        this.outflow = outflow;
+    }
+
+    public long getOutflowCount() {
+        return outflowCount;
+    }
+
+    public void setOutflowCount(long outflowCount) {
+        this.outflowCount = outflowCount;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        var otherEntity = (DailyTotalsEntity) other;
+        return Objects.equals(id, otherEntity.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+}
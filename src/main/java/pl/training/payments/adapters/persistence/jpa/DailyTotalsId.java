@@ -0,0 +1,59 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Embeddable
+class DailyTotalsId implements Serializable {
+
+    @Column(length = 20)
+    private String cardNumber;
+    private String currencyCode;
+    @Column(name = "transaction_day")
+    private LocalDate day;
+
+    public DailyTotalsId() {
+    }
+
+    public DailyTotalsId(String cardNumber, String currencyCode, LocalDate day) {
+        this.cardNumber = cardNumber;
+        this.currencyCode = currencyCode;
+        this.day = day;
+    }
+
+    public String getCardNumber() {
+        return cardNumber;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        var otherId = (DailyTotalsId) other;
+        return Objects.equals(cardNumber, otherId.cardNumber)
+                && Objects.equals(currencyCode, otherId.currencyCode)
+                && Objects.equals(day, otherId.day);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cardNumber, currencyCode, day);
+    }
+
+}
@@ -0,0 +1,18 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+// Native upserts differ per database: postgres has no race-free MERGE, others (H2 in dev) use the standard statement
+final class Databases {
+
+    private Databases() {
+    }
+
+    static boolean isPostgres(final EntityManagerFactory entityManagerFactory) {
+        var dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        return dialect instanceof PostgreSQLDialect;
+    }
+
+}
@@ -0,0 +1,109 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.util.Objects;
+
+@Entity(name = "IdempotencyRecord")
+@Table(indexes = @Index(name = "idempotency_record_expiration", columnList = "expiration"))
+class IdempotencyRecordEntity implements Persistable<String> {
+
+    @Id
+    @Column(length = 230)
+    private String idempotencyKey;
+    @Column(length = 36)
+    private String claimToken;
+    @Column(length = 64)
+    private String requestHash;
+    private Instant leaseExpiration;
+    private String transactionId;
+    private String rejection;
+    private Instant expiration;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Instant getLeaseExpiration() {
+        return leaseExpiration;
+    }
+
+    public void setLeaseExpiration(Instant leaseExpiration) {
+        this.leaseExpiration = leaseExpiration;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getRejection() {
+        return rejection;
+    }
+
+    public void setRejection(String rejection) {
+        this.rejection = rejection;
+    }
+
+    public Instant getExpiration() {
+        return expiration;
+    }
+
+    public void setExpiration(Instant expiration) {
+        this.expiration = expiration;
+    }
+
+    // records are inserted by a native statement, completed and taken over by bulk updates
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        var otherEntity = (IdempotencyRecordEntity) other;
+        return Objects.equals(idempotencyKey, otherEntity.idempotencyKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idempotencyKey);
+    }
+
+}
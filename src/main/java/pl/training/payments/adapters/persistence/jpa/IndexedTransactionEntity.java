@@ -0,0 +1,118 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import jakarta.persistence.*;
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+// One row per transaction with every searchable attribute in its own indexed column, the database picks the most selective index
+@Entity(name = "IndexedTransaction")
+@Table(indexes = {
+        @Index(name = "indexed_transaction_type", columnList = "type"),
+        @Index(name = "indexed_transaction_currency_code", columnList = "currencyCode"),
+        @Index(name = "indexed_transaction_amount", columnList = "amount"),
+        @Index(name = "indexed_transaction_timestamp", columnList = "timestamp")
+})
+class IndexedTransactionEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "indexed_transaction_sequence")
+    @SequenceGenerator(name = "indexed_transaction_sequence", allocationSize = 50)
+    private Long sequence;
+    @Column(length = 36)
+    private String transactionId;
+    @Column(length = 20)
+    private String cardNumber;
+    private Instant timestamp;
+    private String zoneId;
+    @Column(precision = 19, scale = 4)
+    private BigDecimal amount;
+    @Column(length = 3)
+    private String currencyCode;
+    @Enumerated(EnumType.STRING)
+    private TransactionType type;
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getCardNumber() {
+        return cardNumber;
+    }
+
+    public void setCardNumber(String cardNumber) {
+        this.cardNumber = cardNumber;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getZoneId() {
+        return zoneId;
+    }
+
+    public void setZoneId(String zoneId) {
+        this.zoneId = zoneId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    public void setCurrencyCode(String currencyCode) {
+        this.currencyCode = currencyCode;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public void setType(TransactionType type) {
+        this.type = type;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        var otherEntity = (IndexedTransactionEntity) other;
+        return sequence != null && Objects.equals(sequence, otherEntity.sequence);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+}
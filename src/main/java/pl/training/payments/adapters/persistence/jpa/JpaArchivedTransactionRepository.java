@@ -0,0 +1,14 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+interface JpaArchivedTransactionRepository extends JpaRepository<ArchivedTransactionEntity, String> {
+
+    @Query("select t from ArchivedTransaction t where t.cardNumber = :cardNumber and t.timestamp >= :from and t.timestamp < :to order by t.timestamp")
+    List<ArchivedTransactionEntity> findByCardNumberAndTimestamp(String cardNumber, Instant from, Instant to);
+
+}
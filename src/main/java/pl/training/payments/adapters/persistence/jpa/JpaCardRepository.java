@@ -1,12 +1,18 @@
 package pl.training.payments.adapters.persistence.jpa;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 interface JpaCardRepository extends JpaRepository<CardEntity, String> { // CrudRepository<CardEntity, String> // Repository<CardEntity, String>
 
     // @Query("select c from Card c where c.number = :cardNumber")
     Optional<CardEntity> findByNumber(String cardNumber);
 
+    @Query("select c.id from Card c where c.id in :ids")
+    Set<String> findExistingIds(Collection<String> ids);
+
 }
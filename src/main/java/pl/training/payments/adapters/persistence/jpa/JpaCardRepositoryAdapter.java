@@ -1,5 +1,8 @@
 package pl.training.payments.adapters.persistence.jpa;
 
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,26 +13,71 @@ import pl.training.payments.application.CardRepository;
 import pl.training.payments.domain.Card;
 import pl.training.payments.domain.CardNumber;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Primary
+@ConditionalOnProperty(name = "payments.card-repository", havingValue = "jpa", matchIfMissing = true)
 @Transactional(propagation = Propagation.MANDATORY)
 @Adapter
 class JpaCardRepositoryAdapter implements CardRepository {
 
     private final JpaCardRepository cardRepository;
     private final JpaCardRepositoryMapper mapper;
+    private final EntityManager entityManager;
 
-    public JpaCardRepositoryAdapter(final JpaCardRepository cardRepository, final JpaCardRepositoryMapper mapper) {
+    public JpaCardRepositoryAdapter(final JpaCardRepository cardRepository, final JpaCardRepositoryMapper mapper,
+                                    final EntityManager entityManager) {
         this.cardRepository = cardRepository;
         this.mapper = mapper;
+        this.entityManager = entityManager;
     }
 
+    // cards loaded in the current unit of work are updated in place and flushed by dirty checking,
+    // others are loaded by id first (as merge would), so saving a detached existing card still updates it
     @Override
     public Card save(final Card card) {
-        var cardEntity = mapper.toEntity(card);
-        var savedCardEntity = cardRepository.save(cardEntity);
-        return mapper.toDomain(savedCardEntity);
+        var id = mapper.toEntity(card.getId());
+        findManaged(id)
+                .or(() -> Optional.ofNullable(entityManager.find(CardEntity.class, id)))
+                .ifPresentOrElse(
+                        cardEntity -> mapper.update(cardEntity, card),
+                        () -> cardRepository.save(mapper.toEntity(card))
+                );
+        return card;
+    }
+
+    // new cards are persisted together, so Hibernate can send the inserts in JDBC batches;
+    // one query per call tells existing unmanaged cards apart from new ones
+    @Override
+    public List<Card> saveAll(final List<Card> cards) {
+        var unmanagedIds = cards.stream()
+                .map(card -> mapper.toEntity(card.getId()))
+                .filter(id -> findManaged(id).isEmpty())
+                .collect(Collectors.toSet());
+        var existingIds = unmanagedIds.isEmpty() ? Set.<String>of() : cardRepository.findExistingIds(unmanagedIds);
+        var newEntities = new ArrayList<CardEntity>();
+        for (var card : cards) {
+            var id = mapper.toEntity(card.getId());
+            if (existingIds.contains(id) || !unmanagedIds.contains(id)) {
+                save(card);
+            } else {
+                newEntities.add(mapper.toEntity(card));
+            }
+        }
+        cardRepository.saveAll(newEntities);
+        return cards;
+    }
+
+    // persistence context lookup only, unlike EntityManager.find it never hits the database
+    private Optional<CardEntity> findManaged(final String id) {
+        var session = entityManager.unwrap(SessionImplementor.class);
+        var entityPersister = session.getFactory().getMappingMetamodel().getEntityDescriptor(CardEntity.class);
+        var entityKey = session.generateEntityKey(id, entityPersister);
+        return Optional.ofNullable((CardEntity) session.getPersistenceContextInternal().getEntity(entityKey));
     }
 
     @Override
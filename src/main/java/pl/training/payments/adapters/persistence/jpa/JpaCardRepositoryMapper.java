@@ -3,13 +3,17 @@ package pl.training.payments.adapters.persistence.jpa;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import pl.training.common.component.Mapper;
 import pl.training.common.PageSpec;
 import pl.training.common.ResultPage;
+import pl.training.payments.adapters.persistence.TransactionHistoryCodec;
 import pl.training.payments.adapters.persistence.TransactionJsonMapper;
 import pl.training.payments.domain.Card;
 import pl.training.payments.domain.CardId;
 import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.HistoryCheckpoint;
+import pl.training.payments.domain.Money;
 import pl.training.payments.domain.Transaction;
 
 import java.util.Currency;
@@ -17,10 +21,11 @@ import java.util.List;
 import java.util.UUID;
 
 @Mapper
-record JpaCardRepositoryMapper(TransactionJsonMapper jsonMapper) {
+record JpaCardRepositoryMapper(TransactionJsonMapper jsonMapper, TransactionHistoryCodec historyCodec) {
 
     private final static TypeReference<List<Transaction>> TRANSACTION_LIST_TYPE = new TypeReference<>() {
     };
+    private final static Sort PAGE_ORDER = Sort.by("number");
 
     CardEntity toEntity(final Card card) {
         var cardEntity = new CardEntity();
@@ -28,14 +33,27 @@ record JpaCardRepositoryMapper(TransactionJsonMapper jsonMapper) {
         cardEntity.setNumber(toEntity(card.getNumber()));
         cardEntity.setExpiration(card.getExpiration());
         cardEntity.setCurrencyCode(toEntity(card.getCurrency()));
-        cardEntity.setTransactions(jsonMapper.write(card.getTransactions()));
+        update(cardEntity, card);
         return cardEntity;
     }
 
-    private String toEntity(final CardId cardId) {
+    // only the history and the checkpoint change after a card is created
+    void update(final CardEntity cardEntity, final Card card) {
+        cardEntity.setTransactions(toEntity(card.getTransactions()));
+        card.getCheckpoint().ifPresent(checkpoint -> {
+            cardEntity.setCheckpointTimestamp(checkpoint.timestamp());
+            cardEntity.setCheckpointBalance(checkpoint.balance().amount());
+        });
+    }
+
+    String toEntity(final CardId cardId) {
         return cardId.value().toString();
     }
 
+    private byte[] toEntity(final List<Transaction> transactions) {
+        return historyCodec.encode(jsonMapper.writeAsBytes(transactions));
+    }
+
     private String toEntity(final Currency currency) {
         return currency.getCurrencyCode();
     }
@@ -45,7 +63,7 @@ record JpaCardRepositoryMapper(TransactionJsonMapper jsonMapper) {
     }
 
     PageRequest toEntity(final PageSpec pageSpec) {
-        return PageRequest.of(pageSpec.index(), pageSpec.size());
+        return PageRequest.of(pageSpec.index(), pageSpec.size(), PAGE_ORDER);
     }
 
     Card toDomain(final CardEntity cardEntity) {
@@ -54,13 +72,24 @@ record JpaCardRepositoryMapper(TransactionJsonMapper jsonMapper) {
         var currency = Currency.getInstance(cardEntity.getCurrencyCode());
         var expiration = cardEntity.getExpiration();
 
-        var card = new Card(cardId, cardNumber, expiration, currency);
+        var card = cardEntity.getCheckpointTimestamp() != null
+                ? new Card(cardId, cardNumber, expiration, currency, toDomain(cardEntity, currency))
+                : new Card(cardId, cardNumber, expiration, currency);
         if (cardEntity.getTransactions() != null) {
-            jsonMapper.read(cardEntity.getTransactions(), TRANSACTION_LIST_TYPE).forEach(card::registerTransaction);
+            toDomain(cardEntity.getTransactions()).forEach(card::registerTransaction);
         }
         return card;
     }
 
+    private HistoryCheckpoint toDomain(final CardEntity cardEntity, final Currency currency) {
+        var balance = new Money(cardEntity.getCheckpointBalance(), currency);
+        return new HistoryCheckpoint(cardEntity.getCheckpointTimestamp(), balance);
+    }
+
+    private List<Transaction> toDomain(final byte[] transactions) {
+        return jsonMapper.read(historyCodec.decode(transactions), TRANSACTION_LIST_TYPE);
+    }
+
     private CardId toDomain(String id) {
         return new CardId(UUID.fromString(id));
     }
@@ -0,0 +1,40 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import pl.training.common.component.Mapper;
+import pl.training.payments.application.DailyTotals;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import java.util.Currency;
+
+import static java.math.BigDecimal.ZERO;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+
+@Mapper
+class JpaDailyTotalsMapper {
+
+    DailyTotalsId toId(final CardNumber cardNumber, final Transaction transaction) {
+        var currencyCode = transaction.value().currency().getCurrencyCode();
+        var day = transaction.timestamp().toLocalDate();
+        return new DailyTotalsId(cardNumber.value(), currencyCode, day);
+    }
+
+    DailyTotalsEntity toEntity(final DailyTotalsId id, final Transaction transaction) {
+        var amount = transaction.value().amount();
+        var isInflow = transaction.type() == INFLOW;
+        var entity = new DailyTotalsEntity();
+        entity.setId(id);
+        entity.setInflow(isInflow ? amount : ZERO);
+        entity.setInflowCount(isInflow ? 1 : 0);
+        entity.setOutflow(isInflow ? ZERO : amount);
+        entity.setOutflowCount(isInflow ? 0 : 1);
+        return entity;
+    }
+
+    DailyTotals toDomain(final DailyTotalsEntity entity) {
+        var id = entity.getId();
+        return new DailyTotals(id.getDay(), Currency.getInstance(id.getCurrencyCode()),
+                entity.getInflow(), entity.getInflowCount(), entity.getOutflow(), entity.getOutflowCount());
+    }
+
+}
@@ -0,0 +1,27 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+interface JpaDailyTotalsRepository extends JpaRepository<DailyTotalsEntity, DailyTotalsId> {
+
+    // single statement upsert, so two first transactions of a day cannot both insert the row
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            insert into daily_totals (card_number, currency_code, transaction_day, inflow, inflow_count, outflow, outflow_count)
+            values (:cardNumber, :currencyCode, :day, :inflow, :inflowCount, :outflow, :outflowCount)
+            on conflict (card_number, currency_code, transaction_day) do update set
+                inflow = daily_totals.inflow + excluded.inflow, inflow_count = daily_totals.inflow_count + excluded.inflow_count,
+                outflow = daily_totals.outflow + excluded.outflow, outflow_count = daily_totals.outflow_count + excluded.outflow_count""")
+    void upsertOnConflict(String cardNumber, String currencyCode, LocalDate day, BigDecimal inflow, long inflowCount, BigDecimal outflow, long outflowCount);
+
+    @Query("select t from DailyTotals t where t.id.cardNumber = :cardNumber and t.id.day between :from and :to order by t.id.day, t.id.currencyCode")
+    List<DailyTotalsEntity> findByCardNumberAndDay(String cardNumber, LocalDate from, LocalDate to);
+
+}
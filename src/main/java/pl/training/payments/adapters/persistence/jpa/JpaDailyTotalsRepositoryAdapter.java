@@ -0,0 +1,77 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.training.common.component.Adapter;
+import pl.training.payments.application.DailyTotals;
+import pl.training.payments.application.DailyTotalsRepository;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+
+@Transactional(propagation = Propagation.MANDATORY)
+@Adapter
+class JpaDailyTotalsRepositoryAdapter implements DailyTotalsRepository {
+
+    private static final String MERGE = """
+            merge into daily_totals t
+            using (select cast(? as varchar(20)) card_number, cast(? as varchar(255)) currency_code, cast(? as date) transaction_day) s
+            on t.card_number = s.card_number and t.currency_code = s.currency_code and t.transaction_day = s.transaction_day
+            when matched then update set
+                inflow = t.inflow + ?, inflow_count = t.inflow_count + ?, outflow = t.outflow + ?, outflow_count = t.outflow_count + ?
+            when not matched then insert (card_number, currency_code, transaction_day, inflow, inflow_count, outflow, outflow_count)
+                values (s.card_number, s.currency_code, s.transaction_day, ?, ?, ?, ?)""";
+
+    private final JpaDailyTotalsRepository dailyTotalsRepository;
+    private final JpaDailyTotalsMapper mapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    JpaDailyTotalsRepositoryAdapter(final JpaDailyTotalsRepository dailyTotalsRepository, final JpaDailyTotalsMapper mapper,
+                                    final EntityManagerFactory entityManagerFactory, final DataSource dataSource) {
+        this.dailyTotalsRepository = dailyTotalsRepository;
+        this.mapper = mapper;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.postgres = Databases.isPostgres(entityManagerFactory);
+    }
+
+    @Override
+    public void add(final CardNumber cardNumber, final Transaction transaction) {
+        var id = mapper.toId(cardNumber, transaction);
+        var delta = mapper.toEntity(id, transaction);
+        if (postgres) {
+            dailyTotalsRepository.upsertOnConflict(id.getCardNumber(), id.getCurrencyCode(), id.getDay(),
+                    delta.getInflow(), delta.getInflowCount(), delta.getOutflow(), delta.getOutflowCount());
+        } else {
+            try {
+                merge(id, delta);
+            } catch (DataIntegrityViolationException exception) {
+                // H2 decides between update and insert before locking, a concurrent first insert makes the row visible now.
+                // The statement runs on the transaction's connection but outside the entity manager, so its failure
+                // does not mark the transaction rollback-only
+                merge(id, delta);
+            }
+        }
+    }
+
+    private void merge(final DailyTotalsId id, final DailyTotalsEntity delta) {
+        jdbcTemplate.update(MERGE, id.getCardNumber(), id.getCurrencyCode(), id.getDay(),
+                delta.getInflow(), delta.getInflowCount(), delta.getOutflow(), delta.getOutflowCount(),
+                delta.getInflow(), delta.getInflowCount(), delta.getOutflow(), delta.getOutflowCount());
+    }
+
+    @Override
+    public List<DailyTotals> findByDay(final CardNumber cardNumber, final LocalDate from, final LocalDate to) {
+        return dailyTotalsRepository.findByCardNumberAndDay(cardNumber.value(), from, to)
+                .stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+}
@@ -0,0 +1,52 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+
+interface JpaIdempotencyRecordRepository extends JpaRepository<IdempotencyRecordEntity, String> {
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            insert into idempotency_record (idempotency_key, claim_token, request_hash, lease_expiration, expiration)
+            values (:key, :token, :requestHash, :leaseExpiration, :expiration)
+            on conflict (idempotency_key) do nothing""")
+    int insertOnConflict(String key, String token, String requestHash, Instant leaseExpiration, Instant expiration);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            merge into idempotency_record r
+            using (select cast(:key as varchar(230)) idempotency_key) s
+            on r.idempotency_key = s.idempotency_key
+            when not matched then insert (idempotency_key, claim_token, request_hash, lease_expiration, expiration)
+                values (s.idempotency_key, :token, :requestHash, :leaseExpiration, :expiration)""")
+    int merge(String key, String token, String requestHash, Instant leaseExpiration, Instant expiration);
+
+    @Modifying
+    @Query("""
+            update IdempotencyRecord r set
+                r.claimToken = :token, r.requestHash = :requestHash, r.leaseExpiration = :leaseExpiration,
+                r.expiration = :expiration, r.transactionId = null, r.rejection = null
+            where r.idempotencyKey = :key and (r.expiration <= :timestamp
+                or (r.transactionId is null and r.rejection is null and r.leaseExpiration <= :timestamp))""")
+    int takeOver(String key, String token, String requestHash, Instant timestamp, Instant leaseExpiration, Instant expiration);
+
+    @Modifying
+    @Query("""
+            update IdempotencyRecord r set r.transactionId = :transactionId, r.rejection = :rejection
+            where r.idempotencyKey = :key and r.claimToken = :token and r.transactionId is null and r.rejection is null""")
+    int complete(String key, String token, String transactionId, String rejection);
+
+    @Modifying
+    @Query("""
+            delete from IdempotencyRecord r
+            where r.idempotencyKey = :key and r.claimToken = :token and r.transactionId is null and r.rejection is null""")
+    int release(String key, String token);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiration <= :timestamp")
+    int deleteExpired(Instant timestamp);
+
+}
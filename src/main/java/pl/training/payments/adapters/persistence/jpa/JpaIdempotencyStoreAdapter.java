@@ -0,0 +1,73 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.training.common.component.Adapter;
+import pl.training.payments.application.IdempotencyRecord;
+import pl.training.payments.application.IdempotencyStore;
+import pl.training.payments.application.IdempotentRequestInProgressException;
+import pl.training.payments.application.IdempotentResult;
+import pl.training.payments.domain.TransactionId;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+// completing a successful claim joins the use case transaction, everything else runs in its own one
+@Transactional
+@Adapter
+class JpaIdempotencyStoreAdapter implements IdempotencyStore {
+
+    private final JpaIdempotencyRecordRepository recordRepository;
+    private final boolean postgres;
+
+    JpaIdempotencyStoreAdapter(final JpaIdempotencyRecordRepository recordRepository, final EntityManagerFactory entityManagerFactory) {
+        this.recordRepository = recordRepository;
+        this.postgres = Databases.isPostgres(entityManagerFactory);
+    }
+
+    // the claim has to be visible to other instances before the payment starts
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public Optional<IdempotencyRecord> claim(final String key, final String token, final String requestHash, final ZonedDateTime timestamp,
+                                             final ZonedDateTime leaseExpiration, final ZonedDateTime expiration) {
+        var inserted = postgres
+                ? recordRepository.insertOnConflict(key, token, requestHash, leaseExpiration.toInstant(), expiration.toInstant())
+                : recordRepository.merge(key, token, requestHash, leaseExpiration.toInstant(), expiration.toInstant());
+        if (inserted == 1 || recordRepository.takeOver(key, token, requestHash, timestamp.toInstant(),
+                leaseExpiration.toInstant(), expiration.toInstant()) == 1) {
+            return Optional.empty();
+        }
+        // only missing when removed as expired between the statements, the client can simply retry
+        var record = recordRepository.findById(key).orElseThrow(IdempotentRequestInProgressException::new);
+        return Optional.of(toDomain(record));
+    }
+
+    @Override
+    public void complete(final String key, final String token, final IdempotentResult result) {
+        var transactionId = result.transactionId() != null ? result.transactionId().value().toString() : null;
+        if (recordRepository.complete(key, token, transactionId, result.rejection()) == 0) {
+            throw new IllegalStateException("Idempotency claim of key %s was taken over".formatted(key));
+        }
+    }
+
+    @Override
+    public void release(final String key, final String token) {
+        recordRepository.release(key, token);
+    }
+
+    @Override
+    public void removeExpired(final ZonedDateTime timestamp) {
+        recordRepository.deleteExpired(timestamp.toInstant());
+    }
+
+    private IdempotencyRecord toDomain(final IdempotencyRecordEntity entity) {
+        if (entity.getTransactionId() == null && entity.getRejection() == null) {
+            return new IdempotencyRecord(entity.getRequestHash(), Optional.empty());
+        }
+        var transactionId = entity.getTransactionId() != null ? new TransactionId(UUID.fromString(entity.getTransactionId())) : null;
+        return new IdempotencyRecord(entity.getRequestHash(), Optional.of(new IdempotentResult(transactionId, entity.getRejection())));
+    }
+
+}
@@ -0,0 +1,41 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.training.common.component.Adapter;
+import pl.training.payments.application.TransactionArchive;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Transactional(propagation = Propagation.MANDATORY)
+@Adapter
+class JpaTransactionArchiveAdapter implements TransactionArchive {
+
+    private final JpaArchivedTransactionRepository transactionRepository;
+    private final JpaTransactionArchiveMapper mapper;
+
+    JpaTransactionArchiveAdapter(final JpaArchivedTransactionRepository transactionRepository, final JpaTransactionArchiveMapper mapper) {
+        this.transactionRepository = transactionRepository;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void append(final CardNumber cardNumber, final List<Transaction> transactions) {
+        var entities = transactions.stream()
+                .map(transaction -> mapper.toEntity(cardNumber, transaction))
+                .toList();
+        transactionRepository.saveAll(entities);
+    }
+
+    @Override
+    public List<Transaction> findByTimestamp(final CardNumber cardNumber, final ZonedDateTime from, final ZonedDateTime to) {
+        return transactionRepository.findByCardNumberAndTimestamp(cardNumber.value(), from.toInstant(), to.toInstant())
+                .stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+}
@@ -0,0 +1,35 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import pl.training.common.component.Mapper;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+
+import java.time.ZoneId;
+import java.util.Currency;
+import java.util.UUID;
+
+@Mapper
+class JpaTransactionArchiveMapper {
+
+    ArchivedTransactionEntity toEntity(final CardNumber cardNumber, final Transaction transaction) {
+        var entity = new ArchivedTransactionEntity();
+        entity.setId(transaction.id().value().toString());
+        entity.setCardNumber(cardNumber.value());
+        entity.setTimestamp(transaction.timestamp().toInstant());
+        entity.setZoneId(transaction.timestamp().getZone().getId());
+        entity.setAmount(transaction.value().amount());
+        entity.setCurrencyCode(transaction.value().currency().getCurrencyCode());
+        entity.setType(transaction.type());
+        return entity;
+    }
+
+    Transaction toDomain(final ArchivedTransactionEntity entity) {
+        var id = new TransactionId(UUID.fromString(entity.getId()));
+        var timestamp = entity.getTimestamp().atZone(ZoneId.of(entity.getZoneId()));
+        var value = new Money(entity.getAmount(), Currency.getInstance(entity.getCurrencyCode()));
+        return new Transaction(id, timestamp, value, entity.getType());
+    }
+
+}
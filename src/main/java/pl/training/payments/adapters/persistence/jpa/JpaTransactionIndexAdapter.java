@@ -0,0 +1,67 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.training.common.component.Adapter;
+import pl.training.payments.application.TransactionIndex;
+import pl.training.payments.application.TransactionQuery;
+import pl.training.payments.application.TransactionSearchResult;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import java.util.ArrayList;
+import java.util.Optional;
+
+@ConditionalOnProperty(name = "payments.transaction-index", havingValue = "jpa", matchIfMissing = true)
+@Transactional(propagation = Propagation.MANDATORY)
+@Adapter
+class JpaTransactionIndexAdapter implements TransactionIndex {
+
+    private static final String SEQUENCE = "sequence";
+
+    private final EntityManager entityManager;
+    private final JpaTransactionIndexMapper mapper;
+
+    JpaTransactionIndexAdapter(final EntityManager entityManager, final JpaTransactionIndexMapper mapper) {
+        this.entityManager = entityManager;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void add(final CardNumber cardNumber, final Transaction transaction) {
+        entityManager.persist(mapper.toEntity(cardNumber, transaction));
+    }
+
+    // keyset paging on the sequence, one row more than the page tells whether there is a next one;
+    // a concurrent transaction committing a lower sequence after a page was read is not seen through that cursor
+    @Override
+    public TransactionSearchResult search(final TransactionQuery query) {
+        var criteriaBuilder = entityManager.getCriteriaBuilder();
+        var criteriaQuery = criteriaBuilder.createQuery(IndexedTransactionEntity.class);
+        var root = criteriaQuery.from(IndexedTransactionEntity.class);
+        var predicates = new ArrayList<Predicate>();
+        predicates.add(criteriaBuilder.greaterThan(root.get(SEQUENCE), query.cursor()));
+        query.type().ifPresent(type -> predicates.add(criteriaBuilder.equal(root.get("type"), type)));
+        query.currency().ifPresent(currency -> predicates.add(criteriaBuilder.equal(root.get("currencyCode"), currency.getCurrencyCode())));
+        query.minAmount().ifPresent(amount -> predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("amount"), amount)));
+        query.maxAmount().ifPresent(amount -> predicates.add(criteriaBuilder.lessThan(root.get("amount"), amount)));
+        query.from().ifPresent(from -> predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("timestamp"), from.toInstant())));
+        query.to().ifPresent(to -> predicates.add(criteriaBuilder.lessThan(root.get("timestamp"), to.toInstant())));
+        criteriaQuery.where(predicates.toArray(Predicate[]::new))
+                .orderBy(criteriaBuilder.asc(root.get(SEQUENCE)));
+        var entities = entityManager.createQuery(criteriaQuery)
+                .setMaxResults(query.pageSize() + 1)
+                .getResultList();
+        var hasNext = entities.size() > query.pageSize();
+        var content = entities.stream()
+                .limit(query.pageSize())
+                .map(mapper::toDomain)
+                .toList();
+        var nextCursor = hasNext ? Optional.of(content.getLast().sequence()) : Optional.<Long>empty();
+        return new TransactionSearchResult(content, nextCursor);
+    }
+
+}
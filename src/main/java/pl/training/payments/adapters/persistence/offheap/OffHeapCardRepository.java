@@ -0,0 +1,191 @@
+package pl.training.payments.adapters.persistence.offheap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import pl.training.common.PageSpec;
+import pl.training.common.ResultPage;
+import pl.training.common.component.Adapter;
+import pl.training.payments.adapters.persistence.CardUnitOfWork;
+import pl.training.payments.adapters.persistence.LoadedCardVersions;
+import pl.training.payments.adapters.persistence.TransactionHistoryCodec;
+import pl.training.payments.adapters.persistence.TransactionJsonMapper;
+import pl.training.payments.application.CardRepository;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardId;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.HistoryCheckpoint;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Card state lives in fixed-width off-heap slots, Card objects are only materialized for the caller
+@Adapter
+@ConditionalOnProperty(name = "payments.card-repository", havingValue = "off-heap")
+public class OffHeapCardRepository implements CardRepository {
+
+    private static final int ID_MOST_SIGNIFICANT_BITS = 0;
+    private static final int ID_LEAST_SIGNIFICANT_BITS = 8;
+    private static final int NUMBER_DIGITS = 16;
+    private static final int CHECKPOINT_EPOCH_SECOND = 24;
+    private static final int CHECKPOINT_BALANCE = 32;
+    private static final int HISTORY_POINTER = 40;
+    private static final int EXPIRATION_EPOCH_DAY = 48;
+    private static final int HISTORY_LENGTH = 52;
+    private static final int HISTORY_BLOCK_SIZE = 56;
+    private static final int CHECKPOINT_NANO = 60;
+    private static final int CURRENCY_CODE = 64;
+    private static final int CHECKPOINT_ZONE_CODE = 66;
+    private static final int NUMBER_LENGTH = 68;
+    private static final int BALANCE = 72;
+    private static final int VERSION = 80;
+    private static final int SLOT_SIZE = 88;
+
+    private static final short NO_CHECKPOINT = -1;
+    // balances are kept as a long in units of 10^-4, the scale of the database columns
+    private static final int BALANCE_SCALE = 4;
+
+    private final OffHeapSlots slots = new OffHeapSlots(SLOT_SIZE);
+    private final OffHeapIndex index = new OffHeapIndex();
+    private final OffHeapHistoryArena historyArena = new OffHeapHistoryArena();
+    private final OffHeapDictionary<Currency> currencies = new OffHeapDictionary<>();
+    private final OffHeapDictionary<ZoneId> zones = new OffHeapDictionary<>();
+    private final LoadedCardVersions loadedVersions = new LoadedCardVersions();
+    private final CardUnitOfWork unitOfWork = new CardUnitOfWork(loadedVersions, this::write);
+    private final TransactionJsonMapper jsonMapper;
+    private final TransactionHistoryCodec historyCodec;
+
+    public OffHeapCardRepository(final TransactionJsonMapper jsonMapper, final TransactionHistoryCodec historyCodec) {
+        this.jsonMapper = jsonMapper;
+        this.historyCodec = historyCodec;
+    }
+
+    @Override
+    public Card save(final Card card) {
+        unitOfWork.save(card, () -> storedVersion(card.getNumber()));
+        return card;
+    }
+
+    private synchronized long storedVersion(final CardNumber cardNumber) {
+        var slot = index.get(cardNumber.key());
+        return slot == OffHeapIndex.MISSING ? 0 : slots.getLong(slot, VERSION);
+    }
+
+    private synchronized void write(final List<Card> cards) {
+        cards.forEach(this::write);
+    }
+
+    private void write(final Card card) {
+        var key = card.getNumber().key();
+        var slot = index.get(key);
+        if (slot == OffHeapIndex.MISSING) {
+            slot = slots.allocate();
+            writeIdentity(slot, card);
+            index.put(key, slot);
+        }
+        writeCheckpoint(slot, card);
+        writeHistory(slot, card);
+        slots.putLong(slot, BALANCE, toScaledLong(card.getBalance().amount()));
+        slots.putLong(slot, VERSION, slots.getLong(slot, VERSION) + 1);
+    }
+
+    private void writeIdentity(final int slot, final Card card) {
+        var id = card.getId().value();
+        slots.putLong(slot, ID_MOST_SIGNIFICANT_BITS, id.getMostSignificantBits());
+        slots.putLong(slot, ID_LEAST_SIGNIFICANT_BITS, id.getLeastSignificantBits());
+        slots.putLong(slot, NUMBER_DIGITS, card.getNumber().digits());
+        slots.putByte(slot, NUMBER_LENGTH, (byte) card.getNumber().length());
+        slots.putInt(slot, EXPIRATION_EPOCH_DAY, (int) card.getExpiration().toEpochDay());
+        slots.putShort(slot, CURRENCY_CODE, currencies.encode(card.getCurrency()));
+        slots.putInt(slot, HISTORY_BLOCK_SIZE, 0);
+        slots.putLong(slot, VERSION, 0);
+    }
+
+    private void writeCheckpoint(final int slot, final Card card) {
+        card.getCheckpoint().ifPresentOrElse(checkpoint -> {
+            var timestamp = checkpoint.timestamp();
+            slots.putLong(slot, CHECKPOINT_EPOCH_SECOND, timestamp.toEpochSecond());
+            slots.putInt(slot, CHECKPOINT_NANO, timestamp.getNano());
+            slots.putShort(slot, CHECKPOINT_ZONE_CODE, zones.encode(timestamp.getZone()));
+            slots.putLong(slot, CHECKPOINT_BALANCE, toScaledLong(checkpoint.balance().amount()));
+        }, () -> slots.putShort(slot, CHECKPOINT_ZONE_CODE, NO_CHECKPOINT));
+    }
+
+    private void writeHistory(final int slot, final Card card) {
+        var history = historyCodec.encode(jsonMapper.writeAsBytes(card.getTransactions()));
+        var blockSize = slots.getInt(slot, HISTORY_BLOCK_SIZE);
+        if (history.length > blockSize) {
+            blockSize = OffHeapHistoryArena.blockSize(history.length);
+            slots.putLong(slot, HISTORY_POINTER, historyArena.allocate(blockSize));
+            slots.putInt(slot, HISTORY_BLOCK_SIZE, blockSize);
+        }
+        historyArena.write(slots.getLong(slot, HISTORY_POINTER), history);
+        slots.putInt(slot, HISTORY_LENGTH, history.length);
+    }
+
+    @Override
+    public synchronized ResultPage<Card> findAll(final PageSpec pageSpec) {
+        var size = slots.size();
+        var startIndex = Math.min(pageSpec.index() * pageSpec.size(), size);
+        var endIndex = Math.min(startIndex + pageSpec.size(), size);
+        var content = new ArrayList<Card>(endIndex - startIndex);
+        for (int slot = startIndex; slot < endIndex; slot++) {
+            content.add(loadedVersions.track(toCard(slot), slots.getLong(slot, VERSION)));
+        }
+        int totalPages = (int) Math.ceil((double) size / pageSpec.size());
+        return new ResultPage<>(content, pageSpec, totalPages);
+    }
+
+    @Override
+    public Optional<Card> findByNumber(final CardNumber cardNumber) {
+        return unitOfWork.findPending(cardNumber).or(() -> find(cardNumber));
+    }
+
+    private synchronized Optional<Card> find(final CardNumber cardNumber) {
+        var slot = index.get(cardNumber.key());
+        return slot == OffHeapIndex.MISSING ? Optional.empty() : Optional.of(loadedVersions.track(toCard(slot), slots.getLong(slot, VERSION)));
+    }
+
+    private Card toCard(final int slot) {
+        var id = new CardId(new UUID(slots.getLong(slot, ID_MOST_SIGNIFICANT_BITS), slots.getLong(slot, ID_LEAST_SIGNIFICANT_BITS)));
+        var number = new CardNumber(slots.getLong(slot, NUMBER_DIGITS), slots.getByte(slot, NUMBER_LENGTH));
+        var expiration = LocalDate.ofEpochDay(slots.getInt(slot, EXPIRATION_EPOCH_DAY));
+        var currency = currencies.decode(slots.getShort(slot, CURRENCY_CODE));
+        var zoneCode = slots.getShort(slot, CHECKPOINT_ZONE_CODE);
+        var checkpoint = zoneCode != NO_CHECKPOINT ? toCheckpoint(slot, zoneCode, currency) : null;
+        var balance = new Money(toAmount(slots.getLong(slot, BALANCE)), currency);
+        // the encoded bytes are copied under the lock, decoding waits until the caller reads the history
+        var history = historyArena.read(slots.getLong(slot, HISTORY_POINTER), slots.getInt(slot, HISTORY_LENGTH));
+        return new Card(id, number, expiration, currency, checkpoint, balance, () -> toTransactions(history));
+    }
+
+    private List<Transaction> toTransactions(final byte[] history) {
+        var transactions = new ArrayList<Transaction>();
+        jsonMapper.forEachTransaction(historyCodec.decode(history), transactions::add);
+        return transactions;
+    }
+
+    private HistoryCheckpoint toCheckpoint(final int slot, final short zoneCode, final Currency currency) {
+        var instant = Instant.ofEpochSecond(slots.getLong(slot, CHECKPOINT_EPOCH_SECOND), slots.getInt(slot, CHECKPOINT_NANO));
+        var timestamp = ZonedDateTime.ofInstant(instant, zones.decode(zoneCode));
+        return new HistoryCheckpoint(timestamp, new Money(toAmount(slots.getLong(slot, CHECKPOINT_BALANCE)), currency));
+    }
+
+    private BigDecimal toAmount(final long scaledAmount) {
+        return BigDecimal.valueOf(scaledAmount, BALANCE_SCALE);
+    }
+
+    private long toScaledLong(final BigDecimal amount) {
+        return amount.setScale(BALANCE_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+}
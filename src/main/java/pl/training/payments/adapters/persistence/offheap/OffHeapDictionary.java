@@ -0,0 +1,31 @@
+package pl.training.payments.adapters.persistence.offheap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Small on-heap dictionary for values with few distinct instances (currencies, zones), slots keep only the code
+final class OffHeapDictionary<T> {
+
+    private final List<T> values = new ArrayList<>();
+    private final Map<T, Short> codes = new HashMap<>();
+
+    short encode(final T value) {
+        var code = codes.get(value);
+        if (code == null) {
+            if (values.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Dictionary is full");
+            }
+            code = (short) values.size();
+            values.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    T decode(final short code) {
+        return values.get(code);
+    }
+
+}
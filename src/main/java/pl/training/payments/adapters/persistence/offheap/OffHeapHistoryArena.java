@@ -0,0 +1,51 @@
+package pl.training.payments.adapters.persistence.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bump allocator over direct buffers, blocks outgrown by a history are abandoned (at most as much as is live)
+final class OffHeapHistoryArena {
+
+    private static final int SEGMENT_SIZE = 1 << 26;
+    private static final int MIN_BLOCK_SIZE = 64;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private int position = SEGMENT_SIZE;
+
+    static int blockSize(final int length) {
+        if (length > SEGMENT_SIZE) {
+            throw new IllegalArgumentException("History of %d bytes exceeds the maximum of %d".formatted(length, SEGMENT_SIZE));
+        }
+        return Math.max(MIN_BLOCK_SIZE, Integer.highestOneBit(length - 1) << 1);
+    }
+
+    long allocate(final int blockSize) {
+        if (position + blockSize > SEGMENT_SIZE) {
+            segments.add(ByteBuffer.allocateDirect(SEGMENT_SIZE));
+            position = 0;
+        }
+        var pointer = (long) (segments.size() - 1) << Integer.SIZE | position;
+        position += blockSize;
+        return pointer;
+    }
+
+    void write(final long pointer, final byte[] data) {
+        segment(pointer).put(offset(pointer), data);
+    }
+
+    byte[] read(final long pointer, final int length) {
+        var data = new byte[length];
+        segment(pointer).get(offset(pointer), data);
+        return data;
+    }
+
+    private ByteBuffer segment(final long pointer) {
+        return segments.get((int) (pointer >>> Integer.SIZE));
+    }
+
+    private int offset(final long pointer) {
+        return (int) pointer;
+    }
+
+}
@@ -0,0 +1,90 @@
+package pl.training.payments.adapters.persistence.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Open addressing hash table mapping long keys to slot numbers, entries are stored in a direct buffer
+final class OffHeapIndex {
+
+    private static final int ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int VALUE_OFFSET = Long.BYTES;
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / ENTRY_SIZE;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    static final int MISSING = -1;
+
+    private ByteBuffer table;
+    private int capacity;
+    private int shift;
+    private int size;
+
+    OffHeapIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    int get(final long key) {
+        var mask = capacity - 1;
+        for (int index = index(key); ; index = (index + 1) & mask) {
+            var position = index * ENTRY_SIZE;
+            var value = table.getInt(position + VALUE_OFFSET);
+            if (value == 0) {
+                return MISSING;
+            }
+            if (table.getLong(position) == key) {
+                return value - 1;
+            }
+        }
+    }
+
+    void put(final long key, final int slot) {
+        if (size + 1 > capacity * LOAD_FACTOR) {
+            resize();
+        }
+        if (insert(table, capacity, key, slot + 1)) {
+            size++;
+        }
+    }
+
+    // values are stored incremented by one, zero marks an empty entry
+    private boolean insert(final ByteBuffer table, final int capacity, final long key, final int value) {
+        var mask = capacity - 1;
+        for (int index = index(key); ; index = (index + 1) & mask) {
+            var position = index * ENTRY_SIZE;
+            var currentValue = table.getInt(position + VALUE_OFFSET);
+            if (currentValue == 0 || table.getLong(position) == key) {
+                table.putLong(position, key);
+                table.putInt(position + VALUE_OFFSET, value);
+                return currentValue == 0;
+            }
+        }
+    }
+
+    private void resize() {
+        if (capacity * 2 > MAX_CAPACITY) {
+            throw new IllegalStateException("Off-heap index is full");
+        }
+        var oldTable = table;
+        var oldCapacity = capacity;
+        allocate(capacity * 2);
+        for (int index = 0; index < oldCapacity; index++) {
+            var position = index * ENTRY_SIZE;
+            var value = oldTable.getInt(position + VALUE_OFFSET);
+            if (value != 0) {
+                insert(table, capacity, oldTable.getLong(position), value);
+            }
+        }
+    }
+
+    private void allocate(final int newCapacity) {
+        table = ByteBuffer.allocateDirect(newCapacity * ENTRY_SIZE).order(ByteOrder.nativeOrder());
+        capacity = newCapacity;
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(newCapacity);
+    }
+
+    private int index(final long key) {
+        return (int) ((key * HASH_MULTIPLIER) >>> shift);
+    }
+
+}
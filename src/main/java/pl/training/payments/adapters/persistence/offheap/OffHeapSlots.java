@@ -0,0 +1,74 @@
+package pl.training.payments.adapters.persistence.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed-width slots in direct buffers, allocated a segment at a time and never freed
+final class OffHeapSlots {
+
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_SLOTS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SLOTS - 1;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private final int slotSize;
+    private int size;
+
+    OffHeapSlots(final int slotSize) {
+        this.slotSize = slotSize;
+    }
+
+    int allocate() {
+        if (size == segments.size() << SEGMENT_SHIFT) {
+            segments.add(ByteBuffer.allocateDirect(SEGMENT_SLOTS * slotSize).order(ByteOrder.nativeOrder()));
+        }
+        return size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getLong(final int slot, final int field) {
+        return segment(slot).getLong(offset(slot) + field);
+    }
+
+    void putLong(final int slot, final int field, final long value) {
+        segment(slot).putLong(offset(slot) + field, value);
+    }
+
+    int getInt(final int slot, final int field) {
+        return segment(slot).getInt(offset(slot) + field);
+    }
+
+    void putInt(final int slot, final int field, final int value) {
+        segment(slot).putInt(offset(slot) + field, value);
+    }
+
+    short getShort(final int slot, final int field) {
+        return segment(slot).getShort(offset(slot) + field);
+    }
+
+    void putShort(final int slot, final int field, final short value) {
+        segment(slot).putShort(offset(slot) + field, value);
+    }
+
+    byte getByte(final int slot, final int field) {
+        return segment(slot).get(offset(slot) + field);
+    }
+
+    void putByte(final int slot, final int field, final byte value) {
+        segment(slot).put(offset(slot) + field, value);
+    }
+
+    private ByteBuffer segment(final int slot) {
+        return segments.get(slot >>> SEGMENT_SHIFT);
+    }
+
+    private int offset(final int slot) {
+        return (slot & SEGMENT_MASK) * slotSize;
+    }
+
+}
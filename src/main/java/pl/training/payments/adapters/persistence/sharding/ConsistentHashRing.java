@@ -0,0 +1,70 @@
+package pl.training.payments.adapters.persistence.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+// Every node owns many points on the ring, adding a node moves only about 1/n of the keys
+final class ConsistentHashRing<T> {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] points;
+    private final Object[] nodes;
+
+    ConsistentHashRing(final List<T> nodes, final Function<T, String> nameExtractor, final int virtualNodes) {
+        var pointCount = nodes.size() * virtualNodes;
+        var entries = new long[pointCount][];
+        var index = 0;
+        for (int nodeIndex = 0; nodeIndex < nodes.size(); nodeIndex++) {
+            var name = nameExtractor.apply(nodes.get(nodeIndex));
+            for (int virtualNode = 0; virtualNode < virtualNodes; virtualNode++) {
+                entries[index++] = new long[]{hash(name + "#" + virtualNode), nodeIndex};
+            }
+        }
+        Arrays.sort(entries, (first, second) -> Long.compareUnsigned(first[0], second[0]));
+        this.points = new long[pointCount];
+        this.nodes = new Object[pointCount];
+        for (int pointIndex = 0; pointIndex < pointCount; pointIndex++) {
+            points[pointIndex] = entries[pointIndex][0];
+            this.nodes[pointIndex] = nodes.get((int) entries[pointIndex][1]);
+        }
+    }
+
+    // the first point clockwise from the key's position
+    @SuppressWarnings("unchecked")
+    T get(final long key) {
+        var position = mix(key);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[middle], position) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return (T) nodes[low == points.length ? 0 : low];
+    }
+
+    // stable across restarts and JVMs, unlike String.hashCode based schemes it spreads well over 64 bits
+    private static long hash(final String value) {
+        var hash = FNV_OFFSET_BASIS;
+        for (var octet : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= octet & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(final long value) {
+        var result = value;
+        result = (result ^ (result >>> 30)) * 0xbf58476d1ce4e5b9L;
+        result = (result ^ (result >>> 27)) * 0x94d049bb133111ebL;
+        return result ^ (result >>> 31);
+    }
+
+}
@@ -0,0 +1,12 @@
+package pl.training.payments.adapters.persistence.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+record Shard(String name, HikariDataSource dataSource, JdbcTemplate jdbcTemplate) {
+
+    Shard(final String name, final HikariDataSource dataSource) {
+        this(name, dataSource, new JdbcTemplate(dataSource));
+    }
+
+}
@@ -0,0 +1,90 @@
+package pl.training.payments.adapters.persistence.sharding;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import pl.training.payments.domain.CardNumber;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Moves cards to the shards that own them after the shard layout changed, the repository keeps serving in the meantime
+@Component
+@ConditionalOnProperty(name = "payments.card-repository", havingValue = "sharded")
+public class ShardRebalancer {
+
+    private static final Logger LOGGER = Logger.getLogger(ShardRebalancer.class.getName());
+    private static final String SELECT_BATCH = "select id, number, snapshot, version from sharded_card where number > ? order by number limit ?";
+    private static final String INSERT_CARD = "insert into sharded_card (id, number, snapshot, version) values (?, ?, ?, ?)";
+    private static final String DELETE_CARD = "delete from sharded_card where id = ?";
+
+    private final Shards shards;
+    private final int batchSize;
+
+    public ShardRebalancer(final Shards shards, final ShardingProperties properties) {
+        this.shards = shards;
+        this.batchSize = properties.migrationBatchSize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (shards.isRebalancing()) {
+            Thread.ofPlatform().name("shard-rebalancer").daemon().start(this::rebalance);
+        }
+    }
+
+    // Saves always go to the owner, so a moved card is never written on its old shard again.
+    // A copy that finds the card already on the owner lost the race to a newer save and is dropped.
+    void rebalance() {
+        var startTime = System.nanoTime();
+        try {
+            var moved = 0L;
+            for (var shard : shards.all()) {
+                moved += rebalance(shard);
+            }
+            shards.rebalanced();
+            LOGGER.info("Rebalancing moved %d cards in %d ms".formatted(moved, Duration.ofNanos(System.nanoTime() - startTime).toMillis()));
+        } catch (RuntimeException exception) {
+            LOGGER.log(Level.SEVERE, "Rebalancing failed, it will be retried on the next start", exception);
+        }
+    }
+
+    private long rebalance(final Shard source) {
+        var moved = 0L;
+        var lastNumber = "";
+        while (true) {
+            var batch = source.jdbcTemplate().queryForList(SELECT_BATCH, lastNumber, batchSize);
+            if (batch.isEmpty()) {
+                return moved;
+            }
+            var movedIds = new ArrayList<Object[]>();
+            for (var row : batch) {
+                var number = (String) row.get("number");
+                var owner = shards.shardFor(new CardNumber(number));
+                if (owner != source) {
+                    copy(owner.jdbcTemplate(), row.get("id"), number, row.get("snapshot"), row.get("version"));
+                    movedIds.add(new Object[]{row.get("id")});
+                }
+                lastNumber = number;
+            }
+            if (!movedIds.isEmpty()) {
+                source.jdbcTemplate().batchUpdate(DELETE_CARD, movedIds);
+                moved += movedIds.size();
+            }
+        }
+    }
+
+    private void copy(final JdbcTemplate target, final Object id, final String number, final Object snapshot, final Object version) {
+        try {
+            target.update(INSERT_CARD, id, number, snapshot, version);
+        } catch (DuplicateKeyException exception) {
+            // already saved on the owner by a newer write
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package pl.training.payments.adapters.persistence.sharding;
+
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Enlists shard connections in the current @Atomic transaction, JdbcTemplate then picks the bound connection up.
+// Best effort, not two-phase: a shard commits right before the main transaction, so a failing main commit leaves
+// the shard change in place. A use case touches a single card, so at most one shard is written and such a
+// divergence is logged with the shard name for manual reconciliation.
+final class ShardTransactions {
+
+    private static final Logger LOGGER = Logger.getLogger(ShardTransactions.class.getName());
+
+    private ShardTransactions() {
+    }
+
+    static void join(final Shard shard) {
+        var dataSource = shard.dataSource();
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || TransactionSynchronizationManager.hasResource(dataSource)) {
+            return;
+        }
+        var readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        try {
+            var connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            connection.setReadOnly(readOnly);
+            var connectionHolder = new ConnectionHolder(connection);
+            connectionHolder.setSynchronizedWithTransaction(true);
+            TransactionSynchronizationManager.bindResource(dataSource, connectionHolder);
+            TransactionSynchronizationManager.registerSynchronization(new ShardSynchronization(shard.name(), dataSource, connectionHolder, readOnly));
+        } catch (SQLException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private static final class ShardSynchronization implements TransactionSynchronization {
+
+        private final String shardName;
+        private final DataSource dataSource;
+        private final ConnectionHolder connectionHolder;
+        private final boolean readOnly;
+
+        private boolean committed;
+
+        private ShardSynchronization(final String shardName, final DataSource dataSource, final ConnectionHolder connectionHolder,
+                                     final boolean readOnly) {
+            this.shardName = shardName;
+            this.dataSource = dataSource;
+            this.connectionHolder = connectionHolder;
+            this.readOnly = readOnly;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(dataSource);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(dataSource, connectionHolder);
+        }
+
+        @Override
+        public void beforeCommit(final boolean transactionReadOnly) {
+            try {
+                connectionHolder.getConnection().commit();
+                committed = !readOnly;
+            } catch (SQLException exception) {
+                throw new RuntimeException(exception);
+            }
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(dataSource);
+            var connection = connectionHolder.getConnection();
+            if (committed && status != STATUS_COMMITTED) {
+                LOGGER.severe("Shard %s committed but the main transaction %s, the shard may hold changes the main database lacks"
+                        .formatted(shardName, status == STATUS_ROLLED_BACK ? "rolled back" : "has an unknown outcome"));
+            }
+            try (connection) {
+                if (status != STATUS_COMMITTED) {
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+                if (readOnly) {
+                    connection.setReadOnly(false);
+                }
+            } catch (SQLException exception) {
+                LOGGER.log(Level.WARNING, "Shard connection cleanup failed", exception);
+            }
+            connectionHolder.clear();
+        }
+
+    }
+
+}
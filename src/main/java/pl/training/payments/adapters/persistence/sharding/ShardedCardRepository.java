@@ -0,0 +1,183 @@
+package pl.training.payments.adapters.persistence.sharding;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.RowMapper;
+import pl.training.common.PageSpec;
+import pl.training.common.ResultPage;
+import pl.training.common.component.Adapter;
+import pl.training.payments.adapters.persistence.CardRecordCodec;
+import pl.training.payments.adapters.persistence.CardSnapshot;
+import pl.training.payments.adapters.persistence.LoadedCardVersions;
+import pl.training.payments.application.CardRepository;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardNumber;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+@Adapter
+@ConditionalOnProperty(name = "payments.card-repository", havingValue = "sharded")
+public class ShardedCardRepository implements CardRepository {
+
+    private static final String UPDATE_CARD = "update sharded_card set snapshot = ?, version = version + 1 where id = ?";
+    private static final String UPDATE_VERSION = "update sharded_card set snapshot = ?, version = version + 1 where id = ? and version = ?";
+    private static final String INSERT_CARD = "insert into sharded_card (id, number, snapshot, version) values (?, ?, ?, ?)";
+    private static final String SELECT_CARD = "select snapshot, version from sharded_card where number = ?";
+    private static final String SELECT_PAGE = "select number, snapshot, version from sharded_card order by number limit ?";
+    private static final String SELECT_PAGE_AFTER = "select number, snapshot, version from sharded_card where number > ? order by number limit ?";
+    private static final String COUNT_CARDS = "select count(*) from sharded_card";
+
+    private final Shards shards;
+    private final LoadedCardVersions loadedVersions = new LoadedCardVersions();
+
+    public ShardedCardRepository(final Shards shards) {
+        this.shards = shards;
+    }
+
+    // A card read in the current transaction is only updated in the version it was read in. Cards read elsewhere
+    // (e.g. new ones) are upserted, updates are the common case, a new card costs one extra statement.
+    @Override
+    public Card save(final Card card) {
+        var shard = shards.shardFor(card.getNumber());
+        ShardTransactions.join(shard);
+        var jdbcTemplate = shard.jdbcTemplate();
+        var id = card.getId().value().toString();
+        var snapshot = CardRecordCodec.encode(CardSnapshot.of(card));
+        var loadedVersion = loadedVersions.find(card);
+        if (loadedVersion.isEmpty()) {
+            if (jdbcTemplate.update(UPDATE_CARD, snapshot, id) == 0) {
+                jdbcTemplate.update(INSERT_CARD, id, card.getNumber().value(), snapshot, 1);
+            }
+        } else if (jdbcTemplate.update(UPDATE_VERSION, snapshot, id, loadedVersion.getAsLong()) == 0) {
+            if (!shards.isRebalancing()) {
+                throw new OptimisticLockingFailureException("Card was changed by another transaction since it was read");
+            }
+            // read from its old shard, the owner gets the card first, a later copy of the old version is dropped
+            try {
+                jdbcTemplate.update(INSERT_CARD, id, card.getNumber().value(), snapshot, loadedVersion.getAsLong() + 1);
+            } catch (DuplicateKeyException exception) {
+                throw new OptimisticLockingFailureException("Card was changed by another transaction since it was read", exception);
+            }
+        }
+        return card;
+    }
+
+    @Override
+    public Optional<Card> findByNumber(final CardNumber cardNumber) {
+        var owner = shards.shardFor(cardNumber);
+        var card = find(owner, cardNumber);
+        if (card.isEmpty() && shards.isRebalancing()) {
+            card = findOnOtherShards(owner, cardNumber);
+        }
+        return card;
+    }
+
+    // the card may not have been moved yet, or may have been moved while the other shards were searched
+    private Optional<Card> findOnOtherShards(final Shard owner, final CardNumber cardNumber) {
+        for (var shard : shards.all()) {
+            if (shard != owner) {
+                var card = find(shard, cardNumber);
+                if (card.isPresent()) {
+                    return card;
+                }
+            }
+        }
+        return find(owner, cardNumber);
+    }
+
+    private Optional<Card> find(final Shard shard, final CardNumber cardNumber) {
+        ShardTransactions.join(shard);
+        RowMapper<Card> rowMapper = (resultSet, rowNumber) -> toCard(resultSet.getBytes(1), resultSet.getLong(2));
+        return shard.jdbcTemplate().query(SELECT_CARD, rowMapper, cardNumber.value())
+                .stream()
+                .findFirst();
+    }
+
+    private Card toCard(final byte[] snapshot, final long version) {
+        return loadedVersions.track(CardRecordCodec.decodeCardSnapshot(snapshot).toCard(), version);
+    }
+
+    // Keyset paging, every shard returns its first size cards after the cursor and the sorted lists are merged.
+    // Shards are queried in parallel outside the current transaction, on connections of their own.
+    @Override
+    public ResultPage<Card> findAll(final PageSpec pageSpec) {
+        var countFutures = new ArrayList<Future<Long>>();
+        for (var shard : shards.all()) {
+            countFutures.add(shards.executor().submit(() -> shard.jdbcTemplate().queryForObject(COUNT_CARDS, Long.class)));
+        }
+        var page = findPage(pageSpec.after(), pageSpec.size());
+        if (pageSpec.after() == null) {
+            // without a cursor the preceding pages are walked, each step is still a bounded query per shard
+            for (int index = 0; index < pageSpec.index() && !page.isEmpty(); index++) {
+                page = findPage(page.getLast().number(), pageSpec.size());
+            }
+        }
+        var content = page.stream()
+                .map(storedCard -> toCard(storedCard.snapshot(), storedCard.version()))
+                .toList();
+        var total = countFutures.stream().mapToLong(ShardedCardRepository::get).sum();
+        var totalPages = (int) Math.ceil((double) total / pageSpec.size());
+        return new ResultPage<>(content, pageSpec, totalPages);
+    }
+
+    private List<StoredCard> findPage(final String after, final int size) {
+        var pageFutures = new ArrayList<Future<List<StoredCard>>>();
+        RowMapper<StoredCard> rowMapper = (resultSet, rowNumber) -> new StoredCard(resultSet.getString(1), resultSet.getBytes(2), resultSet.getLong(3));
+        for (var shard : shards.all()) {
+            pageFutures.add(shards.executor().submit(() -> after == null
+                    ? shard.jdbcTemplate().query(SELECT_PAGE, rowMapper, size)
+                    : shard.jdbcTemplate().query(SELECT_PAGE_AFTER, rowMapper, after, size)));
+        }
+        var cursors = new PriorityQueue<Cursor>(Comparator.comparing(Cursor::number));
+        for (var pageFuture : pageFutures) {
+            var iterator = get(pageFuture).iterator();
+            if (iterator.hasNext()) {
+                cursors.add(new Cursor(iterator.next(), iterator));
+            }
+        }
+        var page = new ArrayList<StoredCard>(size);
+        while (!cursors.isEmpty() && page.size() < size) {
+            var cursor = cursors.poll();
+            var storedCard = cursor.current();
+            // while rebalancing a card can briefly exist on two shards
+            if (page.isEmpty() || !storedCard.number().equals(page.getLast().number())) {
+                page.add(storedCard);
+            }
+            if (cursor.remaining().hasNext()) {
+                cursors.add(new Cursor(cursor.remaining().next(), cursor.remaining()));
+            }
+        }
+        return page;
+    }
+
+    private static <T> T get(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(exception);
+        } catch (ExecutionException exception) {
+            throw new RuntimeException(exception.getCause());
+        }
+    }
+
+    private record StoredCard(String number, byte[] snapshot, long version) {
+    }
+
+    private record Cursor(StoredCard current, Iterator<StoredCard> remaining) {
+
+        String number() {
+            return current.number();
+        }
+
+    }
+
+}
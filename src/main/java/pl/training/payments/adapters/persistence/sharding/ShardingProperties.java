@@ -0,0 +1,17 @@
+package pl.training.payments.adapters.persistence.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+@ConfigurationProperties("payments.sharding")
+public record ShardingProperties(List<ShardProperties> shards,
+                                 @DefaultValue("128") int virtualNodes,
+                                 @DefaultValue("500") int migrationBatchSize) {
+
+    public record ShardProperties(String name, String jdbcUrl, String username, String password,
+                                  @DefaultValue("6") int maximumPoolSize) {
+    }
+
+}
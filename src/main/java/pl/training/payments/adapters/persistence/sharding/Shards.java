@@ -0,0 +1,99 @@
+package pl.training.payments.adapters.persistence.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import pl.training.payments.domain.CardNumber;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+// Configured shards, the ring routing card numbers to them and the layout the stored cards were placed by
+public class Shards implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(Shards.class.getName());
+    private static final String CREATE_CARD_TABLE = """
+            create table if not exists sharded_card (
+                id varchar(36) primary key,
+                number varchar(20) not null unique,
+                snapshot bytea not null,
+                version bigint default 0 not null
+            )""";
+    private static final String ADD_VERSION_COLUMN = "alter table sharded_card add column if not exists version bigint default 0 not null";
+    private static final String CREATE_LAYOUT_TABLE = "create table if not exists shard_layout (layout varchar(4000) not null)";
+    private static final String SELECT_LAYOUT = "select layout from shard_layout";
+
+    private final List<Shard> shards;
+    private final ConsistentHashRing<Shard> ring;
+    private final String layout;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean rebalancing;
+
+    public Shards(final ShardingProperties properties) {
+        shards = properties.shards().stream()
+                .map(shardProperties -> new Shard(shardProperties.name(), dataSource(shardProperties)))
+                .toList();
+        ring = new ConsistentHashRing<>(shards, Shard::name, properties.virtualNodes());
+        layout = shards.stream().map(Shard::name).sorted().collect(Collectors.joining(",", properties.virtualNodes() + ":", ""));
+        shards.forEach(shard -> {
+            shard.jdbcTemplate().execute(CREATE_CARD_TABLE);
+            shard.jdbcTemplate().execute(ADD_VERSION_COLUMN);
+            shard.jdbcTemplate().execute(CREATE_LAYOUT_TABLE);
+        });
+        // shards without a layout are new or empty, any other layout means cards may sit on a shard that no longer owns them
+        rebalancing = shards.stream()
+                .flatMap(shard -> shard.jdbcTemplate().queryForList(SELECT_LAYOUT, String.class).stream())
+                .anyMatch(storedLayout -> !Objects.equals(storedLayout, layout));
+        if (!rebalancing) {
+            saveLayout();
+        }
+        LOGGER.info("Cards are sharded over %s%s".formatted(layout, rebalancing ? ", rebalancing required" : ""));
+    }
+
+    private static HikariDataSource dataSource(final ShardingProperties.ShardProperties shardProperties) {
+        var dataSource = new HikariDataSource();
+        dataSource.setPoolName(shardProperties.name());
+        dataSource.setJdbcUrl(shardProperties.jdbcUrl());
+        dataSource.setUsername(shardProperties.username());
+        dataSource.setPassword(shardProperties.password());
+        dataSource.setMaximumPoolSize(shardProperties.maximumPoolSize());
+        return dataSource;
+    }
+
+    Shard shardFor(final CardNumber cardNumber) {
+        return ring.get(cardNumber.key());
+    }
+
+    List<Shard> all() {
+        return shards;
+    }
+
+    ExecutorService executor() {
+        return executor;
+    }
+
+    boolean isRebalancing() {
+        return rebalancing;
+    }
+
+    void rebalanced() {
+        saveLayout();
+        rebalancing = false;
+    }
+
+    private void saveLayout() {
+        shards.forEach(shard -> {
+            shard.jdbcTemplate().update("delete from shard_layout");
+            shard.jdbcTemplate().update("insert into shard_layout (layout) values (?)", layout);
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+        shards.forEach(shard -> shard.dataSource().close());
+    }
+
+}
@@ -0,0 +1,163 @@
+package pl.training.payments.adapters.persistence.wal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.unit.DataSize;
+import pl.training.common.component.Adapter;
+import pl.training.payments.adapters.persistence.CardRecordCodec;
+import pl.training.payments.adapters.persistence.HashMapCardRepository;
+import pl.training.payments.adapters.persistence.SnapshotFile;
+import pl.training.payments.adapters.persistence.VersionedCard;
+import pl.training.payments.adapters.persistence.journal.Journal;
+import pl.training.payments.adapters.persistence.journal.JournalDurability;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.logging.Logger;
+
+// In-memory repository with a write-ahead log flushed every few milliseconds and periodic fuzzy snapshots
+@Adapter
+@ConditionalOnProperty(name = "payments.card-repository", havingValue = "in-memory")
+public class DurableHashMapCardRepository extends HashMapCardRepository implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(DurableHashMapCardRepository.class.getName());
+    private static final byte CARD = 1;
+    private static final byte TRANSACTIONS = 2;
+    private static final String SNAPSHOT_FILE = "cards.snapshot";
+    private static final String WAL_DIRECTORY = "wal";
+
+    private final Journal writeAheadLog;
+    private final SnapshotFile<VersionedCard> snapshotFile;
+    // a roll must not happen between appending a change and publishing it in the map
+    private final StampedLock rollLock = new StampedLock();
+
+    public DurableHashMapCardRepository(@Value("${payments.in-memory.directory:./data/in-memory}") final Path directory,
+                                        @Value("${payments.in-memory.segment-size:64MB}") final DataSize segmentSize,
+                                        @Value("${payments.in-memory.flush-interval:PT0.005S}") final Duration flushInterval) throws IOException {
+        Files.createDirectories(directory);
+        snapshotFile = new SnapshotFile<>(directory.resolve(SNAPSHOT_FILE), (output, versionedCard) -> {
+            output.writeLong(versionedCard.version());
+            CardRecordCodec.write(output, versionedCard.cardSnapshot());
+        }, input -> new VersionedCard(input.readLong(), CardRecordCodec.readCardSnapshot(input)));
+        // writers never wait for the flush, at most one flush interval of changes can be lost
+        writeAheadLog = new Journal(directory.resolve(WAL_DIRECTORY), (int) segmentSize.toBytes(), JournalDurability.GROUP, flushInterval);
+        var startTime = System.nanoTime();
+        writeAheadLog.recover(snapshotFile.read(this::restore), this::replay);
+        LOGGER.info("Cards restored from snapshot and write-ahead log in %d ms".formatted(Duration.ofNanos(System.nanoTime() - startTime).toMillis()));
+    }
+
+    // a card is reserved by the committing transaction, so its records are appended in version order
+    @Override
+    protected void write(final List<Card> cards) {
+        var stamp = rollLock.readLock();
+        try {
+            for (var card : cards) {
+                var change = update(card);
+                var previous = change.previous();
+                var current = change.current();
+                var newTransactions = previous != null ? previous.cardSnapshot().newTransactions(current.cardSnapshot()) : List.<Transaction>of();
+                writeAheadLog.append(newTransactions.isEmpty() ? CARD : TRANSACTIONS, encode(current, newTransactions));
+            }
+        } finally {
+            rollLock.unlockRead(stamp);
+        }
+    }
+
+    private byte[] encode(final VersionedCard current, final List<Transaction> newTransactions) {
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            output.writeLong(current.version());
+            if (newTransactions.isEmpty()) {
+                CardRecordCodec.write(output, current.cardSnapshot());
+            } else {
+                var cardNumber = current.cardSnapshot().number();
+                output.writeLong(cardNumber.digits());
+                output.writeByte(cardNumber.length());
+                output.writeInt(newTransactions.size());
+                for (var transaction : newTransactions) {
+                    CardRecordCodec.write(output, transaction);
+                }
+            }
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    // records older than the restored state are skipped, so replaying from before the snapshot is harmless
+    private void replay(final byte type, final byte[] payload) {
+        try (var input = new DataInputStream(new ByteArrayInputStream(payload))) {
+            var version = input.readLong();
+            switch (type) {
+                case CARD -> restore(new VersionedCard(version, CardRecordCodec.readCardSnapshot(input)));
+                case TRANSACTIONS -> {
+                    var cardNumber = new CardNumber(input.readLong(), input.readByte());
+                    var count = input.readInt();
+                    var transactions = new ArrayList<Transaction>(count);
+                    for (int index = 0; index < count; index++) {
+                        transactions.add(CardRecordCodec.readTransaction(input));
+                    }
+                    replay(cardNumber, version, transactions);
+                }
+                default -> throw new IllegalStateException("Unknown write-ahead log record type: " + type);
+            }
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private void replay(final CardNumber cardNumber, final long version, final List<Transaction> transactions) {
+        var stored = find(cardNumber);
+        if (stored == null || stored.version() >= version) {
+            return;
+        }
+        if (stored.version() != version - 1) {
+            throw new IllegalStateException("Write-ahead log is missing changes of card " + cardNumber.value());
+        }
+        var cardSnapshot = stored.cardSnapshot();
+        for (var transaction : transactions) {
+            cardSnapshot = cardSnapshot.withTransaction(transaction);
+        }
+        restore(new VersionedCard(version, cardSnapshot));
+    }
+
+    // writers keep going while the snapshot is written, the log is replayed from the segment started here
+    @Scheduled(fixedDelayString = "${payments.in-memory.snapshot-interval:PT5M}",
+            initialDelayString = "${payments.in-memory.snapshot-interval:PT5M}")
+    public void snapshot() {
+        var startTime = System.nanoTime();
+        long firstWalSegment;
+        var stamp = rollLock.writeLock();
+        try {
+            firstWalSegment = writeAheadLog.roll();
+        } finally {
+            rollLock.unlockWrite(stamp);
+        }
+        try {
+            snapshotFile.write(firstWalSegment, this::forEachCard);
+            writeAheadLog.deleteSegmentsBefore(firstWalSegment);
+            LOGGER.info("Card snapshot written in %d ms".formatted(Duration.ofNanos(System.nanoTime() - startTime).toMillis()));
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        writeAheadLog.close();
+    }
+
+}
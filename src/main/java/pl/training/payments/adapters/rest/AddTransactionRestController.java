@@ -10,6 +10,7 @@ import pl.training.common.validation.Range;
 import pl.training.common.web.ExceptionResponse;
 import pl.training.payments.application.AddTransactionUseCase;
 import pl.training.payments.application.CardNotFoundException;
+import pl.training.payments.application.IdempotentAddTransactionUseCase;
 import pl.training.payments.domain.CardNumber;
 import pl.training.payments.domain.Money;
 import pl.training.payments.domain.TransactionType;
@@ -20,20 +21,30 @@ import static pl.training.payments.domain.TransactionType.PAYMENT;
 @RestController
 final class AddCardTransactionRestController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final AddTransactionUseCase addTransactionUseCase;
+    private final IdempotentAddTransactionUseCase idempotentAddTransactionUseCase;
 
-    AddCardTransactionRestController(final AddTransactionUseCase addTransactionUseCase) {
+    AddCardTransactionRestController(final AddTransactionUseCase addTransactionUseCase,
+                                     final IdempotentAddTransactionUseCase idempotentAddTransactionUseCase) {
         this.addTransactionUseCase = addTransactionUseCase;
+        this.idempotentAddTransactionUseCase = idempotentAddTransactionUseCase;
     }
 
     @PostMapping("api/cards/{number:\\d{16,19}}/transactions")
     ResponseEntity<Void> addCardTransaction(
             @PathVariable final String number,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) final String idempotencyKey,
             @Validated @RequestBody final AddCardTransactionRequest addCardTransactionRequest) {
         var cardNumber = new CardNumber(number);
         var amount = addCardTransactionRequest.money();
         var transactionType = addCardTransactionRequest.transactionType();
-        addTransactionUseCase.handle(cardNumber, amount, transactionType);
+        if (idempotencyKey != null) {
+            idempotentAddTransactionUseCase.handle(idempotencyKey, cardNumber, amount, transactionType);
+        } else {
+            addTransactionUseCase.handle(cardNumber, amount, transactionType);
+        }
         return ResponseEntity.noContent().build();
     }
 
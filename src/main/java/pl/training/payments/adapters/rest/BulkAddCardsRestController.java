@@ -0,0 +1,105 @@
+package pl.training.payments.adapters.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.training.common.web.ExceptionResponse;
+import pl.training.common.web.RestExceptionResponseBuilder;
+import pl.training.payments.application.BulkAddCardsUseCase;
+import pl.training.payments.domain.CardNumber;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Issued cards are written as NDJSON chunk by chunk, the client sees numbers as soon as their chunk is committed.
+// A failure after the first chunk can no longer change the status, the stream then ends with an error line
+// (an ExceptionResponse, which has no number field).
+@RestController
+final class BulkAddCardsRestController {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkAddCardsRestController.class.getName());
+    private static final MediaType NDJSON_MEDIA_TYPE = MediaType.parseMediaType("application/x-ndjson");
+
+    private final BulkAddCardsUseCase bulkAddCardsUseCase;
+    private final RestExceptionResponseBuilder exceptionResponseBuilder;
+    private final ObjectMapper objectMapper;
+
+    BulkAddCardsRestController(final BulkAddCardsUseCase bulkAddCardsUseCase,
+                               final RestExceptionResponseBuilder exceptionResponseBuilder,
+                               final ObjectMapper objectMapper) {
+        this.bulkAddCardsUseCase = bulkAddCardsUseCase;
+        this.exceptionResponseBuilder = exceptionResponseBuilder;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping("api/cards/bulk")
+    ResponseEntity<StreamingResponseBody> addCards(@Validated @RequestBody final BulkAddCardsRequest bulkAddCardsRequest,
+                                                   final Locale locale) {
+        // both may fail, which is still answered with an ordinary error status
+        var currency = bulkAddCardsRequest.currency();
+        var cardNumbers = bulkAddCardsUseCase.reserve(bulkAddCardsRequest.count());
+        StreamingResponseBody body = output -> {
+            var writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+            try {
+                issue(currency, cardNumbers, writer);
+            } catch (UncheckedIOException exception) {
+                throw exception.getCause();
+            } catch (RuntimeException exception) {
+                LOGGER.log(Level.WARNING, "Bulk card issuance failed", exception);
+                var description = exceptionResponseBuilder.getLocalizedMessage(exception, locale);
+                writer.write(objectMapper.writeValueAsString(new ExceptionResponse(description)));
+                writer.write("\n");
+                writer.flush();
+            }
+        };
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .contentType(NDJSON_MEDIA_TYPE)
+                .body(body);
+    }
+
+    private void issue(final Currency currency, final List<CardNumber> cardNumbers, final BufferedWriter writer) {
+        bulkAddCardsUseCase.issue(currency, cardNumbers, cards -> {
+            try {
+                for (var card : cards) {
+                    writer.write("{\"number\":\"");
+                    writer.write(card.getNumber().value());
+                    writer.write("\",\"expiration\":\"");
+                    writer.write(card.getExpiration().toString());
+                    writer.write("\"}\n");
+                }
+                writer.flush();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+    }
+
+}
+
+record BulkAddCardsRequest(@Pattern(regexp = "[A-Z]{3}") String currencyCode,
+                           @NotNull @Min(1) @Max(100_000) Integer count) {
+
+    Currency currency() {
+        return Currency.getInstance(currencyCode);
+    }
+
+}
@@ -0,0 +1,53 @@
+package pl.training.payments.adapters.rest;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.training.payments.adapters.export.ExportFormat;
+import pl.training.payments.adapters.export.TransactionExportFilter;
+import pl.training.payments.adapters.export.TransactionExporter;
+
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.Optional;
+
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME;
+
+@RestController
+final class ExportTransactionsRestController {
+
+    private static final String FILE_NAME = "transactions";
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final MediaType GZIP_MEDIA_TYPE = MediaType.parseMediaType("application/gzip");
+
+    private final TransactionExporter transactionExporter;
+
+    ExportTransactionsRestController(final TransactionExporter transactionExporter) {
+        this.transactionExporter = transactionExporter;
+    }
+
+    @GetMapping("api/transactions/export")
+    ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false, defaultValue = "CSV") final ExportFormat format,
+            @RequestParam(required = false, defaultValue = "false") final boolean compressed,
+            @RequestParam(required = false) @DateTimeFormat(iso = DATE_TIME) final ZonedDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DATE_TIME) final ZonedDateTime to,
+            @RequestParam(required = false) final Currency currency) {
+        // checked before the response is committed, so it still becomes an error status
+        transactionExporter.checkSupported();
+        var filter = new TransactionExportFilter(Optional.ofNullable(from), Optional.ofNullable(to), Optional.ofNullable(currency));
+        var fileName = FILE_NAME + "." + format.getFileExtension() + (compressed ? GZIP_EXTENSION : "");
+        var contentType = compressed ? GZIP_MEDIA_TYPE : MediaType.parseMediaType(format.getContentType());
+        StreamingResponseBody body = output -> transactionExporter.export(filter, format, compressed, output);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header("Content-Disposition", ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+}
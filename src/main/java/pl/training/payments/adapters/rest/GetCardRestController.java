@@ -1,11 +1,11 @@
 package pl.training.payments.adapters.rest;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import pl.training.payments.application.GetCardTransactionsUseCase;
+import pl.training.payments.application.DateTimeProvider;
 import pl.training.payments.application.GetCardUseCase;
 import pl.training.payments.domain.Card;
 import pl.training.payments.domain.CardNumber;
@@ -13,16 +13,24 @@ import pl.training.payments.domain.Transaction;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
 import java.util.List;
 
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME;
+
 @RestController
 @RequestMapping("api/cards")
 final class GetCardRestController {
 
     private final GetCardUseCase getCardUseCase;
+    private final GetCardTransactionsUseCase getCardTransactionsUseCase;
+    private final DateTimeProvider dateTimeProvider;
 
-    GetCardRestController(final GetCardUseCase getCardUseCase) {
+    GetCardRestController(final GetCardUseCase getCardUseCase, final GetCardTransactionsUseCase getCardTransactionsUseCase,
+                          final DateTimeProvider dateTimeProvider) {
         this.getCardUseCase = getCardUseCase;
+        this.getCardTransactionsUseCase = getCardTransactionsUseCase;
+        this.dateTimeProvider = dateTimeProvider;
     }
 
     @GetMapping("{number:\\d{16,19}}")
@@ -32,6 +40,16 @@ final class GetCardRestController {
         return ResponseEntity.ok(GetCardResponse.from(card));
     }
 
+    @GetMapping("{number:\\d{16,19}}/transactions")
+    ResponseEntity<List<CardTransactionResponse>> getCardTransactions(
+            @PathVariable final String number,
+            @RequestParam @DateTimeFormat(iso = DATE_TIME) final ZonedDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DATE_TIME) final ZonedDateTime to) {
+        var cardNumber = new CardNumber(number);
+        var transactions = getCardTransactionsUseCase.handle(cardNumber, from, to != null ? to : dateTimeProvider.getZonedDateTime());
+        return ResponseEntity.ok(transactions.stream().map(CardTransactionResponse::from).toList());
+    }
+
 }
 
 record GetCardResponse(String number, LocalDate expiration, Double balance, String currencyCode,
@@ -23,8 +23,9 @@ final class GetCardsRestController {
     @GetMapping("api/cards")
     ResponseEntity<ResultPage<GetCardsResponse>> getCards(
             @RequestParam(required = false, defaultValue = "0") final int pageNumber,
-            @RequestParam(required = false, defaultValue = "10") final int pageSize) {
-        var pageSpec = new PageSpec(pageNumber, pageSize);
+            @RequestParam(required = false, defaultValue = "10") final int pageSize,
+            @RequestParam(required = false) final String after) {
+        var pageSpec = new PageSpec(pageNumber, pageSize, after);
         var response = getCardsUseCase.handle(pageSpec).map(GetCardsResponse::from);
         return ResponseEntity.ok(response);
     }
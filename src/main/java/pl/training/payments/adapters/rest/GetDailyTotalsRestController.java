@@ -0,0 +1,52 @@
+package pl.training.payments.adapters.rest;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import pl.training.payments.application.DailyTotals;
+import pl.training.payments.application.GetDailyTotalsUseCase;
+import pl.training.payments.domain.CardNumber;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE;
+
+@RestController
+final class GetDailyTotalsRestController {
+
+    private final GetDailyTotalsUseCase getDailyTotalsUseCase;
+
+    GetDailyTotalsRestController(final GetDailyTotalsUseCase getDailyTotalsUseCase) {
+        this.getDailyTotalsUseCase = getDailyTotalsUseCase;
+    }
+
+    @GetMapping("api/cards/{number:\\d{16,19}}/daily-totals")
+    ResponseEntity<List<DailyTotalsResponse>> getDailyTotals(
+            @PathVariable final String number,
+            @RequestParam @DateTimeFormat(iso = DATE) final LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DATE) final LocalDate to) {
+        var cardNumber = new CardNumber(number);
+        var dailyTotals = getDailyTotalsUseCase.handle(cardNumber, from, to);
+        return ResponseEntity.ok(dailyTotals.stream().map(DailyTotalsResponse::from).toList());
+    }
+
+}
+
+record DailyTotalsResponse(LocalDate day, String currencyCode, Double inflow, long inflowCount, Double outflow, long outflowCount) {
+
+    static DailyTotalsResponse from(final DailyTotals dailyTotals) {
+        return new DailyTotalsResponse(
+                dailyTotals.day(),
+                dailyTotals.currency().getCurrencyCode(),
+                dailyTotals.inflow().doubleValue(),
+                dailyTotals.inflowCount(),
+                dailyTotals.outflow().doubleValue(),
+                dailyTotals.outflowCount()
+        );
+    }
+
+}
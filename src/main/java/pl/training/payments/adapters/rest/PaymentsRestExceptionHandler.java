@@ -1,25 +1,44 @@
 package pl.training.payments.adapters.rest;
 
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import pl.training.common.web.ExceptionResponse;
 import pl.training.common.web.RestExceptionResponseBuilder;
 import pl.training.payments.application.CardNotFoundException;
+import pl.training.payments.application.IdempotencyKeyReusedException;
+import pl.training.payments.application.IdempotentRequestInProgressException;
+import pl.training.payments.application.VelocityCapacityExceededException;
+import pl.training.payments.application.VelocityLimitExceededException;
 import pl.training.payments.domain.InsufficientBalanceException;
+import pl.training.payments.domain.InvalidTransactionTimestampException;
+import pl.training.payments.domain.MismatchedCurrencyException;
 
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
 
 import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
 @Order(HIGHEST_PRECEDENCE)
 @ControllerAdvice(basePackages = "pl.training.payments.adapters.rest")
 final class PaymentsRestExceptionHandler {
 
+    private static final Logger LOGGER = Logger.getLogger(PaymentsRestExceptionHandler.class.getName());
+    private static final long LOG_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
     private final RestExceptionResponseBuilder exceptionResponseBuilder;
+    private final AtomicLong lastLogTime = new AtomicLong(System.nanoTime() - LOG_INTERVAL);
+    private final AtomicLong suppressedLogs = new AtomicLong();
 
     PaymentsRestExceptionHandler(final RestExceptionResponseBuilder exceptionResponseBuilder) {
         this.exceptionResponseBuilder = exceptionResponseBuilder;
@@ -27,12 +46,63 @@ final class PaymentsRestExceptionHandler {
 
     @ExceptionHandler(CardNotFoundException.class)
     ResponseEntity<ExceptionResponse> onCardNotFoundException(final CardNotFoundException exception, final Locale locale) {
-        return exceptionResponseBuilder.build(exception, NOT_FOUND, locale);
+        return reject(exception, NOT_FOUND, locale);
     }
 
     @ExceptionHandler(InsufficientBalanceException.class)
     ResponseEntity<ExceptionResponse> onInsufficientBalanceException(final InsufficientBalanceException exception, final Locale locale) {
-        return exceptionResponseBuilder.build(exception, BAD_REQUEST, locale);
+        return reject(exception, BAD_REQUEST, locale);
+    }
+
+    @ExceptionHandler(MismatchedCurrencyException.class)
+    ResponseEntity<ExceptionResponse> onMismatchedCurrencyException(final MismatchedCurrencyException exception, final Locale locale) {
+        return reject(exception, BAD_REQUEST, locale);
+    }
+
+    @ExceptionHandler(InvalidTransactionTimestampException.class)
+    ResponseEntity<ExceptionResponse> onInvalidTransactionTimestampException(final InvalidTransactionTimestampException exception, final Locale locale) {
+        return reject(exception, BAD_REQUEST, locale);
+    }
+
+    @ExceptionHandler(VelocityLimitExceededException.class)
+    ResponseEntity<ExceptionResponse> onVelocityLimitExceededException(final VelocityLimitExceededException exception, final Locale locale) {
+        return reject(exception, BAD_REQUEST, locale);
+    }
+
+    // the transaction was not judged, the client may repeat it once idle cards have left the velocity state
+    @ExceptionHandler(VelocityCapacityExceededException.class)
+    ResponseEntity<ExceptionResponse> onVelocityCapacityExceededException(final VelocityCapacityExceededException exception, final Locale locale) {
+        log(exception);
+        var description = exceptionResponseBuilder.getLocalizedMessage(exception, locale);
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.ceilDiv(exception.getRetryAfter().toMillis(), 1000)))
+                .body(new ExceptionResponse(description));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    ResponseEntity<ExceptionResponse> onIdempotencyKeyReusedException(final IdempotencyKeyReusedException exception, final Locale locale) {
+        return reject(exception, UNPROCESSABLE_ENTITY, locale);
+    }
+
+    @ExceptionHandler(IdempotentRequestInProgressException.class)
+    ResponseEntity<ExceptionResponse> onIdempotentRequestInProgressException(final IdempotentRequestInProgressException exception, final Locale locale) {
+        return reject(exception, CONFLICT, locale);
+    }
+
+    private ResponseEntity<ExceptionResponse> reject(final Exception exception, final HttpStatus status, final Locale locale) {
+        log(exception);
+        return exceptionResponseBuilder.build(exception, status, locale);
+    }
+
+    // rejections are a normal outcome at a high rate, at most one entry per interval is written and the others are only counted
+    private void log(final Exception exception) {
+        var now = System.nanoTime();
+        var lastLog = lastLogTime.get();
+        if (now - lastLog >= LOG_INTERVAL && lastLogTime.compareAndSet(lastLog, now)) {
+            LOGGER.info("Request rejected: %s (suppressed since last entry: %d)".formatted(exception, suppressedLogs.getAndSet(0)));
+        } else {
+            suppressedLogs.incrementAndGet();
+        }
     }
 
 }
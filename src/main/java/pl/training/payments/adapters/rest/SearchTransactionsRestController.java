@@ -0,0 +1,93 @@
+package pl.training.payments.adapters.rest;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import pl.training.payments.application.IndexedTransaction;
+import pl.training.payments.application.SearchTransactionsUseCase;
+import pl.training.payments.application.TransactionQuery;
+import pl.training.payments.application.TransactionSearchResult;
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+@RestController
+final class SearchTransactionsRestController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final SearchTransactionsUseCase searchTransactionsUseCase;
+
+    SearchTransactionsRestController(final SearchTransactionsUseCase searchTransactionsUseCase) {
+        this.searchTransactionsUseCase = searchTransactionsUseCase;
+    }
+
+    @GetMapping("api/transactions")
+    ResponseEntity<TransactionSearchResponse> search(
+            @RequestParam(required = false) final String type,
+            @RequestParam(required = false) final Currency currency,
+            @RequestParam(required = false) final BigDecimal minAmount,
+            @RequestParam(required = false) final BigDecimal maxAmount,
+            @RequestParam(required = false) @DateTimeFormat(iso = DATE_TIME) final ZonedDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DATE_TIME) final ZonedDateTime to,
+            @RequestParam(required = false, defaultValue = "0") final long cursor,
+            @RequestParam(required = false, defaultValue = "50") final int pageSize) {
+        var query = new TransactionQuery(Optional.ofNullable(type).map(SearchTransactionsRestController::toTransactionType),
+                Optional.ofNullable(currency), Optional.ofNullable(minAmount), Optional.ofNullable(maxAmount),
+                Optional.ofNullable(from), Optional.ofNullable(to), Math.max(0, cursor), Math.clamp(pageSize, 1, MAX_PAGE_SIZE));
+        var result = searchTransactionsUseCase.handle(query);
+        return ResponseEntity.ok(TransactionSearchResponse.from(result));
+    }
+
+    private static TransactionType toTransactionType(final String type) {
+        return switch (type) {
+            case "IN" -> INFLOW;
+            case "OUT" -> PAYMENT;
+            default -> throw new IllegalStateException("Unexpected value: " + type);
+        };
+    }
+
+}
+
+record TransactionSearchResponse(List<FoundTransactionResponse> content, Long nextCursor) {
+
+    static TransactionSearchResponse from(final TransactionSearchResult result) {
+        return new TransactionSearchResponse(
+                result.content().stream().map(FoundTransactionResponse::from).toList(),
+                result.nextCursor().orElse(null)
+        );
+    }
+
+}
+
+record FoundTransactionResponse(long sequence, String cardNumber, String id, Instant timestamp, Double value,
+                                String currencyCode, String type) {
+
+    static FoundTransactionResponse from(final IndexedTransaction indexedTransaction) {
+        var transaction = indexedTransaction.transaction();
+        return new FoundTransactionResponse(
+                indexedTransaction.sequence(),
+                indexedTransaction.cardNumber().value(),
+                transaction.id().value().toString(),
+                transaction.timestamp().toInstant(),
+                transaction.value().amount().doubleValue(),
+                transaction.value().currency().getCurrencyCode(),
+                switch (transaction.type()) {
+                    case INFLOW -> "IN";
+                    case PAYMENT -> "OUT";
+                }
+        );
+    }
+
+}
@@ -0,0 +1,33 @@
+package pl.training.payments.adapters.velocity;
+
+import java.util.Arrays;
+
+// Immutable window state of one card, replaced as a whole on every accepted transaction.
+// Slots are laid out rule after rule, a slot belongs to the bucket whose epoch (time / bucket width) it stores.
+final class CardVelocity {
+
+    static final CardVelocity RETIRED = new CardVelocity(new long[0], new long[0], new long[0], Long.MIN_VALUE);
+
+    final long[] epochs;
+    final long[] counts;
+    final long[] amounts;
+    final long lastActivity;
+
+    CardVelocity(final long[] epochs, final long[] counts, final long[] amounts, final long lastActivity) {
+        this.epochs = epochs;
+        this.counts = counts;
+        this.amounts = amounts;
+        this.lastActivity = lastActivity;
+    }
+
+    static CardVelocity empty(final int slots, final long time) {
+        var epochs = new long[slots];
+        Arrays.fill(epochs, Long.MIN_VALUE);
+        return new CardVelocity(epochs, new long[slots], new long[slots], time);
+    }
+
+    CardVelocity copy(final long lastActivity) {
+        return new CardVelocity(epochs.clone(), counts.clone(), amounts.clone(), Math.max(this.lastActivity, lastActivity));
+    }
+
+}
@@ -0,0 +1,214 @@
+package pl.training.payments.adapters.velocity;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.training.payments.application.TransactionCheck;
+import pl.training.payments.application.VelocityCapacityExceededException;
+import pl.training.payments.application.VelocityLimitExceededException;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Sliding windows approximated by time buckets, per card and rule, kept only in memory so the check never queries the database.
+// Card state is swapped by compare-and-set, a rejected transaction leaves it untouched. An accepted one reserves its place
+// in the window right away, so concurrent payments see it, and gives it back if the surrounding transaction does not commit.
+@Component
+public class VelocityCheck implements TransactionCheck {
+
+    private final List<VelocityRule> rules;
+    private final int slots;
+    private final long maxWindow;
+    private final int maxCards;
+    private final Map<CardNumber, AtomicReference<CardVelocity>> cards = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+    private long nextIdleTime;
+
+    public VelocityCheck(final VelocityProperties properties) {
+        var firstSlot = 0;
+        var velocityRules = new ArrayList<VelocityRule>();
+        for (var rule : properties.rules()) {
+            velocityRules.add(new VelocityRule(rule, firstSlot));
+            firstSlot += rule.buckets();
+        }
+        this.rules = List.copyOf(velocityRules);
+        this.slots = firstSlot;
+        this.maxWindow = this.rules.stream().mapToLong(VelocityRule::window).max().orElse(0);
+        this.maxCards = properties.maxCards();
+    }
+
+    @Override
+    public void check(final CardNumber cardNumber, final Transaction transaction) {
+        if (rules.isEmpty()) {
+            return;
+        }
+        var time = transaction.timestamp().toInstant().toEpochMilli();
+        var currency = transaction.value().currency();
+        var fractionDigits = Math.max(0, currency.getDefaultFractionDigits());
+        var amount = transaction.value().amount()
+                .movePointRight(fractionDigits)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+        while (true) {
+            var state = cards.get(cardNumber);
+            if (state == null) {
+                ensureCapacity();
+                state = cards.computeIfAbsent(cardNumber, number -> new AtomicReference<>(CardVelocity.empty(slots, time)));
+            }
+            var current = state.get();
+            if (current == CardVelocity.RETIRED) {
+                cards.remove(cardNumber, state);
+                continue;
+            }
+            var next = current.copy(time);
+            for (var rule : rules) {
+                if (rule.appliesTo(transaction) && !rule.record(next, time, amount, fractionDigits)) {
+                    throw new VelocityLimitExceededException();
+                }
+            }
+            if (state.compareAndSet(current, next)) {
+                releaseOnRollback(state, transaction, time, amount);
+                return;
+            }
+        }
+    }
+
+    private void releaseOnRollback(final AtomicReference<CardVelocity> state, final Transaction transaction, final long time,
+                                   final long amount) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCompletion(final int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(state, transaction, time, amount);
+                }
+            }
+
+        });
+    }
+
+    // a retired card has been idle for longer than any window, there is nothing left to give back
+    private void release(final AtomicReference<CardVelocity> state, final Transaction transaction, final long time,
+                         final long amount) {
+        while (true) {
+            var current = state.get();
+            if (current == CardVelocity.RETIRED) {
+                return;
+            }
+            var next = current.copy(current.lastActivity);
+            for (var rule : rules) {
+                if (rule.appliesTo(transaction)) {
+                    rule.release(next, time, amount);
+                }
+            }
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    // Past the cap idle cards are evicted first. New cards are refused rather than let through unchecked when none is idle,
+    // and the map is swept again only once the earliest active card can have become idle.
+    private void ensureCapacity() {
+        if (cards.size() < maxCards) {
+            return;
+        }
+        synchronized (evictionLock) {
+            var now = System.currentTimeMillis();
+            if (cards.size() >= maxCards && now >= nextIdleTime) {
+                nextIdleTime = removeIdle(now);
+            }
+            if (cards.size() >= maxCards) {
+                throw new VelocityCapacityExceededException(Duration.ofMillis(Math.clamp(nextIdleTime - now, 1, maxWindow + 1)));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payments.velocity.cleanup-interval:PT1M}")
+    public void removeIdle() {
+        removeIdle(System.currentTimeMillis());
+    }
+
+    // an idle card is retired before removal, so a concurrent check cannot update an entry that is no longer in the map;
+    // returns the time the first of the remaining cards becomes idle
+    private long removeIdle(final long now) {
+        var nextIdle = Long.MAX_VALUE;
+        for (var entry : cards.entrySet()) {
+            var state = entry.getValue();
+            var current = state.get();
+            if (now - current.lastActivity > maxWindow && state.compareAndSet(current, CardVelocity.RETIRED)) {
+                cards.remove(entry.getKey(), state);
+            } else if (current != CardVelocity.RETIRED) {
+                nextIdle = Math.min(nextIdle, current.lastActivity + maxWindow + 1);
+            }
+        }
+        return nextIdle;
+    }
+
+    private record VelocityRule(VelocityProperties.Rule rule, int firstSlot, long bucketWidth) {
+
+        VelocityRule(final VelocityProperties.Rule rule, final int firstSlot) {
+            this(rule, firstSlot, Math.max(1, rule.window().toMillis() / rule.buckets()));
+        }
+
+        long window() {
+            return bucketWidth * rule.buckets();
+        }
+
+        boolean appliesTo(final Transaction transaction) {
+            return transaction.type() == rule.type()
+                    && (rule.currency() == null || transaction.hasCurrency(rule.currency()));
+        }
+
+        // adds the transaction to its bucket and tells whether the window stays within the limits
+        boolean record(final CardVelocity velocity, final long time, final long amount, final int fractionDigits) {
+            var epoch = Math.floorDiv(time, bucketWidth);
+            var slot = firstSlot + Math.floorMod(epoch, rule.buckets());
+            // a transaction delayed by a whole window must not reset the newer bucket sharing its slot
+            var recorded = velocity.epochs[slot] <= epoch;
+            if (velocity.epochs[slot] < epoch) {
+                velocity.epochs[slot] = epoch;
+                velocity.counts[slot] = 0;
+                velocity.amounts[slot] = 0;
+            }
+            if (recorded) {
+                velocity.counts[slot]++;
+                velocity.amounts[slot] += amount;
+            }
+            var count = recorded ? 0L : 1L;
+            var total = recorded ? 0L : amount;
+            for (var index = firstSlot; index < firstSlot + rule.buckets(); index++) {
+                if (velocity.epochs[index] > epoch - rule.buckets()) {
+                    count += velocity.counts[index];
+                    total += velocity.amounts[index];
+                }
+            }
+            return (rule.maxCount() == null || count <= rule.maxCount())
+                    && (rule.maxAmount() == null || total <= rule.maxAmount().movePointRight(fractionDigits).longValue());
+        }
+
+        // slot epochs only grow, so a transaction that was not recorded never finds its epoch in the slot,
+        // and one whose bucket has since been reused has already left the window
+        void release(final CardVelocity velocity, final long time, final long amount) {
+            var epoch = Math.floorDiv(time, bucketWidth);
+            var slot = firstSlot + Math.floorMod(epoch, rule.buckets());
+            if (velocity.epochs[slot] == epoch) {
+                velocity.counts[slot]--;
+                velocity.amounts[slot] -= amount;
+            }
+        }
+
+    }
+
+}
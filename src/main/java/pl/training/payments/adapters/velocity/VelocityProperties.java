@@ -0,0 +1,22 @@
+package pl.training.payments.adapters.velocity;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.List;
+
+@ConfigurationProperties("payments.velocity")
+public record VelocityProperties(@DefaultValue List<Rule> rules,
+                                 @DefaultValue("1000000") int maxCards,
+                                 @DefaultValue("PT1M") Duration cleanupInterval) {
+
+    // maxCount and maxAmount are optional, the amount is in the card's currency, currency narrows the rule to one currency
+    public record Rule(String name, @DefaultValue("PAYMENT") TransactionType type, Currency currency, Duration window,
+                       @DefaultValue("12") int buckets, Long maxCount, BigDecimal maxAmount) {
+    }
+
+}
@@ -0,0 +1,37 @@
+package pl.training.payments.application;
+
+import pl.training.common.aop.Atomic;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardId;
+import pl.training.payments.domain.CardNumber;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+// Issues cards with already reserved numbers, all of them in one transaction
+@Atomic
+public class AddCardsUseCase {
+
+    private static final int EXPIRATION_TIME_IN_YEARS = 1;
+
+    private final CardRepository cardRepository;
+    private final DateTimeProvider dateTimeProvider;
+
+    public AddCardsUseCase(final CardRepository cardRepository, final DateTimeProvider dateTimeProvider) {
+        this.cardRepository = cardRepository;
+        this.dateTimeProvider = dateTimeProvider;
+    }
+
+    public List<Card> handle(final Currency currency, final List<CardNumber> cardNumbers) {
+        var expiration = dateTimeProvider.getZonedDateTime()
+                .plusYears(EXPIRATION_TIME_IN_YEARS)
+                .toLocalDate();
+        var cards = new ArrayList<Card>(cardNumbers.size());
+        for (var cardNumber : cardNumbers) {
+            cards.add(new Card(new CardId(), cardNumber, expiration, currency));
+        }
+        return cardRepository.saveAll(cards);
+    }
+
+}
@@ -4,6 +4,7 @@ import pl.training.common.aop.Atomic;
 import pl.training.common.aop.Loggable;
 import pl.training.payments.domain.*;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 //@Transactional
@@ -13,24 +14,36 @@ public class AddTransactionUseCase {
     private final DateTimeProvider dateTimeProvider;
     private final TransactionEventPublisher transactionEventPublisher;
     private final CardRepository cardRepository;
+    private final DailyTotalsRepository dailyTotalsRepository;
+    private final TransactionIndex transactionIndex;
+    private final List<TransactionCheck> transactionChecks;
 
     public AddTransactionUseCase(final DateTimeProvider dateTimeProvider,
                                  final TransactionEventPublisher transactionEventPublisher,
-                                 final CardRepository cardRepository) {
+                                 final CardRepository cardRepository,
+                                 final DailyTotalsRepository dailyTotalsRepository,
+                                 final TransactionIndex transactionIndex,
+                                 final List<TransactionCheck> transactionChecks) {
         this.dateTimeProvider = dateTimeProvider;
         this.transactionEventPublisher = transactionEventPublisher;
         this.cardRepository = cardRepository;
+        this.dailyTotalsRepository = dailyTotalsRepository;
+        this.transactionIndex = transactionIndex;
+        this.transactionChecks = transactionChecks;
     }
 
     @Loggable
     public TransactionId handle(final CardNumber cardNumber, final Money value, final TransactionType transactionType) {
         var card = findCard(cardNumber);
         var transaction = createTransaction(value, transactionType);
+        transactionChecks.forEach(transactionCheck -> transactionCheck.check(cardNumber, transaction));
         var cardEventListener = createCardEventListener();
         card.addEventListener(cardEventListener);
         card.registerTransaction(transaction);
         card.removeEventListener(cardEventListener);
         cardRepository.save(card);
+        dailyTotalsRepository.add(cardNumber, transaction);
+        transactionIndex.add(cardNumber, transaction);
         return transaction.id();
     }
 
@@ -0,0 +1,65 @@
+package pl.training.payments.application;
+
+import pl.training.common.aop.ConcurrencyLimitExceededException;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardNumber;
+
+import java.time.Duration;
+import java.util.Currency;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Numbers are reserved up front (before the caller commits to a response), cards are then issued in chunks,
+// each chunk is committed before it is reported. A failed chunk stops the issuance, the cards of the chunks
+// reported so far stay issued.
+public class BulkAddCardsUseCase {
+
+    private static final int MAX_CHUNK_ATTEMPTS = 30;
+
+    private final CardNumberGenerator cardNumberGenerator;
+    private final AddCardsUseCase addCardsUseCase;
+    private final int chunkSize;
+
+    public BulkAddCardsUseCase(final CardNumberGenerator cardNumberGenerator, final AddCardsUseCase addCardsUseCase,
+                               final int chunkSize) {
+        this.cardNumberGenerator = cardNumberGenerator;
+        this.addCardsUseCase = addCardsUseCase;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<CardNumber> reserve(final int count) {
+        return cardNumberGenerator.reserve(count);
+    }
+
+    public void issue(final Currency currency, final List<CardNumber> cardNumbers, final Consumer<List<Card>> issuedCardsConsumer) {
+        var count = cardNumbers.size();
+        for (int startIndex = 0; startIndex < count; startIndex += chunkSize) {
+            var chunk = cardNumbers.subList(startIndex, Math.min(startIndex + chunkSize, count));
+            issuedCardsConsumer.accept(addChunk(currency, chunk));
+        }
+    }
+
+    // under load shedding a chunk waits and is tried again, bulk issuance yields to interactive requests instead of failing
+    private List<Card> addChunk(final Currency currency, final List<CardNumber> chunk) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return addCardsUseCase.handle(currency, chunk);
+            } catch (ConcurrencyLimitExceededException exception) {
+                if (attempt == MAX_CHUNK_ATTEMPTS) {
+                    throw exception;
+                }
+                pause(exception.getRetryAfter());
+            }
+        }
+    }
+
+    private void pause(final Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+    }
+
+}
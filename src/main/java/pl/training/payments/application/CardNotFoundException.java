@@ -1,4 +1,9 @@
 package pl.training.payments.application;
 
 public final class CardNotFoundException extends RuntimeException {
+
+    public CardNotFoundException() {
+        super(null, null, false, false);
+    }
+
 }
@@ -2,8 +2,19 @@ package pl.training.payments.application;
 
 import pl.training.payments.domain.CardNumber;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface CardNumberGenerator {
 
     CardNumber getNext();
 
+    default List<CardNumber> reserve(final int count) {
+        var cardNumbers = new ArrayList<CardNumber>(count);
+        for (int index = 0; index < count; index++) {
+            cardNumbers.add(getNext());
+        }
+        return cardNumbers;
+    }
+
 }
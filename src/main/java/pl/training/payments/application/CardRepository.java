@@ -5,12 +5,18 @@ import pl.training.common.ResultPage;
 import pl.training.payments.domain.Card;
 import pl.training.payments.domain.CardNumber;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CardRepository {
 
     Card save(Card card);
 
+    default List<Card> saveAll(final List<Card> cards) {
+        cards.forEach(this::save);
+        return cards;
+    }
+
     ResultPage<Card> findAll(PageSpec pageSpec);
 
     Optional<Card> findByNumber(CardNumber cardNumber);
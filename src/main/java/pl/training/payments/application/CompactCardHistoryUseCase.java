@@ -0,0 +1,42 @@
+package pl.training.payments.application;
+
+import pl.training.common.PageSpec;
+import pl.training.common.ResultPage;
+import pl.training.common.aop.Atomic;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardNumber;
+
+import java.time.Duration;
+
+@Atomic
+public class CompactCardHistoryUseCase {
+
+    private final CardRepository cardRepository;
+    private final TransactionArchive transactionArchive;
+    private final DateTimeProvider dateTimeProvider;
+    private final Duration hotWindow;
+
+    public CompactCardHistoryUseCase(final CardRepository cardRepository,
+                                     final TransactionArchive transactionArchive,
+                                     final DateTimeProvider dateTimeProvider,
+                                     final Duration hotWindow) {
+        this.cardRepository = cardRepository;
+        this.transactionArchive = transactionArchive;
+        this.dateTimeProvider = dateTimeProvider;
+        this.hotWindow = hotWindow;
+    }
+
+    public ResultPage<CardNumber> handle(final PageSpec pageSpec) {
+        var cutoff = dateTimeProvider.getZonedDateTime().minus(hotWindow);
+        var cards = cardRepository.findAll(pageSpec);
+        for (var card : cards.content()) {
+            var archivedTransactions = card.archiveTransactionsBefore(cutoff);
+            if (!archivedTransactions.isEmpty()) {
+                transactionArchive.append(card.getNumber(), archivedTransactions);
+                cardRepository.save(card);
+            }
+        }
+        return cards.map(Card::getNumber);
+    }
+
+}
@@ -0,0 +1,10 @@
+package pl.training.payments.application;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+public record DailyTotals(LocalDate day, Currency currency,
+                          BigDecimal inflow, long inflowCount,
+                          BigDecimal outflow, long outflowCount) {
+}
@@ -0,0 +1,15 @@
+package pl.training.payments.application;
+
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyTotalsRepository {
+
+    void add(CardNumber cardNumber, Transaction transaction);
+
+    List<DailyTotals> findByDay(CardNumber cardNumber, LocalDate from, LocalDate to);
+
+}
@@ -0,0 +1,40 @@
+package pl.training.payments.application;
+
+import pl.training.common.aop.Atomic;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Atomic(readOnly = true)
+public class GetCardTransactionsUseCase {
+
+    private final CardRepository cardRepository;
+    private final TransactionArchive transactionArchive;
+
+    public GetCardTransactionsUseCase(final CardRepository cardRepository, final TransactionArchive transactionArchive) {
+        this.cardRepository = cardRepository;
+        this.transactionArchive = transactionArchive;
+    }
+
+    public List<Transaction> handle(final CardNumber cardNumber, final ZonedDateTime from, final ZonedDateTime to) {
+        var card = cardRepository.findByNumber(cardNumber)
+                .orElseThrow(CardNotFoundException::new);
+        var transactions = new ArrayList<Transaction>();
+        if (card.hasArchivedHistorySince(from)) {
+            transactions.addAll(transactionArchive.findByTimestamp(cardNumber, from, to));
+        }
+        card.getTransactions().stream()
+                .filter(transaction -> isInRange(transaction, from, to))
+                .forEach(transactions::add);
+        return transactions;
+    }
+
+    private boolean isInRange(final Transaction transaction, final ZonedDateTime from, final ZonedDateTime to) {
+        var timestamp = transaction.timestamp();
+        return !timestamp.isBefore(from) && timestamp.isBefore(to);
+    }
+
+}
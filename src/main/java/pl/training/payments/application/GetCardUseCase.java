@@ -5,7 +5,7 @@ import pl.training.payments.domain.Card;
 import pl.training.payments.domain.CardNumber;
 
 //@Transactional
-@Atomic
+@Atomic(readOnly = true)
 public class GetCardUseCase {
 
     private final CardRepository cardRepository;
@@ -6,7 +6,7 @@ import pl.training.common.aop.Atomic;
 import pl.training.payments.domain.Card;
 
 //@Transactional
-@Atomic
+@Atomic(readOnly = true)
 public class GetCardsUseCase {
 
     private final CardRepository cardRepository;
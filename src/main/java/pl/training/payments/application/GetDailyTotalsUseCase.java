@@ -0,0 +1,22 @@
+package pl.training.payments.application;
+
+import pl.training.common.aop.Atomic;
+import pl.training.payments.domain.CardNumber;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Atomic(readOnly = true)
+public class GetDailyTotalsUseCase {
+
+    private final DailyTotalsRepository dailyTotalsRepository;
+
+    public GetDailyTotalsUseCase(final DailyTotalsRepository dailyTotalsRepository) {
+        this.dailyTotalsRepository = dailyTotalsRepository;
+    }
+
+    public List<DailyTotals> handle(final CardNumber cardNumber, final LocalDate from, final LocalDate to) {
+        return dailyTotalsRepository.findByDay(cardNumber, from, to);
+    }
+
+}
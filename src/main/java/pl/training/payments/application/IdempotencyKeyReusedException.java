@@ -0,0 +1,9 @@
+package pl.training.payments.application;
+
+public final class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException() {
+        super(null, null, false, false);
+    }
+
+}
@@ -0,0 +1,7 @@
+package pl.training.payments.application;
+
+import java.util.Optional;
+
+// the result is empty while the request holding the key is still being processed
+public record IdempotencyRecord(String requestHash, Optional<IdempotentResult> result) {
+}
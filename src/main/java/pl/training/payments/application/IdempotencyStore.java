@@ -0,0 +1,20 @@
+package pl.training.payments.application;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+public interface IdempotencyStore {
+
+    // claims the key with a pending record owned by the token and returns empty, or returns the valid record holding it;
+    // expired records and pending records with an expired lease are taken over
+    Optional<IdempotencyRecord> claim(String key, String token, String requestHash, ZonedDateTime timestamp,
+                                      ZonedDateTime leaseExpiration, ZonedDateTime expiration);
+
+    // fails when the claim was taken over in the meantime
+    void complete(String key, String token, IdempotentResult result);
+
+    void release(String key, String token);
+
+    void removeExpired(ZonedDateTime timestamp);
+
+}
@@ -0,0 +1,172 @@
+package pl.training.payments.application;
+
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.TransactionId;
+import pl.training.payments.domain.TransactionType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class IdempotentAddTransactionUseCase {
+
+    private static final Logger LOGGER = Logger.getLogger(IdempotentAddTransactionUseCase.class.getName());
+    private static final int MAX_KEY_LENGTH = 200;
+    private static final String KEY_SEPARATOR = ":";
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final RecordedAddTransactionUseCase recordedAddTransactionUseCase;
+    private final IdempotencyStore idempotencyStore;
+    private final DateTimeProvider dateTimeProvider;
+    private final Duration timeToLive;
+    private final Duration leaseTime;
+    private final int capacity;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public IdempotentAddTransactionUseCase(final RecordedAddTransactionUseCase recordedAddTransactionUseCase,
+                                           final IdempotencyStore idempotencyStore,
+                                           final DateTimeProvider dateTimeProvider,
+                                           final Duration timeToLive,
+                                           final Duration leaseTime,
+                                           final int capacity) {
+        this.recordedAddTransactionUseCase = recordedAddTransactionUseCase;
+        this.idempotencyStore = idempotencyStore;
+        this.dateTimeProvider = dateTimeProvider;
+        this.timeToLive = timeToLive;
+        this.leaseTime = leaseTime;
+        this.capacity = capacity;
+    }
+
+    public TransactionId handle(final String idempotencyKey, final CardNumber cardNumber, final Money value, final TransactionType transactionType) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        var key = cardNumber.value() + KEY_SEPARATOR + idempotencyKey;
+        var requestHash = hash(cardNumber, value, transactionType);
+        var existingEntry = entries.get(key);
+        if (existingEntry != null) {
+            return awaitResult(existingEntry, requestHash);
+        }
+        var timestamp = dateTimeProvider.getZonedDateTime();
+        var entry = new Entry(new CompletableFuture<>(), requestHash, timestamp.plus(timeToLive));
+        existingEntry = entries.putIfAbsent(key, entry);
+        if (existingEntry != null) {
+            // concurrent duplicate, wait for the first execution instead of running in parallel
+            return awaitResult(existingEntry, requestHash);
+        }
+        evictIfFull();
+        IdempotentResult result;
+        try {
+            result = execute(key, requestHash, timestamp, entry.expiration(), cardNumber, value, transactionType);
+        } catch (RuntimeException exception) {
+            entries.remove(key, entry);
+            entry.result().completeExceptionally(exception);
+            throw exception;
+        }
+        entry.result().complete(result);
+        return result.replay();
+    }
+
+    // the key is claimed in the database before the card is touched, so a retry on another instance or after a crash
+    // finds either the pending claim or the result committed together with the transaction
+    private IdempotentResult execute(final String key, final String requestHash, final ZonedDateTime timestamp,
+                                     final ZonedDateTime expiration, final CardNumber cardNumber, final Money value,
+                                     final TransactionType transactionType) {
+        var token = UUID.randomUUID().toString();
+        var existingRecord = idempotencyStore.claim(key, token, requestHash, timestamp, timestamp.plus(leaseTime), expiration);
+        if (existingRecord.isPresent()) {
+            var record = existingRecord.get();
+            if (!record.requestHash().equals(requestHash)) {
+                throw new IdempotencyKeyReusedException();
+            }
+            return record.result().orElseThrow(IdempotentRequestInProgressException::new);
+        }
+        try {
+            return IdempotentResult.of(recordedAddTransactionUseCase.handle(key, token, cardNumber, value, transactionType));
+        } catch (RuntimeException exception) {
+            var rejection = IdempotentResult.of(exception);
+            if (rejection.isPresent()) {
+                // nothing was committed, the rejection is recorded on its own
+                idempotencyStore.complete(key, token, rejection.get());
+                return rejection.get();
+            }
+            release(key, token);
+            throw exception;
+        }
+    }
+
+    // a claim that cannot be released expires with its lease
+    private void release(final String key, final String token) {
+        try {
+            idempotencyStore.release(key, token);
+        } catch (RuntimeException exception) {
+            LOGGER.log(Level.WARNING, "Releasing idempotency claim failed", exception);
+        }
+    }
+
+    private TransactionId awaitResult(final Entry entry, final String requestHash) {
+        if (!entry.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException();
+        }
+        try {
+            return entry.result().join().replay();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    private static String hash(final CardNumber cardNumber, final Money value, final TransactionType transactionType) {
+        var request = String.join(KEY_SEPARATOR, cardNumber.value(), transactionType.name(),
+                value.amount().stripTrailingZeros().toPlainString(), value.currency().getCurrencyCode());
+        try {
+            var digest = MessageDigest.getInstance(HASH_ALGORITHM).digest(request.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private void evictIfFull() {
+        if (entries.size() <= capacity) {
+            return;
+        }
+        removeExpiredEntries(dateTimeProvider.getZonedDateTime());
+        // evicting below the capacity keeps the full scan away from the following requests
+        var targetSize = capacity - capacity / 10;
+        var iterator = entries.values().iterator();
+        while (entries.size() > targetSize && iterator.hasNext()) {
+            // evicted results are still answered from the idempotency store
+            if (iterator.next().result().isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public void removeExpired() {
+        var timestamp = dateTimeProvider.getZonedDateTime();
+        removeExpiredEntries(timestamp);
+        idempotencyStore.removeExpired(timestamp);
+    }
+
+    private void removeExpiredEntries(final ZonedDateTime timestamp) {
+        entries.values().removeIf(entry -> entry.result().isDone() && entry.expiration().isBefore(timestamp));
+    }
+
+    private record Entry(CompletableFuture<IdempotentResult> result, String requestHash, ZonedDateTime expiration) {
+    }
+
+}
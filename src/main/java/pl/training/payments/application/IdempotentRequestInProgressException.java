@@ -0,0 +1,9 @@
+package pl.training.payments.application;
+
+public final class IdempotentRequestInProgressException extends RuntimeException {
+
+    public IdempotentRequestInProgressException() {
+        super(null, null, false, false);
+    }
+
+}
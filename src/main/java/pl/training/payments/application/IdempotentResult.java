@@ -0,0 +1,38 @@
+package pl.training.payments.application;
+
+import pl.training.payments.domain.InsufficientBalanceException;
+import pl.training.payments.domain.InvalidTransactionTimestampException;
+import pl.training.payments.domain.MismatchedCurrencyException;
+import pl.training.payments.domain.TransactionId;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+public record IdempotentResult(TransactionId transactionId, String rejection) {
+
+    // only deterministic business rejections are recorded, technical failures can succeed on retry
+    private static final Map<String, Supplier<RuntimeException>> REJECTIONS = Map.of(
+            CardNotFoundException.class.getSimpleName(), CardNotFoundException::new,
+            InsufficientBalanceException.class.getSimpleName(), InsufficientBalanceException::new,
+            InvalidTransactionTimestampException.class.getSimpleName(), InvalidTransactionTimestampException::new,
+            MismatchedCurrencyException.class.getSimpleName(), MismatchedCurrencyException::new
+    );
+
+    public static IdempotentResult of(final TransactionId transactionId) {
+        return new IdempotentResult(transactionId, null);
+    }
+
+    public static Optional<IdempotentResult> of(final RuntimeException exception) {
+        var rejection = exception.getClass().getSimpleName();
+        return REJECTIONS.containsKey(rejection) ? Optional.of(new IdempotentResult(null, rejection)) : Optional.empty();
+    }
+
+    public TransactionId replay() {
+        if (rejection != null) {
+            throw REJECTIONS.get(rejection).get();
+        }
+        return transactionId;
+    }
+
+}
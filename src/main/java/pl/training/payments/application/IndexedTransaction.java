@@ -0,0 +1,7 @@
+package pl.training.payments.application;
+
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+public record IndexedTransaction(long sequence, CardNumber cardNumber, Transaction transaction) {
+}
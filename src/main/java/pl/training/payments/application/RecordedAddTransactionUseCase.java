@@ -0,0 +1,28 @@
+package pl.training.payments.application;
+
+import pl.training.common.aop.Atomic;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.TransactionId;
+import pl.training.payments.domain.TransactionType;
+
+// The transaction and the result of its idempotency claim commit together, or not at all
+@Atomic
+public class RecordedAddTransactionUseCase {
+
+    private final AddTransactionUseCase addTransactionUseCase;
+    private final IdempotencyStore idempotencyStore;
+
+    public RecordedAddTransactionUseCase(final AddTransactionUseCase addTransactionUseCase, final IdempotencyStore idempotencyStore) {
+        this.addTransactionUseCase = addTransactionUseCase;
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    public TransactionId handle(final String key, final String token, final CardNumber cardNumber, final Money value,
+                                final TransactionType transactionType) {
+        var transactionId = addTransactionUseCase.handle(cardNumber, value, transactionType);
+        idempotencyStore.complete(key, token, IdempotentResult.of(transactionId));
+        return transactionId;
+    }
+
+}
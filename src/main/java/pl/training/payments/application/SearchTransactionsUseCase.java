@@ -0,0 +1,18 @@
+package pl.training.payments.application;
+
+import pl.training.common.aop.Atomic;
+
+@Atomic(readOnly = true)
+public class SearchTransactionsUseCase {
+
+    private final TransactionIndex transactionIndex;
+
+    public SearchTransactionsUseCase(final TransactionIndex transactionIndex) {
+        this.transactionIndex = transactionIndex;
+    }
+
+    public TransactionSearchResult handle(final TransactionQuery query) {
+        return transactionIndex.search(query);
+    }
+
+}
@@ -0,0 +1,15 @@
+package pl.training.payments.application;
+
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+public interface TransactionArchive {
+
+    void append(CardNumber cardNumber, List<Transaction> transactions);
+
+    List<Transaction> findByTimestamp(CardNumber cardNumber, ZonedDateTime from, ZonedDateTime to);
+
+}
@@ -0,0 +1,11 @@
+package pl.training.payments.application;
+
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+// Runs before the transaction is registered on the card, rejects it by throwing
+public interface TransactionCheck {
+
+    void check(CardNumber cardNumber, Transaction transaction);
+
+}
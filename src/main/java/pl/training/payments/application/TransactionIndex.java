@@ -0,0 +1,13 @@
+package pl.training.payments.application;
+
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+public interface TransactionIndex {
+
+    void add(CardNumber cardNumber, Transaction transaction);
+
+    // matches in the order they were indexed, starting after the query's cursor
+    TransactionSearchResult search(TransactionQuery query);
+
+}
@@ -0,0 +1,15 @@
+package pl.training.payments.application;
+
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.Optional;
+
+// Amounts and the time window are inclusive at the lower and exclusive at the upper end, the cursor is the last sequence seen
+public record TransactionQuery(Optional<TransactionType> type, Optional<Currency> currency,
+                               Optional<BigDecimal> minAmount, Optional<BigDecimal> maxAmount,
+                               Optional<ZonedDateTime> from, Optional<ZonedDateTime> to,
+                               long cursor, int pageSize) {
+}
@@ -0,0 +1,7 @@
+package pl.training.payments.application;
+
+import java.util.List;
+import java.util.Optional;
+
+public record TransactionSearchResult(List<IndexedTransaction> content, Optional<Long> nextCursor) {
+}
@@ -0,0 +1,18 @@
+package pl.training.payments.application;
+
+import java.time.Duration;
+
+public final class VelocityCapacityExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public VelocityCapacityExceededException(final Duration retryAfter) {
+        super(null, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+}
@@ -0,0 +1,9 @@
+package pl.training.payments.application;
+
+public final class VelocityLimitExceededException extends RuntimeException {
+
+    public VelocityLimitExceededException() {
+        super(null, null, false, false);
+    }
+
+}
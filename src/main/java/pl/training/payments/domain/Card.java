@@ -1,10 +1,13 @@
 package pl.training.payments.domain;
 
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Currency;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static java.math.BigDecimal.ZERO;
 import static pl.training.payments.domain.TransactionType.INFLOW;
@@ -15,10 +18,12 @@ public final class Card {
     private final CardNumber number;
     private final LocalDate expiration;
     private final Currency currency;
-    private final List<Transaction> transactions = new ArrayList<>();
     private final List<Consumer<TransactionRegistered>> eventListeners = new ArrayList<>();
 
+    private List<Transaction> transactions = new ArrayList<>();
+    private Supplier<List<Transaction>> historyLoader;
     private Money balance;
+    private HistoryCheckpoint checkpoint;
 
     public Card(final CardId id, final CardNumber number, final LocalDate expiration, final Currency currency) {
         this.id = id;
@@ -28,6 +33,29 @@ public final class Card {
         this.balance = new Money(ZERO, currency);
     }
 
+    public Card(final CardId id, final CardNumber number, final LocalDate expiration, final Currency currency,
+                final HistoryCheckpoint checkpoint) {
+        this(id, number, expiration, currency);
+        if (!checkpoint.balance().currency().equals(currency)) {
+            throw new MismatchedCurrencyException();
+        }
+        this.checkpoint = checkpoint;
+        this.balance = checkpoint.balance();
+    }
+
+    // restores a stored card whose balance is known, the history is loaded (without revalidation) on first use
+    public Card(final CardId id, final CardNumber number, final LocalDate expiration, final Currency currency,
+                final HistoryCheckpoint checkpoint, final Money balance, final Supplier<List<Transaction>> historyLoader) {
+        this(id, number, expiration, currency);
+        if (!balance.currency().equals(currency) || (checkpoint != null && !checkpoint.balance().currency().equals(currency))) {
+            throw new MismatchedCurrencyException();
+        }
+        this.checkpoint = checkpoint;
+        this.balance = balance;
+        this.transactions = null;
+        this.historyLoader = historyLoader;
+    }
+
     public void registerTransaction(final Transaction transaction) {
         validate(transaction);
         commit(transaction);
@@ -59,18 +87,41 @@ public final class Card {
     }
 
     private void commit(final Transaction transaction) {
-        transactions.add(transaction);
+        transactions().add(transaction);
         updateBalance(transaction);
     }
 
     private void updateBalance(final Transaction transaction) {
+        balance = apply(transaction, balance);
+    }
+
+    private Money apply(final Transaction transaction, final Money balance) {
         var transactionValue = transaction.value();
-        balance = switch (transaction.type()) {
+        return switch (transaction.type()) {
             case INFLOW -> balance.add(transactionValue);
             case PAYMENT -> balance.subtract(transactionValue);
         };
     }
 
+    public List<Transaction> archiveTransactionsBefore(final ZonedDateTime timestamp) {
+        var archivedTransactions = new ArrayList<Transaction>();
+        var checkpointBalance = getCheckpoint().map(HistoryCheckpoint::balance).orElseGet(() -> new Money(ZERO, currency));
+        var iterator = transactions().iterator();
+        while (iterator.hasNext()) {
+            var transaction = iterator.next();
+            if (!transaction.timestamp().isBefore(timestamp)) {
+                break;
+            }
+            checkpointBalance = apply(transaction, checkpointBalance);
+            archivedTransactions.add(transaction);
+            iterator.remove();
+        }
+        if (!archivedTransactions.isEmpty()) {
+            checkpoint = new HistoryCheckpoint(timestamp, checkpointBalance);
+        }
+        return archivedTransactions;
+    }
+
     private void publishEvents(final Transaction transaction) {
         var event = new TransactionRegistered(number, transaction);
         eventListeners.forEach(listener -> listener.accept(event));
@@ -105,7 +156,23 @@ public final class Card {
     }
 
     public List<Transaction> getTransactions() {
-        return new ArrayList<>(transactions);
+        return new ArrayList<>(transactions());
+    }
+
+    private List<Transaction> transactions() {
+        if (transactions == null) {
+            transactions = new ArrayList<>(historyLoader.get());
+            historyLoader = null;
+        }
+        return transactions;
+    }
+
+    public Optional<HistoryCheckpoint> getCheckpoint() {
+        return Optional.ofNullable(checkpoint);
+    }
+
+    public boolean hasArchivedHistorySince(final ZonedDateTime timestamp) {
+        return checkpoint != null && timestamp.isBefore(checkpoint.timestamp());
     }
 
     @Override
@@ -1,13 +1,107 @@
 package pl.training.payments.domain;
 
-public record CardNumber(String value) {
+// Digits are packed into an unsigned long, the String form is kept only when it was given or requested
+public final class CardNumber {
+
+    public static final int MIN_LENGTH = 16;
+    public static final int MAX_LENGTH = 19;
 
     private static final String NUMBER_PATTERN = "\\d{16,19}";
+    private static final long[] LIMITS = {
+            10_000_000_000_000_000L,
+            100_000_000_000_000_000L,
+            1_000_000_000_000_000_000L,
+            Long.parseUnsignedLong("10000000000000000000")
+    };
+    // numbers of different lengths are mapped onto disjoint ranges, so keys stay unique despite leading zeros
+    private static final long[] KEY_OFFSETS = {
+            0,
+            LIMITS[0],
+            LIMITS[0] + LIMITS[1],
+            LIMITS[0] + LIMITS[1] + LIMITS[2]
+    };
+
+    private final long digits;
+    private final int length;
+    private String value;
 
-    public CardNumber {
-        if (!value.matches(NUMBER_PATTERN)) {
-            throw new IllegalArgumentException("Card number must match pattern " + NUMBER_PATTERN);
+    public CardNumber(final String value) {
+        var length = value.length();
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            throw invalidNumber();
         }
+        long digits = 0;
+        for (int index = 0; index < length; index++) {
+            var character = value.charAt(index);
+            if (character < '0' || character > '9') {
+                throw invalidNumber();
+            }
+            digits = digits * 10 + (character - '0');
+        }
+        this.digits = digits;
+        this.length = length;
+        this.value = value;
+    }
+
+    public CardNumber(final long digits, final int length) {
+        if (length < MIN_LENGTH || length > MAX_LENGTH || Long.compareUnsigned(digits, LIMITS[length - MIN_LENGTH]) >= 0) {
+            throw invalidNumber();
+        }
+        this.digits = digits;
+        this.length = length;
+    }
+
+    private static IllegalArgumentException invalidNumber() {
+        return new IllegalArgumentException("Card number must match pattern " + NUMBER_PATTERN);
+    }
+
+    public String value() {
+        var result = value;
+        if (result == null) {
+            var characters = new char[length];
+            var remaining = digits;
+            for (int index = length - 1; index >= 0; index--) {
+                characters[index] = (char) ('0' + Long.remainderUnsigned(remaining, 10));
+                remaining = Long.divideUnsigned(remaining, 10);
+            }
+            result = new String(characters);
+            value = result;
+        }
+        return result;
+    }
+
+    public long digits() {
+        return digits;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    // unique per card number, suitable for primitive long keyed maps
+    public long key() {
+        return digits + KEY_OFFSETS[length - MIN_LENGTH];
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CardNumber otherCardNumber)) {
+            return false;
+        }
+        return digits == otherCardNumber.digits && length == otherCardNumber.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key());
+    }
+
+    @Override
+    public String toString() {
+        return "CardNumber[value=" + value() + "]";
     }
 
 }
@@ -0,0 +1,6 @@
+package pl.training.payments.domain;
+
+import java.time.ZonedDateTime;
+
+public record HistoryCheckpoint(ZonedDateTime timestamp, Money balance) {
+}
@@ -1,4 +1,9 @@
 package pl.training.payments.domain;
 
 public final class InsufficientBalanceException extends RuntimeException {
+
+    public InsufficientBalanceException() {
+        super(null, null, false, false);
+    }
+
 }
@@ -1,4 +1,9 @@
 package pl.training.payments.domain;
 
 public final class InvalidTransactionTimestampException extends RuntimeException {
+
+    public InvalidTransactionTimestampException() {
+        super(null, null, false, false);
+    }
+
 }
@@ -1,4 +1,9 @@
 package pl.training.payments.domain;
 
 public final class MismatchedCurrencyException extends RuntimeException {
+
+    public MismatchedCurrencyException() {
+        super(null, null, false, false);
+    }
+
 }
@@ -0,0 +1,62 @@
+package pl.training.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.WWW_AUTHENTICATE;
+
+// Authorization: API_KEY <keyId>.<secret>
+public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
+
+    static final String SCHEME = "API_KEY";
+    static final String SEPARATOR = ".";
+
+    private static final String PREFIX = SCHEME + " ";
+
+    private final ApiKeyStore apiKeyStore;
+    private final SecurityContextHolderStrategy securityContextHolderStrategy = SecurityContextHolder.getContextHolderStrategy();
+
+    public ApiKeyAuthenticationFilter(final ApiKeyStore apiKeyStore) {
+        this.apiKeyStore = apiKeyStore;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain)
+            throws ServletException, IOException {
+        var header = request.getHeader(AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        var apiKey = header.substring(PREFIX.length()).trim();
+        var separatorIndex = apiKey.indexOf(SEPARATOR);
+        if (separatorIndex <= 0) {
+            reject(response);
+            return;
+        }
+        var keyId = apiKey.substring(0, separatorIndex);
+        var authorities = apiKeyStore.authenticate(keyId, apiKey.substring(separatorIndex + 1));
+        if (authorities.isEmpty()) {
+            reject(response);
+            return;
+        }
+        var context = securityContextHolderStrategy.createEmptyContext();
+        context.setAuthentication(new ApiKeyAuthenticationToken(keyId, authorities.get()));
+        securityContextHolderStrategy.setContext(context);
+        filterChain.doFilter(request, response);
+    }
+
+    private void reject(final HttpServletResponse response) throws IOException {
+        response.setHeader(WWW_AUTHENTICATE, SCHEME);
+        response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+    }
+
+}
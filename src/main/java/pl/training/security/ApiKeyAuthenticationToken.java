@@ -0,0 +1,28 @@
+package pl.training.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+public class ApiKeyAuthenticationToken extends AbstractAuthenticationToken {
+
+    private final String keyId;
+
+    public ApiKeyAuthenticationToken(final String keyId, final Collection<GrantedAuthority> authorities) {
+        super(authorities);
+        this.keyId = keyId;
+        setAuthenticated(true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return keyId;
+    }
+
+}
@@ -0,0 +1,94 @@
+package pl.training.security;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Objects;
+
+@Entity(name = "ApiKey")
+@Table(name = "api_key")
+public class ApiKeyEntity implements Persistable<String> {
+
+    @Id
+    @Column(length = 32)
+    private String keyId;
+    @Column(length = 16, nullable = false)
+    private byte[] salt;
+    @Column(length = 32, nullable = false)
+    private byte[] hash;
+    @Column(nullable = false)
+    private String roles;
+    private boolean revoked;
+
+    @Override
+    public String getId() {
+        return keyId;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public void setKeyId(String keyId) {
+        this.keyId = keyId;
+    }
+
+    public byte[] getSalt() {
+        return salt;
+    }
+
+    public void setSalt(byte[] salt) {
+        this.salt = salt;
+    }
+
+    public byte[] getHash() {
+        return hash;
+    }
+
+    public void setHash(byte[] hash) {
+        this.hash = hash;
+    }
+
+    public String getRoles() {
+        return roles;
+    }
+
+    public void setRoles(String roles) {
+        this.roles = roles;
+    }
+
+    public boolean isRevoked() {
+        return revoked;
+    }
+
+    public void setRevoked(boolean revoked) {
+        this.revoked = revoked;
+    }
+
+    // keys are inserted once, revocation goes through ApiKeyRepository.revoke
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        var otherEntity = (ApiKeyEntity) other;
+        return Objects.equals(keyId, otherEntity.keyId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(keyId);
+    }
+
+}
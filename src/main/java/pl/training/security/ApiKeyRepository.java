@@ -0,0 +1,17 @@
+package pl.training.security;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ApiKeyRepository extends JpaRepository<ApiKeyEntity, String> {
+
+    List<ApiKeyEntity> findByRevokedFalse();
+
+    @Modifying
+    @Query("update ApiKey k set k.revoked = true where k.keyId = :keyId and k.revoked = false")
+    int revoke(String keyId);
+
+}
@@ -0,0 +1,37 @@
+package pl.training.security;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+@RestController
+final class ApiKeyRestController {
+
+    private final ApiKeyStore apiKeyStore;
+
+    ApiKeyRestController(final ApiKeyStore apiKeyStore) {
+        this.apiKeyStore = apiKeyStore;
+    }
+
+    @PostMapping("api/api-keys")
+    ResponseEntity<IssuedApiKey> issueApiKey(@Validated @RequestBody final IssueApiKeyRequest issueApiKeyRequest) {
+        var issuedApiKey = apiKeyStore.issue(issueApiKeyRequest.roles());
+        return ResponseEntity.status(HttpStatus.CREATED).body(issuedApiKey);
+    }
+
+    @DeleteMapping("api/api-keys/{keyId}")
+    ResponseEntity<Void> revokeApiKey(@PathVariable final String keyId) {
+        return apiKeyStore.revoke(keyId) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+}
+
+// a role is accepted with or without the ROLE_ prefix
+record IssueApiKeyRequest(@NotEmpty Set<@NotNull @Pattern(regexp = "(ROLE_)?ADMIN") String> roles) {
+}
@@ -0,0 +1,178 @@
+package pl.training.security;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+// Active keys are held in an immutable map replaced on every refresh, so authentication is a lock-free lookup and one hash
+public class ApiKeyStore {
+
+    private static final Logger LOGGER = Logger.getLogger(ApiKeyStore.class.getName());
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final ThreadLocal<MessageDigest> MESSAGE_DIGEST = ThreadLocal.withInitial(ApiKeyStore::createMessageDigest);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final String ROLES_SEPARATOR = ",";
+    private static final String ROLE_PREFIX = "ROLE_";
+    // the roles the security chains check, any other authority would never be granted access
+    static final Set<String> ROLES = Set.of("ROLE_ADMIN");
+    private static final int KEY_ID_BYTES = 12;
+    private static final int SECRET_BYTES = 32;
+    private static final int SALT_BYTES = 16;
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final SecureRandom random = new SecureRandom();
+    private final Object lock = new Object();
+    // keys issued here, kept until a refresh that started after they were published has read them from the database
+    private final Map<String, IssuedCredentials> issuedCredentials = new HashMap<>();
+    private volatile Map<String, ApiKeyCredentials> credentials = Map.of();
+
+    public ApiKeyStore(final ApiKeyRepository apiKeyRepository) {
+        this.apiKeyRepository = apiKeyRepository;
+    }
+
+    public Optional<Collection<GrantedAuthority>> authenticate(final String keyId, final String secret) {
+        var apiKeyCredentials = credentials.get(keyId);
+        if (apiKeyCredentials == null || !MessageDigest.isEqual(apiKeyCredentials.hash(), hash(apiKeyCredentials.salt(), secret))) {
+            return Optional.empty();
+        }
+        return Optional.of(apiKeyCredentials.authorities());
+    }
+
+    @Scheduled(fixedDelayString = "${security.api-keys.refresh-interval:PT5S}")
+    public void refresh() {
+        var refreshStart = System.nanoTime();
+        var activeCredentials = apiKeyRepository.findByRevokedFalse().stream()
+                .collect(Collectors.toMap(ApiKeyEntity::getKeyId, this::toCredentials));
+        synchronized (lock) {
+            issuedCredentials.values().removeIf(issued -> issued.publishTime() - refreshStart < 0);
+            issuedCredentials.forEach((keyId, issued) -> activeCredentials.put(keyId, issued.credentials()));
+            credentials = Map.copyOf(activeCredentials);
+        }
+    }
+
+    @Transactional
+    public IssuedApiKey issue(final Set<String> requestedRoles) {
+        var roles = requestedRoles.stream()
+                .map(ApiKeyStore::toRole)
+                .collect(Collectors.toUnmodifiableSet());
+        var unknownRoles = roles.stream()
+                .filter(role -> !ROLES.contains(role))
+                .toList();
+        if (roles.isEmpty() || !unknownRoles.isEmpty()) {
+            throw new IllegalArgumentException("Unknown roles: %s".formatted(unknownRoles));
+        }
+        var keyId = randomString(KEY_ID_BYTES);
+        var secret = randomString(SECRET_BYTES);
+        var salt = randomBytes(SALT_BYTES);
+        var apiKeyEntity = new ApiKeyEntity();
+        apiKeyEntity.setKeyId(keyId);
+        apiKeyEntity.setSalt(salt);
+        apiKeyEntity.setHash(hash(salt, secret));
+        apiKeyEntity.setRoles(String.join(ROLES_SEPARATOR, roles));
+        apiKeyRepository.save(apiKeyEntity);
+        publishAfterCommit(keyId, toCredentials(apiKeyEntity));
+        LOGGER.info("Api key %s issued with roles %s".formatted(keyId, roles));
+        return new IssuedApiKey(keyId, keyId + ApiKeyAuthenticationFilter.SEPARATOR + secret, roles);
+    }
+
+    // other instances drop the key on their next refresh
+    @Transactional
+    public boolean revoke(final String keyId) {
+        var revoked = apiKeyRepository.revoke(keyId) > 0;
+        if (revoked) {
+            removeCredentials(keyId);
+            LOGGER.info("Api key %s revoked".formatted(keyId));
+        }
+        return revoked;
+    }
+
+    // usable on this instance right away, others pick the key up on their next refresh
+    private void publishAfterCommit(final String keyId, final ApiKeyCredentials apiKeyCredentials) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                synchronized (lock) {
+                    issuedCredentials.put(keyId, new IssuedCredentials(apiKeyCredentials, System.nanoTime()));
+                    var updatedCredentials = new HashMap<>(credentials);
+                    updatedCredentials.put(keyId, apiKeyCredentials);
+                    credentials = Map.copyOf(updatedCredentials);
+                }
+            }
+
+        });
+    }
+
+    private void removeCredentials(final String keyId) {
+        synchronized (lock) {
+            issuedCredentials.remove(keyId);
+            credentials = credentials.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(keyId))
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+    }
+
+    private ApiKeyCredentials toCredentials(final ApiKeyEntity apiKeyEntity) {
+        Set<GrantedAuthority> authorities = Arrays.stream(apiKeyEntity.getRoles().split(ROLES_SEPARATOR))
+                .filter(role -> !role.isBlank())
+                .map(ApiKeyStore::toRole)
+                .filter(ROLES::contains)
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toUnmodifiableSet());
+        return new ApiKeyCredentials(apiKeyEntity.getSalt(), apiKeyEntity.getHash(), authorities);
+    }
+
+    // keys issued before the roles were validated may have been stored without the prefix
+    static String toRole(final String role) {
+        return role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role;
+    }
+
+    private byte[] hash(final byte[] salt, final String secret) {
+        var messageDigest = MESSAGE_DIGEST.get();
+        messageDigest.update(salt);
+        return messageDigest.digest(secret.getBytes(US_ASCII));
+    }
+
+    private String randomString(final int length) {
+        return ENCODER.encodeToString(randomBytes(length));
+    }
+
+    private byte[] randomBytes(final int length) {
+        var bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private record ApiKeyCredentials(byte[] salt, byte[] hash, Set<GrantedAuthority> authorities) {
+    }
+
+    private record IssuedCredentials(ApiKeyCredentials credentials, long publishTime) {
+    }
+
+}
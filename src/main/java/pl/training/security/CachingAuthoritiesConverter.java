@@ -0,0 +1,22 @@
+package pl.training.security;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Collection;
+
+public class CachingAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+    private final Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter;
+
+    public CachingAuthoritiesConverter(final Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter) {
+        this.authoritiesConverter = authoritiesConverter;
+    }
+
+    @Override
+    public Collection<GrantedAuthority> convert(final Jwt jwt) {
+        return jwt instanceof VerifiedJwt verifiedJwt ? verifiedJwt.getAuthorities() : authoritiesConverter.convert(jwt);
+    }
+
+}
@@ -0,0 +1,34 @@
+package pl.training.security;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.util.Collection;
+
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder jwtDecoder;
+    private final Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public CachingJwtDecoder(final JwtDecoder jwtDecoder, final Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter,
+                             final VerifiedTokenCache verifiedTokenCache) {
+        this.jwtDecoder = jwtDecoder;
+        this.authoritiesConverter = authoritiesConverter;
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    @Override
+    public Jwt decode(final String token) throws JwtException {
+        return verifiedTokenCache.get(token, this::verify);
+    }
+
+    private VerifiedJwt verify(final String token) {
+        var jwt = jwtDecoder.decode(token);
+        return new VerifiedJwt(jwt, authoritiesConverter.convert(jwt));
+    }
+
+}
@@ -0,0 +1,6 @@
+package pl.training.security;
+
+import java.util.Set;
+
+public record IssuedApiKey(String keyId, String apiKey, Set<String> roles) {
+}
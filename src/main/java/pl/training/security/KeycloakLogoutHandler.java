@@ -5,28 +5,69 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.security.web.authentication.logout.LogoutHandler;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Logout is propagated in the background, the user's redirect never waits for Keycloak
 public class KeycloakLogoutHandler implements LogoutHandler {
 
+    private static final Logger LOGGER = Logger.getLogger(KeycloakLogoutHandler.class.getName());
     private static final String LOGOUT_ENDPOINT = "/protocol/openid-connect/logout";
     private static final String ID_TOKEN_HINT = "id_token_hint";
 
-    private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final int maxAttempts;
+    private final Duration retryDelay;
 
-    public KeycloakLogoutHandler(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public KeycloakLogoutHandler(final HttpClient httpClient, final Duration timeout, final int maxAttempts, final Duration retryDelay) {
+        this.httpClient = httpClient;
+        this.timeout = timeout;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
     }
 
     @Override
     public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
-        var user = (OidcUser) authentication.getPrincipal();
+        if (authentication == null || !(authentication.getPrincipal() instanceof OidcUser user)) {
+            return;
+        }
         var endSessionEndpoint = user.getIssuer() + LOGOUT_ENDPOINT;
-        var builder = UriComponentsBuilder
+        var uri = UriComponentsBuilder
                 .fromUriString(endSessionEndpoint)
-                .queryParam(ID_TOKEN_HINT, user.getIdToken().getTokenValue());
-        restTemplate.getForObject(builder.toUriString(), String.class);
+                .queryParam(ID_TOKEN_HINT, user.getIdToken().getTokenValue())
+                .build()
+                .toUri();
+        send(uri, 1);
+    }
+
+    private void send(final URI uri, final int attempt) {
+        var request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .GET()
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, throwable) -> {
+                    if (throwable == null && response.statusCode() < 500) {
+                        return;
+                    }
+                    if (attempt < maxAttempts) {
+                        var delay = retryDelay.toMillis() * attempt;
+                        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                                .execute(() -> send(uri, attempt + 1));
+                    } else {
+                        var reason = throwable != null ? throwable.toString() : "status " + response.statusCode();
+                        LOGGER.warning("Keycloak logout failed after %d attempts: %s".formatted(attempt, reason));
+                    }
+                });
     }
 
 }
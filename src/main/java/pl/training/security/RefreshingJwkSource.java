@@ -0,0 +1,140 @@
+package pl.training.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+// Keys are served from memory (stale-while-revalidate), the issuer is only contacted from the background thread
+public class RefreshingJwkSource implements JWKSource<SecurityContext>, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(RefreshingJwkSource.class.getName());
+
+    private final RestClient restClient;
+    private final String jwkSetUri;
+    private final Path cacheFile;
+    private final Duration refreshInterval;
+    private final Duration minRefreshInterval;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AtomicReference<JWKSet> jwkSet = new AtomicReference<>(new JWKSet());
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong lastRefreshTime = new AtomicLong();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("jwks-refresh").daemon().factory());
+
+    public RefreshingJwkSource(final RestClient restClient, final String jwkSetUri, final Path cacheFile,
+                               final Duration refreshInterval, final Duration minRefreshInterval,
+                               final VerifiedTokenCache verifiedTokenCache) {
+        this.restClient = restClient;
+        this.jwkSetUri = jwkSetUri;
+        this.cacheFile = cacheFile;
+        this.refreshInterval = refreshInterval;
+        this.minRefreshInterval = minRefreshInterval;
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    public void start() {
+        loadCacheFile();
+        executor.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<JWK> get(final JWKSelector jwkSelector, final SecurityContext context) {
+        var keys = jwkSelector.select(jwkSet.get());
+        if (keys.isEmpty()) {
+            // unknown key id, probably a rotation - refresh in the background and reject the token for now
+            requestRefresh();
+        }
+        return keys;
+    }
+
+    private void requestRefresh() {
+        var now = System.nanoTime();
+        var lastRefresh = lastRefreshTime.get();
+        if (now - lastRefresh >= minRefreshInterval.toNanos() && lastRefreshTime.compareAndSet(lastRefresh, now)) {
+            executor.execute(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastRefreshTime.set(System.nanoTime());
+            var json = restClient.get().uri(jwkSetUri).retrieve().body(String.class);
+            update(JWKSet.parse(json));
+            writeCacheFile(json);
+        } catch (ParseException | IOException | RuntimeException exception) {
+            LOGGER.log(Level.WARNING, "Refreshing signing keys failed, using cached keys", exception);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private void update(final JWKSet newJwkSet) {
+        var previousJwkSet = jwkSet.getAndSet(newJwkSet);
+        var keyIds = keyIds(newJwkSet);
+        if (!keyIds.equals(keyIds(previousJwkSet))) {
+            verifiedTokenCache.retainKeys(keyIds);
+            LOGGER.info("Signing keys updated: %s".formatted(keyIds));
+        }
+    }
+
+    private Set<String> keyIds(final JWKSet jwkSet) {
+        return jwkSet.getKeys().stream()
+                .map(JWK::getKeyID)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private void loadCacheFile() {
+        if (!Files.exists(cacheFile)) {
+            LOGGER.info("Signing keys cache %s not found, waiting for the first refresh".formatted(cacheFile));
+            return;
+        }
+        try {
+            jwkSet.set(JWKSet.load(cacheFile.toFile()));
+        } catch (ParseException | IOException exception) {
+            LOGGER.log(Level.WARNING, "Loading signing keys cache failed", exception);
+        }
+    }
+
+    private void writeCacheFile(final String json) throws IOException {
+        var temporaryFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        if (cacheFile.getParent() != null) {
+            Files.createDirectories(cacheFile.getParent());
+        }
+        Files.writeString(temporaryFile, json);
+        Files.move(temporaryFile, cacheFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+}
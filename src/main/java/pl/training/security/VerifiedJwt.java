@@ -0,0 +1,23 @@
+package pl.training.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Collection;
+import java.util.Set;
+
+// A decoded token carrying the authorities resolved when it was verified, so they are not looked up again for each request
+public class VerifiedJwt extends Jwt {
+
+    private final Collection<GrantedAuthority> authorities;
+
+    public VerifiedJwt(final Jwt jwt, final Collection<GrantedAuthority> authorities) {
+        super(jwt.getTokenValue(), jwt.getIssuedAt(), jwt.getExpiresAt(), jwt.getHeaders(), jwt.getClaims());
+        this.authorities = Set.copyOf(authorities);
+    }
+
+    public Collection<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+}
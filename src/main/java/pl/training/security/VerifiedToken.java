@@ -0,0 +1,11 @@
+package pl.training.security;
+
+import java.time.Instant;
+
+public record VerifiedToken(VerifiedJwt jwt, String keyId, Instant expiration) {
+
+    boolean isValidAt(final Instant timestamp) {
+        return expiration.isAfter(timestamp);
+    }
+
+}
@@ -0,0 +1,107 @@
+package pl.training.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+// Tokens are kept under their SHA-256 digest, so raw bearer tokens are never held in memory
+public class VerifiedTokenCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String METRIC_NAME = "security.token.cache";
+    private static final ThreadLocal<MessageDigest> MESSAGE_DIGEST = ThreadLocal.withInitial(VerifiedTokenCache::createMessageDigest);
+
+    private final Map<TokenDigest, VerifiedToken> tokens = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final Duration maxTimeToLive;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+
+    public VerifiedTokenCache(final int capacity, final Duration maxTimeToLive, final Clock clock, final MeterRegistry meterRegistry) {
+        this.capacity = capacity;
+        this.maxTimeToLive = maxTimeToLive;
+        this.clock = clock;
+        this.hits = meterRegistry.counter(METRIC_NAME + ".requests", "result", "hit");
+        this.misses = meterRegistry.counter(METRIC_NAME + ".requests", "result", "miss");
+        meterRegistry.gauge(METRIC_NAME + ".size", tokens, Map::size);
+    }
+
+    // the digest is computed once per request, a miss is verified and stored under the same digest
+    public VerifiedJwt get(final String token, final Function<String, VerifiedJwt> verifier) {
+        var digest = digest(token);
+        var verifiedToken = tokens.get(digest);
+        if (verifiedToken != null && verifiedToken.isValidAt(clock.instant())) {
+            hits.increment();
+            return verifiedToken.jwt();
+        }
+        misses.increment();
+        var jwt = verifier.apply(token);
+        var keyId = (String) jwt.getHeaders().get("kid");
+        verifiedToken = new VerifiedToken(jwt, keyId, expiration(jwt));
+        if (verifiedToken.isValidAt(clock.instant())) {
+            evictIfFull();
+            tokens.put(digest, verifiedToken);
+        }
+        return jwt;
+    }
+
+    private Instant expiration(final Jwt jwt) {
+        var maxExpiration = clock.instant().plus(maxTimeToLive);
+        var expiration = jwt.getExpiresAt();
+        return expiration != null && expiration.isBefore(maxExpiration) ? expiration : maxExpiration;
+    }
+
+    private void evictIfFull() {
+        if (tokens.size() < capacity) {
+            return;
+        }
+        var now = clock.instant();
+        tokens.values().removeIf(verifiedToken -> !verifiedToken.isValidAt(now));
+        var targetSize = capacity - capacity / 10;
+        var iterator = tokens.values().iterator();
+        while (tokens.size() > targetSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public void retainKeys(final Set<String> keyIds) {
+        tokens.values().removeIf(verifiedToken -> verifiedToken.keyId() == null || !keyIds.contains(verifiedToken.keyId()));
+    }
+
+    public void invalidateAll() {
+        tokens.clear();
+    }
+
+    private static TokenDigest digest(final String token) {
+        var messageDigest = MESSAGE_DIGEST.get();
+        var digest = ByteBuffer.wrap(messageDigest.digest(token.getBytes(US_ASCII)));
+        return new TokenDigest(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+    }
+
+    private static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private record TokenDigest(long first, long second, long third, long fourth) {
+    }
+
+}
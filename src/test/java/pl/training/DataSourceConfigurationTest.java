@@ -0,0 +1,94 @@
+package pl.training;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.test.context.ActiveProfiles;
+import pl.training.common.aop.Atomic;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "payments.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "payments.datasource.replica.driver-class-name=org.h2.Driver"
+})
+@ActiveProfiles("test")
+class DataSourceConfigurationTest {
+
+    @Autowired
+    private UnitOfWorkProbe unitOfWorkProbe;
+
+    @Test
+    void read_only_unit_uses_replica_connection() {
+        assertThat(unitOfWorkProbe.readOnly().url()).startsWith("jdbc:h2:mem:replica");
+    }
+
+    @Test
+    void read_only_unit_does_not_flush_automatically() {
+        assertThat(unitOfWorkProbe.readOnly().flushMode()).isEqualTo(FlushMode.MANUAL);
+    }
+
+    @Test
+    void read_write_unit_uses_primary_connection_with_automatic_flush() {
+        var readWrite = unitOfWorkProbe.readWrite();
+        assertThat(readWrite.url()).startsWith("jdbc:h2:mem:primary");
+        assertThat(readWrite.flushMode()).isEqualTo(FlushMode.AUTO);
+    }
+
+    record UnitOfWork(String url, FlushMode flushMode) {
+    }
+
+    static class UnitOfWorkProbe {
+
+        private final DataSource dataSource;
+        private final EntityManager entityManager;
+
+        UnitOfWorkProbe(final DataSource dataSource, final EntityManager entityManager) {
+            this.dataSource = dataSource;
+            this.entityManager = entityManager;
+        }
+
+        @Atomic(readOnly = true)
+        public UnitOfWork readOnly() {
+            return current();
+        }
+
+        @Atomic
+        public UnitOfWork readWrite() {
+            return current();
+        }
+
+        private UnitOfWork current() {
+            var flushMode = entityManager.unwrap(Session.class).getHibernateFlushMode();
+            try {
+                // the transaction's own connection, bound to the thread by the transaction manager
+                var url = DataSourceUtils.getConnection(dataSource).getMetaData().getURL();
+                return new UnitOfWork(url, flushMode);
+            } catch (SQLException exception) {
+                throw new RuntimeException(exception);
+            }
+        }
+
+    }
+
+    @TestConfiguration
+    static class ProbeConfiguration {
+
+        @Bean
+        UnitOfWorkProbe unitOfWorkProbe(final DataSource dataSource, final EntityManager entityManager) {
+            return new UnitOfWorkProbe(dataSource, entityManager);
+        }
+
+    }
+
+}
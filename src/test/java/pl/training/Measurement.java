@@ -0,0 +1,38 @@
+package pl.training;
+
+import java.util.function.Supplier;
+
+// Timing harness of the *Benchmark classes (mvn test -Pbenchmark), results are consumed so the JIT cannot drop the work
+public final class Measurement {
+
+    private static volatile int sink;
+
+    private Measurement() {
+    }
+
+    // mean time of one operation over the measured rounds, after the warmup rounds
+    public static double nanosPerOperation(final int warmupRounds, final int rounds, final int operationsPerRound,
+                                           final Supplier<?> operation) {
+        for (int round = 0; round < warmupRounds; round++) {
+            run(operationsPerRound, operation);
+        }
+        var startTime = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            run(operationsPerRound, operation);
+        }
+        return (double) (System.nanoTime() - startTime) / ((long) rounds * operationsPerRound);
+    }
+
+    private static void run(final int operations, final Supplier<?> operation) {
+        var result = 0;
+        for (int index = 0; index < operations; index++) {
+            result ^= System.identityHashCode(operation.get());
+        }
+        sink ^= result;
+    }
+
+    public static void report(final String benchmark, final String format, final Object... values) {
+        System.out.printf("[%s] %s%n", benchmark, format.formatted(values));
+    }
+
+}
@@ -0,0 +1,95 @@
+package pl.training;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.LOCATION;
+import static org.springframework.http.HttpHeaders.ORIGIN;
+import static org.springframework.http.HttpHeaders.WWW_AUTHENTICATE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.TEXT_HTML;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigurationTest {
+
+    static final String BEARER_TOKEN = "Bearer header.payload.signature";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() {
+        when(jwtDecoder.decode(anyString())).thenReturn(adminJwt());
+    }
+
+    @Test
+    void api_request_does_not_create_a_session() throws Exception {
+        var result = mockMvc.perform(get("/api/cards").header(AUTHORIZATION, BEARER_TOKEN))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(result.getRequest().getSession(false)).isNull();
+    }
+
+    @Test
+    void unauthenticated_api_request_is_answered_with_401_instead_of_a_login_redirect() throws Exception {
+        mockMvc.perform(get("/api/cards"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(WWW_AUTHENTICATE, "Bearer"));
+    }
+
+    @Test
+    void api_request_does_not_need_a_csrf_token() throws Exception {
+        mockMvc.perform(post("/api/cards").header(AUTHORIZATION, BEARER_TOKEN).contentType(APPLICATION_JSON).content("""
+                        {"currencyCode": "PLN"}"""))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void api_response_carries_the_cors_configuration() throws Exception {
+        mockMvc.perform(get("/api/cards").header(AUTHORIZATION, BEARER_TOKEN).header(ORIGIN, "https://training.pl"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ACCESS_CONTROL_ALLOW_ORIGIN, "https://training.pl"));
+    }
+
+    @Test
+    void unauthenticated_page_request_is_redirected_to_the_login() throws Exception {
+        var result = mockMvc.perform(get("/index.html").accept(TEXT_HTML))
+                .andExpect(status().is3xxRedirection())
+                .andReturn();
+
+        assertThat(result.getResponse().getHeader(LOCATION)).contains("/oauth2/authorization/keycloak");
+    }
+
+    static Jwt adminJwt() {
+        var now = Instant.now();
+        return new Jwt("header.payload.signature", now, now.plusSeconds(60), Map.of("alg", "RS256"),
+                Map.of("sub", "admin", "realm_access", Map.of("roles", List.of("ROLE_ADMIN"))));
+    }
+
+}
@@ -0,0 +1,74 @@
+package pl.training;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.convention.TestBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static pl.training.Measurement.nanosPerOperation;
+import static pl.training.Measurement.report;
+
+// Time of an authenticated request without security, through the browser chain (which served /api/** before the split)
+// and through the stateless api chain. No handler matches, so only the filters and the dispatch are measured
+@SpringBootTest
+@ActiveProfiles("test")
+class SecurityFilterChainBenchmark {
+
+    private static final String API_PATH = "/api/benchmark";
+    private static final String BROWSER_PATH = "/benchmark";
+    private static final int OPERATIONS = 2_000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private FilterChainProxy filterChainProxy;
+    // a mock would record every invocation and slow down each measurement more than the one before
+    @TestBean
+    private JwtDecoder jwtDecoder;
+
+    static JwtDecoder jwtDecoder() {
+        var jwt = SecurityConfigurationTest.adminJwt();
+        return token -> jwt;
+    }
+
+    @Test
+    void filter_chain_overhead_per_request() {
+        var withoutSecurity = MockMvcBuilders.webAppContextSetup(context).build();
+        var withSecurity = MockMvcBuilders.webAppContextSetup(context).addFilters(filterChainProxy).build();
+
+        var baseline = 0.0;
+        var browserChainTime = 0.0;
+        var apiChainTime = 0.0;
+        // interleaved, so that warming up and garbage collection do not favour one of the setups
+        for (int round = 0; round < ROUNDS; round++) {
+            baseline = measure(withoutSecurity, API_PATH);
+            browserChainTime = measure(withSecurity, BROWSER_PATH);
+            apiChainTime = measure(withSecurity, API_PATH);
+        }
+        report("security-filter-chain", "no security    %8.0f ns/request", baseline);
+        report("security-filter-chain", "browser chain  %8.0f ns/request (+%.0f)", browserChainTime, browserChainTime - baseline);
+        report("security-filter-chain", "api chain      %8.0f ns/request (+%.0f)", apiChainTime, apiChainTime - baseline);
+    }
+
+    private double measure(final MockMvc mockMvc, final String path) {
+        return nanosPerOperation(5, 10, OPERATIONS, () -> perform(mockMvc, path));
+    }
+
+    private Object perform(final MockMvc mockMvc, final String path) {
+        try {
+            return mockMvc.perform(get(path).header(AUTHORIZATION, SecurityConfigurationTest.BEARER_TOKEN)).andReturn();
+        } catch (Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+}
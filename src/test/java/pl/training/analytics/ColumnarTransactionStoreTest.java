@@ -0,0 +1,90 @@
+package pl.training.analytics;
+
+import org.junit.jupiter.api.Test;
+import pl.training.payments.application.SearchTransactionsUseCase;
+import pl.training.payments.domain.CardNumber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.training.payments.adapters.persistence.TestCards.inflow;
+import static pl.training.payments.adapters.persistence.TestCards.newCard;
+
+class ColumnarTransactionStoreTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final int WINDOW = 3;
+
+    private final TestTransactionIndex transactionIndex = new TestTransactionIndex();
+    private final ColumnarTransactionStore store = new ColumnarTransactionStore(new SearchTransactionsUseCase(transactionIndex), BATCH_SIZE, WINDOW);
+    private final CardNumber cardNumber = newCard().getNumber();
+
+    @Test
+    void each_refresh_appends_the_rows_added_since_the_previous_one() {
+        addTransactions(5);
+        store.refresh();
+        assertThat(store.snapshot().size()).isEqualTo(5);
+
+        addTransactions(2);
+        store.refresh();
+        store.refresh();
+
+        assertThat(store.snapshot().size()).isEqualTo(7);
+        assertThat(store.snapshot().cardCount()).isEqualTo(1);
+    }
+
+    @Test
+    void a_row_committed_out_of_order_within_the_window_is_picked_up_once() {
+        transactionIndex.add(1, cardNumber, inflow(1));
+        transactionIndex.add(2, cardNumber, inflow(2));
+        transactionIndex.add(4, cardNumber, inflow(4));
+        store.refresh();
+
+        transactionIndex.add(3, cardNumber, inflow(3));
+        store.refresh();
+
+        assertThat(store.snapshot().size()).isEqualTo(4);
+        assertThat(amounts()).containsExactly(100L, 200L, 400L, 300L);
+    }
+
+    @Test
+    void a_row_committed_behind_the_window_is_missed() {
+        transactionIndex.add(1, cardNumber, inflow(1));
+        transactionIndex.add(10, cardNumber, inflow(10));
+        store.refresh();
+
+        transactionIndex.add(2, cardNumber, inflow(2));
+        store.refresh();
+
+        assertThat(store.snapshot().size()).isEqualTo(2);
+    }
+
+    @Test
+    void a_failed_refresh_keeps_the_published_rows_and_the_next_one_catches_up() {
+        addTransactions(3);
+        store.refresh();
+        addTransactions(2);
+        transactionIndex.setUnavailable(true);
+
+        store.refresh();
+        assertThat(store.snapshot().size()).isEqualTo(3);
+
+        transactionIndex.setUnavailable(false);
+        store.refresh();
+        assertThat(store.snapshot().size()).isEqualTo(5);
+    }
+
+    private void addTransactions(final int count) {
+        for (int index = 0; index < count; index++) {
+            transactionIndex.add(cardNumber, inflow(1));
+        }
+    }
+
+    private long[] amounts() {
+        var snapshot = store.snapshot();
+        var amounts = new long[snapshot.size()];
+        for (int row = 0; row < snapshot.size(); row++) {
+            amounts[row] = snapshot.chunk(row).amounts[row & TransactionChunk.MASK];
+        }
+        return amounts;
+    }
+
+}
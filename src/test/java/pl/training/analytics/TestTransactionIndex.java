@@ -0,0 +1,47 @@
+package pl.training.analytics;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import pl.training.payments.application.IndexedTransaction;
+import pl.training.payments.application.TransactionIndex;
+import pl.training.payments.application.TransactionQuery;
+import pl.training.payments.application.TransactionSearchResult;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Transaction;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// Index with sequences chosen by the test, so rows can be made visible out of sequence order; only the cursor is filtered on
+final class TestTransactionIndex implements TransactionIndex {
+
+    private final TreeMap<Long, IndexedTransaction> transactions = new TreeMap<>(Comparator.naturalOrder());
+    private boolean unavailable;
+
+    @Override
+    public void add(final CardNumber cardNumber, final Transaction transaction) {
+        add(transactions.isEmpty() ? 1 : transactions.lastKey() + 1, cardNumber, transaction);
+    }
+
+    void add(final long sequence, final CardNumber cardNumber, final Transaction transaction) {
+        transactions.put(sequence, new IndexedTransaction(sequence, cardNumber, transaction));
+    }
+
+    void setUnavailable(final boolean unavailable) {
+        this.unavailable = unavailable;
+    }
+
+    @Override
+    public TransactionSearchResult search(final TransactionQuery query) {
+        if (unavailable) {
+            throw new DataAccessResourceFailureException("Transaction index is not available");
+        }
+        var matches = transactions.tailMap(query.cursor(), false).values().stream()
+                .limit(query.pageSize() + 1L)
+                .toList();
+        var content = matches.stream().limit(query.pageSize()).toList();
+        var nextCursor = matches.size() > query.pageSize() ? Optional.of(content.getLast().sequence()) : Optional.<Long>empty();
+        return new TransactionSearchResult(content, nextCursor);
+    }
+
+}
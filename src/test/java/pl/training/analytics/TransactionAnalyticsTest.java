@@ -0,0 +1,131 @@
+package pl.training.analytics;
+
+import org.junit.jupiter.api.Test;
+import pl.training.payments.application.SearchTransactionsUseCase;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.training.payments.adapters.persistence.TestCards.newCard;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+class TransactionAnalyticsTest {
+
+    private static final Currency PLN = Currency.getInstance("PLN");
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final ZonedDateTime DAY_START = ZonedDateTime.of(2026, 5, 4, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final TestTransactionIndex transactionIndex = new TestTransactionIndex();
+    private final ColumnarTransactionStore store = new ColumnarTransactionStore(new SearchTransactionsUseCase(transactionIndex), 1000, 1000);
+    private final TransactionAnalytics analytics = new TransactionAnalytics(store);
+    private final CardNumber firstCard = newCard().getNumber();
+    private final CardNumber secondCard = newCard().getNumber();
+    private final CardNumber thirdCard = newCard().getNumber();
+
+    @Test
+    void daily_totals_are_summed_per_utc_day_and_currency() {
+        add(firstCard, DAY_START.plusHours(1), "100.00", PLN, INFLOW);
+        add(firstCard, DAY_START.plusHours(2), "30.50", PLN, PAYMENT);
+        add(secondCard, DAY_START.plusHours(3), "20.00", EUR, INFLOW);
+        // 00:30 in Warsaw is still the previous UTC day
+        add(firstCard, DAY_START.plusDays(1).withZoneSameLocal(ZoneId.of("Europe/Warsaw")).plusMinutes(30), "5.00", PLN, PAYMENT);
+        add(firstCard, DAY_START.plusDays(1).plusHours(1), "7.25", PLN, PAYMENT);
+        add(firstCard, DAY_START.plusDays(2), "1000.00", PLN, INFLOW);
+        store.refresh();
+
+        var totals = analytics.dailyTotals(LocalDate.of(2026, 5, 4), LocalDate.of(2026, 5, 5));
+
+        assertThat(totals).containsExactly(
+                new CurrencyDayTotals(LocalDate.of(2026, 5, 4), PLN, new BigDecimal("100.00"), 1, new BigDecimal("35.50"), 2),
+                new CurrencyDayTotals(LocalDate.of(2026, 5, 4), EUR, new BigDecimal("20.00"), 1, new BigDecimal("0.00"), 0),
+                new CurrencyDayTotals(LocalDate.of(2026, 5, 5), PLN, new BigDecimal("0.00"), 0, new BigDecimal("7.25"), 1)
+        );
+    }
+
+    @Test
+    void top_cards_are_ranked_by_payments_in_the_currency_and_time_window() {
+        add(firstCard, DAY_START.plusHours(1), "10.00", PLN, PAYMENT);
+        add(secondCard, DAY_START.plusHours(1), "50.00", PLN, PAYMENT);
+        add(secondCard, DAY_START.plusHours(2), "500.00", PLN, INFLOW);
+        add(thirdCard, DAY_START.plusHours(1), "20.00", PLN, PAYMENT);
+        add(thirdCard, DAY_START.plusHours(3), "25.00", PLN, PAYMENT);
+        add(firstCard, DAY_START.plusDays(1), "1000.00", PLN, PAYMENT);
+        add(newCard().getNumber(), DAY_START.plusHours(1), "900.00", EUR, PAYMENT);
+        store.refresh();
+
+        var top = analytics.topCardsByOutflow(PLN, DAY_START, DAY_START.plusDays(1), 2);
+
+        assertThat(top).containsExactly(
+                new CardOutflow(secondCard, new BigDecimal("50.00")),
+                new CardOutflow(thirdCard, new BigDecimal("45.00"))
+        );
+    }
+
+    @Test
+    void balance_histogram_counts_the_cards_of_the_currency_per_bucket() {
+        add(firstCard, DAY_START, "100.00", PLN, INFLOW);
+        add(secondCard, DAY_START, "50.00", PLN, INFLOW);
+        add(secondCard, DAY_START, "20.00", PLN, PAYMENT);
+        add(thirdCard, DAY_START, "10.00", PLN, INFLOW);
+        add(newCard().getNumber(), DAY_START, "70.00", EUR, INFLOW);
+        store.refresh();
+
+        var histogram = analytics.balanceHistogram(PLN, 3);
+
+        assertThat(histogram.buckets()).containsExactly(
+                new BalanceHistogram.Bucket(new BigDecimal("10.00"), new BigDecimal("40.01"), 2),
+                new BalanceHistogram.Bucket(new BigDecimal("40.01"), new BigDecimal("70.02"), 0),
+                new BalanceHistogram.Bucket(new BigDecimal("70.02"), new BigDecimal("100.03"), 1)
+        );
+    }
+
+    @Test
+    void a_currency_without_transactions_gives_empty_results() {
+        add(firstCard, DAY_START, "100.00", PLN, INFLOW);
+        store.refresh();
+
+        assertThat(analytics.topCardsByOutflow(EUR, DAY_START, DAY_START.plusDays(1), 10)).isEmpty();
+        assertThat(analytics.balanceHistogram(EUR, 10).buckets()).isEmpty();
+        assertThat(analytics.dailyTotals(LocalDate.of(2026, 5, 5), LocalDate.of(2026, 5, 4))).isEmpty();
+    }
+
+    @Test
+    void per_card_aggregates_split_across_workers_add_up() {
+        var rows = TransactionChunk.CAPACITY / 8;
+        for (int row = 0; row < rows; row++) {
+            add(row % 2 == 0 ? firstCard : secondCard, DAY_START.plusSeconds(row % 86_400), "1.00", PLN, INFLOW);
+        }
+        store.refresh();
+
+        assertThat(analytics.dailyTotals(LocalDate.of(2026, 5, 4), LocalDate.of(2026, 5, 4)))
+                .singleElement()
+                .satisfies(totals -> {
+                    assertThat(totals.inflowCount()).isEqualTo(rows);
+                    assertThat(totals.inflow()).isEqualByComparingTo(BigDecimal.valueOf(rows));
+                });
+        assertThat(analytics.balanceHistogram(PLN, 1).buckets())
+                .singleElement()
+                .satisfies(bucket -> {
+                    assertThat(bucket.from()).isEqualByComparingTo(BigDecimal.valueOf(rows / 2));
+                    assertThat(bucket.cards()).isEqualTo(2);
+                });
+        assertThat(analytics.topCardsByOutflow(PLN, DAY_START, DAY_START.plusDays(1), 10)).isEmpty();
+    }
+
+    private void add(final CardNumber cardNumber, final ZonedDateTime timestamp, final String amount, final Currency currency,
+                     final TransactionType type) {
+        transactionIndex.add(cardNumber, new Transaction(new TransactionId(), timestamp, new Money(new BigDecimal(amount), currency), type));
+    }
+
+}
@@ -0,0 +1,112 @@
+package pl.training.common.aop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long THRESHOLD = 100;
+    private static final long FAST = 10;
+    private static final long SLOW = 1_000;
+
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 20, THRESHOLD, 0.5);
+
+    private void acquire(final int count) {
+        for (int index = 0; index < count; index++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+    }
+
+    @Test
+    void requests_beyond_the_limit_are_rejected_until_one_completes() {
+        acquire(10);
+
+        assertThat(limit.tryAcquire()).isFalse();
+        limit.release(FAST);
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.getInFlight()).isEqualTo(10);
+    }
+
+    @Test
+    void slow_completion_cuts_the_limit_by_the_backoff_ratio() {
+        acquire(1);
+
+        limit.release(SLOW);
+
+        assertThat(limit.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void slow_completions_of_one_overload_cut_the_limit_once() {
+        acquire(10);
+
+        for (int index = 0; index < 10; index++) {
+            limit.release(SLOW);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void limit_never_drops_below_the_minimum() {
+        for (int index = 0; index < 100; index++) {
+            acquire(1);
+            limit.release(SLOW);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void fast_completions_under_saturation_raise_the_limit_up_to_the_maximum() {
+        for (int round = 0; round < 1_000; round++) {
+            var current = limit.getLimit();
+            acquire(current);
+            for (int index = 0; index < current; index++) {
+                limit.release(FAST);
+            }
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void fast_completions_below_half_of_the_limit_do_not_raise_it() {
+        for (int index = 0; index < 1_000; index++) {
+            acquire(1);
+            limit.release(FAST);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void concurrent_requests_never_exceed_the_limit() throws InterruptedException {
+        var maxInFlight = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newFixedThreadPool(16)) {
+            for (int task = 0; task < 16; task++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int index = 0; index < 10_000; index++) {
+                        if (limit.tryAcquire()) {
+                            maxInFlight.accumulateAndGet(limit.getInFlight(), Math::max);
+                            limit.release(FAST);
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(limit.getLimit());
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+}
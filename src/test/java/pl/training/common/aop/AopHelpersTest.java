@@ -0,0 +1,113 @@
+package pl.training.common.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static pl.training.common.aop.Atomic.Isolation.SERIALIZABLE;
+import static pl.training.common.aop.Atomic.Propagation.REQUIRES_NEW;
+
+class AopHelpersTest {
+
+    @Test
+    void metadata_is_resolved_once_per_target_class_and_method() {
+        var first = capture(service -> service.annotatedMethod("value"));
+        var second = capture(service -> service.annotatedMethod("other"));
+
+        assertThat(AopHelpers.getMethodMetadata(second)).isSameAs(AopHelpers.getMethodMetadata(first));
+    }
+
+    @Test
+    void method_annotation_takes_precedence_over_the_class_one() {
+        var joinPoint = capture(service -> service.annotatedMethod("value"));
+
+        var atomic = AopHelpers.findAnnotation(joinPoint, Atomic.class);
+
+        assertThat(atomic.propagation()).isEqualTo(REQUIRES_NEW);
+    }
+
+    @Test
+    void class_annotation_applies_to_a_method_without_one() {
+        var joinPoint = capture(Service::classAnnotatedMethod);
+
+        var atomic = AopHelpers.findAnnotation(joinPoint, Atomic.class);
+
+        assertThat(atomic.isolation()).isEqualTo(SERIALIZABLE);
+        assertThat(AopHelpers.findAnnotation(joinPoint, Loggable.class)).isNull();
+    }
+
+    @Test
+    void parameter_annotations_are_aligned_with_the_arguments() {
+        var joinPoint = capture(service -> service.annotatedMethod("value"));
+
+        var minLengths = AopHelpers.getMethodMetadata(joinPoint).findParameterAnnotations(MinLength.class);
+
+        assertThat(minLengths).hasSize(1);
+        assertThat(minLengths[0].value()).isEqualTo(3);
+        assertThat(AopHelpers.getMethodMetadata(joinPoint).findParameterAnnotations(MinLength.class)).isSameAs(minLengths);
+    }
+
+    @Test
+    void attribute_is_built_once() {
+        var joinPoint = capture(service -> service.annotatedMethod("value"));
+        var metadata = AopHelpers.getMethodMetadata(joinPoint);
+
+        var first = metadata.getAttribute(TransactionDefinition.class, ignored -> new Object());
+        var second = metadata.getAttribute(TransactionDefinition.class, ignored -> new Object());
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void too_short_argument_is_rejected() {
+        var factory = new AspectJProxyFactory(new Service());
+        factory.addAspect(new MinLengthAspect());
+        Service service = factory.getProxy();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> service.annotatedMethod("ab"));
+        assertThat(service.annotatedMethod("abc")).isEqualTo("abc");
+    }
+
+    // join point of the given call on a proxied Service
+    static ProceedingJoinPoint capture(final Consumer<Service> call) {
+        var joinPointCapture = new JoinPointCapture();
+        var factory = new AspectJProxyFactory(new Service());
+        factory.addAspect(joinPointCapture);
+        call.accept(factory.getProxy());
+        return joinPointCapture.joinPoint;
+    }
+
+    @Atomic(isolation = SERIALIZABLE)
+    static class Service {
+
+        @Atomic(propagation = REQUIRES_NEW)
+        public String annotatedMethod(@MinLength(3) final String value) {
+            return value;
+        }
+
+        public void classAnnotatedMethod() {
+        }
+
+    }
+
+    @Aspect
+    static class JoinPointCapture {
+
+        private ProceedingJoinPoint joinPoint;
+
+        @Around("execution(* *(..))")
+        public Object capture(final ProceedingJoinPoint joinPoint) throws Throwable {
+            this.joinPoint = joinPoint;
+            return joinPoint.proceed();
+        }
+
+    }
+
+}
@@ -0,0 +1,67 @@
+package pl.training.common.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import static pl.training.Measurement.nanosPerOperation;
+import static pl.training.Measurement.report;
+
+// Per-call cost of what the advice resolves: reflective lookups and a new TransactionDefinition per call (before),
+// against the cached MethodMetadata (after)
+class AopMetadataBenchmark {
+
+    private static final int OPERATIONS = 1_000_000;
+
+    @Test
+    void advice_metadata_per_call() {
+        var joinPoint = AopHelpersTest.capture(service -> service.annotatedMethod("value"));
+
+        var atomicBefore = nanosPerOperation(5, 10, OPERATIONS, () -> lookupTransactionDefinition(joinPoint));
+        var atomicAfter = nanosPerOperation(5, 10, OPERATIONS, () -> AopHelpers.getMethodMetadata(joinPoint)
+                .getAttribute(TransactionDefinition.class, AopMetadataBenchmark::transactionDefinition));
+        report("aop-metadata", "@Atomic     reflective %6.1f ns/call, cached %6.1f ns/call", atomicBefore, atomicAfter);
+
+        var minLengthBefore = nanosPerOperation(5, 10, OPERATIONS, () -> lookupParameterAnnotations(joinPoint));
+        var minLengthAfter = nanosPerOperation(5, 10, OPERATIONS, () -> AopHelpers.getMethodMetadata(joinPoint)
+                .findParameterAnnotations(MinLength.class));
+        report("aop-metadata", "@MinLength  reflective %6.1f ns/call, cached %6.1f ns/call", minLengthBefore, minLengthAfter);
+    }
+
+    private static TransactionDefinition lookupTransactionDefinition(final ProceedingJoinPoint joinPoint) {
+        try {
+            var atomic = AopHelpers.getMethodAnnotation(joinPoint, Atomic.class);
+            return toTransactionDefinition(atomic);
+        } catch (NoSuchMethodException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static TransactionDefinition transactionDefinition(final MethodMetadata methodMetadata) {
+        return toTransactionDefinition(methodMetadata.findAnnotation(Atomic.class));
+    }
+
+    private static TransactionDefinition toTransactionDefinition(final Atomic atomic) {
+        var transactionDefinition = new DefaultTransactionDefinition();
+        transactionDefinition.setTimeout(atomic.timeoutInMilliseconds());
+        transactionDefinition.setReadOnly(atomic.readOnly());
+        transactionDefinition.setPropagationBehaviorName("PROPAGATION_" + atomic.propagation().name());
+        transactionDefinition.setIsolationLevelName("ISOLATION_" + atomic.isolation().name());
+        return transactionDefinition;
+    }
+
+    private static Object lookupParameterAnnotations(final ProceedingJoinPoint joinPoint) {
+        try {
+            var parameterAnnotations = AopHelpers.getTargetMethod(joinPoint).getParameterAnnotations();
+            var result = new MinLength[parameterAnnotations.length];
+            for (int index = 0; index < parameterAnnotations.length; index++) {
+                result[index] = AopHelpers.findAnnotation(parameterAnnotations[index], MinLength.class).orElse(null);
+            }
+            return result;
+        } catch (NoSuchMethodException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+}
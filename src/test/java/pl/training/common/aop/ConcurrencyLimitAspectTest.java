@@ -0,0 +1,124 @@
+package pl.training.common.aop;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitAspectTest {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(3);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Service service = proxy();
+
+    private Service proxy() {
+        var aspect = new ConcurrencyLimitAspect(1, 1, Duration.ofSeconds(10), 1, 1, Duration.ofSeconds(10),
+                1, 0.9, RETRY_AFTER, meterRegistry);
+        var factory = new AspectJProxyFactory(new Service());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static void inRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @Test
+    void request_over_the_limit_is_rejected_with_the_configured_delay() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        try (var executor = Executors.newSingleThreadExecutor()) {
+            var first = executor.submit(() -> {
+                inRequest();
+                return service.write(() -> {
+                    entered.countDown();
+                    await(release);
+                    return "first";
+                });
+            });
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+            inRequest();
+
+            assertThatThrownBy(() -> service.write(() -> "second"))
+                    .isInstanceOfSatisfying(ConcurrencyLimitExceededException.class,
+                            exception -> assertThat(exception.getRetryAfter()).isEqualTo(RETRY_AFTER));
+            assertThat(meterRegistry.counter("payments.concurrency.rejected", "path", "write").count()).isEqualTo(1);
+            assertThat(service.read()).isEqualTo("read");
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        }
+        assertThat(service.write(() -> "third")).isEqualTo("third");
+    }
+
+    @Test
+    void nested_use_case_does_not_take_another_slot() {
+        inRequest();
+
+        assertThat(service.write(() -> service.write(() -> "nested"))).isEqualTo("nested");
+    }
+
+    @Test
+    void work_outside_a_request_is_never_rejected() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        try (var executor = Executors.newSingleThreadExecutor()) {
+            var first = executor.submit(() -> {
+                inRequest();
+                return service.write(() -> {
+                    entered.countDown();
+                    await(release);
+                    return "first";
+                });
+            });
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(service.write(() -> "scheduled")).isEqualTo("scheduled");
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static class Service {
+
+        @Atomic
+        public String write(final Supplier<String> work) {
+            return work.get();
+        }
+
+        @Atomic(readOnly = true)
+        public String read() {
+            return "read";
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+package pl.training.common.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class LongObjectHashMapTest {
+
+    @Test
+    void put_replaces_the_value_of_an_existing_key() {
+        var map = new LongObjectHashMap<String>();
+
+        assertThat(map.put(7, "first")).isNull();
+        assertThat(map.put(7, "second")).isEqualTo("first");
+
+        assertThat(map.get(7)).isEqualTo("second");
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void missing_key_returns_null() {
+        var map = new LongObjectHashMap<String>();
+        map.put(1, "value");
+
+        assertThat(map.get(2)).isNull();
+    }
+
+    @Test
+    void zero_and_negative_keys_are_ordinary_keys() {
+        var map = new LongObjectHashMap<String>();
+        map.put(0, "zero");
+        map.put(-1, "minus one");
+        map.put(Long.MIN_VALUE, "min");
+
+        assertThat(map.get(0)).isEqualTo("zero");
+        assertThat(map.get(-1)).isEqualTo("minus one");
+        assertThat(map.get(Long.MIN_VALUE)).isEqualTo("min");
+    }
+
+    @Test
+    void map_agrees_with_a_hash_map_across_resizes() {
+        var map = new LongObjectHashMap<Long>(4);
+        var expected = new HashMap<Long, Long>();
+        var random = new Random(42);
+        for (int index = 0; index < 100_000; index++) {
+            // narrow range, so many keys are written more than once
+            var key = random.nextLong(200_000) * 1_000_003L;
+            var previous = map.put(key, (long) index);
+            if (!Objects.equals(previous, expected.put(key, (long) index))) {
+                throw new AssertionError(key);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+        assertThat(map.values()).containsExactlyInAnyOrderElementsOf(expected.values());
+    }
+
+    @Test
+    void null_value_is_rejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new LongObjectHashMap<String>().put(1, null));
+    }
+
+}
@@ -0,0 +1,93 @@
+package pl.training.common.web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.http.HttpHeaders;
+import pl.training.common.aop.ConcurrencyLimitExceededException;
+import pl.training.common.web.ratelimit.RateLimitExceededException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+class GlobalRestExceptionHandlerTest {
+
+    private final Logger logger = Logger.getLogger(GlobalRestExceptionHandler.class.getName());
+    private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+    private final Handler handler = new Handler() {
+
+        @Override
+        public void publish(final LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+    };
+    private final GlobalRestExceptionHandler exceptionHandler = new GlobalRestExceptionHandler(
+            new RestExceptionResponseBuilder(new StaticMessageSource(), Locale.ENGLISH, List.of(Locale.ENGLISH)));
+
+    @BeforeEach
+    void addHandler() {
+        logger.addHandler(handler);
+    }
+
+    @AfterEach
+    void removeHandler() {
+        logger.removeHandler(handler);
+    }
+
+    @Test
+    void every_unexpected_exception_is_logged_with_its_stack_trace() {
+        var exceptions = List.of(new IllegalStateException("first"), new NullPointerException("second"), new RuntimeException("third"));
+
+        exceptions.forEach(exception -> assertThat(exceptionHandler.onException(exception, Locale.ENGLISH).getStatusCode())
+                .isEqualTo(INTERNAL_SERVER_ERROR));
+
+        assertThat(records).hasSize(3);
+        assertThat(records).allSatisfy(record -> assertThat(record.getLevel()).isEqualTo(Level.SEVERE));
+        assertThat(records).extracting(LogRecord::getThrown).containsExactlyElementsOf(exceptions);
+    }
+
+    @Test
+    void shed_request_is_answered_with_503_and_the_advised_delay() {
+        var response = exceptionHandler.onConcurrencyLimitExceeded(new ConcurrencyLimitExceededException(Duration.ofSeconds(2)), Locale.ENGLISH);
+
+        assertThat(response.getStatusCode()).isEqualTo(SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+    @Test
+    void sub_second_delay_is_rounded_up_to_a_whole_second() {
+        var response = exceptionHandler.onConcurrencyLimitExceeded(new ConcurrencyLimitExceededException(Duration.ofMillis(200)), Locale.ENGLISH);
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    void rate_limited_request_is_answered_with_429_and_the_advised_delay() {
+        var response = exceptionHandler.onRateLimitExceeded(new RateLimitExceededException(Duration.ofMillis(1_500)), Locale.ENGLISH);
+
+        assertThat(response.getStatusCode()).isEqualTo(TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+}
@@ -0,0 +1,75 @@
+package pl.training.common.web.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pl.training.common.web.ratelimit.RateLimitProperties.KeyType.PATH_VARIABLE;
+import static pl.training.common.web.ratelimit.RateLimitProperties.KeyType.PRINCIPAL;
+
+class RateLimitInterceptorTest {
+
+    private static final String PATH = "/api/cards/{number}/transactions";
+
+    private final RateLimitInterceptor interceptor = new RateLimitInterceptor(new RateLimitProperties(List.of(
+            new RateLimitProperties.Rule("POST", PATH, PATH_VARIABLE, "number", 2, 1),
+            new RateLimitProperties.Rule("POST", PATH, PRINCIPAL, null, 5, 1)
+    ), 100, Duration.ofMinutes(1)));
+
+    private MockHttpServletResponse post(final String cardNumber) {
+        var response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("POST", "/api/cards/%s/transactions".formatted(cardNumber)), response, null))
+                .isTrue();
+        return response;
+    }
+
+    @Test
+    void headers_describe_the_rule_closest_to_its_limit() {
+        var response = post("1");
+
+        assertThat(response.getHeader("X-RateLimit-Limit")).isEqualTo("2");
+        assertThat(response.getHeader("X-RateLimit-Remaining")).isEqualTo("1");
+    }
+
+    @Test
+    void exhausted_rule_rejects_with_the_time_until_its_next_token() {
+        post("1");
+        post("1");
+        var response = new MockHttpServletResponse();
+
+        assertThatThrownBy(() -> interceptor.preHandle(new MockHttpServletRequest("POST", "/api/cards/1/transactions"), response, null))
+                .isInstanceOfSatisfying(RateLimitExceededException.class,
+                        exception -> assertThat(exception.getRetryAfter()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(1)));
+        assertThat(response.getHeader("X-RateLimit-Remaining")).isEqualTo("0");
+    }
+
+    @Test
+    void rejected_request_takes_no_token_from_the_other_rules() {
+        post("1");
+        post("1");
+        for (int attempt = 0; attempt < 10; attempt++) {
+            assertThatThrownBy(() -> post("1")).isInstanceOf(RateLimitExceededException.class);
+        }
+
+        // the principal rule lost only the two accepted requests
+        post("2");
+        post("3");
+        post("4");
+        assertThatThrownBy(() -> post("5")).isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void requests_matching_no_rule_are_not_limited() {
+        for (int attempt = 0; attempt < 10; attempt++) {
+            var response = new MockHttpServletResponse();
+            assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/cards/1/transactions"), response, null)).isTrue();
+            assertThat(response.getHeader("X-RateLimit-Limit")).isNull();
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package pl.training.common.web.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long CAPACITY = 5;
+    private static final long REFILL_PER_SECOND = 10;
+    // close to the 42 bit limit of the packed time
+    private static final long START = (1L << 42) - 10_000_000;
+
+    private final TokenBucket bucket = new TokenBucket(CAPACITY, START);
+
+    private long consume(final long now) {
+        return bucket.tryConsume(CAPACITY, REFILL_PER_SECOND, now);
+    }
+
+    @Test
+    void full_bucket_serves_its_capacity_then_tells_when_the_next_token_comes() {
+        for (long remaining = CAPACITY - 1; remaining >= 0; remaining--) {
+            assertThat(consume(START)).isEqualTo(remaining);
+        }
+
+        assertThat(consume(START)).isEqualTo(-100);
+        assertThat(bucket.waitTime(CAPACITY, REFILL_PER_SECOND, START)).isEqualTo(100);
+    }
+
+    @Test
+    void tokens_are_refilled_at_the_configured_rate_including_fractions() {
+        for (int index = 0; index < CAPACITY; index++) {
+            consume(START);
+        }
+
+        assertThat(consume(START + 60)).isEqualTo(-40);
+        assertThat(consume(START + 100)).isZero();
+        assertThat(consume(START + 150)).isEqualTo(-50);
+    }
+
+    @Test
+    void refill_stops_at_the_capacity() {
+        consume(START);
+
+        assertThat(consume(START + 60_000)).isEqualTo(CAPACITY - 1);
+    }
+
+    @Test
+    void clock_going_backwards_refills_nothing() {
+        for (int index = 0; index < CAPACITY; index++) {
+            consume(START);
+        }
+
+        assertThat(consume(START - 1_000)).isNegative();
+        assertThat(bucket.lastRefill()).isEqualTo(START);
+    }
+
+    @Test
+    void refund_returns_a_token_but_never_overfills() {
+        consume(START);
+        bucket.refund(CAPACITY);
+        bucket.refund(CAPACITY);
+
+        assertThat(consume(START)).isEqualTo(CAPACITY - 1);
+    }
+
+    @Test
+    void maximum_capacity_fits_the_packed_state() {
+        var largeBucket = new TokenBucket(TokenBucket.MAX_CAPACITY, START);
+
+        assertThat(largeBucket.tryConsume(TokenBucket.MAX_CAPACITY, 1, START)).isEqualTo(TokenBucket.MAX_CAPACITY - 1);
+        assertThat(largeBucket.lastRefill()).isEqualTo(START);
+    }
+
+    @Test
+    void concurrent_requests_take_exactly_the_capacity() throws InterruptedException {
+        var capacity = TokenBucket.MAX_CAPACITY;
+        var sharedBucket = new TokenBucket(capacity, START);
+        var taken = new AtomicLong();
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            for (int task = 0; task < 8; task++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int index = 0; index < 1_000; index++) {
+                        if (sharedBucket.tryConsume(capacity, 1, START) >= 0) {
+                            taken.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertThat(taken.get()).isEqualTo(capacity);
+    }
+
+}
@@ -0,0 +1,42 @@
+package pl.training.common.web.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TokenBucketsTest {
+
+    private final TokenBuckets buckets = new TokenBuckets(2, 1, 2, 0);
+
+    @Test
+    void keys_beyond_the_maximum_share_one_overflow_bucket() {
+        var first = buckets.get("first", 0);
+        var second = buckets.get("second", 0);
+
+        var third = buckets.get("third", 0);
+
+        assertThat(first).isNotSameAs(second);
+        assertThat(buckets.get("fourth", 0)).isSameAs(third).isNotIn(first, second);
+        assertThat(buckets.get("first", 0)).isSameAs(first);
+    }
+
+    @Test
+    void bucket_is_dropped_once_it_would_have_refilled() {
+        var bucket = buckets.get("key", 0);
+        buckets.tryConsume(bucket, 0);
+
+        buckets.removeIdle(1_999);
+        assertThat(buckets.get("key", 1_999)).isSameAs(bucket);
+        buckets.removeIdle(2_000);
+
+        assertThat(buckets.get("key", 2_000)).isNotSameAs(bucket);
+    }
+
+    @Test
+    void capacity_that_does_not_fit_the_packed_state_is_rejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new TokenBuckets(TokenBucket.MAX_CAPACITY + 1, 1, 10, 0));
+        assertThatIllegalArgumentException().isThrownBy(() -> new TokenBuckets(10, 0, 10, 0));
+    }
+
+}
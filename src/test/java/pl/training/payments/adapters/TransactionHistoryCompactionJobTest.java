@@ -0,0 +1,29 @@
+package pl.training.payments.adapters;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import pl.training.payments.application.CompactCardHistoryUseCase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:compaction-in-memory;DB_CLOSE_DELAY=-1",
+        "payments.card-repository=in-memory",
+        "payments.in-memory.directory=target/test-data/compaction-in-memory"
+})
+@ActiveProfiles("test")
+class TransactionHistoryCompactionJobTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    void compaction_is_not_scheduled_for_card_stores_outside_the_database_transaction() {
+        assertThat(applicationContext.getBeanProvider(TransactionHistoryCompactionJob.class).getIfAvailable()).isNull();
+        assertThat(applicationContext.getBeanProvider(CompactCardHistoryUseCase.class).getIfAvailable()).isNull();
+    }
+
+}
@@ -0,0 +1,123 @@
+package pl.training.payments.adapters.export;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import pl.training.common.PageSpec;
+import pl.training.payments.adapters.persistence.TransactionHistoryCodec;
+import pl.training.payments.adapters.persistence.TransactionJsonMapper;
+import pl.training.payments.application.AddCardUseCase;
+import pl.training.payments.application.AddTransactionUseCase;
+import pl.training.payments.application.CompactCardHistoryUseCase;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.Money;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Currency;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static pl.training.payments.adapters.persistence.TransactionHistoryCodec.Compression.NONE;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+
+// same context as CompactCardHistoryUseCaseTest, its zero hot window lets a compaction archive every transaction
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:compaction;DB_CLOSE_DELAY=-1",
+        "payments.history.hot-window=PT0S"
+})
+@ActiveProfiles("test")
+class TransactionExporterTest {
+
+    private static final Currency CURRENCY = Currency.getInstance("PLN");
+    private static final TransactionExportFilter NO_FILTER = new TransactionExportFilter(Optional.empty(), Optional.empty(), Optional.empty());
+    // enough archived rows to fill the exporter's buffer, which is flushed while the archive cursor is still open
+    private static final int ARCHIVED_TRANSACTIONS = 1000;
+    private static final int COMPACTION_BATCH = 100;
+
+    @Autowired
+    private TransactionExporter transactionExporter;
+    @Autowired
+    private AddCardUseCase addCardUseCase;
+    @Autowired
+    private AddTransactionUseCase addTransactionUseCase;
+    @Autowired
+    private CompactCardHistoryUseCase compactCardHistoryUseCase;
+
+    @Test
+    void archived_and_hot_transactions_are_exported_together() throws IOException {
+        var card = addCardUseCase.handle(CURRENCY);
+        addTransactions(card, 2);
+        compact();
+        addTransactions(card, 1);
+
+        var output = new ByteArrayOutputStream();
+        transactionExporter.export(NO_FILTER, ExportFormat.CSV, false, output);
+
+        assertThat(rowsOf(card, output.toString(UTF_8))).isEqualTo(3);
+    }
+
+    @Test
+    void compaction_committed_during_export_moves_no_transaction_in_or_out_of_it() throws IOException {
+        var archivedCard = addCardUseCase.handle(CURRENCY);
+        for (int batch = 0; batch < ARCHIVED_TRANSACTIONS / COMPACTION_BATCH; batch++) {
+            addTransactions(archivedCard, COMPACTION_BATCH);
+            compact();
+        }
+        var hotCard = addCardUseCase.handle(CURRENCY);
+        addTransactions(hotCard, 3);
+
+        var output = new ByteArrayOutputStream();
+        transactionExporter.export(NO_FILTER, ExportFormat.CSV, false, new FilterOutputStream(output) {
+
+            private boolean compacted;
+
+            // the first flush happens while the archive is being read, the hot card is compacted before the card table is
+            @Override
+            public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+                if (!compacted) {
+                    compacted = true;
+                    CompletableFuture.runAsync(TransactionExporterTest.this::compact).join();
+                }
+                out.write(bytes, offset, length);
+            }
+
+        });
+
+        var rows = output.toString(UTF_8);
+        assertThat(rowsOf(archivedCard, rows)).isEqualTo(ARCHIVED_TRANSACTIONS);
+        assertThat(rowsOf(hotCard, rows)).isEqualTo(3);
+    }
+
+    @Test
+    void export_fails_fast_for_card_repositories_outside_the_card_table() {
+        var exporter = new TransactionExporter(Mockito.mock(DataSource.class), Mockito.mock(PlatformTransactionManager.class),
+                new TransactionHistoryCodec(NONE, 1), new TransactionJsonMapper(), "in-memory");
+
+        assertThatIllegalStateException().isThrownBy(() -> exporter.export(NO_FILTER, ExportFormat.CSV, false, OutputStream.nullOutputStream()));
+    }
+
+    private void addTransactions(final Card card, final int count) {
+        for (int index = 0; index < count; index++) {
+            addTransactionUseCase.handle(card.getNumber(), new Money(1, CURRENCY), INFLOW);
+        }
+    }
+
+    private void compact() {
+        compactCardHistoryUseCase.handle(new PageSpec(0, Integer.MAX_VALUE));
+    }
+
+    private static long rowsOf(final Card card, final String rows) {
+        return rows.lines().filter(row -> row.startsWith(card.getNumber().value() + ",")).count();
+    }
+
+}
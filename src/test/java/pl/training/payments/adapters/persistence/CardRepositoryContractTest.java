@@ -0,0 +1,134 @@
+package pl.training.payments.adapters.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.training.payments.application.CardRepository;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardNumber;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pl.training.payments.adapters.persistence.TestCards.inflow;
+import static pl.training.payments.adapters.persistence.TestCards.newCard;
+
+// Transactional behaviour every card store checking versions on save has to show
+public abstract class CardRepositoryContractTest {
+
+    protected final TransactionTemplate transaction = InProcessTransactionManager.required();
+    protected final TransactionTemplate newTransaction = InProcessTransactionManager.requiresNew();
+
+    protected abstract CardRepository repository();
+
+    protected Card saved(final Card card) {
+        transaction.executeWithoutResult(status -> repository().save(card));
+        return card;
+    }
+
+    protected BigDecimal balance(final CardNumber cardNumber) {
+        return repository().findByNumber(cardNumber).orElseThrow().getBalance().amount();
+    }
+
+    @Test
+    void committed_card_reads_back() {
+        var card = newCard();
+        card.registerTransaction(inflow(10));
+
+        saved(card);
+
+        var storedCard = repository().findByNumber(card.getNumber()).orElseThrow();
+        assertThat(storedCard.getId()).isEqualTo(card.getId());
+        assertThat(storedCard.getTransactions()).isEqualTo(card.getTransactions());
+    }
+
+    @Test
+    void rolled_back_save_is_discarded() {
+        var card = saved(newCard());
+        var newCard = newCard();
+
+        transaction.executeWithoutResult(status -> {
+            var storedCard = repository().findByNumber(card.getNumber()).orElseThrow();
+            storedCard.registerTransaction(inflow(10));
+            repository().save(storedCard);
+            repository().save(newCard);
+            status.setRollbackOnly();
+        });
+
+        assertThat(balance(card.getNumber())).isZero();
+        assertThat(repository().findByNumber(newCard.getNumber())).isEmpty();
+    }
+
+    @Test
+    void save_is_visible_to_other_transactions_only_after_commit() {
+        var card = saved(newCard());
+
+        transaction.executeWithoutResult(status -> {
+            var storedCard = repository().findByNumber(card.getNumber()).orElseThrow();
+            storedCard.registerTransaction(inflow(10));
+            repository().save(storedCard);
+            assertThat(repository().findByNumber(card.getNumber())).containsSame(storedCard);
+            newTransaction.executeWithoutResult(inner -> assertThat(balance(card.getNumber())).isZero());
+        });
+
+        assertThat(balance(card.getNumber())).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void save_of_card_changed_since_it_was_read_is_rejected() {
+        var card = saved(newCard());
+
+        transaction.executeWithoutResult(status -> {
+            var staleCard = repository().findByNumber(card.getNumber()).orElseThrow();
+            newTransaction.executeWithoutResult(inner -> {
+                var storedCard = repository().findByNumber(card.getNumber()).orElseThrow();
+                storedCard.registerTransaction(inflow(10));
+                repository().save(storedCard);
+            });
+            staleCard.registerTransaction(inflow(20));
+            assertThatThrownBy(() -> repository().save(staleCard)).isInstanceOf(OptimisticLockingFailureException.class);
+        });
+
+        assertThat(balance(card.getNumber())).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void save_of_card_pending_in_another_transaction_is_rejected() {
+        var card = saved(newCard());
+
+        transaction.executeWithoutResult(status -> {
+            var storedCard = repository().findByNumber(card.getNumber()).orElseThrow();
+            storedCard.registerTransaction(inflow(10));
+            repository().save(storedCard);
+            newTransaction.executeWithoutResult(inner -> {
+                var concurrentCard = repository().findByNumber(card.getNumber()).orElseThrow();
+                concurrentCard.registerTransaction(inflow(20));
+                assertThatThrownBy(() -> repository().save(concurrentCard)).isInstanceOf(OptimisticLockingFailureException.class);
+            });
+        });
+
+        assertThat(balance(card.getNumber())).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void card_can_be_saved_again_after_a_rejected_save() {
+        var card = saved(newCard());
+        var staleCard = transaction.execute(status -> repository().findByNumber(card.getNumber()).orElseThrow());
+
+        transaction.executeWithoutResult(status -> {
+            var storedCard = repository().findByNumber(card.getNumber()).orElseThrow();
+            storedCard.registerTransaction(inflow(10));
+            repository().save(storedCard);
+        });
+        transaction.executeWithoutResult(status -> {
+            var storedCard = repository().findByNumber(card.getNumber()).orElseThrow();
+            storedCard.registerTransaction(inflow(5));
+            repository().save(storedCard);
+        });
+
+        assertThat(balance(card.getNumber())).isEqualByComparingTo("15");
+        assertThat(staleCard.getBalance().amount()).isZero();
+    }
+
+}
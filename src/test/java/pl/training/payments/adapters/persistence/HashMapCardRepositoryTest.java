@@ -0,0 +1,35 @@
+package pl.training.payments.adapters.persistence;
+
+import org.junit.jupiter.api.Test;
+import pl.training.common.PageSpec;
+import pl.training.payments.application.CardRepository;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.training.payments.adapters.persistence.TestCards.newCard;
+
+class HashMapCardRepositoryTest extends CardRepositoryContractTest {
+
+    private final HashMapCardRepository repository = new HashMapCardRepository();
+
+    @Override
+    protected CardRepository repository() {
+        return repository;
+    }
+
+    @Test
+    void pages_cover_every_card_once() {
+        IntStream.range(0, 25).forEach(index -> saved(newCard()));
+
+        var numbers = IntStream.range(0, 3)
+                .mapToObj(index -> repository.findAll(new PageSpec(index, 10)))
+                .flatMap(page -> page.content().stream())
+                .map(card -> card.getNumber().value())
+                .toList();
+
+        assertThat(numbers).hasSize(25).doesNotHaveDuplicates();
+        assertThat(repository.findAll(new PageSpec(0, 10)).totalPages()).isEqualTo(3);
+    }
+
+}
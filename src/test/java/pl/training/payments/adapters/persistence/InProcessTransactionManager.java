@@ -0,0 +1,53 @@
+package pl.training.payments.adapters.persistence;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Transactions without a resource, only their synchronizations run, which is all the in-process card stores take part in
+public final class InProcessTransactionManager extends AbstractPlatformTransactionManager {
+
+    public static TransactionTemplate required() {
+        return new TransactionTemplate(new InProcessTransactionManager());
+    }
+
+    public static TransactionTemplate requiresNew() {
+        var template = required();
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object();
+    }
+
+    @Override
+    protected boolean isExistingTransaction(final Object transaction) {
+        return TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    @Override
+    protected void doBegin(final Object transaction, final TransactionDefinition definition) {
+    }
+
+    @Override
+    protected Object doSuspend(final Object transaction) {
+        return transaction;
+    }
+
+    @Override
+    protected void doResume(final Object transaction, final Object suspendedResources) {
+    }
+
+    @Override
+    protected void doCommit(final DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(final DefaultTransactionStatus status) {
+    }
+
+}
@@ -0,0 +1,37 @@
+package pl.training.payments.adapters.persistence;
+
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardId;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static pl.training.payments.domain.TransactionType.INFLOW;
+
+// Cards and transactions for the card store tests
+public final class TestCards {
+
+    public static final Currency CURRENCY = Currency.getInstance("PLN");
+
+    private static final AtomicLong NEXT_NUMBER = new AtomicLong(4_000_000_000_000_000L);
+
+    private TestCards() {
+    }
+
+    public static Card newCard() {
+        var number = new CardNumber(String.valueOf(NEXT_NUMBER.getAndIncrement()));
+        return new Card(new CardId(), number, LocalDate.of(2099, 1, 1), CURRENCY);
+    }
+
+    public static Transaction inflow(final double amount) {
+        return new Transaction(new TransactionId(), ZonedDateTime.now(ZoneOffset.UTC), new Money(amount, CURRENCY), INFLOW);
+    }
+
+}
@@ -0,0 +1,70 @@
+package pl.training.payments.adapters.persistence;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.Test;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static pl.training.payments.adapters.persistence.TransactionHistoryCodec.Compression.DEFLATE;
+import static pl.training.payments.adapters.persistence.TransactionHistoryCodec.Compression.NONE;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+class TransactionHistoryCodecTest {
+
+    static final TypeReference<List<Transaction>> TRANSACTION_LIST_TYPE = new TypeReference<>() {
+    };
+
+    private final TransactionJsonMapper jsonMapper = new TransactionJsonMapper();
+
+    @Test
+    void deflated_history_reads_back_unchanged() {
+        var codec = new TransactionHistoryCodec(DEFLATE, 1);
+        var history = history(50);
+
+        var encoded = codec.encode(jsonMapper.writeAsBytes(history));
+
+        assertThat(jsonMapper.read(codec.decode(encoded), TRANSACTION_LIST_TYPE)).isEqualTo(history);
+    }
+
+    @Test
+    void plain_history_written_before_compression_was_enabled_still_reads() {
+        var history = history(5);
+        var plain = new TransactionHistoryCodec(NONE, 1).encode(jsonMapper.writeAsBytes(history));
+
+        var decoded = new TransactionHistoryCodec(DEFLATE, 1).decode(plain);
+
+        assertThat(jsonMapper.read(decoded, TRANSACTION_LIST_TYPE)).isEqualTo(history);
+    }
+
+    @Test
+    void deflated_history_is_smaller_than_json() {
+        var json = jsonMapper.writeAsBytes(history(200));
+
+        assertThat(new TransactionHistoryCodec(DEFLATE, 1).encode(json)).hasSizeLessThan(json.length / 2);
+    }
+
+    @Test
+    void compression_level_outside_deflater_range_is_rejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new TransactionHistoryCodec(DEFLATE, 10));
+    }
+
+    static List<Transaction> history(final int size) {
+        var timestamp = ZonedDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        var transactions = new ArrayList<Transaction>(size);
+        for (int index = 0; index < size; index++) {
+            var type = index % 3 == 0 ? INFLOW : PAYMENT;
+            transactions.add(new Transaction(new TransactionId(), timestamp.plusMinutes(index), new Money(10 + index % 7, "PLN"), type));
+        }
+        return transactions;
+    }
+
+}
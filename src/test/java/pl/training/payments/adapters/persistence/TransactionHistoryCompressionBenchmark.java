@@ -0,0 +1,39 @@
+package pl.training.payments.adapters.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import static pl.training.Measurement.nanosPerOperation;
+import static pl.training.Measurement.report;
+import static pl.training.payments.adapters.persistence.TransactionHistoryCodec.Compression.DEFLATE;
+import static pl.training.payments.adapters.persistence.TransactionHistoryCodec.Compression.NONE;
+import static pl.training.payments.adapters.persistence.TransactionHistoryCodecTest.TRANSACTION_LIST_TYPE;
+
+// Stored bytes against encode and decode CPU time per history, for the compression settings worth choosing from
+class TransactionHistoryCompressionBenchmark {
+
+    private static final int[] HISTORY_SIZES = {10, 100, 1000};
+    private static final int[] DEFLATE_LEVELS = {1, 6, 9};
+
+    private final TransactionJsonMapper jsonMapper = new TransactionJsonMapper();
+
+    @Test
+    void bytes_against_cpu_time() {
+        for (var historySize : HISTORY_SIZES) {
+            var json = jsonMapper.writeAsBytes(TransactionHistoryCodecTest.history(historySize));
+            measure("NONE", new TransactionHistoryCodec(NONE, 1), historySize, json);
+            for (var level : DEFLATE_LEVELS) {
+                measure("DEFLATE-" + level, new TransactionHistoryCodec(DEFLATE, level), historySize, json);
+            }
+        }
+    }
+
+    private void measure(final String setting, final TransactionHistoryCodec codec, final int historySize, final byte[] json) {
+        var operations = Math.max(10, 20_000 / historySize);
+        var encoded = codec.encode(json);
+        var encodeTime = nanosPerOperation(5, 10, operations, () -> codec.encode(json));
+        var decodeTime = nanosPerOperation(5, 10, operations, () -> jsonMapper.read(codec.decode(encoded), TRANSACTION_LIST_TYPE));
+        report("history-compression", "%-10s %5d transactions: %8d bytes (%5.1f%%), encode %9.0f ns, decode+parse %9.0f ns",
+                setting, historySize, encoded.length, 100.0 * encoded.length / json.length, encodeTime, decodeTime);
+    }
+
+}
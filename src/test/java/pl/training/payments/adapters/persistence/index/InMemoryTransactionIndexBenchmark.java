@@ -0,0 +1,82 @@
+package pl.training.payments.adapters.persistence.index;
+
+import org.junit.jupiter.api.Test;
+import pl.training.payments.adapters.persistence.HashMapCardRepository;
+import pl.training.payments.adapters.persistence.InProcessTransactionManager;
+import pl.training.payments.application.TransactionQuery;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+import static pl.training.Measurement.nanosPerOperation;
+import static pl.training.Measurement.report;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+// Search latency per access path over a year of transactions; the size is set with -Dbenchmark.index-rows
+// (10000000 for the full run, it needs about 1 GB of heap)
+class InMemoryTransactionIndexBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.index-rows", 1_000_000);
+    private static final int PAGE_SIZE = 50;
+    private static final ZonedDateTime START = ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final long YEAR_IN_NANOS = Duration.ofDays(365).toNanos();
+    private static final List<Currency> CURRENCIES = List.of("PLN", "EUR", "USD", "GBP", "CHF").stream().map(Currency::getInstance).toList();
+
+    @Test
+    void search_latency() {
+        var index = new InMemoryTransactionIndex(new HashMapCardRepository(), new InProcessTransactionManager());
+        var startTime = System.nanoTime();
+        fill(index);
+        report("transaction-index", "%d rows indexed in %d ms", ROWS, Duration.ofNanos(System.nanoTime() - startTime).toMillis());
+
+        var usd = Optional.of(CURRENCIES.get(2));
+        var lastDay = Optional.of(START.plusDays(364));
+        var queries = List.of(
+                new NamedQuery("no predicate", query(Optional.empty(), Optional.empty(), Optional.empty())),
+                new NamedQuery("payments in USD", query(usd, Optional.empty(), Optional.empty())),
+                new NamedQuery("amount 999.00-999.10", query(Optional.empty(), Optional.of(new BigDecimal("999.00")), Optional.empty())),
+                new NamedQuery("last day, USD payments", query(usd, Optional.empty(), lastDay)),
+                new NamedQuery("no match (amount)", query(usd, Optional.of(new BigDecimal("2000.00")), lastDay))
+        );
+        for (var namedQuery : queries) {
+            var time = nanosPerOperation(3, 10, 100, () -> index.search(namedQuery.query()));
+            report("transaction-index", "%-24s %10.1f us per page", namedQuery.name(), time / 1_000);
+        }
+    }
+
+    private static void fill(final InMemoryTransactionIndex index) {
+        var random = new Random(10);
+        for (int row = 0; row < ROWS; row++) {
+            var cardNumber = new CardNumber(4_000_000_000_000_000L + random.nextInt(100_000), CardNumber.MIN_LENGTH);
+            var timestamp = START.plusNanos(random.nextLong(YEAR_IN_NANOS));
+            var money = new Money(BigDecimal.valueOf(random.nextInt(100_000), 2), CURRENCIES.get(random.nextInt(CURRENCIES.size())));
+            var type = random.nextInt(4) == 0 ? PAYMENT : INFLOW;
+            index.add(cardNumber, new Transaction(new TransactionId(new UUID(random.nextLong(), random.nextLong())), timestamp, money, type));
+        }
+    }
+
+    private static TransactionQuery query(final Optional<Currency> currency, final Optional<BigDecimal> minAmount,
+                                          final Optional<ZonedDateTime> from) {
+        var type = currency.isPresent() ? Optional.of(PAYMENT) : Optional.<TransactionType>empty();
+        var maxAmount = minAmount.map(amount -> amount.add(new BigDecimal("0.10")));
+        var to = from.map(time -> time.plusDays(1));
+        return new TransactionQuery(type, currency, minAmount, maxAmount, from, to, 0, PAGE_SIZE);
+    }
+
+    private record NamedQuery(String name, TransactionQuery query) {
+    }
+
+}
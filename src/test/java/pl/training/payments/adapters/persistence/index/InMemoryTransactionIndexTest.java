@@ -0,0 +1,225 @@
+package pl.training.payments.adapters.persistence.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.training.payments.adapters.persistence.HashMapCardRepository;
+import pl.training.payments.adapters.persistence.InProcessTransactionManager;
+import pl.training.payments.application.IndexedTransaction;
+import pl.training.payments.application.TransactionQuery;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.training.payments.adapters.persistence.TestCards.inflow;
+import static pl.training.payments.adapters.persistence.TestCards.newCard;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+class InMemoryTransactionIndexTest {
+
+    // one sealed chunk and a partly filled open one
+    private static final int ROWS = TransactionChunk.CAPACITY + 4_464;
+    private static final ZonedDateTime START = ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final List<Currency> CURRENCIES = List.of("PLN", "EUR", "USD").stream().map(Currency::getInstance).toList();
+    private static final Currency PLN = CURRENCIES.getFirst();
+    private static final Currency EUR = CURRENCIES.get(1);
+
+    private final InProcessTransactionManager transactionManager = new InProcessTransactionManager();
+    private final List<Row> rows = new ArrayList<>();
+    private InMemoryTransactionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InMemoryTransactionIndex(new HashMapCardRepository(), transactionManager);
+    }
+
+    @Test
+    void filtered_searches_match_a_scan_of_all_rows() {
+        addRandomRows();
+        var from = START.plusHours(6);
+        var to = START.plusHours(18);
+        var minAmount = new BigDecimal("100.25");
+        var maxAmount = new BigDecimal("250.50");
+
+        assertMatchesScan(query(null, null, null, null, null, null));
+        assertMatchesScan(query(PAYMENT, null, null, null, null, null));
+        assertMatchesScan(query(null, EUR, null, null, null, null));
+        assertMatchesScan(query(null, null, minAmount, maxAmount, null, null));
+        assertMatchesScan(query(null, null, null, null, from, to));
+        assertMatchesScan(query(INFLOW, PLN, minAmount, null, from, null));
+        assertMatchesScan(query(PAYMENT, EUR, null, maxAmount, null, to));
+    }
+
+    @Test
+    void range_bounds_are_inclusive_at_the_lower_and_exclusive_at_the_upper_end() {
+        var cardNumber = newCard().getNumber();
+        add(cardNumber, START, "10.00", INFLOW);
+        add(cardNumber, START.plusNanos(1), "20.00", INFLOW);
+        add(cardNumber, START.plusSeconds(1), "20.0001", INFLOW);
+
+        assertMatchesScan(query(null, null, new BigDecimal("10.00"), new BigDecimal("20.00"), null, null));
+        assertMatchesScan(query(null, null, null, null, START, START.plusNanos(1)));
+        assertMatchesScan(query(null, null, new BigDecimal("20.0001"), null, START.plusNanos(1), null));
+    }
+
+    @Test
+    void pages_follow_the_cursor_until_there_is_no_next_one() {
+        addRandomRows();
+        var query = query(PAYMENT, null, null, null, null, null);
+
+        var sequences = new ArrayList<Long>();
+        var cursor = 0L;
+        Optional<Long> nextCursor;
+        do {
+            var result = index.search(withCursor(query, cursor, 997));
+            assertThat(result.content()).hasSizeLessThanOrEqualTo(997);
+            result.content().forEach(indexedTransaction -> sequences.add(indexedTransaction.sequence()));
+            nextCursor = result.nextCursor();
+            cursor = nextCursor.orElse(0L);
+        } while (nextCursor.isPresent());
+
+        assertThat(sequences).containsExactlyElementsOf(expectedSequences(query));
+    }
+
+    @Test
+    void found_transactions_are_read_back_with_their_card_zone_and_amount() {
+        var cardNumber = new CardNumber("0000000000000000042");
+        var timestamp = ZonedDateTime.of(2026, 3, 29, 2, 30, 0, 123_456_789, ZoneId.of("Europe/Warsaw"));
+        var transaction = new Transaction(new TransactionId(), timestamp, new Money(new BigDecimal("12.3456"), EUR), PAYMENT);
+        index.add(cardNumber, transaction);
+
+        var result = index.search(query(null, null, null, null, null, null));
+
+        assertThat(result.content()).singleElement().satisfies(indexedTransaction -> {
+            assertThat(indexedTransaction.sequence()).isEqualTo(1);
+            assertThat(indexedTransaction.cardNumber()).isEqualTo(cardNumber);
+            assertThat(indexedTransaction.transaction().id()).isEqualTo(transaction.id());
+            assertThat(indexedTransaction.transaction().timestamp()).isEqualTo(timestamp);
+            assertThat(indexedTransaction.transaction().value().amount()).isEqualByComparingTo("12.3456");
+            assertThat(indexedTransaction.transaction().value().currency()).isEqualTo(EUR);
+            assertThat(indexedTransaction.transaction().type()).isEqualTo(PAYMENT);
+        });
+    }
+
+    @Test
+    void a_currency_that_was_never_indexed_matches_nothing() {
+        add(newCard().getNumber(), START, "10.00", INFLOW);
+
+        assertThat(index.search(query(null, Currency.getInstance("JPY"), null, null, null, null)).content()).isEmpty();
+    }
+
+    @Test
+    void an_entry_added_in_a_transaction_is_searchable_only_after_commit() {
+        var transaction = InProcessTransactionManager.required();
+        var cardNumber = newCard().getNumber();
+
+        transaction.executeWithoutResult(status -> {
+            index.add(cardNumber, inflow(10));
+            assertThat(index.search(query(null, null, null, null, null, null)).content()).isEmpty();
+        });
+        transaction.executeWithoutResult(status -> {
+            index.add(cardNumber, inflow(20));
+            status.setRollbackOnly();
+        });
+
+        assertThat(index.search(query(null, null, null, null, null, null)).content())
+                .singleElement()
+                .satisfies(indexedTransaction -> assertThat(indexedTransaction.transaction().value().amount()).isEqualByComparingTo("10"));
+    }
+
+    @Test
+    void the_index_is_rebuilt_from_the_card_histories() {
+        var cardRepository = new HashMapCardRepository();
+        var card = newCard();
+        card.registerTransaction(inflow(10));
+        card.registerTransaction(inflow(20));
+        cardRepository.save(card);
+
+        var rebuiltIndex = new InMemoryTransactionIndex(cardRepository, transactionManager);
+
+        assertThat(rebuiltIndex.search(query(null, null, null, null, null, null)).content())
+                .extracting(IndexedTransaction::cardNumber)
+                .containsExactly(card.getNumber(), card.getNumber());
+    }
+
+    private void addRandomRows() {
+        var random = new Random(48);
+        var cardNumbers = LongStream.range(0, 100).mapToObj(value -> newCard().getNumber()).toList();
+        for (int row = 0; row < ROWS; row++) {
+            var timestamp = START.plusNanos(random.nextLong(24L * 3_600 * 1_000_000_000));
+            var amount = BigDecimal.valueOf(random.nextInt(100_000), 2).toPlainString();
+            var type = random.nextInt(4) == 0 ? PAYMENT : INFLOW;
+            add(cardNumbers.get(random.nextInt(cardNumbers.size())), timestamp, amount, type, CURRENCIES.get(random.nextInt(CURRENCIES.size())));
+        }
+    }
+
+    private void add(final CardNumber cardNumber, final ZonedDateTime timestamp, final String amount, final TransactionType type) {
+        add(cardNumber, timestamp, amount, type, PLN);
+    }
+
+    private void add(final CardNumber cardNumber, final ZonedDateTime timestamp, final String amount, final TransactionType type,
+                     final Currency currency) {
+        var transaction = new Transaction(new TransactionId(), timestamp, new Money(new BigDecimal(amount), currency), type);
+        index.add(cardNumber, transaction);
+        rows.add(new Row(rows.size() + 1L, transaction));
+    }
+
+    // the first page and all matches at once
+    private void assertMatchesScan(final TransactionQuery query) {
+        var expected = expectedSequences(query);
+        var firstPage = index.search(query);
+        var allMatches = index.search(withCursor(query, 0, rows.size()));
+
+        assertThat(firstPage.content())
+                .extracting(IndexedTransaction::sequence)
+                .containsExactlyElementsOf(expected.stream().limit(query.pageSize()).toList());
+        assertThat(firstPage.nextCursor().isPresent()).isEqualTo(expected.size() > query.pageSize());
+        assertThat(allMatches.content())
+                .extracting(IndexedTransaction::sequence)
+                .containsExactlyElementsOf(expected);
+    }
+
+    private List<Long> expectedSequences(final TransactionQuery query) {
+        Predicate<Transaction> predicate = transaction ->
+                query.type().map(type -> transaction.type() == type).orElse(true)
+                        && query.currency().map(transaction::hasCurrency).orElse(true)
+                        && query.minAmount().map(amount -> transaction.value().amount().compareTo(amount) >= 0).orElse(true)
+                        && query.maxAmount().map(amount -> transaction.value().amount().compareTo(amount) < 0).orElse(true)
+                        && query.from().map(from -> !transaction.timestamp().isBefore(from)).orElse(true)
+                        && query.to().map(to -> transaction.timestamp().isBefore(to)).orElse(true);
+        return rows.stream()
+                .filter(row -> row.sequence() > query.cursor() && predicate.test(row.transaction()))
+                .map(Row::sequence)
+                .toList();
+    }
+
+    private static TransactionQuery query(final TransactionType type, final Currency currency, final BigDecimal minAmount,
+                                          final BigDecimal maxAmount, final ZonedDateTime from, final ZonedDateTime to) {
+        return new TransactionQuery(Optional.ofNullable(type), Optional.ofNullable(currency), Optional.ofNullable(minAmount),
+                Optional.ofNullable(maxAmount), Optional.ofNullable(from), Optional.ofNullable(to), 0, 500);
+    }
+
+    private static TransactionQuery withCursor(final TransactionQuery query, final long cursor, final int pageSize) {
+        return new TransactionQuery(query.type(), query.currency(), query.minAmount(), query.maxAmount(), query.from(), query.to(),
+                cursor, pageSize);
+    }
+
+    private record Row(long sequence, Transaction transaction) {
+    }
+
+}
@@ -0,0 +1,107 @@
+package pl.training.payments.adapters.persistence.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import pl.training.payments.adapters.persistence.InProcessTransactionManager;
+import pl.training.payments.domain.Card;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static pl.training.Measurement.nanosPerOperation;
+import static pl.training.Measurement.report;
+import static pl.training.payments.adapters.persistence.TestCards.inflow;
+import static pl.training.payments.adapters.persistence.TestCards.newCard;
+
+// Latency of a committed change per durability setting, and recovery time from the journal alone against a checkpoint
+class JournalCardRepositoryBenchmark {
+
+    private static final int CARDS = 1_000;
+    private static final int RECOVERED_CARDS = 100_000;
+    private static final int TRANSACTIONS_PER_CARD = 5;
+    private static final Duration GROUP_COMMIT_INTERVAL = Duration.ofMillis(2);
+
+    private final TransactionTemplate transaction = InProcessTransactionManager.required();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void commit_latency() throws IOException {
+        for (var durability : JournalDurability.values()) {
+            var durabilityDirectory = Files.createDirectory(directory.resolve(durability.name()));
+            try (var repository = new JournalCardRepository(durabilityDirectory, DataSize.ofMegabytes(64), durability, GROUP_COMMIT_INTERVAL)) {
+                var cards = saveCards(repository, CARDS);
+                var next = new int[1];
+                var operations = durability == JournalDurability.NONE ? 2_000 : 100;
+                var commitTime = nanosPerOperation(2, 5, operations, () -> transaction.execute(status -> {
+                    var card = repository.findByNumber(cards.get(next[0]++ % cards.size()).getNumber()).orElseThrow();
+                    card.registerTransaction(inflow(1));
+                    return repository.save(card);
+                }));
+                var bulkTime = nanosPerOperation(1, 3, 1, () -> saveCards(repository, CARDS));
+                report("journal-commit", "%-6s single change %9.1f us, %d new cards in one transaction %9.1f us",
+                        durability, commitTime / 1_000, CARDS, bulkTime / 1_000);
+            }
+        }
+    }
+
+    @Test
+    void recovery_time() {
+        try (var repository = open()) {
+            var cards = saveCards(repository, RECOVERED_CARDS);
+            for (int round = 0; round < TRANSACTIONS_PER_CARD; round++) {
+                for (var batch = 0; batch < cards.size(); batch += CARDS) {
+                    var batchCards = cards.subList(batch, Math.min(batch + CARDS, cards.size()));
+                    transaction.executeWithoutResult(status -> batchCards.forEach(savedCard -> {
+                        var card = repository.findByNumber(savedCard.getNumber()).orElseThrow();
+                        card.registerTransaction(inflow(1));
+                        repository.save(card);
+                    }));
+                }
+            }
+        }
+        report("journal-recovery", "%d cards, %d transactions each, journal only: %d ms",
+                RECOVERED_CARDS, TRANSACTIONS_PER_CARD, timeRecovery(false));
+        report("journal-recovery", "%d cards, %d transactions each, after a checkpoint: %d ms",
+                RECOVERED_CARDS, TRANSACTIONS_PER_CARD, timeRecovery(true));
+    }
+
+    private long timeRecovery(final boolean checkpointFirst) {
+        if (checkpointFirst) {
+            try (var repository = open()) {
+                repository.checkpoint();
+            }
+        }
+        var startTime = System.nanoTime();
+        try (var repository = open()) {
+            return Duration.ofNanos(System.nanoTime() - startTime).toMillis();
+        }
+    }
+
+    private JournalCardRepository open() {
+        return new JournalCardRepository(directory, DataSize.ofMegabytes(64), JournalDurability.GROUP, GROUP_COMMIT_INTERVAL);
+    }
+
+    private List<Card> saveCards(final JournalCardRepository repository, final int count) {
+        var cards = new ArrayList<Card>(count);
+        for (var batch = 0; batch < count; batch += CARDS) {
+            var batchSize = Math.min(CARDS, count - batch);
+            transaction.executeWithoutResult(status -> {
+                for (int index = 0; index < batchSize; index++) {
+                    var card = newCard();
+                    repository.save(card);
+                    cards.add(card);
+                }
+            });
+        }
+        return cards;
+    }
+
+}
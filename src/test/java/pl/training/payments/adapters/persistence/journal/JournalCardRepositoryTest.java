@@ -0,0 +1,110 @@
+package pl.training.payments.adapters.persistence.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import pl.training.payments.adapters.persistence.CardRepositoryContractTest;
+import pl.training.payments.application.CardRepository;
+import pl.training.payments.domain.Card;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.training.payments.adapters.persistence.TestCards.inflow;
+import static pl.training.payments.adapters.persistence.TestCards.newCard;
+
+class JournalCardRepositoryTest extends CardRepositoryContractTest {
+
+    @TempDir
+    private Path directory;
+    private JournalCardRepository repository;
+
+    @BeforeEach
+    void open() {
+        repository = new JournalCardRepository(directory, DataSize.ofMegabytes(1), JournalDurability.GROUP, Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    void close() {
+        repository.close();
+    }
+
+    @Override
+    protected CardRepository repository() {
+        return repository;
+    }
+
+    private void reopen() {
+        close();
+        open();
+    }
+
+    private void addInflow(final Card card, final double amount) {
+        transaction.executeWithoutResult(status -> {
+            var storedCard = repository.findByNumber(card.getNumber()).orElseThrow();
+            storedCard.registerTransaction(inflow(amount));
+            repository.save(storedCard);
+        });
+    }
+
+    @Test
+    void committed_changes_are_recovered_from_the_journal() {
+        var card = saved(newCard());
+        addInflow(card, 10);
+        addInflow(card, 5);
+
+        reopen();
+
+        var recoveredCard = repository.findByNumber(card.getNumber()).orElseThrow();
+        assertThat(recoveredCard.getTransactions()).hasSize(2);
+        assertThat(recoveredCard.getBalance().amount()).isEqualByComparingTo("15");
+    }
+
+    @Test
+    void changes_after_a_checkpoint_are_recovered_on_top_of_it() {
+        var card = saved(newCard());
+        addInflow(card, 10);
+        repository.checkpoint();
+        addInflow(card, 5);
+        var otherCard = saved(newCard());
+
+        reopen();
+
+        assertThat(balance(card.getNumber())).isEqualByComparingTo("15");
+        assertThat(repository.findByNumber(otherCard.getNumber())).isPresent();
+    }
+
+    @Test
+    void rolled_back_changes_are_not_journaled() {
+        var card = saved(newCard());
+        var newCard = newCard();
+        transaction.executeWithoutResult(status -> {
+            var storedCard = repository.findByNumber(card.getNumber()).orElseThrow();
+            storedCard.registerTransaction(inflow(10));
+            repository.save(storedCard);
+            repository.save(newCard);
+            status.setRollbackOnly();
+        });
+
+        reopen();
+
+        assertThat(balance(card.getNumber())).isZero();
+        assertThat(repository.findByNumber(newCard.getNumber())).isEmpty();
+    }
+
+    @Test
+    void recovered_card_can_be_changed_again() {
+        var card = saved(newCard());
+        addInflow(card, 10);
+        reopen();
+
+        addInflow(card, 5);
+        reopen();
+
+        assertThat(balance(card.getNumber())).isEqualByComparingTo("15");
+    }
+
+}
@@ -0,0 +1,117 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import pl.training.common.aop.Atomic;
+import pl.training.payments.application.AddCardUseCase;
+import pl.training.payments.application.AddCardsUseCase;
+import pl.training.payments.application.CardNumberGenerator;
+import pl.training.payments.application.AddTransactionUseCase;
+import pl.training.payments.application.CardRepository;
+import pl.training.payments.application.GetCardUseCase;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+
+import java.time.ZonedDateTime;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:card-repository;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=pl.training.payments.adapters.persistence.jpa.RecordingStatementInspector"
+})
+@ActiveProfiles("test")
+class JpaCardRepositoryAdapterTest {
+
+    private static final Currency CURRENCY = Currency.getInstance("PLN");
+    private static final String CARD_TABLE = "card";
+
+    @Autowired
+    private AddCardUseCase addCardUseCase;
+    @Autowired
+    private AddCardsUseCase addCardsUseCase;
+    @Autowired
+    private CardNumberGenerator cardNumberGenerator;
+    @Autowired
+    private AddTransactionUseCase addTransactionUseCase;
+    @Autowired
+    private GetCardUseCase getCardUseCase;
+    @Autowired
+    private CardSaver cardSaver;
+
+    @Test
+    void adding_transaction_selects_card_once_and_updates_only_changed_columns() {
+        var card = addCardUseCase.handle(CURRENCY);
+        RecordingStatementInspector.clear();
+
+        addTransactionUseCase.handle(card.getNumber(), new Money(100, CURRENCY), INFLOW);
+
+        var statements = RecordingStatementInspector.statementsOn(CARD_TABLE);
+        assertThat(statements).filteredOn(statement -> statement.startsWith("select")).hasSize(1);
+        assertThat(statements).filteredOn(statement -> statement.startsWith("insert")).isEmpty();
+        assertThat(statements).filteredOn(statement -> statement.startsWith("update"))
+                .singleElement()
+                .satisfies(update -> assertThat(update)
+                        .contains("transactions=", "version=")
+                        .doesNotContain("number=", "expiration=", "currency_code="));
+    }
+
+    @Test
+    void saving_detached_existing_card_updates_it() {
+        var card = addCardUseCase.handle(CURRENCY);
+        var detachedCard = getCardUseCase.handle(card.getNumber());
+        detachedCard.registerTransaction(new Transaction(new TransactionId(), ZonedDateTime.now(), new Money(50, CURRENCY), INFLOW));
+
+        cardSaver.save(detachedCard);
+
+        assertThat(getCardUseCase.handle(card.getNumber()).getTransactions()).hasSize(1);
+    }
+
+    @Test
+    void issuing_new_cards_checks_for_existing_ones_with_a_single_select() {
+        var cardNumbers = cardNumberGenerator.reserve(50);
+        RecordingStatementInspector.clear();
+
+        addCardsUseCase.handle(CURRENCY, cardNumbers);
+
+        var statements = RecordingStatementInspector.statementsOn(CARD_TABLE);
+        assertThat(statements).filteredOn(statement -> statement.startsWith("select")).hasSize(1);
+        // the inspector sees one prepared insert, executed as a JDBC batch
+        assertThat(statements).filteredOn(statement -> statement.startsWith("insert")).hasSize(1);
+        assertThat(getCardUseCase.handle(cardNumbers.getLast()).getNumber()).isEqualTo(cardNumbers.getLast());
+    }
+
+    static class CardSaver {
+
+        private final CardRepository cardRepository;
+
+        CardSaver(final CardRepository cardRepository) {
+            this.cardRepository = cardRepository;
+        }
+
+        @Atomic
+        public Card save(final Card card) {
+            return cardRepository.save(card);
+        }
+
+    }
+
+    @TestConfiguration
+    static class CardSaverConfiguration {
+
+        @Bean
+        CardSaver cardSaver(final CardRepository cardRepository) {
+            return new CardSaver(cardRepository);
+        }
+
+    }
+
+}
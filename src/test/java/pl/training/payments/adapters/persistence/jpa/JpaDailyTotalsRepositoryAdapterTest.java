@@ -0,0 +1,102 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.training.payments.application.DailyTotalsRepository;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JpaDailyTotalsRepositoryAdapterTest {
+
+    private static final ZonedDateTime TIMESTAMP = ZonedDateTime.parse("2025-03-10T10:15:00Z");
+    private static final int WRITERS = 16;
+
+    @Autowired
+    private DailyTotalsRepository dailyTotalsRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void inflows_and_payments_of_a_day_are_summed_separately() {
+        var cardNumber = randomCardNumber();
+
+        inTransaction(() -> {
+            dailyTotalsRepository.add(cardNumber, transaction(100, INFLOW));
+            dailyTotalsRepository.add(cardNumber, transaction(40, PAYMENT));
+            dailyTotalsRepository.add(cardNumber, transaction(10, PAYMENT));
+        });
+
+        var totals = inTransaction(() -> dailyTotalsRepository.findByDay(cardNumber, TIMESTAMP.toLocalDate(), TIMESTAMP.toLocalDate()));
+        assertThat(totals).singleElement().satisfies(dailyTotals -> {
+            assertThat(dailyTotals.inflow()).isEqualByComparingTo(BigDecimal.valueOf(100));
+            assertThat(dailyTotals.inflowCount()).isEqualTo(1);
+            assertThat(dailyTotals.outflow()).isEqualByComparingTo(BigDecimal.valueOf(50));
+            assertThat(dailyTotals.outflowCount()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void concurrent_first_transactions_of_a_day_are_all_counted() throws Exception {
+        var cardNumber = randomCardNumber();
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newFixedThreadPool(WRITERS)) {
+            var results = new ArrayList<Future<?>>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    inTransaction(() -> dailyTotalsRepository.add(cardNumber, transaction(5, INFLOW)));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var result : results) {
+                result.get();
+            }
+        }
+
+        var totals = inTransaction(() -> dailyTotalsRepository.findByDay(cardNumber, TIMESTAMP.toLocalDate(), TIMESTAMP.toLocalDate()));
+        assertThat(totals).singleElement().satisfies(dailyTotals -> {
+            assertThat(dailyTotals.inflowCount()).isEqualTo(WRITERS);
+            assertThat(dailyTotals.inflow()).isEqualByComparingTo(BigDecimal.valueOf(5L * WRITERS));
+        });
+    }
+
+    private void inTransaction(final Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+
+    private <T> T inTransaction(final Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    private static Transaction transaction(final double amount, final TransactionType type) {
+        return new Transaction(new TransactionId(), TIMESTAMP, new Money(amount, "PLN"), type);
+    }
+
+    private static CardNumber randomCardNumber() {
+        return new CardNumber(ThreadLocalRandom.current().nextLong(1_000_000_000_000_000L, 9_999_999_999_999_999L), 16);
+    }
+
+}
@@ -0,0 +1,78 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import pl.training.payments.application.IdempotencyRecord;
+import pl.training.payments.application.IdempotencyStore;
+import pl.training.payments.application.IdempotentResult;
+import pl.training.payments.domain.TransactionId;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JpaIdempotencyStoreAdapterTest {
+
+    private static final String REQUEST_HASH = "hash";
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Test
+    void pending_claim_is_returned_to_a_second_claimant_until_its_lease_expires() {
+        var key = UUID.randomUUID().toString();
+        var now = ZonedDateTime.now();
+        assertThat(claim(key, "first", now, now.plusSeconds(30))).isEmpty();
+
+        assertThat(claim(key, "second", now, now.plusSeconds(30)))
+                .hasValueSatisfying(record -> assertThat(record.result()).isEmpty());
+        assertThat(claim(key, "third", now.plusSeconds(31), now.plusSeconds(61))).isEmpty();
+    }
+
+    @Test
+    void completed_claim_returns_its_result() {
+        var key = UUID.randomUUID().toString();
+        var now = ZonedDateTime.now();
+        var transactionId = new TransactionId();
+        claim(key, "first", now, now.plusSeconds(30));
+
+        idempotencyStore.complete(key, "first", IdempotentResult.of(transactionId));
+
+        assertThat(claim(key, "second", now, now.plusSeconds(30)))
+                .hasValueSatisfying(record -> assertThat(record.result()).contains(IdempotentResult.of(transactionId)));
+    }
+
+    @Test
+    void claim_taken_over_after_its_lease_can_not_be_completed_by_its_first_owner() {
+        var key = UUID.randomUUID().toString();
+        var now = ZonedDateTime.now();
+        claim(key, "first", now, now.plusSeconds(30));
+        claim(key, "second", now.plusSeconds(31), now.plusSeconds(61));
+
+        assertThatIllegalStateException().isThrownBy(() -> idempotencyStore.complete(key, "first", IdempotentResult.of(new TransactionId())));
+    }
+
+    @Test
+    void released_claim_can_be_claimed_again() {
+        var key = UUID.randomUUID().toString();
+        var now = ZonedDateTime.now();
+        claim(key, "first", now, now.plusSeconds(30));
+
+        idempotencyStore.release(key, "first");
+
+        assertThat(claim(key, "second", now, now.plusSeconds(30))).isEmpty();
+    }
+
+    private Optional<IdempotencyRecord> claim(final String key, final String token, final ZonedDateTime timestamp,
+                                              final ZonedDateTime leaseExpiration) {
+        return idempotencyStore.claim(key, token, REQUEST_HASH, timestamp, leaseExpiration, timestamp.plusHours(24));
+    }
+
+}
@@ -0,0 +1,37 @@
+package pl.training.payments.adapters.persistence.jpa;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Registered through hibernate.session_factory.statement_inspector, records every statement Hibernate prepares
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    @Override
+    public String inspect(final String sql) {
+        synchronized (STATEMENTS) {
+            STATEMENTS.add(sql.toLowerCase());
+        }
+        return sql;
+    }
+
+    static void clear() {
+        synchronized (STATEMENTS) {
+            STATEMENTS.clear();
+        }
+    }
+
+    static List<String> statementsOn(final String table) {
+        var tablePattern = Pattern.compile("\\b" + table + "\\b");
+        synchronized (STATEMENTS) {
+            return STATEMENTS.stream()
+                    .filter(statement -> tablePattern.matcher(statement).find())
+                    .toList();
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package pl.training.payments.adapters.persistence.offheap;
+
+import org.junit.jupiter.api.Test;
+import pl.training.payments.adapters.persistence.CardRepositoryContractTest;
+import pl.training.payments.adapters.persistence.TransactionHistoryCodec;
+import pl.training.payments.adapters.persistence.TransactionJsonMapper;
+import pl.training.payments.application.CardRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.training.payments.adapters.persistence.TestCards.inflow;
+import static pl.training.payments.adapters.persistence.TestCards.newCard;
+import static pl.training.payments.adapters.persistence.TransactionHistoryCodec.Compression.NONE;
+
+class OffHeapCardRepositoryTest extends CardRepositoryContractTest {
+
+    private final OffHeapCardRepository repository = new OffHeapCardRepository(new TransactionJsonMapper(), new TransactionHistoryCodec(NONE, 1));
+
+    @Override
+    protected CardRepository repository() {
+        return repository;
+    }
+
+    @Test
+    void history_outgrowing_its_block_reads_back() {
+        var card = saved(newCard());
+
+        for (int round = 0; round < 20; round++) {
+            transaction.executeWithoutResult(status -> {
+                var storedCard = repository.findByNumber(card.getNumber()).orElseThrow();
+                storedCard.registerTransaction(inflow(1));
+                repository.save(storedCard);
+            });
+        }
+
+        assertThat(repository.findByNumber(card.getNumber()).orElseThrow().getTransactions()).hasSize(20);
+        assertThat(balance(card.getNumber())).isEqualByComparingTo("20");
+    }
+
+}
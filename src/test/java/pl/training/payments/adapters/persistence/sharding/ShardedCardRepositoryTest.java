@@ -0,0 +1,130 @@
+package pl.training.payments.adapters.persistence.sharding;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.training.payments.adapters.persistence.InProcessTransactionManager;
+import pl.training.payments.domain.Card;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pl.training.payments.adapters.persistence.TestCards.inflow;
+import static pl.training.payments.adapters.persistence.TestCards.newCard;
+
+class ShardedCardRepositoryTest {
+
+    private final TransactionTemplate transaction = InProcessTransactionManager.required();
+    private final TransactionTemplate newTransaction = InProcessTransactionManager.requiresNew();
+    private final String databasePrefix = "shard-" + UUID.randomUUID();
+    private final List<Shards> openShards = new ArrayList<>();
+    private Shards shards = open("shard-0", "shard-1");
+    private ShardedCardRepository repository = new ShardedCardRepository(shards);
+
+    @AfterEach
+    void close() {
+        openShards.forEach(Shards::close);
+    }
+
+    private Shards open(final String... names) {
+        var shardProperties = List.of(names).stream()
+                .map(name -> new ShardingProperties.ShardProperties(name, "jdbc:h2:mem:%s-%s;DB_CLOSE_DELAY=-1".formatted(databasePrefix, name), "sa", "", 2))
+                .toList();
+        var openedShards = new Shards(new ShardingProperties(shardProperties, 128, 500));
+        openShards.add(openedShards);
+        return openedShards;
+    }
+
+    private Card saved(final Card card) {
+        transaction.executeWithoutResult(status -> repository.save(card));
+        return card;
+    }
+
+    private void addInflow(final Card card, final double amount) {
+        transaction.executeWithoutResult(status -> {
+            var storedCard = repository.findByNumber(card.getNumber()).orElseThrow();
+            storedCard.registerTransaction(inflow(amount));
+            repository.save(storedCard);
+        });
+    }
+
+    private String balance(final Card card) {
+        return repository.findByNumber(card.getNumber()).orElseThrow().getBalance().amount().stripTrailingZeros().toPlainString();
+    }
+
+    @Test
+    void committed_changes_read_back() {
+        var card = saved(newCard());
+
+        addInflow(card, 10);
+        addInflow(card, 5);
+
+        assertThat(balance(card)).isEqualTo("15");
+    }
+
+    @Test
+    void save_of_card_changed_since_it_was_read_is_rejected() {
+        var card = saved(newCard());
+
+        transaction.executeWithoutResult(status -> {
+            var staleCard = repository.findByNumber(card.getNumber()).orElseThrow();
+            newTransaction.executeWithoutResult(inner -> addInflow(card, 10));
+            staleCard.registerTransaction(inflow(20));
+            assertThatThrownBy(() -> repository.save(staleCard)).isInstanceOf(OptimisticLockingFailureException.class);
+        });
+
+        assertThat(balance(card)).isEqualTo("10");
+    }
+
+    @Test
+    void rolled_back_save_is_discarded() {
+        var card = saved(newCard());
+
+        transaction.executeWithoutResult(status -> {
+            var storedCard = repository.findByNumber(card.getNumber()).orElseThrow();
+            storedCard.registerTransaction(inflow(10));
+            repository.save(storedCard);
+            status.setRollbackOnly();
+        });
+
+        assertThat(balance(card)).isEqualTo("0");
+    }
+
+    @Test
+    void card_read_outside_a_transaction_is_upserted() {
+        var card = saved(newCard());
+        var detachedCard = repository.findByNumber(card.getNumber()).orElseThrow();
+        addInflow(card, 10);
+
+        detachedCard.registerTransaction(inflow(20));
+        saved(detachedCard);
+
+        assertThat(balance(card)).isEqualTo("20");
+    }
+
+    @Test
+    void card_not_yet_moved_is_saved_on_its_owner_while_rebalancing() {
+        shards = open("shard-a");
+        repository = new ShardedCardRepository(shards);
+        var card = saved(newCard());
+        var grownShards = open("shard-a", "shard-b");
+        while (!grownShards.shardFor(card.getNumber()).name().equals("shard-b")) {
+            card = saved(newCard());
+        }
+        shards = grownShards;
+        repository = new ShardedCardRepository(shards);
+        assertThat(shards.isRebalancing()).isTrue();
+
+        addInflow(card, 10);
+        new ShardRebalancer(shards, new ShardingProperties(List.of(), 128, 500)).rebalance();
+        addInflow(card, 5);
+
+        assertThat(shards.isRebalancing()).isFalse();
+        assertThat(balance(card)).isEqualTo("15");
+    }
+
+}
@@ -0,0 +1,81 @@
+package pl.training.payments.adapters.rest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.training.payments.application.GetCardUseCase;
+import pl.training.payments.domain.CardNumber;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BulkAddCardsRestControllerTest {
+
+    private static final String BEARER_TOKEN = "Bearer header.payload.signature";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private GetCardUseCase getCardUseCase;
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() {
+        var now = Instant.now();
+        var jwt = new Jwt("header.payload.signature", now, now.plusSeconds(60), Map.of("alg", "RS256"),
+                Map.of("sub", "admin", "realm_access", Map.of("roles", List.of("ROLE_ADMIN"))));
+        when(jwtDecoder.decode(anyString())).thenReturn(jwt);
+    }
+
+    @Test
+    void issued_cards_are_streamed_as_ndjson_and_stored() throws Exception {
+        var started = mockMvc.perform(post("/api/cards/bulk").header(AUTHORIZATION, BEARER_TOKEN).contentType(APPLICATION_JSON).content("""
+                        {"currencyCode": "PLN", "count": 2500}"""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        var lines = response.lines().toList();
+        assertThat(lines).hasSize(2500).allMatch(line -> line.matches("\\{\"number\":\"\\d{16}\",\"expiration\":\"[\\d-]+\"}"));
+        assertThat(lines.stream().distinct()).hasSize(2500);
+        var lastNumber = lines.getLast().substring(11, 27);
+        assertThat(getCardUseCase.handle(new CardNumber(lastNumber)).getNumber().value()).isEqualTo(lastNumber);
+    }
+
+    @Test
+    void count_above_the_limit_is_rejected_before_any_number_is_reserved() throws Exception {
+        mockMvc.perform(post("/api/cards/bulk").header(AUTHORIZATION, BEARER_TOKEN).contentType(APPLICATION_JSON).content("""
+                        {"currencyCode": "PLN", "count": 100001}"""))
+                .andExpect(status().isBadRequest());
+    }
+
+}
@@ -0,0 +1,79 @@
+package pl.training.payments.adapters.rest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+import pl.training.common.web.RestExceptionResponseBuilder;
+import pl.training.payments.application.VelocityCapacityExceededException;
+import pl.training.payments.domain.InsufficientBalanceException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+class PaymentsRestExceptionHandlerTest {
+
+    private static final int REJECTIONS = 1_000;
+
+    private final Logger logger = Logger.getLogger(PaymentsRestExceptionHandler.class.getName());
+    private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+    private final Handler handler = new Handler() {
+
+        @Override
+        public void publish(final LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+    };
+    private final PaymentsRestExceptionHandler exceptionHandler = new PaymentsRestExceptionHandler(
+            new RestExceptionResponseBuilder(new StaticMessageSource(), Locale.ENGLISH, List.of(Locale.ENGLISH)));
+
+    @BeforeEach
+    void addHandler() {
+        logger.addHandler(handler);
+    }
+
+    @AfterEach
+    void removeHandler() {
+        logger.removeHandler(handler);
+    }
+
+    @Test
+    void burst_of_rejections_is_logged_once() {
+        for (int index = 0; index < REJECTIONS; index++) {
+            var response = exceptionHandler.onInsufficientBalanceException(new InsufficientBalanceException(), Locale.ENGLISH);
+            assertThat(response.getStatusCode()).isEqualTo(BAD_REQUEST);
+        }
+
+        assertThat(records).singleElement()
+                .satisfies(record -> assertThat(record.getMessage()).contains("InsufficientBalanceException"));
+    }
+
+    @Test
+    void velocity_capacity_is_answered_with_service_unavailable_and_retry_after() {
+        var response = exceptionHandler.onVelocityCapacityExceededException(
+                new VelocityCapacityExceededException(Duration.ofMillis(1_500)), Locale.ENGLISH);
+
+        assertThat(response.getStatusCode()).isEqualTo(SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(RETRY_AFTER)).isEqualTo("2");
+    }
+
+}
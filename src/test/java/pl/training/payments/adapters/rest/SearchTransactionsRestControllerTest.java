@@ -0,0 +1,96 @@
+package pl.training.payments.adapters.rest;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.training.payments.application.AddCardUseCase;
+import pl.training.payments.application.AddTransactionUseCase;
+import pl.training.payments.domain.Money;
+
+import java.time.Instant;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SearchTransactionsRestControllerTest {
+
+    private static final String BEARER_TOKEN = "Bearer header.payload.signature";
+    private static final Currency CURRENCY = Currency.getInstance("CHF");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AddCardUseCase addCardUseCase;
+    @Autowired
+    private AddTransactionUseCase addTransactionUseCase;
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() {
+        var now = Instant.now();
+        var jwt = new Jwt("header.payload.signature", now, now.plusSeconds(60), Map.of("alg", "RS256"),
+                Map.of("sub", "admin", "realm_access", Map.of("roles", List.of("ROLE_ADMIN"))));
+        when(jwtDecoder.decode(anyString())).thenReturn(jwt);
+    }
+
+    @Test
+    void matching_transactions_are_returned_page_by_page() throws Exception {
+        var from = Instant.now();
+        var card = addCardUseCase.handle(CURRENCY);
+        for (var amount : List.of(10, 20, 30, 40, 50)) {
+            addTransactionUseCase.handle(card.getNumber(), new Money(amount, CURRENCY), INFLOW);
+        }
+        addTransactionUseCase.handle(card.getNumber(), new Money(25, CURRENCY), PAYMENT);
+        var search = "/api/transactions?type=IN&currency=CHF&minAmount=20&maxAmount=50&from=%s&pageSize=2".formatted(from);
+
+        var firstPage = mockMvc.perform(get(search).header(AUTHORIZATION, BEARER_TOKEN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].value").value(contains(20.0, 30.0)))
+                .andExpect(jsonPath("$.content[*].cardNumber").value(contains(card.getNumber().value(), card.getNumber().value())))
+                .andExpect(jsonPath("$.content[*].type").value(contains("IN", "IN")))
+                .andReturn();
+        var nextCursor = JsonPath.<Number>read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get(search + "&cursor=" + nextCursor).header(AUTHORIZATION, BEARER_TOKEN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].value").value(contains(40.0)))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    void payments_are_found_by_the_out_type() throws Exception {
+        var from = Instant.now();
+        var card = addCardUseCase.handle(CURRENCY);
+        addTransactionUseCase.handle(card.getNumber(), new Money(100, CURRENCY), INFLOW);
+        addTransactionUseCase.handle(card.getNumber(), new Money(60, CURRENCY), PAYMENT);
+
+        mockMvc.perform(get("/api/transactions?type=OUT&currency=CHF&from=" + from).header(AUTHORIZATION, BEARER_TOKEN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].value").value(contains(60.0)))
+                .andExpect(jsonPath("$.content[*].type").value(contains("OUT")));
+    }
+
+}
@@ -0,0 +1,161 @@
+package pl.training.payments.adapters.velocity;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.training.payments.adapters.persistence.InProcessTransactionManager;
+import pl.training.payments.application.VelocityCapacityExceededException;
+import pl.training.payments.application.VelocityLimitExceededException;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.Transaction;
+import pl.training.payments.domain.TransactionId;
+import pl.training.payments.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pl.training.payments.adapters.persistence.TestCards.CURRENCY;
+import static pl.training.payments.adapters.persistence.TestCards.newCard;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+class VelocityCheckTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+    private static final VelocityProperties.Rule COUNT_RULE =
+            new VelocityProperties.Rule("payments-per-minute", PAYMENT, null, WINDOW, 12, 2L, null);
+    private static final VelocityProperties.Rule AMOUNT_RULE =
+            new VelocityProperties.Rule("payment-amount-per-minute", PAYMENT, null, WINDOW, 12, null, new BigDecimal("100"));
+
+    private final TransactionTemplate transaction = InProcessTransactionManager.required();
+    private final CardNumber cardNumber = newCard().getNumber();
+
+    @Test
+    void payments_over_the_limit_are_rejected_and_inflows_are_not_counted() {
+        var velocityCheck = velocityCheck(100, COUNT_RULE);
+
+        velocityCheck.check(cardNumber, payment(10));
+        velocityCheck.check(cardNumber, payment(10));
+        velocityCheck.check(cardNumber, transaction(10, INFLOW, now()));
+
+        assertThatThrownBy(() -> velocityCheck.check(cardNumber, payment(10))).isInstanceOf(VelocityLimitExceededException.class);
+    }
+
+    @Test
+    void payments_of_a_rolled_back_transaction_are_released() {
+        var velocityCheck = velocityCheck(100, COUNT_RULE);
+
+        transaction.executeWithoutResult(status -> {
+            velocityCheck.check(cardNumber, payment(10));
+            velocityCheck.check(cardNumber, payment(10));
+            status.setRollbackOnly();
+        });
+
+        velocityCheck.check(cardNumber, payment(10));
+        velocityCheck.check(cardNumber, payment(10));
+        assertThatThrownBy(() -> velocityCheck.check(cardNumber, payment(10))).isInstanceOf(VelocityLimitExceededException.class);
+    }
+
+    @Test
+    void payments_of_a_committed_transaction_stay_in_the_window() {
+        var velocityCheck = velocityCheck(100, COUNT_RULE);
+
+        transaction.executeWithoutResult(status -> {
+            velocityCheck.check(cardNumber, payment(10));
+            velocityCheck.check(cardNumber, payment(10));
+        });
+
+        assertThatThrownBy(() -> velocityCheck.check(cardNumber, payment(10))).isInstanceOf(VelocityLimitExceededException.class);
+    }
+
+    @Test
+    void the_amount_of_a_rolled_back_payment_is_released() {
+        var velocityCheck = velocityCheck(100, AMOUNT_RULE);
+        velocityCheck.check(cardNumber, payment(40));
+
+        transaction.executeWithoutResult(status -> {
+            velocityCheck.check(cardNumber, payment(60));
+            status.setRollbackOnly();
+        });
+
+        velocityCheck.check(cardNumber, payment(60));
+        assertThatThrownBy(() -> velocityCheck.check(cardNumber, payment(0.01))).isInstanceOf(VelocityLimitExceededException.class);
+    }
+
+    @Test
+    void a_payment_delayed_by_a_whole_window_is_released_without_touching_the_newer_bucket() {
+        var velocityCheck = velocityCheck(100, COUNT_RULE);
+        var time = now();
+        velocityCheck.check(cardNumber, transaction(10, PAYMENT, time));
+
+        transaction.executeWithoutResult(status -> {
+            velocityCheck.check(cardNumber, transaction(10, PAYMENT, time.minus(WINDOW)));
+            status.setRollbackOnly();
+        });
+
+        velocityCheck.check(cardNumber, transaction(10, PAYMENT, time));
+        assertThatThrownBy(() -> velocityCheck.check(cardNumber, transaction(10, PAYMENT, time)))
+                .isInstanceOf(VelocityLimitExceededException.class);
+    }
+
+    @Test
+    void releasing_a_payment_of_a_card_removed_as_idle_is_ignored() {
+        var velocityCheck = velocityCheck(100, COUNT_RULE);
+
+        assertThatCode(() -> transaction.executeWithoutResult(status -> {
+            velocityCheck.check(cardNumber, transaction(10, PAYMENT, now().minusHours(1)));
+            velocityCheck.removeIdle();
+            status.setRollbackOnly();
+        })).doesNotThrowAnyException();
+
+        velocityCheck.check(cardNumber, payment(10));
+        velocityCheck.check(cardNumber, payment(10));
+        assertThatThrownBy(() -> velocityCheck.check(cardNumber, payment(10))).isInstanceOf(VelocityLimitExceededException.class);
+    }
+
+    @Test
+    void a_full_map_evicts_idle_cards_to_take_a_new_one() {
+        var velocityCheck = velocityCheck(2, COUNT_RULE);
+        velocityCheck.check(newCard().getNumber(), transaction(10, PAYMENT, now().minusHours(1)));
+        velocityCheck.check(newCard().getNumber(), transaction(10, PAYMENT, now().minusHours(1)));
+
+        assertThatCode(() -> velocityCheck.check(cardNumber, payment(10))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void a_full_map_of_active_cards_refuses_new_cards_with_a_capacity_error_and_keeps_checking_known_ones() {
+        var velocityCheck = velocityCheck(2, COUNT_RULE);
+        velocityCheck.check(cardNumber, payment(10));
+        velocityCheck.check(newCard().getNumber(), payment(10));
+
+        assertThatThrownBy(() -> velocityCheck.check(newCard().getNumber(), payment(10)))
+                .isInstanceOfSatisfying(VelocityCapacityExceededException.class, exception -> assertThat(exception.getRetryAfter())
+                        .isPositive()
+                        .isLessThanOrEqualTo(WINDOW.plusMillis(1)));
+        velocityCheck.check(cardNumber, payment(10));
+        assertThatThrownBy(() -> velocityCheck.check(cardNumber, payment(10))).isInstanceOf(VelocityLimitExceededException.class);
+    }
+
+    private static VelocityCheck velocityCheck(final int maxCards, final VelocityProperties.Rule rule) {
+        return new VelocityCheck(new VelocityProperties(List.of(rule), maxCards, Duration.ofMinutes(1)));
+    }
+
+    private static Transaction payment(final double amount) {
+        return transaction(amount, PAYMENT, now());
+    }
+
+    private static Transaction transaction(final double amount, final TransactionType type, final ZonedDateTime timestamp) {
+        return new Transaction(new TransactionId(), timestamp, new Money(amount, CURRENCY), type);
+    }
+
+    private static ZonedDateTime now() {
+        return ZonedDateTime.now(ZoneOffset.UTC);
+    }
+
+}
@@ -0,0 +1,103 @@
+package pl.training.payments.application;
+
+import org.junit.jupiter.api.Test;
+import pl.training.common.aop.ConcurrencyLimitExceededException;
+import pl.training.payments.domain.Card;
+import pl.training.payments.domain.CardId;
+import pl.training.payments.domain.CardNumber;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkAddCardsUseCaseTest {
+
+    private static final Currency CURRENCY = Currency.getInstance("PLN");
+    private static final int CHUNK_SIZE = 4;
+
+    private final CardNumberGenerator cardNumberGenerator = mock(CardNumberGenerator.class);
+    private final AddCardsUseCase addCardsUseCase = mock(AddCardsUseCase.class);
+    private final BulkAddCardsUseCase useCase = new BulkAddCardsUseCase(cardNumberGenerator, addCardsUseCase, CHUNK_SIZE);
+    private final List<List<Card>> reportedChunks = new ArrayList<>();
+
+    BulkAddCardsUseCaseTest() {
+        when(addCardsUseCase.handle(eq(CURRENCY), anyList())).thenAnswer(invocation -> toCards(invocation.getArgument(1)));
+    }
+
+    private static List<Card> toCards(final List<CardNumber> cardNumbers) {
+        return cardNumbers.stream()
+                .map(cardNumber -> new Card(new CardId(), cardNumber, LocalDate.of(2099, 1, 1), CURRENCY))
+                .toList();
+    }
+
+    private static List<CardNumber> cardNumbers(final int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(digits -> new CardNumber(digits, 16))
+                .toList();
+    }
+
+    @Test
+    void cards_are_issued_and_reported_chunk_by_chunk() {
+        var cardNumbers = cardNumbers(10);
+
+        useCase.issue(CURRENCY, cardNumbers, reportedChunks::add);
+
+        assertThat(reportedChunks).extracting(List::size).containsExactly(4, 4, 2);
+        assertThat(reportedChunks.stream().flatMap(List::stream).map(Card::getNumber)).containsExactlyElementsOf(cardNumbers);
+    }
+
+    @Test
+    void shed_chunk_is_tried_again_after_the_advised_delay() {
+        when(addCardsUseCase.handle(eq(CURRENCY), anyList()))
+                .thenThrow(new ConcurrencyLimitExceededException(Duration.ofMillis(1)))
+                .thenAnswer(invocation -> toCards(invocation.getArgument(1)));
+
+        useCase.issue(CURRENCY, cardNumbers(4), reportedChunks::add);
+
+        assertThat(reportedChunks).singleElement().asList().hasSize(4);
+        verify(addCardsUseCase, times(2)).handle(eq(CURRENCY), anyList());
+    }
+
+    @Test
+    void chunk_shed_on_every_attempt_fails_the_issuance() {
+        var exception = new ConcurrencyLimitExceededException(Duration.ZERO);
+        when(addCardsUseCase.handle(eq(CURRENCY), anyList())).thenThrow(exception);
+
+        assertThatThrownBy(() -> useCase.issue(CURRENCY, cardNumbers(4), reportedChunks::add)).isSameAs(exception);
+        verify(addCardsUseCase, times(30)).handle(eq(CURRENCY), anyList());
+    }
+
+    @Test
+    void failed_chunk_stops_the_issuance_and_keeps_the_chunks_reported_before() {
+        var failure = new IllegalStateException("database unavailable");
+        when(addCardsUseCase.handle(eq(CURRENCY), anyList()))
+                .thenAnswer(invocation -> toCards(invocation.getArgument(1)))
+                .thenThrow(failure);
+
+        assertThatThrownBy(() -> useCase.issue(CURRENCY, cardNumbers(12), reportedChunks::add)).isSameAs(failure);
+        assertThat(reportedChunks).hasSize(1);
+        verify(addCardsUseCase, times(2)).handle(any(), anyList());
+    }
+
+    @Test
+    void numbers_are_reserved_by_the_generator() {
+        var cardNumbers = cardNumbers(3);
+        when(cardNumberGenerator.reserve(3)).thenReturn(cardNumbers);
+
+        assertThat(useCase.reserve(3)).isEqualTo(cardNumbers);
+    }
+
+}
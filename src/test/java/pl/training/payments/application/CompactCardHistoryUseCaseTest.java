@@ -0,0 +1,69 @@
+package pl.training.payments.application;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import pl.training.common.PageSpec;
+import pl.training.payments.domain.Money;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.training.payments.domain.TransactionType.INFLOW;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+// a zero hot window archives every transaction registered before the compaction
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:compaction;DB_CLOSE_DELAY=-1",
+        "payments.history.hot-window=PT0S"
+})
+@ActiveProfiles("test")
+class CompactCardHistoryUseCaseTest {
+
+    private static final Currency CURRENCY = Currency.getInstance("PLN");
+
+    @Autowired
+    private AddCardUseCase addCardUseCase;
+    @Autowired
+    private AddTransactionUseCase addTransactionUseCase;
+    @Autowired
+    private CompactCardHistoryUseCase compactCardHistoryUseCase;
+    @Autowired
+    private GetCardUseCase getCardUseCase;
+    @Autowired
+    private GetCardTransactionsUseCase getCardTransactionsUseCase;
+
+    @Test
+    void compacted_card_keeps_its_balance_and_serves_history_from_the_archive() {
+        var from = ZonedDateTime.now().minusMinutes(1);
+        var card = addCardUseCase.handle(CURRENCY);
+        addTransactionUseCase.handle(card.getNumber(), new Money(100, CURRENCY), INFLOW);
+        addTransactionUseCase.handle(card.getNumber(), new Money(30, CURRENCY), PAYMENT);
+
+        compactCardHistoryUseCase.handle(new PageSpec(0, Integer.MAX_VALUE));
+
+        var compactedCard = getCardUseCase.handle(card.getNumber());
+        assertThat(compactedCard.getTransactions()).isEmpty();
+        assertThat(compactedCard.getBalance().amount()).isEqualByComparingTo(BigDecimal.valueOf(70));
+        assertThat(getCardTransactionsUseCase.handle(card.getNumber(), from, ZonedDateTime.now().plusMinutes(1)))
+                .extracting(transaction -> transaction.type())
+                .containsExactly(INFLOW, PAYMENT);
+    }
+
+    @Test
+    void compacted_card_accepts_new_transactions_against_its_checkpoint() {
+        var card = addCardUseCase.handle(CURRENCY);
+        addTransactionUseCase.handle(card.getNumber(), new Money(50, CURRENCY), INFLOW);
+        compactCardHistoryUseCase.handle(new PageSpec(0, Integer.MAX_VALUE));
+
+        addTransactionUseCase.handle(card.getNumber(), new Money(20, CURRENCY), PAYMENT);
+
+        var updatedCard = getCardUseCase.handle(card.getNumber());
+        assertThat(updatedCard.getTransactions()).hasSize(1);
+        assertThat(updatedCard.getBalance().amount()).isEqualByComparingTo(BigDecimal.valueOf(30));
+    }
+
+}
@@ -0,0 +1,133 @@
+package pl.training.payments.application;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import pl.training.payments.domain.CardNumber;
+import pl.training.payments.domain.InsufficientBalanceException;
+import pl.training.payments.domain.Money;
+import pl.training.payments.domain.TransactionId;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static pl.training.payments.domain.TransactionType.PAYMENT;
+
+class IdempotentAddTransactionUseCaseTest {
+
+    private static final String KEY = "payment-1";
+    private static final CardNumber CARD_NUMBER = new CardNumber("1234567890123456");
+    private static final Money VALUE = new Money(10, "PLN");
+    private static final int DUPLICATES = 8;
+
+    private final RecordedAddTransactionUseCase recordedAddTransactionUseCase = mock(RecordedAddTransactionUseCase.class);
+    private final IdempotencyStore idempotencyStore = mock(IdempotencyStore.class);
+    private final IdempotentAddTransactionUseCase useCase = new IdempotentAddTransactionUseCase(recordedAddTransactionUseCase,
+            idempotencyStore, ZonedDateTime::now, Duration.ofHours(1), Duration.ofSeconds(30), 100);
+
+    IdempotentAddTransactionUseCaseTest() {
+        when(idempotencyStore.claim(anyString(), anyString(), anyString(), any(), any(), any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void concurrent_duplicates_wait_for_the_first_execution_and_share_its_result() throws Exception {
+        var transactionId = new TransactionId();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(recordedAddTransactionUseCase.handle(anyString(), anyString(), eq(CARD_NUMBER), eq(VALUE), eq(PAYMENT))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return transactionId;
+        });
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var results = new ArrayList<Future<TransactionId>>();
+            results.add(executor.submit(() -> useCase.handle(KEY, CARD_NUMBER, VALUE, PAYMENT)));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int duplicate = 1; duplicate < DUPLICATES; duplicate++) {
+                results.add(executor.submit(() -> useCase.handle(KEY, CARD_NUMBER, VALUE, PAYMENT)));
+            }
+            release.countDown();
+            for (var result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(transactionId);
+            }
+        }
+        verify(recordedAddTransactionUseCase, times(1)).handle(anyString(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void business_rejection_is_recorded_and_replayed_without_executing_again() {
+        when(recordedAddTransactionUseCase.handle(anyString(), anyString(), any(), any(), any())).thenThrow(new InsufficientBalanceException());
+
+        assertThatThrownBy(() -> useCase.handle(KEY, CARD_NUMBER, VALUE, PAYMENT)).isInstanceOf(InsufficientBalanceException.class);
+        assertThatThrownBy(() -> useCase.handle(KEY, CARD_NUMBER, VALUE, PAYMENT)).isInstanceOf(InsufficientBalanceException.class);
+
+        verify(recordedAddTransactionUseCase, times(1)).handle(anyString(), anyString(), any(), any(), any());
+        verify(idempotencyStore).complete(anyString(), anyString(), eq(new IdempotentResult(null, InsufficientBalanceException.class.getSimpleName())));
+    }
+
+    @Test
+    void technical_failure_releases_the_claim_so_a_retry_executes_again() {
+        var transactionId = new TransactionId();
+        when(recordedAddTransactionUseCase.handle(anyString(), anyString(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(transactionId);
+
+        assertThatThrownBy(() -> useCase.handle(KEY, CARD_NUMBER, VALUE, PAYMENT)).isInstanceOf(IllegalStateException.class);
+
+        verify(idempotencyStore).release(anyString(), anyString());
+        assertThat(useCase.handle(KEY, CARD_NUMBER, VALUE, PAYMENT)).isEqualTo(transactionId);
+    }
+
+    @Test
+    void key_reused_for_a_different_request_is_rejected() {
+        when(recordedAddTransactionUseCase.handle(anyString(), anyString(), any(), any(), any())).thenReturn(new TransactionId());
+        useCase.handle(KEY, CARD_NUMBER, VALUE, PAYMENT);
+
+        assertThatThrownBy(() -> useCase.handle(KEY, CARD_NUMBER, new Money(11, "PLN"), PAYMENT))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    void key_claimed_by_another_instance_is_answered_from_its_record() {
+        var transactionId = new TransactionId();
+        var otherInstance = new IdempotentAddTransactionUseCase(recordedAddTransactionUseCase, idempotencyStore, ZonedDateTime::now,
+                Duration.ofHours(1), Duration.ofSeconds(30), 100);
+        when(recordedAddTransactionUseCase.handle(anyString(), anyString(), any(), any(), any())).thenReturn(transactionId);
+        useCase.handle(KEY, CARD_NUMBER, VALUE, PAYMENT);
+        var requestHash = captureRequestHash();
+        when(idempotencyStore.claim(anyString(), anyString(), anyString(), any(), any(), any()))
+                .thenReturn(Optional.of(new IdempotencyRecord(requestHash, Optional.of(IdempotentResult.of(transactionId)))));
+
+        assertThat(otherInstance.handle(KEY, CARD_NUMBER, VALUE, PAYMENT)).isEqualTo(transactionId);
+        verify(recordedAddTransactionUseCase, times(1)).handle(anyString(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void key_still_pending_on_another_instance_is_reported_as_in_progress() {
+        when(idempotencyStore.claim(anyString(), anyString(), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> Optional.of(new IdempotencyRecord(invocation.getArgument(2), Optional.empty())));
+
+        assertThatThrownBy(() -> useCase.handle(KEY, CARD_NUMBER, VALUE, PAYMENT)).isInstanceOf(IdempotentRequestInProgressException.class);
+    }
+
+    private String captureRequestHash() {
+        var requestHash = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyStore).claim(anyString(), anyString(), requestHash.capture(), any(), any(), any());
+        return requestHash.getValue();
+    }
+
+}
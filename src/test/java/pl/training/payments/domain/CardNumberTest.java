@@ -0,0 +1,62 @@
+package pl.training.payments.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CardNumberTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0000000000000000", "4111111111111111", "0123456789012345678", "9999999999999999999"})
+    void packed_number_reads_back_unchanged(final String value) {
+        var cardNumber = new CardNumber(value);
+
+        var unpacked = new CardNumber(cardNumber.digits(), cardNumber.length());
+
+        assertThat(unpacked.value()).isEqualTo(value);
+        assertThat(unpacked).isEqualTo(cardNumber).hasSameHashCodeAs(cardNumber);
+    }
+
+    @Test
+    void numbers_differing_only_in_leading_zeros_have_different_keys() {
+        var numbers = new CardNumber[]{
+                new CardNumber("0000000000000001"),
+                new CardNumber("00000000000000001"),
+                new CardNumber("000000000000000001"),
+                new CardNumber("0000000000000000001")
+        };
+
+        for (int first = 0; first < numbers.length; first++) {
+            for (int second = first + 1; second < numbers.length; second++) {
+                assertThat(numbers[first]).isNotEqualTo(numbers[second]);
+                assertThat(numbers[first].key()).isNotEqualTo(numbers[second].key());
+            }
+        }
+    }
+
+    @Test
+    void largest_numbers_of_adjacent_lengths_do_not_share_keys() {
+        var longest16 = new CardNumber("9999999999999999");
+        var shortest17 = new CardNumber("00000000000000000");
+        var longest19 = new CardNumber("9999999999999999999");
+        var longest18 = new CardNumber("999999999999999999");
+
+        assertThat(longest16.key()).isLessThan(shortest17.key());
+        assertThat(Long.compareUnsigned(longest18.key(), longest19.key())).isNegative();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"411111111111111", "41111111111111111111", "411111111111111a", ""})
+    void invalid_number_is_rejected(final String value) {
+        assertThatIllegalArgumentException().isThrownBy(() -> new CardNumber(value));
+    }
+
+    @Test
+    void digits_beyond_the_length_are_rejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new CardNumber(10_000_000_000_000_000L, 16));
+    }
+
+}
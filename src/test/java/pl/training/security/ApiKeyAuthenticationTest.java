@@ -0,0 +1,100 @@
+package pl.training.security;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ApiKeyAuthenticationTest {
+
+    private static final String BEARER_TOKEN = "Bearer header.payload.signature";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ApiKeyStore apiKeyStore;
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() {
+        var now = Instant.now();
+        var jwt = new Jwt("header.payload.signature", now, now.plusSeconds(60), Map.of("alg", "RS256"),
+                Map.of("sub", "admin", "realm_access", Map.of("roles", List.of("ROLE_ADMIN"))));
+        when(jwtDecoder.decode(anyString())).thenReturn(jwt);
+    }
+
+    @Test
+    void key_issued_with_an_unprefixed_role_is_authorized() throws Exception {
+        var response = mockMvc.perform(post("/api/api-keys").header(AUTHORIZATION, BEARER_TOKEN).contentType(APPLICATION_JSON).content("""
+                        {"roles": ["ADMIN"]}"""))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.roles", contains("ROLE_ADMIN")))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String apiKey = JsonPath.read(response, "$.apiKey");
+
+        mockMvc.perform(get("/api/cards").header(AUTHORIZATION, "API_KEY " + apiKey))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void key_with_an_unknown_role_is_not_issued() throws Exception {
+        mockMvc.perform(post("/api/api-keys").header(AUTHORIZATION, BEARER_TOKEN).contentType(APPLICATION_JSON).content("""
+                        {"roles": ["ADMIN", "SUPERUSER"]}"""))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unknown_role_is_rejected_by_the_store() {
+        assertThatIllegalArgumentException().isThrownBy(() -> apiKeyStore.issue(Set.of("ROLE_SUPERUSER")));
+    }
+
+    @Test
+    void revoked_key_is_rejected() throws Exception {
+        var issuedApiKey = apiKeyStore.issue(Set.of("ROLE_ADMIN"));
+
+        mockMvc.perform(delete("/api/api-keys/" + issuedApiKey.keyId()).header(AUTHORIZATION, BEARER_TOKEN))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/cards").header(AUTHORIZATION, "API_KEY " + issuedApiKey.apiKey()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void key_with_a_wrong_secret_is_rejected() throws Exception {
+        var issuedApiKey = apiKeyStore.issue(Set.of("ROLE_ADMIN"));
+
+        mockMvc.perform(get("/api/cards").header(AUTHORIZATION, "API_KEY " + issuedApiKey.keyId() + ".wrong"))
+                .andExpect(status().isUnauthorized());
+    }
+
+}
@@ -0,0 +1,123 @@
+package pl.training.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingJwtDecoderTest {
+
+    private static final String TOKEN = "header.payload.signature";
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(100, Duration.ofMinutes(5),
+            Clock.fixed(NOW, ZoneOffset.UTC), meterRegistry);
+    private final JwtDecoder jwtDecoder = mock(JwtDecoder.class);
+    private final CountingAuthoritiesConverter authoritiesConverter = new CountingAuthoritiesConverter();
+    private final CachingJwtDecoder cachingJwtDecoder = new CachingJwtDecoder(jwtDecoder, authoritiesConverter, verifiedTokenCache);
+
+    @Test
+    void token_is_verified_once_while_cached() {
+        when(jwtDecoder.decode(TOKEN)).thenReturn(jwt("key-1", NOW.plusSeconds(60)));
+
+        var first = cachingJwtDecoder.decode(TOKEN);
+        var second = cachingJwtDecoder.decode(TOKEN);
+
+        assertThat(second).isSameAs(first);
+        verify(jwtDecoder, times(1)).decode(TOKEN);
+        assertThat(meterRegistry.counter("security.token.cache.requests", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("security.token.cache.requests", "result", "miss").count()).isEqualTo(1);
+    }
+
+    @Test
+    void authorities_are_taken_from_the_decoded_token_without_another_lookup() {
+        when(jwtDecoder.decode(TOKEN)).thenReturn(jwt("key-1", NOW.plusSeconds(60)));
+        var converter = new CachingAuthoritiesConverter(authoritiesConverter);
+
+        var authorities = converter.convert(cachingJwtDecoder.decode(TOKEN));
+        converter.convert(cachingJwtDecoder.decode(TOKEN));
+
+        assertThat(authorities).containsExactlyElementsOf(AUTHORITIES);
+        assertThat(authoritiesConverter.calls).hasValue(1);
+    }
+
+    @Test
+    void token_decoded_elsewhere_falls_back_to_the_converter() {
+        var converter = new CachingAuthoritiesConverter(authoritiesConverter);
+
+        assertThat(converter.convert(jwt("key-1", NOW.plusSeconds(60)))).containsExactlyElementsOf(AUTHORITIES);
+        assertThat(authoritiesConverter.calls).hasValue(1);
+    }
+
+    @Test
+    void expired_token_is_not_cached() {
+        when(jwtDecoder.decode(TOKEN)).thenReturn(jwt("key-1", NOW.minusSeconds(1)));
+
+        cachingJwtDecoder.decode(TOKEN);
+        cachingJwtDecoder.decode(TOKEN);
+
+        verify(jwtDecoder, times(2)).decode(TOKEN);
+    }
+
+    @Test
+    void tokens_signed_with_a_retired_key_are_verified_again() {
+        when(jwtDecoder.decode(TOKEN)).thenReturn(jwt("key-1", NOW.plusSeconds(60)));
+        cachingJwtDecoder.decode(TOKEN);
+
+        verifiedTokenCache.retainKeys(Set.of("key-2"));
+        cachingJwtDecoder.decode(TOKEN);
+
+        verify(jwtDecoder, times(2)).decode(TOKEN);
+    }
+
+    @Test
+    void rejected_token_is_not_cached() {
+        when(jwtDecoder.decode(any())).thenThrow(new BadJwtException("invalid"));
+
+        assertThatExceptionOfType(BadJwtException.class).isThrownBy(() -> cachingJwtDecoder.decode(TOKEN));
+        assertThatExceptionOfType(BadJwtException.class).isThrownBy(() -> cachingJwtDecoder.decode(TOKEN));
+
+        verify(jwtDecoder, times(2)).decode(TOKEN);
+    }
+
+    private static Jwt jwt(final String keyId, final Instant expiration) {
+        return new Jwt(TOKEN, NOW.minusSeconds(60), expiration, Map.of("alg", "RS256", "kid", keyId), Map.of("sub", "user"));
+    }
+
+    private static class CountingAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Collection<GrantedAuthority> convert(final Jwt jwt) {
+            calls.incrementAndGet();
+            return AUTHORITIES;
+        }
+
+    }
+
+}
@@ -0,0 +1,131 @@
+package pl.training.security;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// Keycloak is replaced by a local stub server answering the end-session requests with the status the test sets
+class KeycloakLogoutHandlerTest {
+
+    private static final String REALM_PATH = "/realms/training";
+    private static final String ID_TOKEN = "id-token";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private HttpServer keycloak;
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<CountDownLatch> responseGate = new AtomicReference<>(new CountDownLatch(0));
+    private final ConcurrentLinkedQueue<String> requests = new ConcurrentLinkedQueue<>();
+    private KeycloakLogoutHandler logoutHandler;
+
+    @BeforeEach
+    void start() throws IOException {
+        keycloak = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        keycloak.createContext(REALM_PATH, exchange -> {
+            requests.add(exchange.getRequestURI().toString());
+            try {
+                responseGate.get().await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        keycloak.start();
+        var httpClient = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+        logoutHandler = new KeycloakLogoutHandler(httpClient, Duration.ofSeconds(2), MAX_ATTEMPTS, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void stop() {
+        responseGate.get().countDown();
+        keycloak.stop(0);
+    }
+
+    @Test
+    void end_session_request_carries_the_id_token() {
+        logout(oidcAuthentication());
+
+        await().atMost(TIMEOUT).until(() -> requests.size() == 1);
+        assertThat(requests.peek()).isEqualTo(REALM_PATH + "/protocol/openid-connect/logout?id_token_hint=" + ID_TOKEN);
+    }
+
+    @Test
+    void logout_does_not_wait_for_keycloak() {
+        var gate = new CountDownLatch(1);
+        responseGate.set(gate);
+
+        var startTime = System.nanoTime();
+        logout(oidcAuthentication());
+
+        assertThat(Duration.ofNanos(System.nanoTime() - startTime)).isLessThan(Duration.ofSeconds(1));
+        await().atMost(TIMEOUT).until(() -> requests.size() == 1);
+        gate.countDown();
+    }
+
+    @Test
+    void server_errors_are_retried_up_to_the_attempt_limit() throws InterruptedException {
+        status.set(503);
+
+        logout(oidcAuthentication());
+
+        await().atMost(TIMEOUT).until(() -> requests.size() == MAX_ATTEMPTS);
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertThat(requests).hasSize(MAX_ATTEMPTS);
+    }
+
+    @Test
+    void client_errors_are_not_retried() throws InterruptedException {
+        status.set(400);
+
+        logout(oidcAuthentication());
+
+        await().atMost(TIMEOUT).until(() -> requests.size() == 1);
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void logout_of_a_non_oidc_user_is_not_propagated() throws InterruptedException {
+        logout(new TestingAuthenticationToken("client", null, "ROLE_ADMIN"));
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertThat(requests).isEmpty();
+    }
+
+    private void logout(final Authentication authentication) {
+        logoutHandler.logout(new MockHttpServletRequest(), new MockHttpServletResponse(), authentication);
+    }
+
+    private Authentication oidcAuthentication() {
+        var issuer = "http://localhost:%d%s".formatted(keycloak.getAddress().getPort(), REALM_PATH);
+        var now = Instant.now();
+        var idToken = new OidcIdToken(ID_TOKEN, now, now.plusSeconds(60), Map.of("iss", issuer, "sub", "user"));
+        var user = new DefaultOidcUser(List.of(), idToken);
+        return new TestingAuthenticationToken(user, null, List.of());
+    }
+
+}
@@ -0,0 +1,186 @@
+package pl.training.security;
+
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// The issuer is replaced by a local key server serving whatever key set the test puts in place
+class RefreshingJwkSourceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @TempDir
+    private Path directory;
+    private HttpServer keyServer;
+    private final AtomicReference<JWKSet> servedKeys = new AtomicReference<>(new JWKSet());
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<CountDownLatch> responseGate = new AtomicReference<>(new CountDownLatch(0));
+    private RefreshingJwkSource jwkSource;
+
+    @BeforeEach
+    void startKeyServer() throws IOException {
+        keyServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        keyServer.createContext("/certs", exchange -> {
+            requests.incrementAndGet();
+            try {
+                responseGate.get().await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            var body = servedKeys.get().toString().getBytes(UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (var output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        keyServer.start();
+    }
+
+    @AfterEach
+    void stop() {
+        if (jwkSource != null) {
+            jwkSource.close();
+        }
+        responseGate.get().countDown();
+        keyServer.stop(0);
+    }
+
+    @Test
+    void keys_are_served_from_the_cache_file_while_the_issuer_is_unavailable() throws Exception {
+        var key = generateKey("key-1");
+        Files.writeString(cacheFile(), new JWKSet(key).toString());
+        keyServer.stop(0);
+
+        jwkSource = start(Duration.ofMinutes(5));
+
+        assertThat(jwkSource.get(selector("key-1"), null)).containsExactly(key);
+    }
+
+    @Test
+    void keys_fetched_in_the_background_are_written_to_the_cache_file() throws Exception {
+        var key = generateKey("key-1");
+        servedKeys.set(new JWKSet(key));
+
+        jwkSource = start(Duration.ofMinutes(5));
+
+        await().atMost(TIMEOUT).until(() -> !jwkSource.get(selector("key-1"), null).isEmpty());
+        await().atMost(TIMEOUT).until(() -> Files.exists(cacheFile()));
+        assertThat(JWKSet.load(cacheFile().toFile()).getKeyByKeyId("key-1")).isEqualTo(key);
+    }
+
+    @Test
+    void unknown_key_is_rejected_without_waiting_for_the_issuer_and_picked_up_by_the_background_refresh() throws Exception {
+        var key = generateKey("key-1");
+        Files.writeString(cacheFile(), new JWKSet(key).toString());
+        servedKeys.set(new JWKSet(key));
+        jwkSource = start(Duration.ZERO);
+        await().atMost(TIMEOUT).until(() -> requests.get() == 1);
+        var rotatedKey = generateKey("key-2");
+        servedKeys.set(new JWKSet(rotatedKey));
+        var gate = new CountDownLatch(1);
+        responseGate.set(gate);
+
+        var startTime = System.nanoTime();
+        var keys = jwkSource.get(selector("key-2"), null);
+
+        assertThat(keys).isEmpty();
+        assertThat(Duration.ofNanos(System.nanoTime() - startTime)).isLessThan(Duration.ofSeconds(1));
+        await().atMost(TIMEOUT).until(() -> requests.get() == 2);
+        gate.countDown();
+        await().atMost(TIMEOUT).until(() -> !jwkSource.get(selector("key-2"), null).isEmpty());
+    }
+
+    @Test
+    void unknown_keys_trigger_at_most_one_refresh_per_minimal_interval() throws Exception {
+        servedKeys.set(new JWKSet(generateKey("key-1")));
+        jwkSource = start(Duration.ofMinutes(5));
+        await().atMost(TIMEOUT).until(() -> !jwkSource.get(selector("key-1"), null).isEmpty());
+
+        for (int attempt = 0; attempt < 100; attempt++) {
+            jwkSource.get(selector("unknown"), null);
+        }
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void tokens_signed_with_removed_keys_leave_the_token_cache() throws Exception {
+        var verifiedTokenCache = new VerifiedTokenCache(100, Duration.ofMinutes(5), Clock.systemUTC(), new SimpleMeterRegistry());
+        servedKeys.set(new JWKSet(generateKey("key-1")));
+        jwkSource = new RefreshingJwkSource(RestClient.create(), jwksUri(), cacheFile(), Duration.ofMillis(50), Duration.ofMinutes(1),
+                verifiedTokenCache);
+        jwkSource.start();
+        await().atMost(TIMEOUT).until(() -> !jwkSource.get(selector("key-1"), null).isEmpty());
+        var verifications = new AtomicInteger();
+        var token = "header.payload.signature";
+        verifiedTokenCache.get(token, value -> verify(value, "key-1", verifications));
+
+        servedKeys.set(new JWKSet(generateKey("key-2")));
+        await().atMost(TIMEOUT).until(() -> !jwkSource.get(selector("key-2"), null).isEmpty());
+        verifiedTokenCache.get(token, value -> verify(value, "key-1", verifications));
+
+        assertThat(verifications).hasValue(2);
+    }
+
+    private VerifiedJwt verify(final String token, final String keyId, final AtomicInteger verifications) {
+        verifications.incrementAndGet();
+        var now = Instant.now();
+        var jwt = new Jwt(token, now, now.plusSeconds(60),
+                Map.of("alg", "RS256", "kid", keyId), Map.of("sub", "user"));
+        return new VerifiedJwt(jwt, List.of());
+    }
+
+    private RefreshingJwkSource start(final Duration minRefreshInterval) {
+        var verifiedTokenCache = new VerifiedTokenCache(100, Duration.ofMinutes(5), Clock.systemUTC(), new SimpleMeterRegistry());
+        var source = new RefreshingJwkSource(RestClient.create(), jwksUri(), cacheFile(), Duration.ofMinutes(5), minRefreshInterval,
+                verifiedTokenCache);
+        source.start();
+        return source;
+    }
+
+    private String jwksUri() {
+        return "http://localhost:%d/certs".formatted(keyServer.getAddress().getPort());
+    }
+
+    private Path cacheFile() {
+        return directory.resolve("jwks.json");
+    }
+
+    private static JWKSelector selector(final String keyId) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+    }
+
+    private static RSAKey generateKey(final String keyId) throws Exception {
+        return new RSAKeyGenerator(2048).keyID(keyId).generate().toPublicJWK();
+    }
+
+}